@@ -0,0 +1,388 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>A bounded cache of {@link HttpField}s, shared by the {@link HttpParser}s of many connections,
+ * that learns the header fields most frequently received.</p>
+ * <p>The per connection field cache of {@link HttpParser} is only useful to persistent connections,
+ * while many fields, such as the {@code User-Agent} of the clients of an API or the
+ * {@code X-Forwarded-*} fields added by a proxy, have the same value across connections.
+ * Parsers look up the whole field line in this cache before parsing it, and on a hit they
+ * reuse the cached {@link HttpField} without allocating new {@link String}s.</p>
+ * <p>Parsers offer the fields they parse to the cache, which samples them and admits them
+ * in a 2-way set associative table.
+ * Each entry has a small frequency counter incremented by hits; when a set is full, the counter
+ * of its least frequent entry is decremented and the entry is evicted once its counter reaches zero,
+ * so that only fields seen repeatedly displace the entries of a set.</p>
+ * <p>Only the fields of the {@link #getCacheableHeaders() cacheable headers} are cached, and only
+ * the field lines of these headers are looked up and accounted as hits or misses.
+ * Fields are cached with the name as received, so that clients sending lowercase names
+ * hit the cache as well as clients sending the canonical names.
+ * By default, these exclude {@link HttpHeader#AUTHORIZATION} and {@link HttpHeader#COOKIE}, so that
+ * credentials are not retained; they may be added if, for example, all clients use the same credentials.</p>
+ */
+@ManagedObject("Cache of the HTTP header fields received across connections")
+public class HttpFieldCache
+{
+    private static final int MAX_FREQUENCY = 15;
+
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _admissions = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final AtomicReferenceArray<Entry> _entries;
+    private final int _mask;
+    private final int _maxFieldSize;
+    private volatile Set<HttpHeader> _cacheable = EnumSet.of(
+        HttpHeader.HOST,
+        HttpHeader.USER_AGENT,
+        HttpHeader.ACCEPT,
+        HttpHeader.ACCEPT_CHARSET,
+        HttpHeader.ACCEPT_ENCODING,
+        HttpHeader.ACCEPT_LANGUAGE,
+        HttpHeader.CACHE_CONTROL,
+        HttpHeader.CONTENT_TYPE,
+        HttpHeader.ORIGIN,
+        HttpHeader.X_FORWARDED_FOR,
+        HttpHeader.X_FORWARDED_HOST,
+        HttpHeader.X_FORWARDED_PORT,
+        HttpHeader.X_FORWARDED_PROTO,
+        HttpHeader.X_FORWARDED_SERVER);
+    private volatile int _sampleRate = 4;
+
+    public HttpFieldCache()
+    {
+        this(1024, 512);
+    }
+
+    /**
+     * @param capacity the max number of cached fields, rounded up to a power of 2
+     * @param maxFieldSize the max size in bytes of a cached field line
+     */
+    public HttpFieldCache(int capacity, int maxFieldSize)
+    {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        _entries = new AtomicReferenceArray<>(size);
+        _mask = size - 1;
+        _maxFieldSize = maxFieldSize;
+    }
+
+    @ManagedAttribute("The max number of cached fields")
+    public int getCapacity()
+    {
+        return _entries.length();
+    }
+
+    @ManagedAttribute("The max size in bytes of a cached field line")
+    public int getMaxFieldSize()
+    {
+        return _maxFieldSize;
+    }
+
+    @ManagedAttribute("The number of cached fields")
+    public int getSize()
+    {
+        int size = 0;
+        for (int i = 0; i < _entries.length(); ++i)
+        {
+            if (_entries.get(i) != null)
+                size++;
+        }
+        return size;
+    }
+
+    /**
+     * @return the headers whose fields may be cached
+     */
+    public Set<HttpHeader> getCacheableHeaders()
+    {
+        return _cacheable;
+    }
+
+    /**
+     * @param headers the headers whose fields may be cached
+     */
+    public void setCacheableHeaders(Set<HttpHeader> headers)
+    {
+        _cacheable = headers.isEmpty() ? EnumSet.noneOf(HttpHeader.class) : EnumSet.copyOf(headers);
+    }
+
+    /**
+     * @param header the header
+     * @return whether the fields of the given header may be cached
+     */
+    public boolean isCacheable(HttpHeader header)
+    {
+        return header != null && _cacheable.contains(header);
+    }
+
+    @ManagedAttribute("One in how many offered fields is sampled for admission")
+    public int getSampleRate()
+    {
+        return _sampleRate;
+    }
+
+    /**
+     * @param sampleRate one in how many offered fields is sampled for admission, 1 to sample all fields
+     */
+    public void setSampleRate(int sampleRate)
+    {
+        _sampleRate = Math.max(1, sampleRate);
+    }
+
+    @ManagedAttribute("The number of field lines found in the cache")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of field lines not found in the cache")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The ratio of field lines found in the cache")
+    public double getHitRatio()
+    {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0.0 : (double)hits / total;
+    }
+
+    @ManagedAttribute("The number of fields admitted in the cache")
+    public long getAdmissions()
+    {
+        return _admissions.sum();
+    }
+
+    @ManagedAttribute("The number of fields evicted from the cache")
+    public long getEvictions()
+    {
+        return _evictions.sum();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _hits.reset();
+        _misses.reset();
+        _admissions.reset();
+        _evictions.reset();
+    }
+
+    @ManagedOperation(value = "Removes all the cached fields", impact = "ACTION")
+    public void clear()
+    {
+        for (int i = 0; i < _entries.length(); ++i)
+        {
+            _entries.set(i, null);
+        }
+    }
+
+    /**
+     * <p>Looks up the field line that starts at the given index of the buffer.</p>
+     * <p>The field line matches a cached field only if it is exactly its name as received, a colon,
+     * a space and its value, followed by CR or LF.
+     * The field lines of headers that are not cacheable are not looked up.</p>
+     *
+     * @param buffer the buffer, whose position is not modified
+     * @param index the index of the first byte of the field name
+     * @param limit the index after the last byte that can be looked up
+     * @return the cached field, or null if the field line is not cached
+     */
+    public HttpField get(ByteBuffer buffer, int index, int limit)
+    {
+        HttpHeader header = HttpHeader.CACHE.getBest(buffer, index - buffer.position(), limit - index);
+        if (!isCacheable(header))
+            return null;
+        int colon = index + header.asString().length();
+        if (colon >= limit || buffer.get(colon) != HttpTokens.COLON)
+            return null;
+
+        int end = HttpTokens.scanFieldValue(buffer, index, Math.min(limit, index + _maxFieldSize + 1));
+        if (end == limit || end - index > _maxFieldSize)
+        {
+            _misses.increment();
+            return null;
+        }
+        byte eol = buffer.get(end);
+        if (eol != HttpTokens.CARRIAGE_RETURN && eol != HttpTokens.LINE_FEED)
+        {
+            _misses.increment();
+            return null;
+        }
+
+        int hash = 0;
+        for (int i = index; i < end; ++i)
+        {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int set = setFor(hash);
+        for (int way = 0; way < 2; ++way)
+        {
+            Entry entry = _entries.get(set + way);
+            if (entry != null && entry._hash == hash && entry.matches(buffer, index, end))
+            {
+                // Racy increments only make the frequency approximate.
+                if (entry._frequency < MAX_FREQUENCY)
+                    entry._frequency++;
+                _hits.increment();
+                return entry._field;
+            }
+        }
+        _misses.increment();
+        return null;
+    }
+
+    /**
+     * <p>Offers a parsed field to the cache, with the name of the field.</p>
+     *
+     * @param field the parsed field
+     * @see #offer(String, HttpField)
+     */
+    public void offer(HttpField field)
+    {
+        offer(field.getName(), field);
+    }
+
+    /**
+     * <p>Offers a parsed field to the cache.</p>
+     * <p>Only a sample of the offered fields is considered for admission.</p>
+     *
+     * @param name the field name as received, which may differ in case from the name of the field
+     * @param field the parsed field
+     */
+    public void offer(String name, HttpField field)
+    {
+        if (!isCacheable(field.getHeader()) || field.getValue() == null)
+            return;
+        int sampleRate = _sampleRate;
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0)
+            return;
+
+        String line = name + ": " + field.getValue();
+        if (line.length() > _maxFieldSize)
+            return;
+        byte[] bytes = line.getBytes(StandardCharsets.ISO_8859_1);
+        int hash = 0;
+        for (byte b : bytes)
+        {
+            hash = 31 * hash + b;
+        }
+
+        int set = setFor(hash);
+        int victim = -1;
+        Entry victimEntry = null;
+        for (int way = 0; way < 2; ++way)
+        {
+            int index = set + way;
+            Entry entry = _entries.get(index);
+            if (entry == null)
+            {
+                if (_entries.compareAndSet(index, null, new Entry(field, bytes, hash)))
+                    _admissions.increment();
+                return;
+            }
+            if (entry._hash == hash && entry.matches(bytes))
+                return;
+            if (victimEntry == null || entry._frequency < victimEntry._frequency)
+            {
+                victim = index;
+                victimEntry = entry;
+            }
+        }
+
+        // Age the least frequent entry, and replace it once it is no longer used.
+        if (victimEntry._frequency > 0)
+        {
+            victimEntry._frequency--;
+            return;
+        }
+        if (_entries.compareAndSet(victim, victimEntry, new Entry(field, bytes, hash)))
+        {
+            _admissions.increment();
+            _evictions.increment();
+        }
+    }
+
+    private int setFor(int hash)
+    {
+        hash ^= hash >>> 16;
+        return (hash & _mask) & ~1;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d/%d,hits=%d,misses=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getSize(),
+            getCapacity(),
+            getHits(),
+            getMisses());
+    }
+
+    private static class Entry
+    {
+        private final HttpField _field;
+        private final byte[] _bytes;
+        private final int _hash;
+        private volatile int _frequency;
+
+        private Entry(HttpField field, byte[] bytes, int hash)
+        {
+            _field = field;
+            _bytes = bytes;
+            _hash = hash;
+        }
+
+        private boolean matches(ByteBuffer buffer, int index, int end)
+        {
+            if (end - index != _bytes.length)
+                return false;
+            for (int i = 0; i < _bytes.length; ++i)
+            {
+                if (buffer.get(index + i) != _bytes[i])
+                    return false;
+            }
+            return true;
+        }
+
+        private boolean matches(byte[] bytes)
+        {
+            return Arrays.equals(_bytes, bytes);
+        }
+    }
+}
@@ -48,9 +48,18 @@ import org.slf4j.LoggerFactory;
 public class HttpFields implements Iterable<HttpField>
 {
     private static final Logger LOG = LoggerFactory.getLogger(HttpFields.class);
+    private static final int HEADERS = HttpHeader.values().length;
+    // Below this size a scan is as fast as the index, which is not allocated.
+    private static final int INDEX_MIN_SIZE = 8;
 
     private HttpField[] _fields;
     private int _size;
+    // A bit per HttpHeader ordinal that is clear only if there is no field of that header.
+    private long _headers0;
+    private long _headers1;
+    // The index plus 1 of the first field of each HttpHeader ordinal, valid only if _indexed.
+    private short[] _firstIndex;
+    private boolean _indexed;
 
     /**
      * Initialize an empty HttpFields.
@@ -79,6 +88,8 @@ public class HttpFields implements Iterable<HttpField>
     {
         _fields = Arrays.copyOf(fields._fields, fields._fields.length);
         _size = fields._size;
+        _headers0 = fields._headers0;
+        _headers1 = fields._headers1;
     }
 
     public int size()
@@ -146,13 +157,8 @@ public class HttpFields implements Iterable<HttpField>
 
     public HttpField getField(HttpHeader header)
     {
-        for (int i = 0; i < _size; i++)
-        {
-            HttpField f = _fields[i];
-            if (f.getHeader() == header)
-                return f;
-        }
-        return null;
+        int i = indexOf(header);
+        return i < 0 ? null : _fields[i];
     }
 
     public HttpField getField(String name)
@@ -168,8 +174,11 @@ public class HttpFields implements Iterable<HttpField>
 
     public List<HttpField> getFields(HttpHeader header)
     {
+        int first = indexOf(header);
+        if (first < 0)
+            return Collections.emptyList();
         List<HttpField> fields = null;
-        for (int i = 0; i < _size; i++)
+        for (int i = first; i < _size; i++)
         {
             HttpField f = _fields[i];
             if (f.getHeader() == header)
@@ -195,7 +204,10 @@ public class HttpFields implements Iterable<HttpField>
 
     public boolean contains(HttpHeader header, String value)
     {
-        for (int i = _size; i-- > 0; )
+        int first = indexOf(header);
+        if (first < 0)
+            return false;
+        for (int i = _size; i-- > first; )
         {
             HttpField f = _fields[i];
             if (f.getHeader() == header && f.contains(value))
@@ -217,13 +229,7 @@ public class HttpFields implements Iterable<HttpField>
 
     public boolean contains(HttpHeader header)
     {
-        for (int i = _size; i-- > 0; )
-        {
-            HttpField f = _fields[i];
-            if (f.getHeader() == header)
-                return true;
-        }
-        return false;
+        return indexOf(header) >= 0;
     }
 
     public boolean containsKey(String name)
@@ -239,13 +245,8 @@ public class HttpFields implements Iterable<HttpField>
 
     public String get(HttpHeader header)
     {
-        for (int i = 0; i < _size; i++)
-        {
-            HttpField f = _fields[i];
-            if (f.getHeader() == header)
-                return f.getValue();
-        }
-        return null;
+        int i = indexOf(header);
+        return i < 0 ? null : _fields[i].getValue();
     }
 
     public String get(String header)
@@ -268,7 +269,10 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getValuesList(HttpHeader header)
     {
         final List<String> list = new ArrayList<>();
-        for (int i = 0; i < _size; i++)
+        int first = indexOf(header);
+        if (first < 0)
+            return list;
+        for (int i = first; i < _size; i++)
         {
             HttpField f = _fields[i];
             if (f.getHeader() == header)
@@ -306,7 +310,7 @@ public class HttpFields implements Iterable<HttpField>
     public boolean addCSV(HttpHeader header, String... values)
     {
         QuotedCSV existing = null;
-        for (int i = 0; i < _size; i++)
+        for (int i = Math.max(0, indexOf(header)); i < _size; i++)
         {
             HttpField f = _fields[i];
             if (f.getHeader() == header)
@@ -403,8 +407,12 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getCSV(HttpHeader header, boolean keepQuotes)
     {
         QuotedCSV values = null;
-        for (HttpField f : this)
+        int first = indexOf(header);
+        if (first < 0)
+            return Collections.emptyList();
+        for (int i = first; i < _size; i++)
         {
+            HttpField f = _fields[i];
             if (f.getHeader() == header)
             {
                 if (values == null)
@@ -461,8 +469,12 @@ public class HttpFields implements Iterable<HttpField>
     public List<String> getQualityCSV(HttpHeader header, ToIntFunction<String> secondaryOrdering)
     {
         QuotedQualityCSV values = null;
-        for (HttpField f : this)
+        int first = indexOf(header);
+        if (first < 0)
+            return Collections.emptyList();
+        for (int i = first; i < _size; i++)
         {
+            HttpField f = _fields[i];
             if (f.getHeader() == header)
             {
                 if (values == null)
@@ -571,8 +583,16 @@ public class HttpFields implements Iterable<HttpField>
                 }
             }
         }
-        if (!put)
+        if (put)
+        {
+            // The replaced field may have had a different header with the same name.
+            _indexed = false;
+            indexed(field, -1);
+        }
+        else
+        {
             add(field);
+        }
     }
 
     /**
@@ -667,7 +687,8 @@ public class HttpFields implements Iterable<HttpField>
         {
             if (_size == _fields.length)
                 _fields = Arrays.copyOf(_fields, _size * 2);
-            _fields[_size++] = field;
+            _fields[_size] = field;
+            indexed(field, _size++);
         }
     }
 
@@ -702,8 +723,11 @@ public class HttpFields implements Iterable<HttpField>
      */
     public HttpField remove(HttpHeader name)
     {
+        int first = indexOf(name);
+        if (first < 0)
+            return null;
         HttpField removed = null;
-        for (int i = _size; i-- > 0; )
+        for (int i = _size; i-- > first; )
         {
             HttpField f = _fields[i];
             if (f.getHeader() == name)
@@ -712,6 +736,9 @@ public class HttpFields implements Iterable<HttpField>
                 System.arraycopy(_fields, i + 1, _fields, i, --_size - i);
             }
         }
+        _indexed = false;
+        if (name != null)
+            unindexed(name);
         return removed;
     }
 
@@ -731,6 +758,7 @@ public class HttpFields implements Iterable<HttpField>
             {
                 removed = f;
                 System.arraycopy(_fields, i + 1, _fields, i, --_size - i);
+                _indexed = false;
             }
         }
         return removed;
@@ -904,6 +932,9 @@ public class HttpFields implements Iterable<HttpField>
     public void clear()
     {
         _size = 0;
+        _headers0 = 0;
+        _headers1 = 0;
+        _indexed = false;
     }
 
     public void addAll(HttpFields fields)
@@ -981,6 +1012,106 @@ public class HttpFields implements Iterable<HttpField>
         return value.substring(0, i).trim();
     }
 
+    /**
+     * <p>Finds the first field of the given header.</p>
+     * <p>Headers that have never been added, or that have been removed, are not found
+     * without scanning the fields; the others are found via an index of the first field
+     * of each header, built on demand when there are many fields.</p>
+     *
+     * @param header the header
+     * @return the index of the first field of the given header, or -1 if there is none
+     */
+    private int indexOf(HttpHeader header)
+    {
+        if (header != null)
+        {
+            int ordinal = header.ordinal();
+            long bits = ordinal < 64 ? _headers0 : _headers1;
+            if (ordinal < 128 && (bits & (1L << ordinal)) == 0)
+                return -1;
+            if (_size >= INDEX_MIN_SIZE && (_indexed || index()))
+                return _firstIndex[ordinal] - 1;
+        }
+        for (int i = 0; i < _size; i++)
+        {
+            if (_fields[i].getHeader() == header)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Records that a field has been added.
+     *
+     * @param field the field
+     * @param index the index of the field if it was appended, or -1
+     */
+    private void indexed(HttpField field, int index)
+    {
+        HttpHeader header = field.getHeader();
+        if (header == null)
+            return;
+        int ordinal = header.ordinal();
+        if (ordinal < 64)
+            _headers0 |= 1L << ordinal;
+        else if (ordinal < 128)
+            _headers1 |= 1L << ordinal;
+        if (_indexed)
+        {
+            if (index < 0 || index >= Short.MAX_VALUE)
+                _indexed = false;
+            else if (_firstIndex[ordinal] == 0)
+                _firstIndex[ordinal] = (short)(index + 1);
+        }
+    }
+
+    /**
+     * Records that there are no more fields of a header.
+     *
+     * @param header the header
+     */
+    private void unindexed(HttpHeader header)
+    {
+        int ordinal = header.ordinal();
+        if (ordinal < 64)
+            _headers0 &= ~(1L << ordinal);
+        else if (ordinal < 128)
+            _headers1 &= ~(1L << ordinal);
+    }
+
+    /**
+     * Rebuilds the index of the first field of each header, and the header bits.
+     *
+     * @return whether the index could be built
+     */
+    private boolean index()
+    {
+        if (_size >= Short.MAX_VALUE)
+            return false;
+        if (_firstIndex == null)
+            _firstIndex = new short[HEADERS];
+        else
+            Arrays.fill(_firstIndex, (short)0);
+        long headers0 = 0;
+        long headers1 = 0;
+        for (int i = _size; i-- > 0; )
+        {
+            HttpHeader header = _fields[i].getHeader();
+            if (header == null)
+                continue;
+            int ordinal = header.ordinal();
+            _firstIndex[ordinal] = (short)(i + 1);
+            if (ordinal < 64)
+                headers0 |= 1L << ordinal;
+            else if (ordinal < 128)
+                headers1 |= 1L << ordinal;
+        }
+        _headers0 = headers0;
+        _headers1 = headers1;
+        _indexed = true;
+        return true;
+    }
+
     private class ListItr implements ListIterator<HttpField>
     {
         int _cursor;       // index of next element to return
@@ -1009,6 +1140,7 @@ public class HttpFields implements Iterable<HttpField>
             _size--;
             System.arraycopy(_fields, _current + 1, _fields, _current, _size - _current);
             _fields[_size] = null;
+            _indexed = false;
             _cursor = _current;
             _current = -1;
         }
@@ -1046,6 +1178,8 @@ public class HttpFields implements Iterable<HttpField>
             if (_current < 0)
                 throw new IllegalStateException();
             _fields[_current] = field;
+            _indexed = false;
+            indexed(field, -1);
         }
 
         @Override
@@ -1055,6 +1189,8 @@ public class HttpFields implements Iterable<HttpField>
             System.arraycopy(_fields, _cursor, _fields, _cursor + 1, _size++);
             _fields[_cursor++] = field;
             _current = -1;
+            _indexed = false;
+            indexed(field, -1);
         }
     }
 }
@@ -0,0 +1,144 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>A template of header fields that are sent together by many responses, encoded once as a block.</p>
+ * <p>Responses of the same kind, for example those of an API, often have identical header fields
+ * apart from {@code Content-Length} and {@code Date}.
+ * The fields of a template are added to the response fields with {@link #addTo(HttpFields)};
+ * when {@link HttpGenerator} finds all the fields of the template, in order and unmodified,
+ * it copies the pre-encoded block into the header buffer rather than encoding each field.
+ * Variable fields, such as {@code Content-Length} and {@code Date}, are generated as usual.</p>
+ * <p>The fields of a template are {@link PreEncodedHttpField}s, so they are visible to the
+ * application like any other field; if any of them is removed or replaced, the remaining fields
+ * are generated individually.</p>
+ */
+public class HttpFieldsTemplate
+{
+    private static final Http1FieldPreEncoder ENCODER = new Http1FieldPreEncoder();
+
+    private final HttpField[] _fields;
+    private final byte[] _block;
+
+    /**
+     * @param fields the fields of the template, which cannot be {@code Content-Length} or {@code Transfer-Encoding}
+     */
+    public HttpFieldsTemplate(HttpField... fields)
+    {
+        if (fields.length == 0)
+            throw new IllegalArgumentException("No fields");
+        _fields = new HttpField[fields.length];
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        for (int i = 0; i < fields.length; i++)
+        {
+            HttpField field = fields[i];
+            HttpHeader header = field.getHeader();
+            if (header == HttpHeader.CONTENT_LENGTH || header == HttpHeader.TRANSFER_ENCODING)
+                throw new IllegalArgumentException("Variable field " + field);
+            if (field.getValue() == null)
+                throw new IllegalArgumentException("No value " + field);
+            _fields[i] = new Field(this, header, field.getName(), field.getValue());
+            byte[] encoded = ENCODER.getEncodedField(header, field.getName(), field.getValue());
+            block.write(encoded, 0, encoded.length);
+        }
+        _block = block.toByteArray();
+    }
+
+    /**
+     * @return the fields of this template
+     */
+    public List<HttpField> getFields()
+    {
+        return Collections.unmodifiableList(Arrays.asList(_fields));
+    }
+
+    /**
+     * @return the size in bytes of the encoded block
+     */
+    public int getBlockSize()
+    {
+        return _block.length;
+    }
+
+    /**
+     * <p>Appends the fields of this template to the given fields.</p>
+     * <p>The fields should not already contain fields with the same names.</p>
+     *
+     * @param fields the fields to append the template fields to
+     */
+    public void addTo(HttpFields fields)
+    {
+        for (HttpField field : _fields)
+        {
+            fields.add(field);
+        }
+    }
+
+    /**
+     * @param fields the fields to generate
+     * @param index the index of a field of this template
+     * @return the index after the fields of this template, if they all are at the given index, otherwise the given index
+     */
+    int match(HttpFields fields, int index)
+    {
+        int size = _fields.length;
+        if (index + size > fields.size())
+            return index;
+        for (int i = 0; i < size; i++)
+        {
+            if (fields.getField(index + i) != _fields[i])
+                return index;
+        }
+        return index + size;
+    }
+
+    void putTo(ByteBuffer bufferInFillMode)
+    {
+        bufferInFillMode.put(_block);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x%s", getClass().getSimpleName(), hashCode(), Arrays.toString(_fields));
+    }
+
+    static class Field extends PreEncodedHttpField
+    {
+        private final HttpFieldsTemplate _template;
+
+        private Field(HttpFieldsTemplate template, HttpHeader header, String name, String value)
+        {
+            super(header, name, value);
+            _template = template;
+        }
+
+        HttpFieldsTemplate getTemplate()
+        {
+            return _template;
+        }
+    }
+}
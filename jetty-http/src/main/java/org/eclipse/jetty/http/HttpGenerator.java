@@ -600,12 +600,27 @@ public class HttpGenerator
         if (fields != null)
         {
             int n = fields.size();
+            int templateEnd = 0;
             for (int f = 0; f < n; f++)
             {
                 HttpField field = fields.getField(f);
+
+                // Copy the block of a template whose fields are all present.
+                if (f >= templateEnd && field instanceof HttpFieldsTemplate.Field)
+                {
+                    HttpFieldsTemplate template = ((HttpFieldsTemplate.Field)field).getTemplate();
+                    templateEnd = template.match(fields, f);
+                    if (templateEnd > f)
+                        template.putTo(header);
+                }
+                boolean put = f >= templateEnd;
+
                 HttpHeader h = field.getHeader();
                 if (h == null)
-                    putTo(field, header);
+                {
+                    if (put)
+                        putTo(field, header);
+                }
                 else
                 {
                     switch (h)
@@ -622,7 +637,8 @@ public class HttpGenerator
                         {
                             // write the field to the header
                             contentType = true;
-                            putTo(field, header);
+                            if (put)
+                                putTo(field, header);
                             break;
                         }
 
@@ -640,7 +656,8 @@ public class HttpGenerator
 
                         case CONNECTION:
                         {
-                            putTo(field, header);
+                            if (put)
+                                putTo(field, header);
                             if (field.contains(HttpHeaderValue.CLOSE.asString()))
                             {
                                 close = true;
@@ -657,12 +674,14 @@ public class HttpGenerator
                         case SERVER:
                         {
                             send = send & ~SEND_SERVER;
-                            putTo(field, header);
+                            if (put)
+                                putTo(field, header);
                             break;
                         }
 
                         default:
-                            putTo(field, header);
+                            if (put)
+                                putTo(field, header);
                     }
                 }
             }
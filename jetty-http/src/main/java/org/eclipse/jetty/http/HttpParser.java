@@ -180,6 +180,8 @@ public class HttpParser
     private boolean _cr;
     private ByteBuffer _contentChunk;
     private Trie<HttpField> _fieldCache;
+    private HttpFieldCache _sharedFieldCache;
+    private String _sharedFieldName;
     private int _length;
     private final StringBuilder _string = new StringBuilder();
     private int _headerCacheSize = 1024;
@@ -313,6 +315,20 @@ public class HttpParser
         _headerCacheCaseSensitive = headerCacheCaseSensitive;
     }
 
+    public HttpFieldCache getSharedFieldCache()
+    {
+        return _sharedFieldCache;
+    }
+
+    /**
+     * @param sharedFieldCache the cache of header fields shared with other parsers, or null
+     * @see HttpFieldCache
+     */
+    public void setSharedFieldCache(HttpFieldCache sharedFieldCache)
+    {
+        _sharedFieldCache = sharedFieldCache;
+    }
+
     protected void checkViolation(Violation violation) throws BadMessageException
     {
         if (violation.isAllowedBy(_complianceMode))
@@ -332,6 +348,16 @@ public class HttpParser
             _complianceListener.onComplianceViolation(_complianceMode, violation, reason);
     }
 
+    private static String receivedName(ByteBuffer buffer, int index, String name)
+    {
+        for (int i = 0; i < name.length(); ++i)
+        {
+            if (buffer.get(index + i) != name.charAt(i))
+                return BufferUtil.toString(buffer, index, name.length(), StandardCharsets.US_ASCII);
+        }
+        return name;
+    }
+
     protected String caseInsensitiveHeader(String orig, String normative)
     {
         if (CASE_SENSITIVE_FIELD_NAME.isAllowedBy(_complianceMode))
@@ -686,30 +712,29 @@ public class HttpParser
                                 _uri.reset();
                                 setState(State.URI);
                                 // quick scan for space or EoBuffer
+                                int p = buffer.position();
+                                int i = HttpTokens.scanURI(buffer, p, buffer.limit());
+                                int len = i - p;
+                                _headerBytes += len;
+
+                                if (_maxHeaderBytes > 0 && ++_headerBytes > _maxHeaderBytes)
+                                {
+                                    LOG.warn("URI is too large >" + _maxHeaderBytes);
+                                    throw new BadMessageException(HttpStatus.URI_TOO_LONG_414);
+                                }
                                 if (buffer.hasArray())
                                 {
-                                    byte[] array = buffer.array();
-                                    int p = buffer.arrayOffset() + buffer.position();
-                                    int l = buffer.arrayOffset() + buffer.limit();
-                                    int i = p;
-                                    while (i < l && array[i] > HttpTokens.SPACE)
-                                    {
-                                        i++;
-                                    }
-
-                                    int len = i - p;
-                                    _headerBytes += len;
-
-                                    if (_maxHeaderBytes > 0 && ++_headerBytes > _maxHeaderBytes)
-                                    {
-                                        LOG.warn("URI is too large >" + _maxHeaderBytes);
-                                        throw new BadMessageException(HttpStatus.URI_TOO_LONG_414);
-                                    }
-                                    _uri.append(array, p - 1, len + 1);
-                                    buffer.position(i - buffer.arrayOffset());
+                                    _uri.append(buffer.array(), buffer.arrayOffset() + p - 1, len + 1);
                                 }
                                 else
+                                {
                                     _uri.append(t.getByte());
+                                    for (int j = p; j < i; j++)
+                                    {
+                                        _uri.append(buffer.get(j));
+                                    }
+                                }
+                                buffer.position(i);
                             }
                             break;
 
@@ -935,6 +960,9 @@ public class HttpParser
         // handler last header if any.  Delayed to here just in case there was a continuation line (above)
         if (_headerString != null || _valueString != null)
         {
+            // Was the field parsed rather than found in a cache?
+            boolean parsed = _field == null;
+
             // Handle known headers
             if (_header != null)
             {
@@ -1042,10 +1070,15 @@ public class HttpParser
                     _fieldCache.put(_field);
                 }
             }
-            _handler.parsedHeader(_field != null ? _field : new HttpField(_header, _headerString, _valueString));
+
+            HttpField field = _field != null ? _field : new HttpField(_header, _headerString, _valueString);
+            if (parsed && _sharedFieldCache != null)
+                _sharedFieldCache.offer(_sharedFieldName != null ? _sharedFieldName : _headerString, field);
+            _handler.parsedHeader(field);
         }
 
         _headerString = _valueString = null;
+        _sharedFieldName = null;
         _header = null;
         _field = null;
     }
@@ -1057,6 +1090,7 @@ public class HttpParser
             _handler.parsedTrailer(_field != null ? _field : new HttpField(_header, _headerString, _valueString));
 
         _headerString = _valueString = null;
+        _sharedFieldName = null;
         _header = null;
         _field = null;
     }
@@ -1219,6 +1253,8 @@ public class HttpParser
                             {
                                 // Try a look ahead for the known header name and value.
                                 HttpField cachedField = _fieldCache == null ? null : _fieldCache.getBest(buffer, -1, buffer.remaining());
+                                if (cachedField == null && _sharedFieldCache != null)
+                                    cachedField = _sharedFieldCache.get(buffer, buffer.position() - 1, buffer.limit());
                                 if (cachedField == null)
                                     cachedField = CACHE.getBest(buffer, -1, buffer.remaining());
 
@@ -1254,6 +1290,10 @@ public class HttpParser
 
                                     if (v == null)
                                     {
+                                        // The shared field cache needs the name as received.
+                                        if (_sharedFieldCache != null && _sharedFieldCache.isCacheable(_header))
+                                            _sharedFieldName = receivedName(buffer, buffer.position() - 1, n);
+
                                         // Header only
                                         setState(FieldState.VALUE);
                                         _string.setLength(0);
@@ -1344,6 +1384,7 @@ public class HttpParser
                         case TCHAR:
                             _string.append(t.getChar());
                             _length = _string.length();
+                            scanFieldName(buffer);
                             break;
 
                         default:
@@ -1401,6 +1442,7 @@ public class HttpParser
                             _string.append(t.getChar());
                             _length = _string.length();
                             setState(FieldState.IN_VALUE);
+                            scanFieldValue(buffer);
                             break;
 
                         default:
@@ -1433,6 +1475,7 @@ public class HttpParser
                         case OTEXT: // TODO review? should this be a utf8 string?
                             _string.append(t.getChar());
                             _length = _string.length();
+                            scanFieldValue(buffer);
                             break;
 
                         default:
@@ -1448,6 +1491,67 @@ public class HttpParser
         return false;
     }
 
+    /**
+     * <p>Consumes the rest of a field name that can be appended without per byte token handling.</p>
+     * <p>The bytes are classified 8 at a time, and the byte that ends the run, as well as any
+     * delimiter, is left in the buffer for {@link #parseFields(ByteBuffer)}.</p>
+     */
+    private void scanFieldName(ByteBuffer buffer)
+    {
+        int position = buffer.position();
+        int end = HttpTokens.scanFieldName(buffer, position, scanLimit(buffer));
+        int i = position;
+        while (i < end)
+        {
+            HttpTokens.Token t = HttpTokens.TOKENS[0xFF & buffer.get(i)];
+            if (t.getType() == HttpTokens.Type.VCHAR)
+                break;
+            _string.append(t.getChar());
+            i++;
+        }
+        if (i > position)
+        {
+            _length = _string.length();
+            _headerBytes += i - position;
+            buffer.position(i);
+        }
+    }
+
+    /**
+     * <p>Consumes the rest of a field value up to the next control character.</p>
+     * <p>The bytes are classified 8 at a time, and the control character that ends the run,
+     * usually the CR or LF, is left in the buffer for {@link #parseFields(ByteBuffer)}.</p>
+     */
+    private void scanFieldValue(ByteBuffer buffer)
+    {
+        int position = buffer.position();
+        int end = HttpTokens.scanFieldValue(buffer, position, scanLimit(buffer));
+        if (end == position)
+            return;
+        for (int i = position; i < end; i++)
+        {
+            char c = (char)(0xFF & buffer.get(i));
+            _string.append(c);
+            // Trailing white space is not part of the value.
+            if (c != ' ')
+                _length = _string.length();
+        }
+        _headerBytes += end - position;
+        buffer.position(end);
+    }
+
+    /**
+     * @return the limit of a scan that does not exceed the max header bytes,
+     * so that the byte that exceeds it is reported by the per byte parsing
+     */
+    private int scanLimit(ByteBuffer buffer)
+    {
+        int limit = buffer.limit();
+        if (_maxHeaderBytes > 0)
+            limit = Math.min(limit, buffer.position() + Math.max(0, _maxHeaderBytes - _headerBytes));
+        return limit;
+    }
+
     /**
      * Parse until next Event.
      *
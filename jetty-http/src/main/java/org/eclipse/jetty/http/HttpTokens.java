@@ -18,6 +18,11 @@
 
 package org.eclipse.jetty.http;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
 import org.eclipse.jetty.util.TypeUtil;
 
 /**
@@ -32,6 +37,12 @@ public class HttpTokens
     static final byte SPACE = 0x20;
     static final byte[] CRLF = {CARRIAGE_RETURN, LINE_FEED};
 
+    // Reads 8 bytes at any index of heap or direct buffers, the first byte being the least significant.
+    private static final VarHandle LONG_LE = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGHS = 0x8080808080808080L;
+    private static final long LOWS = 0x7F7F7F7F7F7F7F7FL;
+
     public enum EndOfContent
     {
         UNKNOWN_CONTENT, NO_CONTENT, EOF_CONTENT, CONTENT_LENGTH, CHUNKED_CONTENT
@@ -188,5 +199,111 @@ public class HttpTokens
             }
         }
     }
-}
 
+    /**
+     * <p>Scans a field value, 8 bytes at a time, for the first byte that is a control
+     * character (including HTAB, CR and LF) or DEL.</p>
+     *
+     * @param buffer the buffer to scan, whose position is not modified
+     * @param index the index of the first byte to scan
+     * @param limit the index after the last byte to scan
+     * @return the index of the first control byte, or {@code limit} if there is none
+     */
+    public static int scanFieldValue(ByteBuffer buffer, int index, int limit)
+    {
+        while (limit - index >= 8)
+        {
+            long word = (long)LONG_LE.get(buffer, index);
+            long found = lessThan(word, 0x20) | equalTo(word, 0x7F);
+            if (found != 0)
+                return index + (Long.numberOfTrailingZeros(found) >>> 3);
+            index += 8;
+        }
+        while (index < limit)
+        {
+            int b = 0xFF & buffer.get(index);
+            if (b < 0x20 || b == 0x7F)
+                return index;
+            index++;
+        }
+        return limit;
+    }
+
+    /**
+     * <p>Scans a field name, 8 bytes at a time, for the first byte that is a control
+     * character, SPACE, COLON, DEL or obsolete text.</p>
+     * <p>The bytes before the returned index are visible characters, but they may still
+     * be delimiters that are not allowed in tokens.</p>
+     *
+     * @param buffer the buffer to scan, whose position is not modified
+     * @param index the index of the first byte to scan
+     * @param limit the index after the last byte to scan
+     * @return the index of the first non visible byte or COLON, or {@code limit} if there is none
+     */
+    public static int scanFieldName(ByteBuffer buffer, int index, int limit)
+    {
+        while (limit - index >= 8)
+        {
+            long word = (long)LONG_LE.get(buffer, index);
+            long found = lessThan(word, 0x21) | equalTo(word, COLON) | equalTo(word, 0x7F) | (word & HIGHS);
+            if (found != 0)
+                return index + (Long.numberOfTrailingZeros(found) >>> 3);
+            index += 8;
+        }
+        while (index < limit)
+        {
+            int b = 0xFF & buffer.get(index);
+            if (b <= 0x20 || b == COLON || b >= 0x7F)
+                return index;
+            index++;
+        }
+        return limit;
+    }
+
+    /**
+     * <p>Scans a request target, 8 bytes at a time, for the first byte that is a control
+     * character, SPACE or obsolete text.</p>
+     *
+     * @param buffer the buffer to scan, whose position is not modified
+     * @param index the index of the first byte to scan
+     * @param limit the index after the last byte to scan
+     * @return the index of the first byte not greater than SPACE as a signed byte, or {@code limit} if there is none
+     */
+    public static int scanURI(ByteBuffer buffer, int index, int limit)
+    {
+        while (limit - index >= 8)
+        {
+            long word = (long)LONG_LE.get(buffer, index);
+            long found = lessThan(word, 0x21) | (word & HIGHS);
+            if (found != 0)
+                return index + (Long.numberOfTrailingZeros(found) >>> 3);
+            index += 8;
+        }
+        while (index < limit)
+        {
+            if (buffer.get(index) <= SPACE)
+                return index;
+            index++;
+        }
+        return limit;
+    }
+
+    /**
+     * @return a word with the high bit set in each byte of the given word that is less than {@code n}, with {@code n <= 0x80}
+     */
+    private static long lessThan(long word, int n)
+    {
+        // Adding (0x80 - n) to the low 7 bits sets the high bit when the byte is at least n,
+        // without carrying into the next byte; bytes with the high bit set are never less than n.
+        return ~(((word & LOWS) + (0x80 - n) * ONES) | word) & HIGHS;
+    }
+
+    /**
+     * @return a word with the high bit set in each byte of the given word that is equal to {@code b}
+     */
+    private static long equalTo(long word, int b)
+    {
+        long x = word ^ (b * ONES);
+        return ~(((x & LOWS) + LOWS) | x) & HIGHS;
+    }
+}
@@ -75,6 +75,19 @@ public class HttpURI
     private String _param;
     private String _query;
     private String _fragment;
+    // The parsed components are only recorded as offsets into _source,
+    // and their Strings are created on the first access.
+    private String _source;
+    private int _pathStart = -1;
+    private int _pathEnd;
+    private int _paramStart = -1;
+    private int _paramEnd;
+    private int _queryStart = -1;
+    private int _queryEnd;
+    private int _fragmentStart = -1;
+    private int _fragmentEnd;
+    // Whether the decoded path is the path without the param.
+    private boolean _plainPath;
 
     String _uri;
     String _decodedPath;
@@ -118,7 +131,7 @@ public class HttpURI
 
     public HttpURI(HttpURI uri)
     {
-        this(uri._scheme, uri._host, uri._port, uri._path, uri._param, uri._query, uri._fragment);
+        this(uri._scheme, uri._host, uri._port, uri.getPath(), uri.getParam(), uri.getQuery(), uri.getFragment());
         _uri = uri._uri;
     }
 
@@ -182,6 +195,11 @@ public class HttpURI
 
     private void parse(State state, final String uri)
     {
+        // Components not found in this URI may still refer to the previous source.
+        if (_source != null)
+            materialize();
+        _source = uri;
+
         boolean encoded = false;
         int end = uri.length();
         int mark = 0;
@@ -207,7 +225,7 @@ public class HttpURI
                             break;
                         case '?':
                             // assume empty path (if seen at start)
-                            _path = "";
+                            path(i, i);
                             mark = i + 1;
                             state = State.QUERY;
                             break;
@@ -216,7 +234,7 @@ public class HttpURI
                             state = State.FRAGMENT;
                             break;
                         case '*':
-                            _path = "*";
+                            path(i, i + 1);
                             state = State.ASTERISK;
                             break;
 
@@ -265,7 +283,7 @@ public class HttpURI
 
                         case '?':
                             // must have been in a path 
-                            _path = uri.substring(mark, i);
+                            path(mark, i);
                             mark = i + 1;
                             state = State.QUERY;
                             break;
@@ -278,7 +296,7 @@ public class HttpURI
 
                         case '#':
                             // must have been in a path 
-                            _path = uri.substring(mark, i);
+                            path(mark, i);
                             state = State.FRAGMENT;
                             break;
 
@@ -412,12 +430,12 @@ public class HttpURI
                             state = State.PARAM;
                             break;
                         case '?':
-                            _path = uri.substring(pathMark, i);
+                            path(pathMark, i);
                             mark = i + 1;
                             state = State.QUERY;
                             break;
                         case '#':
-                            _path = uri.substring(pathMark, i);
+                            path(pathMark, i);
                             mark = i + 1;
                             state = State.FRAGMENT;
                             break;
@@ -439,14 +457,14 @@ public class HttpURI
                     switch (c)
                     {
                         case '?':
-                            _path = uri.substring(pathMark, i);
-                            _param = uri.substring(mark, i);
+                            path(pathMark, i);
+                            param(mark, i);
                             mark = i + 1;
                             state = State.QUERY;
                             break;
                         case '#':
-                            _path = uri.substring(pathMark, i);
-                            _param = uri.substring(mark, i);
+                            path(pathMark, i);
+                            param(mark, i);
                             mark = i + 1;
                             state = State.FRAGMENT;
                             break;
@@ -469,7 +487,7 @@ public class HttpURI
                 {
                     if (c == '#')
                     {
-                        _query = uri.substring(mark, i);
+                        query(mark, i);
                         mark = i + 1;
                         state = State.FRAGMENT;
                     }
@@ -483,7 +501,7 @@ public class HttpURI
 
                 case FRAGMENT:
                 {
-                    _fragment = uri.substring(mark, end);
+                    fragment(mark, end);
                     i = end;
                     break;
                 }
@@ -499,11 +517,11 @@ public class HttpURI
             case START:
                 break;
             case SCHEME_OR_PATH:
-                _path = uri.substring(mark, end);
+                path(mark, end);
                 break;
 
             case HOST_OR_PATH:
-                _path = uri.substring(mark, end);
+                path(mark, end);
                 break;
 
             case HOST:
@@ -522,33 +540,67 @@ public class HttpURI
                 break;
 
             case FRAGMENT:
-                _fragment = uri.substring(mark, end);
+                fragment(mark, end);
                 break;
 
             case PARAM:
-                _path = uri.substring(pathMark, end);
-                _param = uri.substring(mark, end);
+                path(pathMark, end);
+                param(mark, end);
                 break;
 
             case PATH:
-                _path = uri.substring(pathMark, end);
+                path(pathMark, end);
                 break;
 
             case QUERY:
-                _query = uri.substring(mark, end);
+                query(mark, end);
                 break;
 
             default:
                 throw new IllegalStateException(state.toString());
         }
 
-        if (!encoded)
-        {
-            if (_param == null)
-                _decodedPath = _path;
-            else
-                _decodedPath = _path.substring(0, _path.length() - _param.length() - 1);
-        }
+        _plainPath = !encoded;
+    }
+
+    private void path(int start, int end)
+    {
+        _path = null;
+        _pathStart = start;
+        _pathEnd = end;
+    }
+
+    private void param(int start, int end)
+    {
+        _param = null;
+        _paramStart = start;
+        _paramEnd = end;
+    }
+
+    private void query(int start, int end)
+    {
+        _query = null;
+        _queryStart = start;
+        _queryEnd = end;
+    }
+
+    private void fragment(int start, int end)
+    {
+        _fragment = null;
+        _fragmentStart = start;
+        _fragmentEnd = end;
+    }
+
+    /**
+     * Creates the Strings of the components that are only recorded as offsets.
+     */
+    private void materialize()
+    {
+        getPath();
+        getParam();
+        getQuery();
+        getFragment();
+        _source = null;
     }
 
     /**
@@ -593,50 +645,81 @@ public class HttpURI
      */
     public String getPath()
     {
+        if (_path == null && _pathStart >= 0)
+            _path = _source.substring(_pathStart, _pathEnd);
         return _path;
     }
 
     public String getDecodedPath()
     {
-        if (_decodedPath == null && _path != null)
-            _decodedPath = URIUtil.canonicalPath(URIUtil.decodePath(_path));
+        if (_decodedPath == null)
+        {
+            String path = getPath();
+            if (path != null)
+            {
+                if (_plainPath)
+                {
+                    String param = getParam();
+                    _decodedPath = param == null ? path : path.substring(0, path.length() - param.length() - 1);
+                }
+                else
+                {
+                    _decodedPath = URIUtil.canonicalPath(URIUtil.decodePath(path));
+                }
+            }
+        }
         return _decodedPath;
     }
 
     public String getParam()
     {
+        if (_param == null && _paramStart >= 0)
+            _param = _source.substring(_paramStart, _paramEnd);
         return _param;
     }
 
     public void setParam(String param)
     {
+        // The decoded path does not change with the param.
+        if (_plainPath)
+            getDecodedPath();
+        String path = getPath();
         _param = param;
-        if (_path != null && !_path.contains(_param))
+        _paramStart = -1;
+        if (path != null && !path.contains(_param))
         {
-            _path += ";" + _param;
+            _path = path + ";" + _param;
+            _pathStart = -1;
         }
     }
 
     public String getQuery()
     {
+        if (_query == null && _queryStart >= 0)
+            _query = _source.substring(_queryStart, _queryEnd);
         return _query;
     }
 
     public boolean hasQuery()
     {
+        if (_queryStart >= 0)
+            return _queryEnd > _queryStart;
         return _query != null && !_query.isEmpty();
     }
 
     public String getFragment()
     {
+        if (_fragment == null && _fragmentStart >= 0)
+            _fragment = _source.substring(_fragmentStart, _fragmentEnd);
         return _fragment;
     }
 
     public void decodeQueryTo(MultiMap<String> parameters)
     {
-        if (_query == null)
+        String query = getQuery();
+        if (query == null)
             return;
-        UrlEncoded.decodeUtf8To(_query, parameters);
+        UrlEncoded.decodeUtf8To(query, parameters);
     }
 
     public void decodeQueryTo(MultiMap<String> parameters, String encoding) throws UnsupportedEncodingException
@@ -646,13 +729,14 @@ public class HttpURI
 
     public void decodeQueryTo(MultiMap<String> parameters, Charset encoding) throws UnsupportedEncodingException
     {
-        if (_query == null)
+        String query = getQuery();
+        if (query == null)
             return;
 
         if (encoding == null || StandardCharsets.UTF_8.equals(encoding))
-            UrlEncoded.decodeUtf8To(_query, parameters);
+            UrlEncoded.decodeUtf8To(query, parameters);
         else
-            UrlEncoded.decodeTo(_query, parameters, encoding);
+            UrlEncoded.decodeTo(query, parameters, encoding);
     }
 
     public void clear()
@@ -666,6 +750,12 @@ public class HttpURI
         _param = null;
         _query = null;
         _fragment = null;
+        _source = null;
+        _pathStart = -1;
+        _paramStart = -1;
+        _queryStart = -1;
+        _fragmentStart = -1;
+        _plainPath = false;
 
         _decodedPath = null;
     }
@@ -696,14 +786,17 @@ public class HttpURI
             if (_port > 0)
                 out.append(':').append(_port);
 
-            if (_path != null)
-                out.append(_path);
+            String path = getPath();
+            if (path != null)
+                out.append(path);
 
-            if (_query != null)
-                out.append('?').append(_query);
+            String query = getQuery();
+            if (query != null)
+                out.append('?').append(query);
 
-            if (_fragment != null)
-                out.append('#').append(_fragment);
+            String fragment = getFragment();
+            if (fragment != null)
+                out.append('#').append(fragment);
 
             if (out.length() > 0)
                 _uri = out.toString();
@@ -747,6 +840,8 @@ public class HttpURI
     {
         _uri = null;
         _path = path;
+        _pathStart = -1;
+        _plainPath = false;
         _decodedPath = null;
     }
 
@@ -757,6 +852,8 @@ public class HttpURI
     {
         _uri = null;
         _path = URIUtil.encodePath(path);
+        _pathStart = -1;
+        _plainPath = false;
         _decodedPath = path;
     }
 
@@ -764,9 +861,13 @@ public class HttpURI
     {
         _uri = null;
         _path = null;
+        _pathStart = -1;
+        _plainPath = false;
         _decodedPath = null;
         _param = null;
+        _paramStart = -1;
         _fragment = null;
+        _fragmentStart = -1;
         if (pathQuery != null)
             parse(State.PATH, pathQuery);
     }
@@ -774,6 +875,7 @@ public class HttpURI
     public void setQuery(String query)
     {
         _query = query;
+        _queryStart = -1;
         _uri = null;
     }
 
@@ -781,7 +883,8 @@ public class HttpURI
     {
         try
         {
-            return new URI(_scheme, null, _host, _port, _path, _query == null ? null : UrlEncoded.decodeString(_query), _fragment);
+            String query = getQuery();
+            return new URI(_scheme, null, _host, _port, getPath(), query == null ? null : UrlEncoded.decodeString(query), getFragment());
         }
         catch (URISyntaxException x)
         {
@@ -791,9 +894,10 @@ public class HttpURI
 
     public String getPathQuery()
     {
-        if (_query == null)
-            return _path;
-        return _path + "?" + _query;
+        String query = getQuery();
+        if (query == null)
+            return getPath();
+        return getPath() + "?" + query;
     }
 
     public boolean hasAuthority()
@@ -20,15 +20,17 @@ package org.eclipse.jetty.http.pathmap;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
-import org.eclipse.jetty.util.ArrayTernaryTrie;
-import org.eclipse.jetty.util.Trie;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.component.Dumpable;
@@ -39,6 +41,14 @@ import org.slf4j.LoggerFactory;
  * Path Mappings of PathSpec to Resource.
  * <p>
  * Sorted into search order upon entry into the Set
+ * <p>
+ * {@link #getMatch(String)} uses a lookup structure compiled from the mappings
+ * on the first match after a change: servlet exact specs in a hash table, servlet
+ * prefix specs in a trie of path segments and servlet suffix specs in a map of
+ * extensions, while the other specs (regex, uri-template, root and default) are
+ * tested in order. The result is always the first matching mapping in search order.
+ * A lookup structure is only used for the version of the mappings it was compiled from,
+ * so a change concurrent with a compilation is never hidden by the compiled structure.
  *
  * @param <E> the type of mapping endpoint
  */
@@ -47,10 +57,8 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
 {
     private static final Logger LOG = LoggerFactory.getLogger(PathMappings.class);
     private final Set<MappedResource<E>> _mappings = new TreeSet<>();
-
-    private Trie<MappedResource<E>> _exactMap = new ArrayTernaryTrie<>(false);
-    private Trie<MappedResource<E>> _prefixMap = new ArrayTernaryTrie<>(false);
-    private Trie<MappedResource<E>> _suffixMap = new ArrayTernaryTrie<>(false);
+    private final AtomicInteger _version = new AtomicInteger();
+    private volatile Dispatch<E> _dispatch;
 
     @Override
     public String dump()
@@ -78,13 +86,13 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     public void reset()
     {
         _mappings.clear();
-        _prefixMap.clear();
-        _suffixMap.clear();
+        _version.incrementAndGet();
     }
 
     public void removeIf(Predicate<MappedResource<E>> predicate)
     {
         _mappings.removeIf(predicate);
+        _version.incrementAndGet();
     }
 
     /**
@@ -121,73 +129,13 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
 
     public MappedResource<E> getMatch(String path)
     {
-        PathSpecGroup lastGroup = null;
-
-        // Search all the mappings
-        for (MappedResource<E> mr : _mappings)
-        {
-            PathSpecGroup group = mr.getPathSpec().getGroup();
-            if (group != lastGroup)
-            {
-                // New group in list, so let's look for an optimization
-                switch (group)
-                {
-                    case EXACT:
-                    {
-                        int i = path.length();
-                        final Trie<MappedResource<E>> exact_map = _exactMap;
-                        while (i >= 0)
-                        {
-                            MappedResource<E> candidate = exact_map.getBest(path, 0, i);
-                            if (candidate == null)
-                                break;
-                            if (candidate.getPathSpec().matches(path))
-                                return candidate;
-                            i = candidate.getPathSpec().getPrefix().length() - 1;
-                        }
-                        break;
-                    }
-
-                    case PREFIX_GLOB:
-                    {
-                        int i = path.length();
-                        final Trie<MappedResource<E>> prefix_map = _prefixMap;
-                        while (i >= 0)
-                        {
-                            MappedResource<E> candidate = prefix_map.getBest(path, 0, i);
-                            if (candidate == null)
-                                break;
-                            if (candidate.getPathSpec().matches(path))
-                                return candidate;
-                            i = candidate.getPathSpec().getPrefix().length() - 1;
-                        }
-                        break;
-                    }
-
-                    case SUFFIX_GLOB:
-                    {
-                        int i = 0;
-                        final Trie<MappedResource<E>> suffix_map = _suffixMap;
-                        while ((i = path.indexOf('.', i + 1)) > 0)
-                        {
-                            MappedResource<E> candidate = suffix_map.get(path, i + 1, path.length() - i - 1);
-                            if (candidate != null && candidate.getPathSpec().matches(path))
-                                return candidate;
-                        }
-                        break;
-                    }
-
-                    default:
-                }
-            }
-
-            if (mr.getPathSpec().matches(path))
-                return mr;
-
-            lastGroup = group;
-        }
-
-        return null;
+        // The version is read before the mappings, and is incremented after they change,
+        // so a Dispatch compiled while they change is discarded on the next match.
+        int version = _version.get();
+        Dispatch<E> dispatch = _dispatch;
+        if (dispatch == null || dispatch._version != version)
+            _dispatch = dispatch = new Dispatch<>(_mappings, version);
+        return dispatch.getMatch(path);
     }
 
     @Override
@@ -225,56 +173,15 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     public boolean put(PathSpec pathSpec, E resource)
     {
         MappedResource<E> entry = new MappedResource<>(pathSpec, resource);
-        switch (pathSpec.group)
-        {
-            case EXACT:
-                String exact = pathSpec.getPrefix();
-                while (exact != null && !_exactMap.put(exact, entry))
-                {
-                    _exactMap = new ArrayTernaryTrie<>((ArrayTernaryTrie<MappedResource<E>>)_exactMap, 1.5);
-                }
-                break;
-            case PREFIX_GLOB:
-                String prefix = pathSpec.getPrefix();
-                while (prefix != null && !_prefixMap.put(prefix, entry))
-                {
-                    _prefixMap = new ArrayTernaryTrie<>((ArrayTernaryTrie<MappedResource<E>>)_prefixMap, 1.5);
-                }
-                break;
-            case SUFFIX_GLOB:
-                String suffix = pathSpec.getSuffix();
-                while (suffix != null && !_suffixMap.put(suffix, entry))
-                {
-                    _suffixMap = new ArrayTernaryTrie<>((ArrayTernaryTrie<MappedResource<E>>)_prefixMap, 1.5);
-                }
-                break;
-            default:
-        }
-
         boolean added = _mappings.add(entry);
+        _version.incrementAndGet();
         if (LOG.isDebugEnabled())
             LOG.debug("{} {} to {}", added ? "Added" : "Ignored", entry, this);
         return added;
     }
 
-    @SuppressWarnings("incomplete-switch")
     public boolean remove(PathSpec pathSpec)
     {
-        switch (pathSpec.group)
-        {
-            case EXACT:
-                _exactMap.remove(pathSpec.getPrefix());
-                break;
-            case PREFIX_GLOB:
-                _prefixMap.remove(pathSpec.getPrefix());
-                break;
-            case SUFFIX_GLOB:
-                _suffixMap.remove(pathSpec.getSuffix());
-                break;
-            default:
-                break;
-        }
-
         Iterator<MappedResource<E>> iter = _mappings.iterator();
         boolean removed = false;
         while (iter.hasNext())
@@ -286,6 +193,7 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
                 break;
             }
         }
+        _version.incrementAndGet();
         if (LOG.isDebugEnabled())
             LOG.debug("{} {} to {}", removed ? "Removed" : "Ignored", pathSpec, this);
         return removed;
@@ -296,4 +204,264 @@ public class PathMappings<E> implements Iterable<MappedResource<E>>, Dumpable
     {
         return String.format("%s[size=%d]", this.getClass().getSimpleName(), _mappings.size());
     }
+
+    /**
+     * <p>An immutable lookup structure compiled from the sorted mappings.</p>
+     * <p>Each mapping is identified by its index in search order. For each group,
+     * the indexed servlet specs yield at most one candidate, which is the first
+     * matching servlet spec of the group; the other specs of the group are tested
+     * in order only up to that candidate, so that the first match in search order wins.
+     * Regex specs are only evaluated for paths that start with their leading literal.</p>
+     */
+    private static class Dispatch<E>
+    {
+        private static final int NONE = Integer.MAX_VALUE;
+
+        private final int _version;
+        private final List<MappedResource<E>> _sorted;
+        private final String[] _literals;
+        private final Map<PathSpecGroup, int[]> _others = new EnumMap<>(PathSpecGroup.class);
+        private final Map<String, Integer> _exact = new HashMap<>();
+        private final Segment _prefix = new Segment();
+        private final Segments<Integer> _suffix = new Segments<>();
+
+        private Dispatch(Set<MappedResource<E>> mappings, int version)
+        {
+            _version = version;
+            _sorted = new ArrayList<>(mappings);
+            _literals = new String[_sorted.size()];
+            Map<PathSpecGroup, List<Integer>> others = new EnumMap<>(PathSpecGroup.class);
+            for (int i = 0; i < _sorted.size(); ++i)
+            {
+                PathSpec pathSpec = _sorted.get(i).getPathSpec();
+                PathSpecGroup group = pathSpec.getGroup();
+                if (pathSpec instanceof ServletPathSpec && index(pathSpec, i))
+                    continue;
+                if (pathSpec instanceof RegexPathSpec)
+                    _literals[i] = RegexPathSpec.getLiteralPrefix(pathSpec.getDeclaration());
+                others.computeIfAbsent(group, g -> new ArrayList<>()).add(i);
+            }
+            for (PathSpecGroup group : PathSpecGroup.values())
+            {
+                List<Integer> list = others.get(group);
+                _others.put(group, list == null ? new int[0] : list.stream().mapToInt(Integer::intValue).toArray());
+            }
+        }
+
+        /**
+         * @return true if the spec was indexed, false if it must be tested in order
+         */
+        private boolean index(PathSpec pathSpec, int index)
+        {
+            switch (pathSpec.getGroup())
+            {
+                case EXACT:
+                    _exact.putIfAbsent(pathSpec.getPrefix(), index);
+                    return true;
+
+                case PREFIX_GLOB:
+                {
+                    Segment segment = _prefix;
+                    String prefix = pathSpec.getPrefix();
+                    if (!prefix.isEmpty())
+                    {
+                        int start = 1;
+                        while (true)
+                        {
+                            int end = prefix.indexOf('/', start);
+                            if (end < 0)
+                                end = prefix.length();
+                            segment = segment.child(prefix.substring(start, end));
+                            if (end == prefix.length())
+                                break;
+                            start = end + 1;
+                        }
+                    }
+                    if (segment._index == NONE)
+                        segment._index = index;
+                    return true;
+                }
+
+                case SUFFIX_GLOB:
+                    if (_suffix.get(pathSpec.getSuffix(), 0, pathSpec.getSuffix().length()) == null)
+                        _suffix.put(pathSpec.getSuffix(), index);
+                    return true;
+
+                default:
+                    return false;
+            }
+        }
+
+        private MappedResource<E> getMatch(String path)
+        {
+            for (PathSpecGroup group : PathSpecGroup.values())
+            {
+                int candidate = candidate(group, path);
+                for (int index : _others.get(group))
+                {
+                    if (index > candidate)
+                        break;
+                    String literal = _literals[index];
+                    if (literal != null && !path.startsWith(literal))
+                        continue;
+                    MappedResource<E> mapping = _sorted.get(index);
+                    if (mapping.getPathSpec().matches(path))
+                        return mapping;
+                }
+                if (candidate != NONE)
+                    return _sorted.get(candidate);
+            }
+            return null;
+        }
+
+        /**
+         * @return the index of the first servlet spec of the group that matches, or {@link #NONE}
+         */
+        private int candidate(PathSpecGroup group, String path)
+        {
+            switch (group)
+            {
+                case EXACT:
+                {
+                    Integer index = _exact.get(path);
+                    return index == null ? NONE : index;
+                }
+
+                case PREFIX_GLOB:
+                    return prefix(path);
+
+                case SUFFIX_GLOB:
+                {
+                    // The longest extension, starting after the first dot.
+                    int i = -1;
+                    while ((i = path.indexOf('.', i + 1)) >= 0)
+                    {
+                        Integer index = _suffix.get(path, i + 1, path.length());
+                        if (index != null)
+                            return index;
+                    }
+                    return NONE;
+                }
+
+                default:
+                    return NONE;
+            }
+        }
+
+        /**
+         * @return the index of the servlet prefix spec with the longest prefix that matches, or {@link #NONE}
+         */
+        private int prefix(String path)
+        {
+            // The longest prefix ending at a segment boundary.
+            int length = path.length();
+            int result = (length == 0 || path.charAt(0) == '/') ? _prefix._index : NONE;
+            if (length == 0 || path.charAt(0) != '/')
+                return result;
+            Segment segment = _prefix;
+            int start = 1;
+            while (true)
+            {
+                int end = path.indexOf('/', start);
+                if (end < 0)
+                    end = length;
+                segment = segment._children == null ? null : segment._children.get(path, start, end);
+                if (segment == null)
+                    return result;
+                if (segment._index != NONE)
+                    result = segment._index;
+                if (end == length)
+                    return result;
+                start = end + 1;
+            }
+        }
+    }
+
+    /**
+     * A node of the trie of path segments of the servlet prefix specs.
+     */
+    private static class Segment
+    {
+        private Segments<Segment> _children;
+        private int _index = Dispatch.NONE;
+
+        private Segment child(String name)
+        {
+            if (_children == null)
+                _children = new Segments<>();
+            Segment child = _children.get(name, 0, name.length());
+            if (child == null)
+                _children.put(name, child = new Segment());
+            return child;
+        }
+    }
+
+    /**
+     * <p>An open addressing hash table of String keys that is looked up with a
+     * region of a String, so that the path does not need to be split into substrings.</p>
+     */
+    private static class Segments<V>
+    {
+        private String[] _keys = new String[8];
+        private Object[] _values = new Object[8];
+        private int _size;
+
+        private void put(String key, V value)
+        {
+            if (2 * (_size + 1) > _keys.length)
+            {
+                String[] keys = _keys;
+                Object[] values = _values;
+                _keys = new String[keys.length * 2];
+                _values = new Object[keys.length * 2];
+                for (int i = 0; i < keys.length; ++i)
+                {
+                    if (keys[i] != null)
+                        insert(keys[i], values[i]);
+                }
+            }
+            insert(key, value);
+            _size++;
+        }
+
+        private void insert(String key, Object value)
+        {
+            int mask = _keys.length - 1;
+            int i = mix(key.hashCode()) & mask;
+            while (_keys[i] != null)
+            {
+                i = (i + 1) & mask;
+            }
+            _keys[i] = key;
+            _values[i] = value;
+        }
+
+        @SuppressWarnings("unchecked")
+        private V get(String s, int start, int end)
+        {
+            // Same hash as String.hashCode() of the region.
+            int hash = 0;
+            for (int i = start; i < end; ++i)
+            {
+                hash = 31 * hash + s.charAt(i);
+            }
+            int length = end - start;
+            int mask = _keys.length - 1;
+            int i = mix(hash) & mask;
+            while (true)
+            {
+                String key = _keys[i];
+                if (key == null)
+                    return null;
+                if (key.length() == length && s.regionMatches(start, key, 0, length))
+                    return (V)_values[i];
+                i = (i + 1) & mask;
+            }
+        }
+
+        private static int mix(int hash)
+        {
+            return hash ^ (hash >>> 16);
+        }
+    }
 }
@@ -99,6 +99,43 @@ public class RegexPathSpec extends PathSpec
         return this.pattern.matcher(path);
     }
 
+    /**
+     * <p>Returns the literal characters that any input matching the whole regex must start with.</p>
+     * <p>The analysis is conservative: it stops at the first character that is not a plain
+     * path character or an escaped dot, and at the first quantified character.</p>
+     *
+     * @param regex the regular expression
+     * @return the literal prefix of the regex, or null if there is none
+     */
+    public static String getLiteralPrefix(String regex)
+    {
+        if (regex.indexOf('|') >= 0)
+            return null;
+        StringBuilder literal = new StringBuilder();
+        int i = regex.startsWith("^") ? 1 : 0;
+        while (i < regex.length())
+        {
+            char c = regex.charAt(i);
+            char next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+            if (c == '\\' && next == '.')
+            {
+                c = '.';
+                next = i + 2 < regex.length() ? regex.charAt(i + 2) : 0;
+                i++;
+            }
+            else if (!Character.isLetterOrDigit(c) && "/-_~%,;=:@!".indexOf(c) < 0)
+            {
+                break;
+            }
+            // A quantified character may be absent from the input.
+            if (next == '?' || next == '*' || next == '{')
+                break;
+            literal.append(c);
+            i++;
+        }
+        return literal.length() == 0 ? null : literal.toString();
+    }
+
     @Override
     public String getPathInfo(String path)
     {
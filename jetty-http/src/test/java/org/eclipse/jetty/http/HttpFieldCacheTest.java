@@ -0,0 +1,132 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http;
+
+import java.nio.ByteBuffer;
+import java.util.EnumSet;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class HttpFieldCacheTest
+{
+    private static HttpField lookup(HttpFieldCache cache, String line)
+    {
+        ByteBuffer buffer = BufferUtil.toBuffer(line);
+        return cache.get(buffer, buffer.position(), buffer.limit());
+    }
+
+    @Test
+    public void testExactLineMatch()
+    {
+        HttpFieldCache cache = new HttpFieldCache(16, 64);
+        cache.setSampleRate(1);
+        HttpField field = new HttpField(HttpHeader.USER_AGENT, "User-Agent", "client/1.0");
+        cache.offer(field);
+        assertEquals(1, cache.getSize());
+
+        assertSame(field, lookup(cache, "User-Agent: client/1.0\r\nHost: x\r\n"));
+        assertSame(field, lookup(cache, "User-Agent: client/1.0\n"));
+        assertNull(lookup(cache, "User-Agent: client/1.01\r\n"));
+        assertNull(lookup(cache, "user-agent: client/1.0\r\n"));
+        assertNull(lookup(cache, "User-Agent:client/1.0\r\n"));
+        // No end of line yet.
+        assertNull(lookup(cache, "User-Agent: client/1.0"));
+        assertEquals(2, cache.getHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    public void testNotCacheableNotLookedUp()
+    {
+        HttpFieldCache cache = new HttpFieldCache(16, 64);
+        assertNull(lookup(cache, "Cookie: a=b\r\n"));
+        assertNull(lookup(cache, "Content-Length: 10\r\n"));
+        assertNull(lookup(cache, "X-Custom: value\r\n"));
+        // A longer name that starts like a cacheable header.
+        assertNull(lookup(cache, "Hostname: value\r\n"));
+        assertEquals(0, cache.getMisses());
+
+        assertNull(lookup(cache, "Host: value\r\n"));
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void testReceivedNameMatch()
+    {
+        HttpFieldCache cache = new HttpFieldCache(16, 64);
+        cache.setSampleRate(1);
+        HttpField field = new HostPortHttpField(HttpHeader.HOST, "Host", "localhost");
+        cache.offer("host", field);
+
+        assertSame(field, lookup(cache, "host: localhost\r\n"));
+        assertNull(lookup(cache, "Host: localhost\r\n"));
+    }
+
+    @Test
+    public void testNotCacheable()
+    {
+        HttpFieldCache cache = new HttpFieldCache(16, 40);
+        cache.setSampleRate(1);
+        cache.offer(new HttpField(HttpHeader.COOKIE, "a=b"));
+        cache.offer(new HttpField(HttpHeader.AUTHORIZATION, "Basic dXNlcjpwYXNz"));
+        cache.offer(new HttpField("X-Custom", "value"));
+        cache.offer(new HttpField(HttpHeader.USER_AGENT, "a user agent longer than the max field size"));
+        assertEquals(0, cache.getSize());
+
+        cache.setCacheableHeaders(EnumSet.of(HttpHeader.AUTHORIZATION));
+        cache.offer(new HttpField(HttpHeader.AUTHORIZATION, "Basic dXNlcjpwYXNz"));
+        assertEquals(1, cache.getSize());
+    }
+
+    @Test
+    public void testFrequentFieldsAreNotEvicted()
+    {
+        // A single set of 2 ways.
+        HttpFieldCache cache = new HttpFieldCache(2, 64);
+        cache.setSampleRate(1);
+        HttpField frequent = new HttpField(HttpHeader.ACCEPT, "text/html");
+        cache.offer(frequent);
+        cache.offer(new HttpField(HttpHeader.ACCEPT, "application/json"));
+        assertEquals(2, cache.getSize());
+        for (int i = 0; i < 5; i++)
+        {
+            assertSame(frequent, lookup(cache, "Accept: text/html\r\n"));
+        }
+
+        // The infrequent field is evicted first, as it has never been used.
+        HttpField other = new HttpField(HttpHeader.ACCEPT, "image/png");
+        cache.offer(other);
+        assertEquals(1, cache.getEvictions());
+        assertSame(other, lookup(cache, "Accept: image/png\r\n"));
+        assertSame(frequent, lookup(cache, "Accept: text/html\r\n"));
+
+        // New fields must wait for the frequency of the entries to decay.
+        cache.offer(new HttpField(HttpHeader.ACCEPT, "text/plain"));
+        assertEquals(1, cache.getEvictions());
+        assertNull(lookup(cache, "Accept: text/plain\r\n"));
+        cache.offer(new HttpField(HttpHeader.ACCEPT, "text/plain"));
+        assertEquals(2, cache.getEvictions());
+        assertSame(frequent, lookup(cache, "Accept: text/html\r\n"));
+    }
+}
@@ -19,6 +19,7 @@
 package org.eclipse.jetty.http;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Enumeration;
 import java.util.Iterator;
@@ -26,6 +27,7 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Locale;
 import java.util.NoSuchElementException;
+import java.util.Random;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.hamcrest.Matchers;
@@ -764,4 +766,104 @@ public class HttpFieldsTest
         assertThat(i.next().getName(), is("name4"));
         assertThat(i.hasNext(), is(false));
     }
+
+    @Test
+    public void testIndexedLookupsMatchScan()
+    {
+        HttpHeader[] headers = {
+            HttpHeader.HOST, HttpHeader.ACCEPT, HttpHeader.COOKIE, HttpHeader.USER_AGENT,
+            HttpHeader.CONTENT_TYPE, HttpHeader.X_FORWARDED_FOR, HttpHeader.SEC_WEBSOCKET_KEY, HttpHeader.C_PATH
+        };
+        Random random = new Random(1234);
+        HttpFields fields = new HttpFields();
+        List<HttpField> expected = new ArrayList<>();
+
+        for (int op = 0; op < 5000; op++)
+        {
+            HttpHeader header = headers[random.nextInt(headers.length)];
+            String value = "v" + random.nextInt(4);
+            switch (random.nextInt(8))
+            {
+                case 0:
+                case 1:
+                case 2:
+                {
+                    HttpField field = new HttpField(header, value);
+                    fields.add(field);
+                    expected.add(field);
+                    break;
+                }
+                case 3:
+                {
+                    HttpField field = new HttpField(header, value);
+                    fields.put(field);
+                    // The last field is replaced, the others are removed.
+                    boolean put = false;
+                    for (int i = expected.size(); i-- > 0; )
+                    {
+                        if (expected.get(i).getHeader() == header)
+                        {
+                            if (put)
+                                expected.remove(i);
+                            else
+                                expected.set(i, field);
+                            put = true;
+                        }
+                    }
+                    if (!put)
+                        expected.add(field);
+                    break;
+                }
+                case 4:
+                    fields.remove(header);
+                    expected.removeIf(f -> f.getHeader() == header);
+                    break;
+                case 5:
+                    fields.remove(header.asString());
+                    expected.removeIf(f -> f.getName().equalsIgnoreCase(header.asString()));
+                    break;
+                case 6:
+                {
+                    ListIterator<HttpField> i = fields.listIterator();
+                    int index = 0;
+                    while (i.hasNext())
+                    {
+                        i.next();
+                        if (random.nextInt(4) == 0)
+                        {
+                            i.set(new HttpField(header, value));
+                            expected.set(index, new HttpField(header, value));
+                        }
+                        else if (random.nextInt(8) == 0)
+                        {
+                            i.remove();
+                            expected.remove(index--);
+                        }
+                        index++;
+                    }
+                    break;
+                }
+                default:
+                    if (random.nextInt(16) == 0)
+                    {
+                        fields.clear();
+                        expected.clear();
+                    }
+                    break;
+            }
+
+            assertEquals(expected.size(), fields.size());
+            for (HttpHeader h : headers)
+            {
+                HttpField first = expected.stream().filter(f -> f.getHeader() == h).findFirst().orElse(null);
+                assertEquals(first, fields.getField(h));
+                assertEquals(first == null ? null : first.getValue(), fields.get(h));
+                assertEquals(first != null, fields.contains(h));
+                assertEquals(expected.stream().anyMatch(f -> f.getHeader() == h && f.contains("v1")), fields.contains(h, "v1"));
+                List<String> values = new ArrayList<>();
+                expected.stream().filter(f -> f.getHeader() == h).forEach(f -> values.add(f.getValue()));
+                assertEquals(values, fields.getValuesList(h));
+            }
+        }
+    }
 }
@@ -174,6 +174,41 @@ public class HttpGeneratorServerTest
         //excluding the content from the response based on generator.isNoContent()==true
     }
 
+    @Test
+    public void testTemplate() throws Exception
+    {
+        HttpFieldsTemplate template = new HttpFieldsTemplate(
+            new HttpField(HttpHeader.CONTENT_TYPE, "application/json"),
+            new HttpField(HttpHeader.CACHE_CONTROL, "no-store"),
+            new HttpField("X-Frame-Options", "DENY"));
+        assertEquals("Content-Type: application/json\r\nCache-Control: no-store\r\nX-Frame-Options: DENY\r\n".length(), template.getBlockSize());
+        assertThrows(IllegalArgumentException.class, () -> new HttpFieldsTemplate(new HttpField(HttpHeader.CONTENT_LENGTH, "10")));
+
+        for (boolean replaced : new boolean[]{false, true})
+        {
+            ByteBuffer header = BufferUtil.allocate(8096);
+            ByteBuffer content = BufferUtil.toBuffer("{}");
+            HttpGenerator gen = new HttpGenerator();
+
+            MetaData.Response info = new MetaData.Response(HttpVersion.HTTP_1_1, 200, null, new HttpFields(), -1);
+            info.getFields().add(HttpHeader.DATE, DateGenerator.__01Jan1970);
+            template.addTo(info.getFields());
+            if (replaced)
+                info.getFields().put(HttpHeader.CACHE_CONTROL, "max-age=60");
+
+            HttpGenerator.Result result = gen.generateResponse(info, false, header, null, content, true);
+            assertEquals(HttpGenerator.Result.FLUSH, result);
+            String response = BufferUtil.toString(header);
+
+            assertThat(response, containsString("HTTP/1.1 200 OK\r\n" +
+                "Date: Thu, 01 Jan 1970 00:00:00 GMT\r\n" +
+                "Content-Type: application/json\r\n" +
+                "Cache-Control: " + (replaced ? "max-age=60" : "no-store") + "\r\n" +
+                "X-Frame-Options: DENY\r\n" +
+                "Content-Length: 2\r\n"));
+        }
+    }
+
     @Test
     public void testComplexChars() throws Exception
     {
@@ -535,6 +535,128 @@ public class HttpParserTest
         assertEquals(9, _headers);
     }
 
+    @Test
+    public void testLongFieldsScannedByWords()
+    {
+        String request =
+            "GET /some/long/path/to/a/resource/index.html?query=value&other=1 HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "X-Custom-Long-Header-Name: a fairly long value, with \"delimiters\" and spaces   \r\n" +
+                "X-Tab: before\tafter\r\n" +
+                "X-Obs: caf\u00e9 cr\u00e8me\r\n" +
+                "X-Quote\"d: value\r\n" +
+                "\r\n";
+
+        for (boolean direct : new boolean[]{false, true})
+        {
+            init();
+            ByteBuffer b0 = BufferUtil.toBuffer(request, StandardCharsets.ISO_8859_1);
+            ByteBuffer buffer = direct ? BufferUtil.allocateDirect(b0.capacity()) : BufferUtil.allocate(b0.capacity());
+            int pos = BufferUtil.flipToFill(buffer);
+            BufferUtil.put(b0, buffer);
+            BufferUtil.flipToFlush(buffer, pos);
+
+            HttpParser.RequestHandler handler = new Handler();
+            HttpParser parser = new HttpParser(handler);
+            parseAll(parser, buffer);
+
+            assertEquals("/some/long/path/to/a/resource/index.html?query=value&other=1", _uriOrStatus);
+            assertEquals("X-Custom-Long-Header-Name", _hdr[1]);
+            assertEquals("a fairly long value, with \"delimiters\" and spaces", _val[1]);
+            assertEquals("X-Tab", _hdr[2]);
+            assertEquals("before\tafter", _val[2]);
+            assertEquals("X-Obs", _hdr[3]);
+            assertEquals("caf\u00e9 cr\u00e8me", _val[3]);
+            // A delimiter in a field name is still rejected.
+            assertThat(_bad, containsString("Illegal character"));
+        }
+    }
+
+    @Test
+    public void testScanStopsAtControlCharacter()
+    {
+        ByteBuffer buffer = BufferUtil.toBuffer(
+            "GET / HTTP/1.0\r\n" +
+                "Name: a value with a long run of text\u0001 and a control character\r\n" +
+                "\r\n");
+
+        HttpParser.RequestHandler handler = new Handler();
+        HttpParser parser = new HttpParser(handler);
+        parseAll(parser, buffer);
+
+        assertThat(_bad, containsString("Illegal character"));
+    }
+
+    @Test
+    public void testSharedFieldCache()
+    {
+        HttpFieldCache cache = new HttpFieldCache(16, 128);
+        cache.setSampleRate(1);
+        String request =
+            "GET / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "User-Agent: our-client/1.0\r\n" +
+                "Cookie: not=cached\r\n" +
+                "Connection: close\r\n" +
+                "\r\n";
+
+        List<HttpField> fields = new ArrayList<>();
+        for (int i = 0; i < 2; i++)
+        {
+            HttpParser.RequestHandler handler = new Handler();
+            HttpParser parser = new HttpParser(handler);
+            parser.setSharedFieldCache(cache);
+            parseAll(parser, BufferUtil.toBuffer(request));
+            assertThat(_bad, nullValue());
+            fields.addAll(_fields);
+        }
+
+        // The second connection reuses the fields parsed by the first.
+        assertEquals(8, fields.size());
+        assertSame(fields.get(0), fields.get(4));
+        assertThat(fields.get(4), Matchers.instanceOf(HostPortHttpField.class));
+        assertSame(fields.get(1), fields.get(5));
+        assertEquals("our-client/1.0", fields.get(5).getValue());
+        assertThat(fields.get(2), Matchers.not(Matchers.sameInstance(fields.get(6))));
+        assertEquals(2, cache.getHits());
+    }
+
+    @Test
+    public void testSharedFieldCacheLowerCaseNames()
+    {
+        HttpFieldCache cache = new HttpFieldCache(16, 128);
+        cache.setSampleRate(1);
+        String request =
+            "GET / HTTP/1.1\r\n" +
+                "host: localhost\r\n" +
+                "user-agent: our-client/1.0\r\n" +
+                "accept: text/html\r\n" +
+                "cookie: not=cached\r\n" +
+                "connection: close\r\n" +
+                "\r\n";
+
+        List<HttpField> fields = new ArrayList<>();
+        for (int i = 0; i < 2; i++)
+        {
+            HttpParser.RequestHandler handler = new Handler();
+            HttpParser parser = new HttpParser(handler);
+            parser.setSharedFieldCache(cache);
+            parseAll(parser, BufferUtil.toBuffer(request));
+            assertThat(_bad, nullValue());
+            fields.addAll(_fields);
+        }
+
+        // The second connection reuses the fields parsed by the first.
+        assertEquals(10, fields.size());
+        assertSame(fields.get(0), fields.get(5));
+        assertSame(fields.get(1), fields.get(6));
+        assertSame(fields.get(2), fields.get(7));
+        assertEquals("text/html", fields.get(7).getValue());
+        // Only the lookups of the cacheable fields are accounted.
+        assertEquals(3, cache.getHits());
+        assertEquals(3, cache.getMisses());
+    }
+
     @Test
     public void testHeaderParseCRLF()
     {
@@ -116,6 +116,43 @@ public class HttpURITest
         assertThat(uri.getPath(), is("/bar"));
     }
 
+    @Test
+    public void testParseRequestTargetReuse()
+    {
+        HttpURI uri = new HttpURI();
+
+        uri.parseRequestTarget("GET", "/foo;p=1?a=b#frag");
+        assertThat(uri.hasQuery(), is(true));
+        assertThat(uri.getDecodedPath(), is("/foo"));
+
+        uri.parseRequestTarget("GET", "/bar%20baz?");
+        assertThat(uri.hasQuery(), is(false));
+        assertThat(uri.getQuery(), is(""));
+        assertThat(uri.getParam(), nullValue());
+        assertThat(uri.getFragment(), nullValue());
+        assertThat(uri.getDecodedPath(), is("/bar baz"));
+
+        // The query of the previous target survives setPathQuery().
+        uri.parseRequestTarget("GET", "/one?x=1");
+        uri.setPathQuery("/two;p");
+        assertThat(uri.getPath(), is("/two;p"));
+        assertThat(uri.getParam(), is("p"));
+        assertThat(uri.getDecodedPath(), is("/two"));
+        assertThat(uri.getQuery(), is("x=1"));
+
+        uri.parseRequestTarget("GET", "/path;p?q=v#f");
+        HttpURI copy = new HttpURI(uri);
+        assertThat(copy.getPath(), is("/path;p"));
+        assertThat(copy.getParam(), is("p"));
+        assertThat(copy.getQuery(), is("q=v"));
+        assertThat(copy.getFragment(), is("f"));
+        assertThat(copy.toString(), is("/path;p?q=v#f"));
+
+        uri.setParam("s");
+        assertThat(uri.getPath(), is("/path;p;s"));
+        assertThat(uri.getDecodedPath(), is("/path"));
+    }
+
     @Test
     public void testExtB() throws Exception
     {
@@ -18,6 +18,9 @@
 
 package org.eclipse.jetty.http.pathmap;
 
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -25,6 +28,7 @@ import org.junit.jupiter.params.provider.ValueSource;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -288,6 +292,99 @@ public class PathMappingsTest
         assertEquals("prefix", p.getMatch("/dump/gzip/something.txt").getResource());
     }
 
+    @Test
+    public void testChangeDuringCompilation()
+    {
+        PathMappings<String> p = new PathMappings<>();
+        AtomicBoolean compiling = new AtomicBoolean();
+        p.put(new ServletPathSpec("/a/*")
+        {
+            @Override
+            public PathSpecGroup getGroup()
+            {
+                // Simulates a mapping added by another thread while the match is compiling.
+                if (compiling.compareAndSet(true, false))
+                    p.put(new ServletPathSpec("/b/*"), "b");
+                return super.getGroup();
+            }
+        }, "a");
+
+        compiling.set(true);
+        assertEquals("a", p.getMatch("/a/x").getResource());
+        assertFalse(compiling.get());
+        assertEquals("b", p.getMatch("/b/x").getResource());
+    }
+
+    @Test
+    public void testMatchSameAsSearchOrder()
+    {
+        String[] segments = {"a", "b", "foo", "bar", "x.y", ""};
+        String[] extensions = {"do", "txt", "y", "b.do", "tar.gz", "gz"};
+        Random random = new Random(1234);
+
+        for (int round = 0; round < 50; round++)
+        {
+            PathMappings<String> p = new PathMappings<>();
+            int count = 1 + random.nextInt(40);
+            for (int i = 0; i < count; i++)
+            {
+                String path = randomPath(random, segments, 3);
+                String spec;
+                switch (random.nextInt(7))
+                {
+                    case 0:
+                        spec = path;
+                        break;
+                    case 1:
+                    case 2:
+                        spec = (path.equals("/") ? "" : path) + "/*";
+                        break;
+                    case 3:
+                        spec = "*." + extensions[random.nextInt(extensions.length)];
+                        break;
+                    case 4:
+                        spec = "^" + path.replace(".", "\\.") + (random.nextBoolean() ? ".*$" : "o?(/.*)?$");
+                        break;
+                    case 5:
+                        spec = "^.*\\." + extensions[random.nextInt(extensions.length)].replace(".", "\\.") + "$";
+                        break;
+                    default:
+                        spec = random.nextBoolean() ? "/" : "";
+                        break;
+                }
+                p.put(spec.startsWith("^") ? new RegexPathSpec(spec) : new ServletPathSpec(spec), spec);
+            }
+
+            for (int i = 0; i < 200; i++)
+            {
+                String path = randomPath(random, segments, 5);
+                if (random.nextBoolean())
+                    path += "." + extensions[random.nextInt(extensions.length)];
+                MappedResource<String> expected = null;
+                for (MappedResource<String> mapping : p)
+                {
+                    if (mapping.getPathSpec().matches(path))
+                    {
+                        expected = mapping;
+                        break;
+                    }
+                }
+                assertEquals(expected, p.getMatch(path), String.format("%s in %s", path, p.getMappings()));
+            }
+        }
+    }
+
+    private static String randomPath(Random random, String[] segments, int depth)
+    {
+        StringBuilder path = new StringBuilder();
+        int length = random.nextInt(depth + 1);
+        for (int i = 0; i < length; i++)
+        {
+            path.append('/').append(segments[random.nextInt(segments.length)]);
+        }
+        return path.length() == 0 ? "/" : path.toString();
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {
         "*",
@@ -23,6 +23,7 @@ import org.junit.jupiter.api.Test;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 
 public class RegexPathSpecTest
 {
@@ -132,4 +133,14 @@ public class RegexPathSpecTest
         assertNotMatches(spec, "/aa/bb");
         assertNotMatches(spec, "/aa/bb.do/more");
     }
+
+    @Test
+    public void testLiteralPrefix()
+    {
+        assertEquals("/rest/", RegexPathSpec.getLiteralPrefix("^/rest/([^/]*)$"));
+        assertEquals("/a.b/", RegexPathSpec.getLiteralPrefix("^/a\\.b/.*$"));
+        assertEquals("/ab", RegexPathSpec.getLiteralPrefix("/abc?/.*"));
+        assertNull(RegexPathSpec.getLiteralPrefix("^(.*).do$"));
+        assertNull(RegexPathSpec.getLiteralPrefix("^/a/.*|^/b/.*"));
+    }
 }
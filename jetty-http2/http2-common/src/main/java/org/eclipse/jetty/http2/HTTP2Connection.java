@@ -38,6 +38,7 @@ import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.component.LifeCycle;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
 import org.eclipse.jetty.util.thread.TryExecutor;
+import org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy;
 import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -48,6 +49,7 @@ public class HTTP2Connection extends AbstractConnection implements WriteFlusher.
 
     // TODO remove this once we are sure EWYK is OK for http2
     private static final boolean PEC_MODE = Boolean.getBoolean("org.eclipse.jetty.http2.PEC_MODE");
+    private static final boolean ADAPTIVE_MODE = Boolean.getBoolean("org.eclipse.jetty.http2.ADAPTIVE_MODE");
 
     private final Queue<Runnable> tasks = new ArrayDeque<>();
     private final HTTP2Producer producer = new HTTP2Producer();
@@ -69,8 +71,11 @@ public class HTTP2Connection extends AbstractConnection implements WriteFlusher.
         this.bufferSize = bufferSize;
         if (PEC_MODE)
             executor = new TryExecutor.NoTryExecutor(executor);
-        this.strategy = new EatWhatYouKill(producer, executor);
+        this.strategy = ADAPTIVE_MODE ? new AdaptiveExecutionStrategy(producer, executor) : new EatWhatYouKill(producer, executor);
         LifeCycle.start(strategy);
+        // Make the strategy statistics visible via JMX and dumps, along with the session.
+        if (session instanceof HTTP2Session)
+            ((HTTP2Session)session).addBean(strategy);
         parser.init(ParserListener::new);
     }
 
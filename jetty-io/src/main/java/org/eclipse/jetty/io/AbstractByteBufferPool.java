@@ -19,22 +19,53 @@
 package org.eclipse.jetty.io;
 
 import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
 
+/**
+ * <p>Base class for ByteBuffer pools that hold ByteBuffers in {@link Bucket}s.</p>
+ * <p>In {@link #setAdaptive(boolean) adaptive mode}, each bucket observes its acquire
+ * miss rate and how many ByteBuffers stay idle, and periodically grows or shrinks
+ * the number of ByteBuffers it retains, within the max heap or direct memory.
+ * Buckets that are not used anymore are shrunk when ByteBuffers are released
+ * to the pool, so that their idle ByteBuffers are eventually discarded.</p>
+ */
 @ManagedObject
 abstract class AbstractByteBufferPool implements ByteBufferPool
 {
+    /**
+     * The number of acquires after which an adaptive bucket re-evaluates its max size.
+     */
+    static final int ADAPTIVE_WINDOW = 256;
+    /**
+     * The max number of ByteBuffers retained by an adaptive bucket when the memory is not limited.
+     */
+    static final int ADAPTIVE_MAX_QUEUE_LENGTH = 1024;
+    /**
+     * The max time in nanoseconds after which an adaptive bucket re-evaluates its max size,
+     * whatever the number of acquires.
+     */
+    static final long ADAPTIVE_PERIOD = TimeUnit.SECONDS.toNanos(30);
+
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
     private final int _factor;
     private final int _maxQueueLength;
     private final long _maxHeapMemory;
     private final AtomicLong _heapMemory = new AtomicLong();
     private final long _maxDirectMemory;
     private final AtomicLong _directMemory = new AtomicLong();
+    private final AtomicLong _nextDecay = new AtomicLong(System.nanoTime() + ADAPTIVE_PERIOD);
+    private volatile boolean _adaptive;
 
     protected AbstractByteBufferPool(int factor, int maxQueueLength, long maxHeapMemory, long maxDirectMemory)
     {
@@ -54,6 +85,96 @@ abstract class AbstractByteBufferPool implements ByteBufferPool
         return _maxQueueLength;
     }
 
+    @ManagedAttribute("Whether the buckets adapt the number of ByteBuffers they retain")
+    public boolean isAdaptive()
+    {
+        return _adaptive;
+    }
+
+    /**
+     * <p>Enables or disables the adaptive mode.</p>
+     * <p>The mode only applies to buckets created afterwards, so it should
+     * be configured before the pool is used.</p>
+     *
+     * @param adaptive whether the buckets adapt the number of ByteBuffers they retain
+     */
+    public void setAdaptive(boolean adaptive)
+    {
+        _adaptive = adaptive;
+    }
+
+    /**
+     * <p>Creates a new bucket for the given capacity.</p>
+     *
+     * @param capacity the capacity of the ByteBuffers held by the bucket
+     * @param direct whether the bucket holds direct ByteBuffers
+     * @return a new bucket
+     */
+    protected Bucket newBucket(int capacity, boolean direct)
+    {
+        if (isAdaptive())
+            return new AdaptiveBucket(capacity, direct);
+        return new Bucket(capacity, getMaxQueueLength());
+    }
+
+    /**
+     * <p>Records whether an acquire has been served by a pooled ByteBuffer.</p>
+     *
+     * @param hit whether a pooled ByteBuffer was available
+     */
+    protected void acquired(boolean hit)
+    {
+        if (hit)
+            _hits.increment();
+        else
+            _misses.increment();
+    }
+
+    @ManagedAttribute("The number of acquires served by pooled ByteBuffers")
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of acquires that allocated a new ByteBuffer")
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The ratio of acquires served by pooled ByteBuffers")
+    public double getHitRatio()
+    {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0.0 : (double)hits / total;
+    }
+
+    @ManagedAttribute("The bytes retained by direct ByteBuffers per bucket capacity")
+    public Map<Integer, Long> getDirectMemoryByCapacity()
+    {
+        return getMemoryByCapacity(true);
+    }
+
+    @ManagedAttribute("The bytes retained by heap ByteBuffers per bucket capacity")
+    public Map<Integer, Long> getHeapMemoryByCapacity()
+    {
+        return getMemoryByCapacity(false);
+    }
+
+    private Map<Integer, Long> getMemoryByCapacity(boolean direct)
+    {
+        Map<Integer, Long> result = new TreeMap<>();
+        forEachBucket(direct, bucket -> result.merge(bucket.getCapacity(), (long)bucket.getCapacity() * bucket.count(), Long::sum));
+        return result;
+    }
+
+    /**
+     * @param direct whether to iterate over the direct or heap buckets
+     * @param action the action to apply to each existing bucket
+     */
+    protected abstract void forEachBucket(boolean direct, Consumer<Bucket> action);
+
     protected void decrementMemory(ByteBuffer buffer)
     {
         updateMemory(buffer, false);
@@ -73,6 +194,8 @@ abstract class AbstractByteBufferPool implements ByteBufferPool
 
     protected void releaseExcessMemory(boolean direct, Consumer<Boolean> clearFn)
     {
+        if (isAdaptive())
+            decay(System.nanoTime());
         long maxMemory = direct ? _maxDirectMemory : _maxHeapMemory;
         if (maxMemory > 0)
         {
@@ -83,6 +206,26 @@ abstract class AbstractByteBufferPool implements ByteBufferPool
         }
     }
 
+    /**
+     * <p>Re-evaluates, at most once per {@link #ADAPTIVE_PERIOD}, the max size of the adaptive
+     * buckets whose window is older than the period, including the buckets that are not used.</p>
+     *
+     * @param now the current nanoTime
+     */
+    void decay(long now)
+    {
+        long next = _nextDecay.get();
+        if (now - next < 0 || !_nextDecay.compareAndSet(next, now + ADAPTIVE_PERIOD))
+            return;
+        Consumer<Bucket> decay = bucket ->
+        {
+            if (bucket instanceof AdaptiveBucket)
+                ((AdaptiveBucket)bucket).decay(now);
+        };
+        forEachBucket(true, decay);
+        forEachBucket(false, decay);
+    }
+
     @ManagedAttribute("The bytes retained by direct ByteBuffers")
     public long getDirectMemory()
     {
@@ -107,4 +250,89 @@ abstract class AbstractByteBufferPool implements ByteBufferPool
         _heapMemory.set(0);
         _directMemory.set(0);
     }
+
+    /**
+     * <p>A bucket that resizes itself every {@link #ADAPTIVE_WINDOW} acquires, or when its
+     * window is older than {@link #ADAPTIVE_PERIOD}.</p>
+     * <p>If too many acquires missed, the bucket doubles its max size, provided the
+     * resulting memory fits in the max memory; otherwise, if some ByteBuffers stayed
+     * idle in the bucket for the whole window, the bucket shrinks and discards half of them,
+     * so that a bucket that is not used anymore eventually retains a single ByteBuffer.</p>
+     */
+    class AdaptiveBucket extends Bucket
+    {
+        private final AtomicInteger _acquires = new AtomicInteger();
+        private final AtomicInteger _windowMisses = new AtomicInteger();
+        private final AtomicInteger _minIdle = new AtomicInteger(Integer.MAX_VALUE);
+        private final AtomicLong _windowStart = new AtomicLong(System.nanoTime());
+        private final boolean _direct;
+
+        AdaptiveBucket(int capacity, boolean direct)
+        {
+            super(capacity, getMaxQueueLength() > 0 ? getMaxQueueLength() : 8);
+            _direct = direct;
+        }
+
+        @Override
+        public ByteBuffer acquire()
+        {
+            ByteBuffer buffer = super.acquire();
+            if (buffer == null)
+                _windowMisses.incrementAndGet();
+            int idle = count();
+            if (idle < _minIdle.get())
+                _minIdle.accumulateAndGet(idle, Math::min);
+            if (_acquires.incrementAndGet() % ADAPTIVE_WINDOW == 0)
+                resize();
+            return buffer;
+        }
+
+        /**
+         * @param now the current nanoTime
+         */
+        void decay(long now)
+        {
+            long start = _windowStart.get();
+            if (now - start >= ADAPTIVE_PERIOD && _windowStart.compareAndSet(start, now))
+                resize();
+        }
+
+        private void resize()
+        {
+            _windowStart.set(System.nanoTime());
+            int misses = _windowMisses.getAndSet(0);
+            int minIdle = _minIdle.getAndSet(Integer.MAX_VALUE);
+            // Without acquires, all the ByteBuffers stayed idle.
+            if (minIdle == Integer.MAX_VALUE)
+                minIdle = count();
+            int maxSize = getMaxSize();
+            if (misses * 8 > ADAPTIVE_WINDOW)
+            {
+                int newMaxSize = Math.min(maxSize * 2, ADAPTIVE_MAX_QUEUE_LENGTH);
+                long maxMemory = _direct ? _maxDirectMemory : _maxHeapMemory;
+                if (maxMemory > 0)
+                {
+                    // This bucket, when full, and the other buckets must fit in the max memory.
+                    long others = getMemory(_direct) - (long)count() * getCapacity();
+                    newMaxSize = (int)Math.min(newMaxSize, Math.max(0, maxMemory - others) / getCapacity());
+                }
+                if (newMaxSize > maxSize)
+                    setMaxSize(newMaxSize, null);
+            }
+            else if (minIdle > 0)
+            {
+                int discard = (minIdle + 1) / 2;
+                int newMaxSize = Math.max(1, maxSize - discard);
+                // Discard the idle ByteBuffers also when fewer than the max size are retained.
+                setMaxSize(Math.max(1, Math.min(newMaxSize, count() - discard)), AbstractByteBufferPool.this::decrementMemory);
+                setMaxSize(newMaxSize, null);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s{direct=%b}", super.toString(), _direct);
+        }
+    }
 }
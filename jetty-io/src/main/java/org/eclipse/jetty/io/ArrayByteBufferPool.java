@@ -21,7 +21,7 @@ package org.eclipse.jetty.io;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Objects;
-import java.util.function.IntFunction;
+import java.util.function.Consumer;
 
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
@@ -104,10 +104,11 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool
     public ByteBuffer acquire(int size, boolean direct)
     {
         int capacity = size < _minCapacity ? size : (bucketFor(size) + 1) * getCapacityFactor();
-        ByteBufferPool.Bucket bucket = bucketFor(size, direct, null);
-        if (bucket == null)
+        if (size < _minCapacity || bucketFor(size) >= _direct.length)
             return newByteBuffer(capacity, direct);
-        ByteBuffer buffer = bucket.acquire();
+        ByteBufferPool.Bucket bucket = bucketFor(size, direct, false);
+        ByteBuffer buffer = bucket == null ? null : bucket.acquire();
+        acquired(buffer != null);
         if (buffer == null)
             return newByteBuffer(capacity, direct);
         decrementMemory(buffer);
@@ -120,20 +121,17 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool
         if (buffer == null)
             return;
         boolean direct = buffer.isDirect();
-        ByteBufferPool.Bucket bucket = bucketFor(buffer.capacity(), direct, this::newBucket);
+        ByteBufferPool.Bucket bucket = bucketFor(buffer.capacity(), direct, true);
         if (bucket != null)
         {
-            bucket.release(buffer);
-            incrementMemory(buffer);
-            releaseExcessMemory(direct, this::clearOldestBucket);
+            if (bucket.offer(buffer))
+            {
+                incrementMemory(buffer);
+                releaseExcessMemory(direct, this::clearOldestBucket);
+            }
         }
     }
 
-    private Bucket newBucket(int key)
-    {
-        return new Bucket(key * getCapacityFactor(), getMaxQueueLength());
-    }
-
     @Override
     public void clear()
     {
@@ -179,12 +177,19 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool
         }
     }
 
-    private int bucketFor(int capacity)
+    // Package local for subclasses
+    int getMinCapacity()
+    {
+        return _minCapacity;
+    }
+
+    // Package local for subclasses
+    int bucketFor(int capacity)
     {
         return (capacity - 1) / getCapacityFactor();
     }
 
-    private ByteBufferPool.Bucket bucketFor(int capacity, boolean direct, IntFunction<Bucket> newBucket)
+    private ByteBufferPool.Bucket bucketFor(int capacity, boolean direct, boolean create)
     {
         if (capacity < _minCapacity)
             return null;
@@ -193,8 +198,8 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool
             return null;
         Bucket[] buckets = bucketsFor(direct);
         Bucket bucket = buckets[b];
-        if (bucket == null && newBucket != null)
-            buckets[b] = bucket = newBucket.apply(b + 1);
+        if (bucket == null && create)
+            buckets[b] = bucket = newBucket((b + 1) * getCapacityFactor(), direct);
         return bucket;
     }
 
@@ -218,6 +223,16 @@ public class ArrayByteBufferPool extends AbstractByteBufferPool
             .sum();
     }
 
+    @Override
+    protected void forEachBucket(boolean direct, Consumer<Bucket> action)
+    {
+        for (Bucket bucket : bucketsFor(direct))
+        {
+            if (bucket != null)
+                action.accept(bucket);
+        }
+    }
+
     // Package local for testing
     ByteBufferPool.Bucket[] bucketsFor(boolean direct)
     {
@@ -143,7 +143,7 @@ public interface ByteBufferPool
     {
         private final Deque<ByteBuffer> _queue = new ConcurrentLinkedDeque<>();
         private final int _capacity;
-        private final int _maxSize;
+        private volatile int _maxSize;
         private final AtomicInteger _size;
         private long _lastUpdate = System.nanoTime();
 
@@ -165,15 +165,30 @@ public interface ByteBufferPool
         }
 
         public void release(ByteBuffer buffer)
+        {
+            offer(buffer);
+        }
+
+        /**
+         * @param buffer the ByteBuffer to return to this bucket
+         * @return whether the ByteBuffer has been retained by this bucket
+         */
+        boolean offer(ByteBuffer buffer)
         {
             _lastUpdate = System.nanoTime();
             BufferUtil.clear(buffer);
             if (_size == null)
+            {
                 queueOffer(buffer);
-            else if (_size.incrementAndGet() <= _maxSize)
+                return true;
+            }
+            if (_size.incrementAndGet() <= _maxSize)
+            {
                 queueOffer(buffer);
-            else
-                _size.decrementAndGet();
+                return true;
+            }
+            _size.decrementAndGet();
+            return false;
         }
 
         public void clear()
@@ -181,6 +196,40 @@ public interface ByteBufferPool
             clear(null);
         }
 
+        public int getCapacity()
+        {
+            return _capacity;
+        }
+
+        public int getMaxSize()
+        {
+            return _maxSize;
+        }
+
+        /**
+         * <p>Changes the max number of ByteBuffers retained by this bucket,
+         * discarding the ByteBuffers in excess.</p>
+         * <p>Only buckets created with a positive max size can be resized.</p>
+         *
+         * @param maxSize the new max size
+         * @param memoryFn the function notified of the discarded ByteBuffers
+         */
+        void setMaxSize(int maxSize, Consumer<ByteBuffer> memoryFn)
+        {
+            if (_size == null || maxSize <= 0)
+                throw new IllegalStateException();
+            _maxSize = maxSize;
+            while (_size.get() > maxSize)
+            {
+                ByteBuffer buffer = queuePoll();
+                if (buffer == null)
+                    break;
+                _size.decrementAndGet();
+                if (memoryFn != null)
+                    memoryFn.accept(buffer);
+            }
+        }
+
         void clear(Consumer<ByteBuffer> memoryFn)
         {
             int size = _size == null ? 0 : _size.get() - 1;
@@ -219,6 +268,14 @@ public interface ByteBufferPool
             return _queue.size();
         }
 
+        /**
+         * @return the number of pooled ByteBuffers, cheaper than {@link #size()} for bounded buckets
+         */
+        int count()
+        {
+            return _size == null ? size() : _size.get();
+        }
+
         long getLastUpdate()
         {
             return _lastUpdate;
@@ -19,17 +19,43 @@
 package org.eclipse.jetty.io;
 
 import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.LeakDetector;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * <p>A {@link ByteBufferPool} that tracks the ByteBuffers acquired from a delegate pool
+ * and reports those that are never released.</p>
+ * <p>By default every acquired ByteBuffer is tracked, which is expensive.
+ * In sampling mode, only 1 in {@code sampleRate} acquisitions are tracked, and at most
+ * {@code maxTracked} ByteBuffers are tracked at the same time, so that leak tracking can
+ * be left enabled in production.
+ * In sampling mode, releases of ByteBuffers that were not acquired cannot be detected,
+ * and leaks are aggregated by acquisition site and reported periodically rather than
+ * one by one.</p>
+ */
+@ManagedObject
 public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements ByteBufferPool
 {
     private static final Logger LOG = LoggerFactory.getLogger(LeakTrackingByteBufferPool.class);
+    private static final int MAX_SITES = 128;
+    private static final int SITE_FRAMES = 5;
 
     private final LeakDetector<ByteBuffer> leakDetector = new LeakDetector<ByteBuffer>()
     {
@@ -43,7 +69,15 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
         protected void leaked(LeakInfo leakInfo)
         {
             leaked.incrementAndGet();
-            LeakTrackingByteBufferPool.this.leaked(leakInfo);
+            if (isSampling())
+            {
+                tracked.decrementAndGet();
+                sampledLeaked(leakInfo);
+            }
+            else
+            {
+                LeakTrackingByteBufferPool.this.leaked(leakInfo);
+            }
         }
     };
 
@@ -52,10 +86,28 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
     private final AtomicLong leakedReleases = new AtomicLong(0);
     private final AtomicLong leakedAcquires = new AtomicLong(0);
     private final AtomicLong leaked = new AtomicLong(0);
+    private final AtomicInteger tracked = new AtomicInteger();
+    private final AtomicLong lastReport = new AtomicLong(System.nanoTime());
+    private final ConcurrentMap<String, LongAdder> leakSites = new ConcurrentHashMap<>();
+    private final int sampleRate;
+    private final int maxTracked;
+    private long reportInterval = TimeUnit.MINUTES.toMillis(1);
 
     public LeakTrackingByteBufferPool(ByteBufferPool delegate)
+    {
+        this(delegate, 1, -1);
+    }
+
+    /**
+     * @param delegate the pool to acquire ByteBuffers from
+     * @param sampleRate track 1 in {@code sampleRate} acquisitions, or 1 to track all acquisitions
+     * @param maxTracked the max number of ByteBuffers tracked at the same time in sampling mode
+     */
+    public LeakTrackingByteBufferPool(ByteBufferPool delegate, int sampleRate, int maxTracked)
     {
         this.delegate = delegate;
+        this.sampleRate = Math.max(1, sampleRate);
+        this.maxTracked = maxTracked <= 0 ? 1024 : maxTracked;
         addBean(leakDetector);
         addBean(delegate);
     }
@@ -64,6 +116,12 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
     public ByteBuffer acquire(int size, boolean direct)
     {
         ByteBuffer buffer = delegate.acquire(size, direct);
+        if (isSampling())
+        {
+            if (ThreadLocalRandom.current().nextInt(sampleRate) == 0)
+                sample(buffer);
+            return buffer;
+        }
         boolean leaked = leakDetector.acquired(buffer);
         if (NOISY || !leaked)
         {
@@ -74,11 +132,33 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
         return buffer;
     }
 
+    private void sample(ByteBuffer buffer)
+    {
+        if (tracked.incrementAndGet() > maxTracked)
+        {
+            tracked.decrementAndGet();
+            return;
+        }
+        if (!leakDetector.acquired(buffer))
+        {
+            tracked.decrementAndGet();
+            leakedAcquires.incrementAndGet();
+        }
+    }
+
     @Override
     public void release(ByteBuffer buffer)
     {
         if (buffer == null)
             return;
+        if (isSampling())
+        {
+            // Only look up the ByteBuffer if some are tracked.
+            if (tracked.get() > 0 && leakDetector.released(buffer))
+                tracked.decrementAndGet();
+            delegate.release(buffer);
+            return;
+        }
         boolean leaked = leakDetector.released(buffer);
         if (NOISY || !leaked)
         {
@@ -93,11 +173,54 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
     {
         leakedAcquires.set(0);
         leakedReleases.set(0);
+        leakSites.clear();
+    }
+
+    /**
+     * @return whether only a sample of the acquisitions is tracked
+     */
+    @ManagedAttribute("Whether only a sample of the acquisitions is tracked")
+    public boolean isSampling()
+    {
+        return sampleRate > 1;
+    }
+
+    @ManagedAttribute("The rate at which acquisitions are tracked, 1 in sampleRate")
+    public int getSampleRate()
+    {
+        return sampleRate;
+    }
+
+    @ManagedAttribute("The max number of ByteBuffers tracked at the same time in sampling mode")
+    public int getMaxTracked()
+    {
+        return maxTracked;
+    }
+
+    @ManagedAttribute("The number of ByteBuffers currently tracked in sampling mode")
+    public int getTracked()
+    {
+        return tracked.get();
+    }
+
+    @ManagedAttribute("The interval in ms between reports of the leak sites in sampling mode")
+    public long getReportInterval()
+    {
+        return reportInterval;
+    }
+
+    /**
+     * @param reportInterval the min interval in ms between reports of the leak sites in sampling mode
+     */
+    public void setReportInterval(long reportInterval)
+    {
+        this.reportInterval = reportInterval;
     }
 
     /**
      * @return count of BufferPool.acquire() calls that detected a leak
      */
+    @ManagedAttribute("The number of acquires that detected a leak")
     public long getLeakedAcquires()
     {
         return leakedAcquires.get();
@@ -106,6 +229,7 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
     /**
      * @return count of BufferPool.release() calls that detected a leak
      */
+    @ManagedAttribute("The number of releases that detected a leak")
     public long getLeakedReleases()
     {
         return leakedReleases.get();
@@ -114,11 +238,64 @@ public class LeakTrackingByteBufferPool extends ContainerLifeCycle implements By
     /**
      * @return count of resources that were acquired but not released
      */
+    @ManagedAttribute("The number of ByteBuffers acquired but not released")
     public long getLeakedResources()
     {
         return leaked.get();
     }
 
+    /**
+     * @return the number of sampled leaks per acquisition site
+     */
+    @ManagedAttribute("The number of sampled leaks per acquisition site")
+    public Map<String, Long> getLeakSites()
+    {
+        Map<String, Long> result = new TreeMap<>();
+        leakSites.forEach((site, count) -> result.put(site, count.sum()));
+        return Collections.unmodifiableMap(result);
+    }
+
+    @ManagedOperation(value = "Reports the sampled leak sites", impact = "ACTION")
+    public void reportLeakSites()
+    {
+        Map<String, Long> sites = getLeakSites();
+        if (!sites.isEmpty())
+            LOG.warn("ByteBuffer leaks sampled 1/{} by acquisition site: {}", sampleRate, sites);
+    }
+
+    private void sampledLeaked(LeakDetector<ByteBuffer>.LeakInfo leakInfo)
+    {
+        String site = siteOf(leakInfo.getStackFrames());
+        LongAdder count = leakSites.get(site);
+        if (count == null)
+            count = leakSites.computeIfAbsent(leakSites.size() < MAX_SITES ? site : "<other>", k -> new LongAdder());
+        count.increment();
+
+        long now = System.nanoTime();
+        long last = lastReport.get();
+        if (TimeUnit.NANOSECONDS.toMillis(now - last) >= reportInterval && lastReport.compareAndSet(last, now))
+            reportLeakSites();
+    }
+
+    private String siteOf(Throwable stackFrames)
+    {
+        StringBuilder builder = new StringBuilder();
+        int frames = 0;
+        for (StackTraceElement frame : stackFrames.getStackTrace())
+        {
+            String className = frame.getClassName();
+            // Skip the frames of the leak tracking machinery.
+            if (className.startsWith(LeakDetector.class.getName()) || className.equals(LeakTrackingByteBufferPool.class.getName()))
+                continue;
+            if (frames > 0)
+                builder.append(" <- ");
+            builder.append(frame);
+            if (++frames == SITE_FRAMES)
+                break;
+        }
+        return builder.toString();
+    }
+
     protected void leaked(LeakDetector<ByteBuffer>.LeakInfo leakInfo)
     {
         LOG.warn("ByteBuffer " + leakInfo.getResourceDescription() + " leaked at:", leakInfo.getStackFrames());
@@ -43,13 +43,21 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.eclipse.jetty.util.component.DumpableCollection;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
+import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.util.thread.Scheduler;
+import org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy;
 import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,11 +67,16 @@ import org.slf4j.LoggerFactory;
  * <p>{@link ManagedSelector} runs the select loop, which waits on {@link Selector#select()} until events
  * happen for registered channels. When events happen, it notifies the {@link EndPoint} associated
  * with the channel.</p>
+ * <p>{@link ManagedSelector} records statistics about the select loop, such as the duration of
+ * {@link Selector#select()}, the number of keys selected per wakeup and the depth of the update queue,
+ * and notifies them to the {@link SelectorManager.SelectListener}s of its {@link SelectorManager}.</p>
  */
+@ManagedObject("Manager of a NIO Selector")
 public class ManagedSelector extends ContainerLifeCycle implements Dumpable
 {
     private static final Logger LOG = LoggerFactory.getLogger(ManagedSelector.class);
     private static final boolean FORCE_SELECT_NOW;
+    private static final int HISTOGRAM_BUCKETS = 24;
 
     static
     {
@@ -87,6 +100,12 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
     private Selector _selector;
     private Deque<SelectorUpdate> _updates = new ArrayDeque<>();
     private Deque<SelectorUpdate> _updateable = new ArrayDeque<>();
+    private final SampleStatistic _selectDurationStats = new SampleStatistic();
+    private final AtomicLongArray _selectDurationHistogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+    private final SampleStatistic _selectedKeysStats = new SampleStatistic();
+    private final SampleStatistic _updateQueueStats = new SampleStatistic();
+    private final SampleStatistic _taskLatencyStats = new SampleStatistic();
+    private final LongAdder _submitWakeups = new LongAdder();
 
     public ManagedSelector(SelectorManager selectorManager, int id)
     {
@@ -94,7 +113,9 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         _id = id;
         SelectorProducer producer = new SelectorProducer();
         Executor executor = selectorManager.getExecutor();
-        _strategy = new EatWhatYouKill(producer, executor);
+        _strategy = selectorManager.isAdaptiveExecutionStrategy()
+            ? new AdaptiveExecutionStrategy(producer, executor)
+            : new EatWhatYouKill(producer, executor);
         addBean(_strategy, true);
     }
 
@@ -187,7 +208,9 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         {
             if (LOG.isDebugEnabled())
                 LOG.debug("Wakeup on submit {}", this);
+            _submitWakeups.increment();
             selector.wakeup();
+            _selectorManager.onSubmitWakeup(this);
         }
     }
 
@@ -322,6 +345,133 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         }
     }
 
+    @ManagedAttribute("The number of keys registered with the selector")
+    public int getKeys()
+    {
+        return size();
+    }
+
+    @ManagedAttribute("The number of select() wakeups")
+    public long getSelectCount()
+    {
+        return _selectDurationStats.getCount();
+    }
+
+    @ManagedAttribute("The average select() duration, in nanoseconds")
+    public long getAverageSelectDuration()
+    {
+        return (long)_selectDurationStats.getMean();
+    }
+
+    @ManagedAttribute("The maximum select() duration, in nanoseconds")
+    public long getMaxSelectDuration()
+    {
+        return _selectDurationStats.getMax();
+    }
+
+    /**
+     * <p>Returns the histogram of the select() durations.</p>
+     * <p>The element at index {@code 0} counts the durations less than 2 microseconds,
+     * the element at index {@code i} counts the durations between {@code 2^i} (inclusive) and
+     * {@code 2^(i+1)} (exclusive) microseconds, and the last element also counts longer durations.</p>
+     *
+     * @return the histogram of the select() durations
+     */
+    @ManagedAttribute("The histogram of select() durations, by power of 2 microseconds")
+    public long[] getSelectDurationHistogram()
+    {
+        long[] result = new long[_selectDurationHistogram.length()];
+        for (int i = 0; i < result.length; ++i)
+        {
+            result[i] = _selectDurationHistogram.get(i);
+        }
+        return result;
+    }
+
+    @ManagedAttribute("The average number of keys selected per wakeup")
+    public double getAverageSelectedKeys()
+    {
+        return _selectedKeysStats.getMean();
+    }
+
+    @ManagedAttribute("The maximum number of keys selected per wakeup")
+    public long getMaxSelectedKeys()
+    {
+        return _selectedKeysStats.getMax();
+    }
+
+    @ManagedAttribute("The number of select() wakeups caused by the submission of updates")
+    public long getSubmitWakeupCount()
+    {
+        return _submitWakeups.sum();
+    }
+
+    @ManagedAttribute("The number of updates waiting to be processed")
+    public int getUpdateQueueDepth()
+    {
+        return getActionSize();
+    }
+
+    @ManagedAttribute("The average number of updates processed per wakeup")
+    public double getAverageUpdateQueueDepth()
+    {
+        return _updateQueueStats.getMean();
+    }
+
+    @ManagedAttribute("The maximum number of updates processed per wakeup")
+    public long getMaxUpdateQueueDepth()
+    {
+        return _updateQueueStats.getMax();
+    }
+
+    @ManagedAttribute("The average time from key readiness to task execution, in nanoseconds")
+    public long getAverageSelectedTaskLatency()
+    {
+        return (long)_taskLatencyStats.getMean();
+    }
+
+    @ManagedAttribute("The maximum time from key readiness to task execution, in nanoseconds")
+    public long getMaxSelectedTaskLatency()
+    {
+        return _taskLatencyStats.getMax();
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _selectDurationStats.reset();
+        for (int i = 0; i < _selectDurationHistogram.length(); ++i)
+        {
+            _selectDurationHistogram.set(i, 0);
+        }
+        _selectedKeysStats.reset();
+        _updateQueueStats.reset();
+        _taskLatencyStats.reset();
+        _submitWakeups.reset();
+    }
+
+    private void onSelected(long selectNanos, int selectedKeys)
+    {
+        _selectDurationStats.record(selectNanos);
+        long micros = TimeUnit.NANOSECONDS.toMicros(selectNanos);
+        int bucket = micros < 2 ? 0 : Math.min(HISTOGRAM_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(micros));
+        _selectDurationHistogram.incrementAndGet(bucket);
+        _selectedKeysStats.record(selectedKeys);
+        _selectorManager.onSelected(this, selectNanos, selectedKeys);
+    }
+
+    private void onUpdates(int updates)
+    {
+        _updateQueueStats.record(updates);
+        _selectorManager.onUpdates(this, updates);
+    }
+
+    private void onSelectedTask(Runnable task, long latencyNanos)
+    {
+        _taskLatencyStats.record(latencyNanos);
+        _selectorManager.onSelectedTask(this, task, latencyNanos);
+    }
+
     @Override
     public void dump(Appendable out, String indent) throws IOException
     {
@@ -393,6 +543,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
     {
         private Set<SelectionKey> _keys = Collections.emptySet();
         private Iterator<SelectionKey> _cursor = Collections.emptyIterator();
+        private long _selectedNanos;
 
         @Override
         public Runnable produce()
@@ -423,6 +574,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
 
             if (LOG.isDebugEnabled())
                 LOG.debug("updateable {}", _updateable.size());
+            onUpdates(_updateable.size());
 
             for (SelectorUpdate update : _updateable)
             {
@@ -470,7 +622,9 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                 {
                     if (LOG.isDebugEnabled())
                         LOG.debug("Selector {} waiting with {} keys", selector, selector.keys().size());
+                    long begin = System.nanoTime();
                     int selected = selector.select();
+                    _selectedNanos = System.nanoTime();
                     if (selected == 0)
                     {
                         if (LOG.isDebugEnabled())
@@ -495,6 +649,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
 
                     _keys = selector.selectedKeys();
                     _cursor = _keys.isEmpty() ? Collections.emptyIterator() : _keys.iterator();
+                    onSelected(_selectedNanos - begin, _keys.size());
                     if (LOG.isDebugEnabled())
                         LOG.debug("Selector {} processing {} keys, {} updates", selector, _keys.size(), updates);
 
@@ -537,7 +692,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                             // Try to produce a task
                             Runnable task = ((Selectable)attachment).onSelected();
                             if (task != null)
-                                return task;
+                                return _selectorManager.isSelectedTaskTimed() ? new SelectedTask(task, _selectedNanos) : task;
                         }
                         else if (key.isConnectable())
                         {
@@ -594,6 +749,48 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
         }
     }
 
+    /**
+     * A task produced by a selected key, that records the time from
+     * the key readiness to the task execution.
+     */
+    private class SelectedTask implements Runnable, Invocable, Closeable
+    {
+        private final Runnable _task;
+        private final long _selectedNanos;
+
+        private SelectedTask(Runnable task, long selectedNanos)
+        {
+            _task = task;
+            _selectedNanos = selectedNanos;
+        }
+
+        @Override
+        public void run()
+        {
+            onSelectedTask(_task, System.nanoTime() - _selectedNanos);
+            _task.run();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return Invocable.getInvocationType(_task);
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (_task instanceof Closeable)
+                ((Closeable)_task).close();
+        }
+
+        @Override
+        public String toString()
+        {
+            return _task.toString();
+        }
+    }
+
     /**
      * A selector update to be done when the selector has been woken.
      */
@@ -689,7 +886,7 @@ public class ManagedSelector extends ContainerLifeCycle implements Dumpable
                     channel = _selectorManager.doAccept(server);
                     if (channel == null)
                         break;
-                    _selectorManager.accepted(channel);
+                    _selectorManager.accepted(server, channel);
                 }
             }
             catch (Throwable x)
@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 
 import org.eclipse.jetty.util.BufferUtil;
@@ -40,7 +41,8 @@ public class MappedByteBufferPool extends AbstractByteBufferPool
 {
     private final ConcurrentMap<Integer, Bucket> _directBuffers = new ConcurrentHashMap<>();
     private final ConcurrentMap<Integer, Bucket> _heapBuffers = new ConcurrentHashMap<>();
-    private final Function<Integer, Bucket> _newBucket;
+    private final Function<Integer, Bucket> _newDirectBucket;
+    private final Function<Integer, Bucket> _newHeapBucket;
 
     /**
      * Creates a new MappedByteBufferPool with a default configuration.
@@ -95,12 +97,8 @@ public class MappedByteBufferPool extends AbstractByteBufferPool
     public MappedByteBufferPool(int factor, int maxQueueLength, Function<Integer, Bucket> newBucket, long maxHeapMemory, long maxDirectMemory)
     {
         super(factor, maxQueueLength, maxHeapMemory, maxDirectMemory);
-        _newBucket = newBucket != null ? newBucket : this::newBucket;
-    }
-
-    private Bucket newBucket(int key)
-    {
-        return new Bucket(key * getCapacityFactor(), getMaxQueueLength());
+        _newDirectBucket = newBucket != null ? newBucket : key -> newBucket(key * getCapacityFactor(), true);
+        _newHeapBucket = newBucket != null ? newBucket : key -> newBucket(key * getCapacityFactor(), false);
     }
 
     @Override
@@ -110,9 +108,8 @@ public class MappedByteBufferPool extends AbstractByteBufferPool
         int capacity = b * getCapacityFactor();
         ConcurrentMap<Integer, Bucket> buffers = bucketsFor(direct);
         Bucket bucket = buffers.get(b);
-        if (bucket == null)
-            return newByteBuffer(capacity, direct);
-        ByteBuffer buffer = bucket.acquire();
+        ByteBuffer buffer = bucket == null ? null : bucket.acquire();
+        acquired(buffer != null);
         if (buffer == null)
             return newByteBuffer(capacity, direct);
         decrementMemory(buffer);
@@ -132,10 +129,12 @@ public class MappedByteBufferPool extends AbstractByteBufferPool
         int b = bucketFor(capacity);
         boolean direct = buffer.isDirect();
         ConcurrentMap<Integer, Bucket> buckets = bucketsFor(direct);
-        Bucket bucket = buckets.computeIfAbsent(b, _newBucket);
-        bucket.release(buffer);
-        incrementMemory(buffer);
-        releaseExcessMemory(direct, this::clearOldestBucket);
+        Bucket bucket = buckets.computeIfAbsent(b, direct ? _newDirectBucket : _newHeapBucket);
+        if (bucket.offer(buffer))
+        {
+            incrementMemory(buffer);
+            releaseExcessMemory(direct, this::clearOldestBucket);
+        }
     }
 
     @Override
@@ -201,6 +200,12 @@ public class MappedByteBufferPool extends AbstractByteBufferPool
             .sum();
     }
 
+    @Override
+    protected void forEachBucket(boolean direct, Consumer<Bucket> action)
+    {
+        bucketsFor(direct).values().forEach(action);
+    }
+
     // Package local for testing
     ConcurrentMap<Integer, Bucket> bucketsFor(boolean direct)
     {
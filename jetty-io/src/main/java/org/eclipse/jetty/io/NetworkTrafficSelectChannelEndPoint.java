@@ -50,6 +50,15 @@ public class NetworkTrafficSelectChannelEndPoint extends SocketChannelEndPoint
         return read;
     }
 
+    /**
+     * @return false, since transferred bytes would not be notified to the listener
+     */
+    @Override
+    public boolean isTransferFromSupported()
+    {
+        return false;
+    }
+
     @Override
     public boolean flush(ByteBuffer... buffers) throws IOException
     {
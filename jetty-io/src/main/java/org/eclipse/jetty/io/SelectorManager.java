@@ -66,6 +66,9 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
     private final AtomicInteger _selectorIndex = new AtomicInteger();
     private final IntUnaryOperator _selectorIndexUpdate;
     private final List<AcceptListener> _acceptListeners = new ArrayList<>();
+    private final List<SelectListener> _selectListeners = new ArrayList<>();
+    private boolean _selectedTaskLatencyEnabled;
+    private boolean _adaptiveExecutionStrategy;
     private long _connectTimeout = DEFAULT_CONNECT_TIMEOUT;
     private ThreadPoolBudget.Lease _lease;
 
@@ -230,6 +233,21 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * <p>Callback method when a channel is accepted from the given server channel
+     * passed to {@link #acceptor(SelectableChannel)}.</p>
+     * <p>The default implementation calls {@link #accepted(SelectableChannel)}; it may be
+     * overridden when more than one server channel is registered for accept operations.</p>
+     *
+     * @param server the server channel that accepted the channel
+     * @param channel the accepted channel
+     * @throws IOException if unable to accept channel
+     */
+    protected void accepted(SelectableChannel server, SelectableChannel channel) throws IOException
+    {
+        accepted(channel);
+    }
+
     @Override
     protected void doStart() throws Exception
     {
@@ -406,6 +424,8 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         {
             if (listener instanceof AcceptListener)
                 _acceptListeners.add((AcceptListener)listener);
+            if (listener instanceof SelectListener)
+                _selectListeners.add((SelectListener)listener);
             return true;
         }
         return false;
@@ -420,6 +440,8 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         {
             if (listener instanceof AcceptListener)
                 _acceptListeners.remove(listener);
+            if (listener instanceof SelectListener)
+                _selectListeners.remove(listener);
             return true;
         }
         return false;
@@ -470,10 +492,171 @@ public abstract class SelectorManager extends ContainerLifeCycle implements Dump
         }
     }
 
+    /**
+     * @return whether the time from key readiness to task execution is measured
+     */
+    @ManagedAttribute("Whether the time from key readiness to task execution is measured")
+    public boolean isSelectedTaskLatencyEnabled()
+    {
+        return _selectedTaskLatencyEnabled;
+    }
+
+    /**
+     * <p>Sets whether the {@link ManagedSelector}s measure the time from key readiness
+     * to the execution of the task produced by the key.</p>
+     * <p>Measuring this time requires wrapping every task produced by the selectors,
+     * so it is disabled by default; it is always enabled when a {@link SelectListener}
+     * has been added.</p>
+     *
+     * @param enabled whether the time from key readiness to task execution is measured
+     */
+    public void setSelectedTaskLatencyEnabled(boolean enabled)
+    {
+        _selectedTaskLatencyEnabled = enabled;
+    }
+
+    /**
+     * @return whether the {@link ManagedSelector}s use an {@link org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy AdaptiveExecutionStrategy}
+     */
+    @ManagedAttribute("Whether the selectors use an adaptive execution strategy")
+    public boolean isAdaptiveExecutionStrategy()
+    {
+        return _adaptiveExecutionStrategy;
+    }
+
+    /**
+     * <p>Sets whether the {@link ManagedSelector}s use an {@link org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy AdaptiveExecutionStrategy}
+     * rather than an {@link org.eclipse.jetty.util.thread.strategy.EatWhatYouKill EatWhatYouKill} strategy.</p>
+     * <p>This property must be set before this SelectorManager is started.</p>
+     *
+     * @param adaptive whether the selectors use an adaptive execution strategy
+     */
+    public void setAdaptiveExecutionStrategy(boolean adaptive)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _adaptiveExecutionStrategy = adaptive;
+    }
+
+    boolean isSelectedTaskTimed()
+    {
+        return _selectedTaskLatencyEnabled || !_selectListeners.isEmpty();
+    }
+
+    protected void onSelected(ManagedSelector selector, long selectNanos, int selectedKeys)
+    {
+        for (SelectListener l : _selectListeners)
+        {
+            try
+            {
+                l.onSelected(selector, selectNanos, selectedKeys);
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Failed to notify onSelected on listener {}", l, x);
+            }
+        }
+    }
+
+    protected void onUpdates(ManagedSelector selector, int updates)
+    {
+        for (SelectListener l : _selectListeners)
+        {
+            try
+            {
+                l.onUpdates(selector, updates);
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Failed to notify onUpdates on listener {}", l, x);
+            }
+        }
+    }
+
+    protected void onSubmitWakeup(ManagedSelector selector)
+    {
+        for (SelectListener l : _selectListeners)
+        {
+            try
+            {
+                l.onSubmitWakeup(selector);
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Failed to notify onSubmitWakeup on listener {}", l, x);
+            }
+        }
+    }
+
+    protected void onSelectedTask(ManagedSelector selector, Runnable task, long latencyNanos)
+    {
+        for (SelectListener l : _selectListeners)
+        {
+            try
+            {
+                l.onSelectedTask(selector, task, latencyNanos);
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Failed to notify onSelectedTask on listener {}", l, x);
+            }
+        }
+    }
+
     public interface SelectorManagerListener extends EventListener
     {
     }
 
+    /**
+     * <p>A listener for the activity of the {@link ManagedSelector}s.</p>
+     * <p>This listener is called from the selector thread, or from the thread
+     * that submits updates or runs tasks, and implementations must be non blocking and fast.</p>
+     */
+    public interface SelectListener extends SelectorManagerListener
+    {
+        /**
+         * Called when {@link Selector#select()} returns.
+         *
+         * @param selector the selector
+         * @param selectNanos the time spent in {@link Selector#select()}, in nanoseconds
+         * @param selectedKeys the number of selected keys
+         */
+        default void onSelected(ManagedSelector selector, long selectNanos, int selectedKeys)
+        {
+        }
+
+        /**
+         * Called when the selector processes the queued updates.
+         *
+         * @param selector the selector
+         * @param updates the number of updates being processed
+         */
+        default void onUpdates(ManagedSelector selector, int updates)
+        {
+        }
+
+        /**
+         * Called when the submission of an update wakes up the selector.
+         *
+         * @param selector the selector
+         * @see ManagedSelector#submit(ManagedSelector.SelectorUpdate)
+         */
+        default void onSubmitWakeup(ManagedSelector selector)
+        {
+        }
+
+        /**
+         * Called when a task produced by a selected key starts to run.
+         *
+         * @param selector the selector
+         * @param task the task
+         * @param latencyNanos the time from the key readiness to the task execution, in nanoseconds
+         */
+        default void onSelectedTask(ManagedSelector selector, Runnable task, long latencyNanos)
+        {
+        }
+    }
+
     /**
      * <p>A listener for accept events.</p>
      * <p>This listener is called from either the selector or acceptor thread
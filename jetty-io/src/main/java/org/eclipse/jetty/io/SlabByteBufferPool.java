@@ -0,0 +1,359 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.component.Dumpable;
+
+/**
+ * <p>An {@link ArrayByteBufferPool} where direct ByteBuffers are fixed-size slices of large
+ * direct slabs.</p>
+ * <p>Each bucket allocates its slabs lazily, one {@link ByteBuffer#allocateDirect(int)} per slab,
+ * and carves each slab into slices of the bucket capacity.
+ * Slices are never returned to the JVM: once allocated they are recycled in the bucket forever,
+ * also across {@link #clear()}, so the pool does not need to warm up again.</p>
+ * <p>The native memory used by slabs is capped by {@code maxSlabMemory}; when the cap is reached
+ * direct ByteBuffers are allocated individually and pooled as in {@link ArrayByteBufferPool}.
+ * Only slices are recycled in the slabs: heap ByteBuffers, and direct ByteBuffers that are not
+ * slices, are handled as in {@link ArrayByteBufferPool}.</p>
+ * <p>Slices of the same bucket are interchangeable, so the occupancy is reported per bucket:
+ * the number of slabs, the number of slices and how many slices are in use.</p>
+ */
+@ManagedObject
+public class SlabByteBufferPool extends ArrayByteBufferPool implements Dumpable
+{
+    private final AtomicLong _slabMemory = new AtomicLong();
+    private final LongAdder _unpooled = new LongAdder();
+    private final Slabs[] _slabs;
+    private final int _slabSize;
+    private final long _maxSlabMemory;
+
+    /**
+     * Creates a new SlabByteBufferPool with a default configuration.
+     */
+    public SlabByteBufferPool()
+    {
+        this(-1, -1, -1, -1, -1);
+    }
+
+    /**
+     * Creates a new SlabByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     * @param slabSize the size in bytes of each slab, or -1 for 1 MiB
+     * @param maxSlabMemory the max native memory in bytes allocated for slabs, or -1 for no limit
+     */
+    public SlabByteBufferPool(int minCapacity, int factor, int maxCapacity, int slabSize, long maxSlabMemory)
+    {
+        this(minCapacity, factor, maxCapacity, -1, -1, slabSize, maxSlabMemory);
+    }
+
+    /**
+     * Creates a new SlabByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     * @param maxQueueLength the maximum heap ByteBuffer queue length
+     * @param maxHeapMemory the max heap memory in bytes
+     * @param slabSize the size in bytes of each slab, or -1 for 1 MiB
+     * @param maxSlabMemory the max native memory in bytes allocated for slabs, or -1 for no limit
+     */
+    public SlabByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxQueueLength, long maxHeapMemory, int slabSize, long maxSlabMemory)
+    {
+        super(minCapacity, factor, maxCapacity, maxQueueLength, maxHeapMemory, -1);
+        _slabSize = slabSize <= 0 ? 1024 * 1024 : slabSize;
+        _maxSlabMemory = maxSlabMemory;
+        _slabs = new Slabs[bucketsFor(true).length];
+        for (int i = 0; i < _slabs.length; ++i)
+        {
+            _slabs[i] = new Slabs((i + 1) * getCapacityFactor());
+        }
+    }
+
+    @Override
+    public ByteBuffer acquire(int size, boolean direct)
+    {
+        Slabs slabs = direct ? slabsFor(size) : null;
+        if (slabs == null)
+            return super.acquire(size, direct);
+        ByteBuffer buffer = slabs.acquire();
+        if (buffer != null)
+            return buffer;
+        _unpooled.increment();
+        return super.acquire(size, true);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer)
+    {
+        if (buffer == null)
+            return;
+        Slabs slabs = buffer.isDirect() ? slabsFor(buffer.capacity()) : null;
+        if (slabs == null || !slabs.isSlice(buffer))
+            super.release(buffer);
+        else
+            slabs.release(buffer);
+    }
+
+    private Slabs slabsFor(int capacity)
+    {
+        if (capacity < getMinCapacity())
+            return null;
+        int index = bucketFor(capacity);
+        if (index >= _slabs.length)
+            return null;
+        return _slabs[index];
+    }
+
+    private boolean reserveSlabMemory(int size)
+    {
+        while (true)
+        {
+            long memory = _slabMemory.get();
+            long newMemory = memory + size;
+            if (_maxSlabMemory > 0 && newMemory > _maxSlabMemory)
+                return false;
+            if (_slabMemory.compareAndSet(memory, newMemory))
+                return true;
+        }
+    }
+
+    @ManagedAttribute("The native memory in bytes allocated for slabs")
+    public long getSlabMemory()
+    {
+        return _slabMemory.get();
+    }
+
+    @ManagedAttribute("The max native memory in bytes allocated for slabs")
+    public long getMaxSlabMemory()
+    {
+        return _maxSlabMemory;
+    }
+
+    @ManagedAttribute("The size in bytes of each slab")
+    public int getSlabSize()
+    {
+        return _slabSize;
+    }
+
+    @ManagedAttribute("The number of slabs")
+    public int getSlabCount()
+    {
+        int result = 0;
+        for (Slabs slabs : _slabs)
+        {
+            result += slabs._count.get();
+        }
+        return result;
+    }
+
+    @ManagedAttribute("The number of pooled direct ByteBuffers")
+    @Override
+    public long getDirectByteBufferCount()
+    {
+        long result = super.getDirectByteBufferCount();
+        for (Slabs slabs : _slabs)
+        {
+            result += slabs._available.get();
+        }
+        return result;
+    }
+
+    @ManagedAttribute("The bytes retained by direct ByteBuffers")
+    @Override
+    public long getDirectMemory()
+    {
+        long result = super.getDirectMemory();
+        for (Slabs slabs : _slabs)
+        {
+            result += (long)slabs._available.get() * slabs._capacity;
+        }
+        return result;
+    }
+
+    @ManagedAttribute("The number of direct ByteBuffers acquired outside the slabs because the slab memory was exhausted")
+    public long getUnpooledDirectByteBufferCount()
+    {
+        return _unpooled.sum();
+    }
+
+    /**
+     * @param capacity the ByteBuffer capacity
+     * @return the occupancy of the slabs of the bucket for the given capacity,
+     * as a percentage of the slices that are in use, or -1 if no slab has been allocated
+     */
+    public int getSlabOccupancy(int capacity)
+    {
+        Slabs slabs = slabsFor(capacity);
+        return slabs == null ? -1 : slabs.getOccupancy();
+    }
+
+    @Override
+    public String dump()
+    {
+        return Dumpable.dump(this);
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        List<Slabs> slabs = new ArrayList<>();
+        for (Slabs s : _slabs)
+        {
+            if (s._count.get() > 0)
+                slabs.add(s);
+        }
+        Dumpable.dumpObjects(out, indent, this, slabs.toArray());
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{slabs=%d,memory=%d/%d,unpooled=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getSlabCount(),
+            getSlabMemory(),
+            getMaxSlabMemory(),
+            getUnpooledDirectByteBufferCount());
+    }
+
+    private class Slabs
+    {
+        private final Queue<ByteBuffer> _queue = new ConcurrentLinkedQueue<>();
+        // ByteBuffer equality depends on the content, so slices are tagged by identity.
+        private final Map<Integer, ByteBuffer[]> _identities = new ConcurrentHashMap<>();
+        private final AtomicInteger _count = new AtomicInteger();
+        private final AtomicInteger _slices = new AtomicInteger();
+        private final AtomicInteger _available = new AtomicInteger();
+        private final int _capacity;
+        private final int _slicesPerSlab;
+
+        private Slabs(int capacity)
+        {
+            _capacity = capacity;
+            _slicesPerSlab = Math.max(1, _slabSize / capacity);
+        }
+
+        private ByteBuffer acquire()
+        {
+            boolean hit = true;
+            while (true)
+            {
+                ByteBuffer buffer = _queue.poll();
+                if (buffer != null)
+                {
+                    _available.decrementAndGet();
+                    acquired(hit);
+                    return buffer;
+                }
+                hit = false;
+                if (!allocateSlab())
+                    return null;
+            }
+        }
+
+        private boolean isSlice(ByteBuffer buffer)
+        {
+            ByteBuffer[] slices = _identities.get(System.identityHashCode(buffer));
+            if (slices == null)
+                return false;
+            for (ByteBuffer slice : slices)
+            {
+                if (slice == buffer)
+                    return true;
+            }
+            return false;
+        }
+
+        private void release(ByteBuffer buffer)
+        {
+            BufferUtil.clear(buffer);
+            _available.incrementAndGet();
+            _queue.offer(buffer);
+        }
+
+        private boolean allocateSlab()
+        {
+            int size = _slicesPerSlab * _capacity;
+            if (!reserveSlabMemory(size))
+                return false;
+            ByteBuffer slab = ByteBuffer.allocateDirect(size);
+            _count.incrementAndGet();
+            _slices.addAndGet(_slicesPerSlab);
+            for (int i = 0; i < _slicesPerSlab; ++i)
+            {
+                int offset = i * _capacity;
+                slab.limit(offset + _capacity).position(offset);
+                ByteBuffer slice = slab.slice();
+                BufferUtil.clear(slice);
+                _identities.merge(System.identityHashCode(slice), new ByteBuffer[]{slice}, this::concat);
+                _available.incrementAndGet();
+                _queue.offer(slice);
+            }
+            return true;
+        }
+
+        private ByteBuffer[] concat(ByteBuffer[] slices1, ByteBuffer[] slices2)
+        {
+            ByteBuffer[] result = Arrays.copyOf(slices1, slices1.length + slices2.length);
+            System.arraycopy(slices2, 0, result, slices1.length, slices2.length);
+            return result;
+        }
+
+        private int getOccupancy()
+        {
+            int slices = _slices.get();
+            if (slices == 0)
+                return -1;
+            return (slices - _available.get()) * 100 / slices;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x{capacity=%d,slabs=%d,slices=%d,available=%d,occupancy=%d%%}",
+                getClass().getSimpleName(),
+                hashCode(),
+                _capacity,
+                _count.get(),
+                _slices.get(),
+                _available.get(),
+                getOccupancy());
+        }
+    }
+}
@@ -21,10 +21,12 @@ package org.eclipse.jetty.io;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
 
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.thread.Scheduler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,6 +37,7 @@ public class SocketChannelEndPoint extends ChannelEndPoint
     private final Socket _socket;
     private final InetSocketAddress _local;
     private final InetSocketAddress _remote;
+    private final SocketChannel _channel;
 
     public SocketChannelEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key, Scheduler scheduler)
     {
@@ -45,6 +48,7 @@ public class SocketChannelEndPoint extends ChannelEndPoint
     {
         super(channel, selector, key, scheduler);
 
+        _channel = channel;
         _socket = channel.socket();
         _local = (InetSocketAddress)_socket.getLocalSocketAddress();
         _remote = (InetSocketAddress)_socket.getRemoteSocketAddress();
@@ -67,6 +71,58 @@ public class SocketChannelEndPoint extends ChannelEndPoint
         return _remote;
     }
 
+    /**
+     * @return whether {@link #transferFrom(FileChannel, long, long)} can be used to write to this EndPoint
+     */
+    public boolean isTransferFromSupported()
+    {
+        return true;
+    }
+
+    /**
+     * <p>Writes a region of a file directly to the socket, without copying
+     * the file bytes to user space when the operating system supports it.</p>
+     * <p>The write is non-blocking: fewer bytes than requested, possibly zero,
+     * are transferred if the socket cannot accept more bytes.
+     * The caller must not transfer while a {@link #write(Callback, java.nio.ByteBuffer...)}
+     * is pending, and may wait for the socket to be writable with {@link #writeInterested(Callback)}.</p>
+     *
+     * @param file the file to transfer bytes from
+     * @param position the file position of the first byte to transfer
+     * @param count the max number of bytes to transfer
+     * @return the number of bytes transferred
+     * @throws IOException if the transfer fails
+     */
+    public long transferFrom(FileChannel file, long position, long count) throws IOException
+    {
+        long transferred;
+        try
+        {
+            transferred = file.transferTo(position, count, _channel);
+            if (LOG.isDebugEnabled())
+                LOG.debug("transferred {}/{} {}", transferred, count, this);
+        }
+        catch (IOException e)
+        {
+            throw new EofException(e);
+        }
+        if (transferred > 0)
+            notIdle();
+        return transferred;
+    }
+
+    /**
+     * <p>Waits for the socket to be writable, typically after {@link #transferFrom(FileChannel, long, long)}
+     * transferred zero bytes, without writing any bytes to the socket.</p>
+     *
+     * @param callback the callback succeeded when the socket is writable, or failed
+     * @see WriteFlusher#writeInterested(Callback)
+     */
+    public void writeInterested(Callback callback)
+    {
+        getWriteFlusher().writeInterested(callback);
+    }
+
     @Override
     protected void doShutdownOutput()
     {
@@ -0,0 +1,271 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+
+/**
+ * <p>An {@link ArrayByteBufferPool} that keeps a small per-thread magazine of ByteBuffers
+ * for each bucket in front of the shared buckets.</p>
+ * <p>Acquiring and releasing ByteBuffers normally only touches the magazine of the current
+ * thread, so that no shared state is contended.
+ * When a magazine is empty, it is refilled from the shared bucket with a batch of ByteBuffers;
+ * when a magazine is full, a batch of ByteBuffers is spilled back to the shared bucket.</p>
+ * <p>ByteBuffers held in magazines are not accounted in {@link #getDirectMemory()} or
+ * {@link #getHeapMemory()}, so the magazine size should be kept small.</p>
+ */
+@ManagedObject
+public class ThreadLocalByteBufferPool extends ArrayByteBufferPool
+{
+    private final ThreadLocal<Magazines> _magazines = ThreadLocal.withInitial(Magazines::new);
+    private final AtomicLong _generation = new AtomicLong();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _spills = new LongAdder();
+    private final int _magazineSize;
+    private final int _batchSize;
+
+    /**
+     * Creates a new ThreadLocalByteBufferPool with a default configuration.
+     */
+    public ThreadLocalByteBufferPool()
+    {
+        this(-1, -1, -1, -1, -1, -1, -1);
+    }
+
+    /**
+     * Creates a new ThreadLocalByteBufferPool with the given configuration.
+     *
+     * @param minCapacity the minimum ByteBuffer capacity
+     * @param factor the capacity factor
+     * @param maxCapacity the maximum ByteBuffer capacity
+     * @param maxQueueLength the maximum ByteBuffer queue length of the shared buckets
+     * @param maxHeapMemory the max heap memory in bytes retained by the shared buckets
+     * @param maxDirectMemory the max direct memory in bytes retained by the shared buckets
+     * @param magazineSize the max number of ByteBuffers held per thread for each bucket
+     */
+    public ThreadLocalByteBufferPool(int minCapacity, int factor, int maxCapacity, int maxQueueLength, long maxHeapMemory, long maxDirectMemory, int magazineSize)
+    {
+        super(minCapacity, factor, maxCapacity, maxQueueLength, maxHeapMemory, maxDirectMemory);
+        _magazineSize = magazineSize <= 0 ? 8 : magazineSize;
+        _batchSize = Math.max(1, _magazineSize / 2);
+    }
+
+    @Override
+    public ByteBuffer acquire(int size, boolean direct)
+    {
+        int index = magazineFor(size);
+        if (index < 0)
+            return super.acquire(size, direct);
+
+        Magazine magazine = _magazines.get().magazineFor(index, direct);
+        ByteBuffer buffer = magazine.pop();
+        if (buffer != null)
+        {
+            _hits.increment();
+            acquired(true);
+            return buffer;
+        }
+
+        _misses.increment();
+        refill(magazine, index, direct);
+        buffer = magazine.pop();
+        acquired(buffer != null);
+        if (buffer != null)
+            return buffer;
+        return newByteBuffer((index + 1) * getCapacityFactor(), direct);
+    }
+
+    @Override
+    public void release(ByteBuffer buffer)
+    {
+        if (buffer == null)
+            return;
+
+        int index = magazineFor(buffer.capacity());
+        if (index < 0)
+        {
+            super.release(buffer);
+            return;
+        }
+
+        BufferUtil.clear(buffer);
+        Magazine magazine = _magazines.get().magazineFor(index, buffer.isDirect());
+        if (!magazine.push(buffer))
+        {
+            _spills.increment();
+            spill(magazine);
+            magazine.push(buffer);
+        }
+    }
+
+    private int magazineFor(int capacity)
+    {
+        if (capacity < getMinCapacity())
+            return -1;
+        int index = bucketFor(capacity);
+        if (index >= bucketsFor(true).length)
+            return -1;
+        return index;
+    }
+
+    private void refill(Magazine magazine, int index, boolean direct)
+    {
+        Bucket bucket = bucketsFor(direct)[index];
+        if (bucket == null)
+            return;
+        for (int i = 0; i < _batchSize; ++i)
+        {
+            ByteBuffer buffer = bucket.acquire();
+            if (buffer == null)
+                break;
+            decrementMemory(buffer);
+            magazine.push(buffer);
+        }
+    }
+
+    private void spill(Magazine magazine)
+    {
+        for (int i = 0; i < _batchSize; ++i)
+        {
+            ByteBuffer buffer = magazine.pop();
+            if (buffer == null)
+                break;
+            super.release(buffer);
+        }
+    }
+
+    /**
+     * <p>Clears the shared buckets and invalidates the magazines of all threads.</p>
+     * <p>Magazines of other threads are emptied lazily, the next time they are accessed
+     * by their owner thread.</p>
+     */
+    @Override
+    public void clear()
+    {
+        _generation.incrementAndGet();
+        super.clear();
+    }
+
+    @ManagedAttribute("The max number of ByteBuffers held per thread for each bucket")
+    public int getMagazineSize()
+    {
+        return _magazineSize;
+    }
+
+    @ManagedAttribute("The number of acquires served by the thread local magazines")
+    public long getMagazineHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute("The number of acquires that missed the thread local magazines")
+    public long getMagazineMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute("The number of releases that spilled a batch to the shared buckets")
+    public long getMagazineSpills()
+    {
+        return _spills.sum();
+    }
+
+    @ManagedOperation(value = "Resets the magazine statistics", impact = "ACTION")
+    public void resetMagazineStats()
+    {
+        _hits.reset();
+        _misses.reset();
+        _spills.reset();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{magazineSize=%d,hits=%d,misses=%d,spills=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            _magazineSize,
+            getMagazineHits(),
+            getMagazineMisses(),
+            getMagazineSpills());
+    }
+
+    private class Magazines
+    {
+        private final Magazine[] _direct = new Magazine[bucketsFor(true).length];
+        private final Magazine[] _indirect = new Magazine[bucketsFor(false).length];
+        private long _generation = ThreadLocalByteBufferPool.this._generation.get();
+
+        private Magazine magazineFor(int index, boolean direct)
+        {
+            long generation = ThreadLocalByteBufferPool.this._generation.get();
+            if (generation != _generation)
+            {
+                // The pool has been cleared, drop the buffers of this thread.
+                _generation = generation;
+                for (int i = 0; i < _direct.length; ++i)
+                {
+                    _direct[i] = null;
+                    _indirect[i] = null;
+                }
+            }
+            Magazine[] magazines = direct ? _direct : _indirect;
+            Magazine magazine = magazines[index];
+            if (magazine == null)
+                magazines[index] = magazine = new Magazine(_magazineSize);
+            return magazine;
+        }
+    }
+
+    private static class Magazine
+    {
+        private final ByteBuffer[] _buffers;
+        private int _size;
+
+        private Magazine(int capacity)
+        {
+            _buffers = new ByteBuffer[capacity];
+        }
+
+        private ByteBuffer pop()
+        {
+            if (_size == 0)
+                return null;
+            ByteBuffer buffer = _buffers[--_size];
+            _buffers[_size] = null;
+            return buffer;
+        }
+
+        private boolean push(ByteBuffer buffer)
+        {
+            if (_size == _buffers.length)
+                return false;
+            _buffers[_size++] = buffer;
+            return true;
+        }
+    }
+}
@@ -305,6 +305,38 @@ public abstract class WriteFlusher
         }
     }
 
+    /**
+     * <p>Waits for the EndPoint to be writable, without writing any bytes, so that bytes
+     * written to the EndPoint by other means can be written when it is no longer congested.</p>
+     * <p>The callback is succeeded by {@link #completeWrite()}, or failed by {@link #onFail(Throwable)}
+     * or {@link #onClose()}, as for a {@link #write(Callback, ByteBuffer...) write} that could not
+     * be completed.</p>
+     *
+     * @param callback the callback to call when the EndPoint is writable, or on failure
+     * @throws WritePendingException if a write is pending
+     */
+    public void writeInterested(Callback callback) throws WritePendingException
+    {
+        Objects.requireNonNull(callback);
+
+        if (isFailed())
+        {
+            fail(callback);
+            return;
+        }
+
+        if (DEBUG)
+            LOG.debug("writeInterested: {}", this);
+
+        if (!updateState(__IDLE, __WRITING))
+            throw new WritePendingException();
+
+        if (updateState(__WRITING, new PendingState(EMPTY_BUFFERS, callback)))
+            onIncompleteFlush();
+        else
+            fail(callback);
+    }
+
     private void fail(Callback callback, Throwable... suppressed)
     {
         Throwable cause;
@@ -19,7 +19,9 @@
 package org.eclipse.jetty.io;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 import org.eclipse.jetty.io.ByteBufferPool.Bucket;
@@ -215,4 +217,123 @@ public class ArrayByteBufferPoolTest
         assertNull(buckets[0]);
         assertNull(buckets[2]);
     }
+
+    @Test
+    public void testHitRatio()
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(10, 100, 1000);
+
+        bufferPool.release(bufferPool.acquire(500, true));
+        bufferPool.release(bufferPool.acquire(500, true));
+        // Out of range sizes are not accounted.
+        bufferPool.acquire(5, true);
+        bufferPool.acquire(2000, true);
+
+        assertEquals(1, bufferPool.getHits());
+        assertEquals(1, bufferPool.getMisses());
+        assertEquals(0.5, bufferPool.getHitRatio());
+        assertEquals(500L, bufferPool.getDirectMemoryByCapacity().get(500));
+    }
+
+    @Test
+    public void testAdaptiveGrows()
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1, 1024, -1, 2);
+        bufferPool.setAdaptive(true);
+
+        for (int i = 0; i < 200; ++i)
+        {
+            List<ByteBuffer> buffers = new ArrayList<>();
+            for (int j = 0; j < 4; ++j)
+            {
+                buffers.add(bufferPool.acquire(1024, true));
+            }
+            buffers.forEach(bufferPool::release);
+        }
+
+        Bucket bucket = bufferPool.bucketsFor(true)[0];
+        assertEquals(4, bucket.getMaxSize());
+        assertEquals(4, bucket.size());
+        assertEquals(4 * 1024, bufferPool.getDirectMemory());
+    }
+
+    @Test
+    public void testAdaptiveGrowthLimitedByMaxMemory()
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1, 1024, -1, 2, -1, 3 * 1024);
+        bufferPool.setAdaptive(true);
+
+        for (int i = 0; i < 200; ++i)
+        {
+            List<ByteBuffer> buffers = new ArrayList<>();
+            for (int j = 0; j < 4; ++j)
+            {
+                buffers.add(bufferPool.acquire(1024, true));
+            }
+            buffers.forEach(bufferPool::release);
+        }
+
+        Bucket bucket = bufferPool.bucketsFor(true)[0];
+        assertEquals(3, bucket.getMaxSize());
+        assertThat(bufferPool.getDirectMemory(), lessThanOrEqualTo(3L * 1024));
+    }
+
+    @Test
+    public void testAdaptiveShrinks()
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1, 1024, -1, 8);
+        bufferPool.setAdaptive(true);
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 8; ++i)
+        {
+            buffers.add(bufferPool.acquire(1024, false));
+        }
+        buffers.forEach(bufferPool::release);
+        assertEquals(8 * 1024, bufferPool.getHeapMemory());
+
+        // Only one buffer is used at a time, the others stay idle.
+        for (int i = 0; i < AbstractByteBufferPool.ADAPTIVE_WINDOW; ++i)
+        {
+            bufferPool.release(bufferPool.acquire(1024, false));
+        }
+
+        Bucket bucket = bufferPool.bucketsFor(false)[0];
+        assertEquals(4, bucket.getMaxSize());
+        assertEquals(4, bucket.size());
+        assertEquals(4 * 1024, bufferPool.getHeapMemory());
+    }
+
+    @Test
+    public void testAdaptiveIdleBucketDecays()
+    {
+        ArrayByteBufferPool bufferPool = new ArrayByteBufferPool(-1, 1024, -1, 8);
+        bufferPool.setAdaptive(true);
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 8; ++i)
+        {
+            buffers.add(bufferPool.acquire(1024, false));
+        }
+        buffers.forEach(bufferPool::release);
+        Bucket bucket = bufferPool.bucketsFor(false)[0];
+        assertEquals(8, bucket.size());
+
+        // Without acquires, every period halves the retained ByteBuffers.
+        long now = System.nanoTime();
+        int[] expected = {4, 2, 1, 1};
+        for (int size : expected)
+        {
+            now += 2 * AbstractByteBufferPool.ADAPTIVE_PERIOD;
+            bufferPool.decay(now);
+            assertEquals(size, bucket.getMaxSize());
+            assertEquals(size, bucket.size());
+            assertEquals(size * 1024, bufferPool.getHeapMemory());
+        }
+
+        // Not more often than once per period.
+        bufferPool.release(bufferPool.acquire(2048, false));
+        bufferPool.decay(now + 1);
+        assertEquals(1, bucket.size());
+    }
 }
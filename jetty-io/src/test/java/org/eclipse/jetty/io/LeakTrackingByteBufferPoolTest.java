@@ -0,0 +1,81 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LeakTrackingByteBufferPoolTest
+{
+    @Test
+    public void testTrackAll() throws Exception
+    {
+        LeakTrackingByteBufferPool bufferPool = new LeakTrackingByteBufferPool(new MappedByteBufferPool());
+        bufferPool.start();
+        try
+        {
+            assertFalse(bufferPool.isSampling());
+            ByteBuffer buffer = bufferPool.acquire(1024, false);
+            bufferPool.release(buffer);
+            // Released without being acquired.
+            bufferPool.release(buffer);
+            assertEquals(0, bufferPool.getLeakedAcquires());
+            assertEquals(1, bufferPool.getLeakedReleases());
+        }
+        finally
+        {
+            bufferPool.stop();
+        }
+    }
+
+    @Test
+    public void testSamplingBoundsTrackedBuffers() throws Exception
+    {
+        LeakTrackingByteBufferPool bufferPool = new LeakTrackingByteBufferPool(new MappedByteBufferPool(), 2, 10);
+        bufferPool.start();
+        try
+        {
+            assertTrue(bufferPool.isSampling());
+            List<ByteBuffer> buffers = new ArrayList<>();
+            for (int i = 0; i < 1000; ++i)
+            {
+                buffers.add(bufferPool.acquire(1024, true));
+            }
+            assertEquals(10, bufferPool.getTracked());
+
+            buffers.forEach(bufferPool::release);
+            assertEquals(0, bufferPool.getTracked());
+            // Releases of untracked buffers are not reported as leaks.
+            assertEquals(0, bufferPool.getLeakedReleases());
+            assertEquals(0, bufferPool.getLeakedAcquires());
+            assertTrue(bufferPool.getLeakSites().isEmpty());
+        }
+        finally
+        {
+            bufferPool.stop();
+        }
+    }
+}
@@ -21,23 +21,33 @@ package org.eclipse.jetty.io;
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.thread.QueuedThreadPool;
 import org.eclipse.jetty.util.thread.TimerScheduler;
+import org.eclipse.jetty.util.thread.strategy.AdaptiveExecutionStrategy;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class SelectorManagerTest
@@ -163,4 +173,116 @@ public class SelectorManagerTest
             selectorManager.stop();
         }
     }
+
+    @Test
+    public void testSelectStatisticsAndListener() throws Exception
+    {
+        AtomicInteger selects = new AtomicInteger();
+        AtomicInteger updates = new AtomicInteger();
+        AtomicInteger tasks = new AtomicInteger();
+        CountDownLatch filled = new CountDownLatch(1);
+        SelectorManager selectorManager = new SelectorManager(executor, scheduler, 1)
+        {
+            @Override
+            protected EndPoint newEndPoint(SelectableChannel channel, ManagedSelector selector, SelectionKey key)
+            {
+                return new SocketChannelEndPoint(channel, selector, key, getScheduler());
+            }
+
+            @Override
+            public Connection newConnection(SelectableChannel channel, EndPoint endpoint, Object attachment)
+            {
+                return new AbstractConnection(endpoint, executor)
+                {
+                    @Override
+                    public void onOpen()
+                    {
+                        super.onOpen();
+                        fillInterested();
+                    }
+
+                    @Override
+                    public void onFillable()
+                    {
+                        try
+                        {
+                            ByteBuffer buffer = BufferUtil.allocate(64);
+                            if (getEndPoint().fill(buffer) > 0)
+                                filled.countDown();
+                            else
+                                fillInterested();
+                        }
+                        catch (IOException x)
+                        {
+                            close();
+                        }
+                    }
+                };
+            }
+        };
+        selectorManager.addEventListener(new SelectorManager.SelectListener()
+        {
+            @Override
+            public void onSelected(ManagedSelector selector, long selectNanos, int selectedKeys)
+            {
+                selects.incrementAndGet();
+            }
+
+            @Override
+            public void onUpdates(ManagedSelector selector, int count)
+            {
+                updates.addAndGet(count);
+            }
+
+            @Override
+            public void onSelectedTask(ManagedSelector selector, Runnable task, long latencyNanos)
+            {
+                tasks.incrementAndGet();
+            }
+        });
+        selectorManager.setAdaptiveExecutionStrategy(true);
+        selectorManager.start();
+
+        try (ServerSocketChannel server = ServerSocketChannel.open())
+        {
+            server.bind(new InetSocketAddress("localhost", 0));
+            try (SocketChannel client = SocketChannel.open(server.getLocalAddress()))
+            {
+                SocketChannel channel = server.accept();
+                channel.configureBlocking(false);
+                selectorManager.accept(channel);
+                client.write(ByteBuffer.wrap("hello".getBytes(StandardCharsets.UTF_8)));
+                assertTrue(filled.await(5, TimeUnit.SECONDS));
+            }
+
+            ManagedSelector selector = selectorManager.getBean(ManagedSelector.class);
+            assertThat(selector.getSelectCount(), greaterThan(0L));
+            assertEquals(selects.get(), selector.getSelectCount());
+            long histogram = 0;
+            for (long count : selector.getSelectDurationHistogram())
+            {
+                histogram += count;
+            }
+            assertEquals(selector.getSelectCount(), histogram);
+            assertThat(selector.getMaxSelectedKeys(), greaterThanOrEqualTo(1L));
+            assertThat(selector.getSubmitWakeupCount(), greaterThanOrEqualTo(1L));
+            assertThat(selector.getMaxUpdateQueueDepth(), greaterThanOrEqualTo(1L));
+            assertThat(updates.get(), greaterThanOrEqualTo(1));
+            assertThat(tasks.get(), greaterThanOrEqualTo(1));
+            assertThat(selector.getMaxSelectedTaskLatency(), greaterThan(0L));
+
+            AdaptiveExecutionStrategy strategy = selector.getBean(AdaptiveExecutionStrategy.class);
+            assertNotNull(strategy);
+            long strategyTasks = strategy.getPCTasksConsumed() + strategy.getPICTasksExecuted() +
+                strategy.getPECTasksExecuted() + strategy.getEPCTasksConsumed();
+            assertThat(strategyTasks, greaterThanOrEqualTo(1L));
+
+            selector.resetStatistics();
+            assertEquals(0, selector.getSubmitWakeupCount());
+        }
+        finally
+        {
+            selectorManager.stop();
+        }
+    }
 }
@@ -0,0 +1,190 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.util.BufferUtil;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SlabByteBufferPoolTest
+{
+    @Test
+    public void testDirectBuffersAreSlabSlices()
+    {
+        SlabByteBufferPool bufferPool = new SlabByteBufferPool(0, 1024, 8 * 1024, 4 * 1024, -1);
+
+        ByteBuffer buffer = bufferPool.acquire(1000, true);
+        assertTrue(buffer.isDirect());
+        assertEquals(1024, buffer.capacity());
+        assertEquals(0, buffer.remaining());
+        assertEquals(1, bufferPool.getSlabCount());
+        assertEquals(4 * 1024, bufferPool.getSlabMemory());
+        assertEquals(3, bufferPool.getDirectByteBufferCount());
+        assertEquals(25, bufferPool.getSlabOccupancy(1024));
+
+        // Slices must not overlap.
+        List<ByteBuffer> buffers = new ArrayList<>();
+        buffers.add(buffer);
+        for (int i = 0; i < 3; ++i)
+        {
+            buffers.add(bufferPool.acquire(1024, true));
+        }
+        assertEquals(1, bufferPool.getSlabCount());
+        for (int i = 0; i < buffers.size(); ++i)
+        {
+            ByteBuffer b = buffers.get(i);
+            BufferUtil.clearToFill(b);
+            while (b.hasRemaining())
+            {
+                b.put((byte)i);
+            }
+        }
+        for (int i = 0; i < buffers.size(); ++i)
+        {
+            ByteBuffer b = buffers.get(i);
+            for (int j = 0; j < b.capacity(); ++j)
+            {
+                assertEquals(i, b.get(j));
+            }
+        }
+        assertEquals(100, bufferPool.getSlabOccupancy(1024));
+
+        buffers.forEach(bufferPool::release);
+        assertEquals(4, bufferPool.getDirectByteBufferCount());
+        assertEquals(0, bufferPool.getSlabOccupancy(1024));
+        for (ByteBuffer b : buffers)
+        {
+            assertEquals(0, b.remaining());
+        }
+    }
+
+    @Test
+    public void testMaxSlabMemory()
+    {
+        SlabByteBufferPool bufferPool = new SlabByteBufferPool(0, 1024, 8 * 1024, 2 * 1024, 4 * 1024);
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 5; ++i)
+        {
+            buffers.add(bufferPool.acquire(1024, true));
+        }
+        assertEquals(2, bufferPool.getSlabCount());
+        assertEquals(4 * 1024, bufferPool.getSlabMemory());
+        assertEquals(1, bufferPool.getUnpooledDirectByteBufferCount());
+
+        buffers.forEach(bufferPool::release);
+        // The unpooled buffer is pooled outside the slabs.
+        assertEquals(0, bufferPool.getSlabOccupancy(1024));
+        assertEquals(5, bufferPool.getDirectByteBufferCount());
+        assertEquals(5 * 1024, bufferPool.getDirectMemory());
+
+        // Once the slices are exhausted, the unpooled buffer is reused.
+        ByteBuffer unpooled = buffers.get(4);
+        buffers.clear();
+        for (int i = 0; i < 5; ++i)
+        {
+            buffers.add(bufferPool.acquire(1024, true));
+        }
+        assertSame(unpooled, buffers.get(4));
+        assertEquals(4 * 1024, bufferPool.getSlabMemory());
+    }
+
+    @Test
+    public void testForeignBuffersAreNotSlices()
+    {
+        SlabByteBufferPool bufferPool = new SlabByteBufferPool(0, 1024, 8 * 1024, 2 * 1024, -1);
+
+        ByteBuffer slice = bufferPool.acquire(1024, true);
+        assertEquals(50, bufferPool.getSlabOccupancy(1024));
+
+        // A direct buffer with the capacity of a slice does not take a slot in the slabs.
+        bufferPool.release(ByteBuffer.allocateDirect(1024));
+        assertEquals(50, bufferPool.getSlabOccupancy(1024));
+        assertEquals(2, bufferPool.getDirectByteBufferCount());
+
+        bufferPool.release(slice);
+        assertEquals(0, bufferPool.getSlabOccupancy(1024));
+        assertEquals(3, bufferPool.getDirectByteBufferCount());
+    }
+
+    @Test
+    public void testClearRetainsSlabs()
+    {
+        SlabByteBufferPool bufferPool = new SlabByteBufferPool(0, 1024, 8 * 1024, 4 * 1024, -1);
+
+        bufferPool.release(bufferPool.acquire(2048, true));
+        assertEquals(1, bufferPool.getSlabCount());
+
+        bufferPool.clear();
+        assertEquals(1, bufferPool.getSlabCount());
+        assertEquals(2, bufferPool.getDirectByteBufferCount());
+
+        bufferPool.acquire(2048, true);
+        assertEquals(1, bufferPool.getSlabCount());
+    }
+
+    @Test
+    public void testHeapAndOutOfRangeBuffers()
+    {
+        SlabByteBufferPool bufferPool = new SlabByteBufferPool(0, 1024, 8 * 1024, 4 * 1024, -1);
+
+        ByteBuffer heap = bufferPool.acquire(1024, false);
+        assertFalse(heap.isDirect());
+        bufferPool.release(heap);
+        assertEquals(1, bufferPool.getHeapByteBufferCount());
+
+        ByteBuffer large = bufferPool.acquire(16 * 1024, true);
+        assertTrue(large.isDirect());
+        bufferPool.release(large);
+        assertEquals(0, bufferPool.getSlabCount());
+    }
+
+    @Test
+    public void testRetainableAndLeakTracking() throws Exception
+    {
+        SlabByteBufferPool bufferPool = new SlabByteBufferPool(0, 1024, 8 * 1024, 4 * 1024, -1);
+        LeakTrackingByteBufferPool leakTracking = new LeakTrackingByteBufferPool(bufferPool);
+        leakTracking.start();
+        try
+        {
+            RetainableByteBuffer retainable = new RetainableByteBuffer(leakTracking, 1024, true);
+            retainable.retain();
+            assertEquals(1, retainable.release());
+            assertEquals(0, retainable.release());
+            assertEquals(4, bufferPool.getDirectByteBufferCount());
+            assertEquals(0, leakTracking.getLeakedAcquires());
+            assertEquals(0, leakTracking.getLeakedReleases());
+            assertThat(bufferPool.dump(), containsString("capacity=1024"));
+        }
+        finally
+        {
+            leakTracking.stop();
+        }
+    }
+}
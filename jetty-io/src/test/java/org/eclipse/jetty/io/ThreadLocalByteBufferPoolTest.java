@@ -0,0 +1,149 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.io;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ThreadLocalByteBufferPoolTest
+{
+    @Test
+    public void testAcquireReleaseHitsMagazine()
+    {
+        ThreadLocalByteBufferPool bufferPool = new ThreadLocalByteBufferPool(0, 1024, 16 * 1024, -1, -1, -1, 4);
+
+        ByteBuffer buffer1 = bufferPool.acquire(1000, true);
+        assertEquals(1024, buffer1.capacity());
+        assertEquals(0, bufferPool.getMagazineHits());
+        assertEquals(1, bufferPool.getMagazineMisses());
+
+        bufferPool.release(buffer1);
+        // Released to the magazine, not to the shared bucket.
+        assertEquals(0, bufferPool.getDirectByteBufferCount());
+
+        ByteBuffer buffer2 = bufferPool.acquire(1000, true);
+        assertSame(buffer1, buffer2);
+        assertEquals(1, bufferPool.getMagazineHits());
+        assertEquals(0, buffer2.remaining());
+    }
+
+    @Test
+    public void testFullMagazineSpillsToSharedBucket()
+    {
+        ThreadLocalByteBufferPool bufferPool = new ThreadLocalByteBufferPool(0, 1024, 16 * 1024, -1, -1, -1, 4);
+
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int i = 0; i < 5; ++i)
+        {
+            buffers.add(bufferPool.acquire(2048, false));
+        }
+        buffers.forEach(bufferPool::release);
+
+        assertEquals(1, bufferPool.getMagazineSpills());
+        assertEquals(2, bufferPool.getHeapByteBufferCount());
+        assertEquals(2 * 2048, bufferPool.getHeapMemory());
+
+        ByteBufferPool.Bucket bucket = bufferPool.bucketsFor(false)[1];
+        assertNotNull(bucket);
+        assertEquals(2, bucket.size());
+    }
+
+    @Test
+    public void testMissRefillsFromSharedBucket() throws Exception
+    {
+        ThreadLocalByteBufferPool bufferPool = new ThreadLocalByteBufferPool(0, 1024, 16 * 1024, -1, -1, -1, 4);
+
+        // Fill and spill the magazine of another thread.
+        Thread thread = new Thread(() ->
+        {
+            List<ByteBuffer> buffers = new ArrayList<>();
+            for (int i = 0; i < 6; ++i)
+            {
+                buffers.add(bufferPool.acquire(1024, true));
+            }
+            buffers.forEach(bufferPool::release);
+        });
+        thread.start();
+        thread.join();
+        assertEquals(2, bufferPool.getDirectByteBufferCount());
+
+        long misses = bufferPool.getMagazineMisses();
+        ByteBuffer buffer = bufferPool.acquire(1024, true);
+        assertEquals(misses + 1, bufferPool.getMagazineMisses());
+        // The whole batch moved to the magazine of this thread.
+        assertEquals(0, bufferPool.getDirectByteBufferCount());
+        assertEquals(0, bufferPool.getDirectMemory());
+
+        bufferPool.acquire(1024, true);
+        assertEquals(1, bufferPool.getMagazineHits());
+        assertNotNull(buffer);
+    }
+
+    @Test
+    public void testOutOfRangeBypassesMagazine()
+    {
+        ThreadLocalByteBufferPool bufferPool = new ThreadLocalByteBufferPool(10, 100, 1000, -1, -1, -1, 4);
+
+        ByteBuffer small = bufferPool.acquire(5, true);
+        assertEquals(5, small.capacity());
+        bufferPool.release(small);
+
+        ByteBuffer large = bufferPool.acquire(2000, true);
+        bufferPool.release(large);
+
+        assertEquals(0, bufferPool.getMagazineHits());
+        assertEquals(0, bufferPool.getMagazineMisses());
+    }
+
+    @Test
+    public void testClearInvalidatesMagazines() throws Exception
+    {
+        ThreadLocalByteBufferPool bufferPool = new ThreadLocalByteBufferPool(0, 1024, 16 * 1024, -1, -1, -1, 4);
+
+        ByteBuffer buffer1 = bufferPool.acquire(1024, true);
+        bufferPool.release(buffer1);
+
+        AtomicReference<ByteBuffer> other = new AtomicReference<>();
+        Thread thread = new Thread(() -> other.set(bufferPool.acquire(1024, true)));
+        thread.start();
+        thread.join();
+        // Other threads do not see this thread's magazine.
+        assertNotSame(buffer1, other.get());
+
+        bufferPool.clear();
+        ByteBuffer buffer2 = bufferPool.acquire(1024, true);
+        assertNotSame(buffer1, buffer2);
+        for (ByteBufferPool.Bucket bucket : bufferPool.bucketsFor(true))
+        {
+            assertNull(bucket);
+        }
+        assertTrue(bufferPool.getMagazineMisses() >= 2);
+    }
+}
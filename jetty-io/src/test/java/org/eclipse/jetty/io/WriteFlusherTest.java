@@ -121,6 +121,40 @@ public class WriteFlusherTest
         assertTrue(flusher.isFailed());
     }
 
+    @Test
+    public void testWriteInterested() throws Exception
+    {
+        ByteArrayEndPoint endPoint = new ByteArrayEndPoint(new byte[0], 16);
+
+        AtomicBoolean incompleteFlush = new AtomicBoolean();
+        WriteFlusher flusher = new WriteFlusher(endPoint)
+        {
+            @Override
+            protected void onIncompleteFlush()
+            {
+                incompleteFlush.set(true);
+            }
+        };
+
+        FutureCallback callback = new FutureCallback();
+        flusher.writeInterested(callback);
+        assertTrue(incompleteFlush.get());
+        assertFalse(callback.isDone());
+        assertThrows(WritePendingException.class, () -> flusher.write(Callback.NOOP, BufferUtil.toBuffer("foo")));
+
+        // Nothing is written when the endpoint becomes writable.
+        flusher.completeWrite();
+        assertTrue(callback.isDone());
+        callback.get();
+        assertEquals("", endPoint.takeOutputString());
+
+        // A failure while waiting fails the callback.
+        FutureCallback failed = new FutureCallback();
+        flusher.writeInterested(failed);
+        assertTrue(flusher.onFail(new IOException("test")));
+        assertThrows(ExecutionException.class, failed::get);
+    }
+
     @Test
     public void testCompleteBlocking() throws Exception
     {
@@ -260,6 +260,25 @@ public class RewriteHandler extends HandlerWrapper
         _rules.setRewritePathInfo(rewritePathInfo);
     }
 
+    /**
+     * @return true if the rules are selected through an index of their literal prefixes
+     * @see RuleContainer#isCompiled()
+     */
+    public boolean isCompiled()
+    {
+        return _rules.isCompiled();
+    }
+
+    /**
+     * @param compiled true if the rules are selected through an index of their
+     * literal prefixes, rather than each rule being tried in turn.
+     * @see RuleContainer#setCompiled(boolean)
+     */
+    public void setCompiled(boolean compiled)
+    {
+        _rules.setCompiled(compiled);
+    }
+
     /**
      * @return the originalPathAttribte. If non null, this string will be used
      * as the attribute name to store the original request path.
@@ -19,22 +19,39 @@
 package org.eclipse.jetty.rewrite.handler;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jetty.http.HttpURI;
+import org.eclipse.jetty.http.pathmap.RegexPathSpec;
 import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.ArrayTernaryTrie;
 import org.eclipse.jetty.util.ArrayUtil;
 import org.eclipse.jetty.util.StringUtil;
 import org.eclipse.jetty.util.URIUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.component.Dumpable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Base container to group rules. Can be extended so that the contained rules
- * will only be applied under certain conditions
+ * will only be applied under certain conditions.
+ * <p>
+ * When {@link #setCompiled(boolean) compiled}, the literal prefixes of the
+ * {@link PatternRule}s and {@link RegexRule}s are indexed, so that a single
+ * lookup of the target selects the candidate rules and only those are tried.
+ * The rules are still applied in order.
  */
+@ManagedObject("Rule container")
 public class RuleContainer extends Rule implements Dumpable
 {
     public static final String ORIGINAL_QUERYSTRING_ATTRIBUTE_SUFFIX = ".QUERYSTRING";
@@ -46,6 +63,8 @@ public class RuleContainer extends Rule implements Dumpable
     protected String _originalQueryStringAttribute;
     protected boolean _rewriteRequestURI = true;
     protected boolean _rewritePathInfo = true;
+    private boolean _compiled;
+    private volatile CompiledRules _compiledRules;
 
     /**
      * Returns the list of rules.
@@ -113,6 +132,60 @@ public class RuleContainer extends Rule implements Dumpable
         _rewritePathInfo = rewritePathInfo;
     }
 
+    /**
+     * @return true if the rules are selected through an index of their literal prefixes
+     */
+    @ManagedAttribute(value = "whether the rules are selected through an index of their literal prefixes", readonly = true)
+    public boolean isCompiled()
+    {
+        return _compiled;
+    }
+
+    /**
+     * @param compiled true if the rules are selected through an index of their
+     * literal prefixes, rather than each rule being tried in turn.
+     */
+    public void setCompiled(boolean compiled)
+    {
+        _compiled = compiled;
+    }
+
+    /**
+     * @param rule the rule
+     * @return the number of times the rule has been applied
+     */
+    public long getHits(Rule rule)
+    {
+        CompiledRules compiled = _compiledRules;
+        if (compiled != null)
+        {
+            for (int i = 0; i < compiled._rules.length; i++)
+            {
+                if (compiled._rules[i] == rule)
+                    return compiled._hits[i].sum();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return the number of times each rule has been applied, in rule order
+     */
+    @ManagedAttribute(value = "number of times each rule has been applied", readonly = true)
+    public Map<String, Long> getRuleHits()
+    {
+        Map<String, Long> hits = new LinkedHashMap<>();
+        CompiledRules compiled = _compiledRules;
+        if (compiled != null)
+        {
+            for (int i = 0; i < compiled._rules.length; i++)
+            {
+                hits.put(i + ":" + compiled._rules[i], compiled._hits[i].sum());
+            }
+        }
+        return hits;
+    }
+
     /**
      * @return the originalPathAttribte. If non null, this string will be used
      * as the attribute name to store the original request path.
@@ -158,14 +231,29 @@ public class RuleContainer extends Rule implements Dumpable
     {
         boolean originalSet = _originalPathAttribute == null;
 
-        if (_rules == null)
+        Rule[] rules = _rules;
+        if (rules == null)
             return target;
 
-        for (Rule rule : _rules)
+        CompiledRules compiled = _compiledRules;
+        if (compiled == null || compiled._rules != rules || compiled.isIndexed() != _compiled)
+            _compiledRules = compiled = new CompiledRules(rules, _compiled, compiled);
+
+        BitSet candidates = compiled.candidates(target);
+        for (int i = 0; i < rules.length; i++)
         {
+            if (candidates != null)
+            {
+                i = candidates.nextSetBit(i);
+                if (i < 0)
+                    break;
+            }
+
+            Rule rule = rules[i];
             String applied = rule.matchAndApply(target, request, response);
             if (applied != null)
             {
+                compiled._hits[i].increment();
                 LOG.debug("applied {}", rule);
                 LOG.debug("rewrote {} to {}", target, applied);
                 if (!originalSet)
@@ -204,6 +292,8 @@ public class RuleContainer extends Rule implements Dumpable
                 if (_rewritePathInfo)
                     baseRequest.setPathInfo(applied);
 
+                if (candidates != null && !applied.equals(target))
+                    candidates = compiled.candidates(applied);
                 target = applied;
 
                 if (rule.isHandling())
@@ -228,4 +318,155 @@ public class RuleContainer extends Rule implements Dumpable
     {
         Dumpable.dumpObjects(out, indent, this, _rules);
     }
+
+    /**
+     * The hit counters of a rules array and, when compiled, the index
+     * from literal prefixes to the rules that may match a target.
+     */
+    private static class CompiledRules
+    {
+        private final Rule[] _rules;
+        private final LongAdder[] _hits;
+        private final BitSet _always;
+        private final ArrayTernaryTrie<Literal> _literals;
+
+        private CompiledRules(Rule[] rules, boolean indexed, CompiledRules previous)
+        {
+            _rules = rules;
+            _hits = new LongAdder[rules.length];
+
+            // Keep the counts of the rules that are still present.
+            Map<Rule, LongAdder> counts = new IdentityHashMap<>();
+            if (previous != null)
+            {
+                for (int i = 0; i < previous._rules.length; i++)
+                {
+                    counts.putIfAbsent(previous._rules[i], previous._hits[i]);
+                }
+            }
+            for (int i = 0; i < rules.length; i++)
+            {
+                LongAdder hits = counts.remove(rules[i]);
+                _hits[i] = hits == null ? new LongAdder() : hits;
+            }
+
+            if (!indexed)
+            {
+                _always = null;
+                _literals = null;
+                return;
+            }
+
+            String[] literals = new String[rules.length];
+            int capacity = 1;
+            for (int i = 0; i < rules.length; i++)
+            {
+                literals[i] = literal(rules[i]);
+                if (literals[i] != null)
+                    capacity += literals[i].length();
+            }
+
+            _always = new BitSet(rules.length);
+            _literals = new ArrayTernaryTrie<>(false, Math.min(capacity, Character.MAX_VALUE));
+            for (int i = 0; i < rules.length; i++)
+            {
+                String literal = literals[i];
+                if (literal == null)
+                {
+                    _always.set(i);
+                    continue;
+                }
+
+                Literal entry = _literals.get(literal);
+                if (entry == null)
+                {
+                    entry = new Literal(literal);
+                    if (!_literals.put(literal, entry))
+                    {
+                        _always.set(i);
+                        continue;
+                    }
+                }
+                entry._rules.set(i);
+            }
+        }
+
+        private boolean isIndexed()
+        {
+            return _literals != null;
+        }
+
+        /**
+         * @param target the target to match
+         * @return the indexes of the rules that may match the target, or null to try all rules
+         */
+        private BitSet candidates(String target)
+        {
+            if (_literals == null)
+                return null;
+
+            BitSet candidates = (BitSet)_always.clone();
+            int length = target.length();
+            while (length > 0)
+            {
+                Literal literal = _literals.getBest(target, 0, length);
+                if (literal == null)
+                    break;
+                candidates.or(literal._rules);
+                length = literal._literal.length() - 1;
+            }
+            return candidates;
+        }
+
+        /**
+         * @param rule the rule
+         * @return a literal that prefixes every target the rule matches, or null if there is none
+         */
+        private static String literal(Rule rule)
+        {
+            Class<?> matcher;
+            try
+            {
+                Method method = rule.getClass().getMethod("matchAndApply", String.class, HttpServletRequest.class, HttpServletResponse.class);
+                matcher = method.getDeclaringClass();
+            }
+            catch (NoSuchMethodException e)
+            {
+                return null;
+            }
+
+            if (matcher == PatternRule.class)
+            {
+                // An empty pattern only matches "/" and "/" matches everything.
+                String pattern = ((PatternRule)rule).getPattern();
+                if (pattern == null || pattern.length() < 2 || pattern.charAt(0) != '/')
+                    return null;
+                // A "/foo/*" pattern also matches "/foo".
+                if (pattern.endsWith("/*"))
+                    pattern = pattern.substring(0, pattern.length() - 2);
+                return pattern.isEmpty() ? null : pattern;
+            }
+
+            if (matcher == RegexRule.class)
+            {
+                Pattern regex = ((RegexRule)rule)._regex;
+                if (regex == null || regex.flags() != 0)
+                    return null;
+                return RegexPathSpec.getLiteralPrefix(regex.pattern());
+            }
+
+            return null;
+        }
+    }
+
+    private static class Literal
+    {
+        private final String _literal;
+        private final BitSet _rules = new BitSet();
+
+        private Literal(String literal)
+        {
+            _literal = literal;
+        }
+    }
 }
@@ -28,6 +28,8 @@ import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -196,4 +198,68 @@ public class RewriteHandlerTest extends AbstractRuleTestCase
         assertEquals("/x%20y/zzz", _request.getAttribute("URI"));
         assertEquals("/xxx/x y", _request.getAttribute("info"));
     }
+
+    @Test
+    public void testCompiled() throws Exception
+    {
+        Rule custom = new Rule()
+        {
+            @Override
+            public String matchAndApply(String target, HttpServletRequest request, HttpServletResponse response)
+            {
+                return target.endsWith("/custom") ? target.replace("/custom", "/done") : null;
+            }
+        };
+        Rule[] rules = new Rule[]{
+            new RewritePatternRule("/aaa/*", "/bbb"),
+            new RewritePatternRule("/bbb/*", "/ccc"),
+            new RewritePatternRule("/exact", "/aaa/exact"),
+            new RewritePatternRule("*.jsp", "/jsp"),
+            new RewriteRegexRule("^/old-(\\d+)/(.*)", "/bbb/$1/$2"),
+            new RewriteRegexRule("/xxx/(.*)", "/$1/zzz"),
+            new RewriteRegexRule("(?i)/upper/(.*)", "/$1/custom"),
+            new RewriteRegexRule("/opt/?x(.*)", "/opt$1"),
+            new RewriteRegexRule("/a\\.b/(.*)|/a-b/(.*)", "/ab"),
+            new RewriteRegexRule("/ccc/.*", "/ddd"),
+            custom
+        };
+        String[] targets = new String[]{
+            "/", "/aaa", "/aaa/x", "/aaax", "/bbb/y", "/exact", "/exact/", "/page.jsp", "/old-12/x", "/old-x/y",
+            "/xxx/a", "/xxx", "/UPPER/a", "/upper/b", "/optx", "/opt/x/y", "/a.b/c", "/a-b/c", "/ccc", "/z/custom"
+        };
+
+        RuleContainer plain = new RuleContainer();
+        plain.setRewriteRequestURI(false);
+        plain.setRewritePathInfo(false);
+        plain.setRules(rules);
+
+        RuleContainer compiled = new RuleContainer();
+        compiled.setRewriteRequestURI(false);
+        compiled.setRewritePathInfo(false);
+        compiled.setCompiled(true);
+        compiled.setRules(rules);
+
+        for (String target : targets)
+        {
+            assertThat(target, compiled.matchAndApply(target, _request, _response), is(plain.matchAndApply(target, _request, _response)));
+        }
+
+        long total = 0;
+        for (Rule rule : rules)
+        {
+            assertThat(rule.toString(), compiled.getHits(rule), is(plain.getHits(rule)));
+            total += compiled.getHits(rule);
+        }
+        assertThat(compiled.getHits(rules[0]), is(2L));
+        assertThat(compiled.getHits(rules[9]), is(2L));
+        assertThat(compiled.getRuleHits().values().stream().mapToLong(Long::longValue).sum(), is(total));
+
+        // Counts survive a change of the rules.
+        Rule added = new RewritePatternRule("/new/*", "/aaa");
+        compiled.addRule(added);
+        compiled.matchAndApply("/new/x", _request, _response);
+        assertThat(compiled.getHits(rules[0]), is(2L));
+        assertThat(compiled.getHits(added), is(1L));
+        assertThat(compiled.getRuleHits().size(), is(rules.length + 1));
+    }
 }
@@ -29,6 +29,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CopyOnWriteArraySet;
 import javax.servlet.HttpConstraintElement;
@@ -37,6 +39,7 @@ import javax.servlet.ServletSecurityElement;
 import javax.servlet.annotation.ServletSecurity.EmptyRoleSemantic;
 import javax.servlet.annotation.ServletSecurity.TransportGuarantee;
 
+import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpStatus;
 import org.eclipse.jetty.http.pathmap.MappedResource;
 import org.eclipse.jetty.http.pathmap.PathMappings;
@@ -57,6 +60,12 @@ import org.slf4j.LoggerFactory;
  * Handler to enforce SecurityConstraints. This implementation is servlet spec
  * 3.1 compliant and pre-computes the constraint combinations for runtime
  * efficiency.
+ * <p>
+ * When started, the constraints are compiled into a table of decisions indexed
+ * by path spec, where the {@link RoleInfo} that applies to each HTTP method is
+ * resolved once and cached, so that checking a request costs a path match and a
+ * method lookup. The table is recompiled if the constraints or roles are changed
+ * while started.
  */
 public class ConstraintSecurityHandler extends SecurityHandler implements ConstraintAware
 {
@@ -64,9 +73,11 @@ public class ConstraintSecurityHandler extends SecurityHandler implements Constr
 
     private static final String OMISSION_SUFFIX = ".omission";
     private static final String ALL_METHODS = "*";
+    private static final int MAX_RESOLVED_METHODS = 64;
     private final List<ConstraintMapping> _constraintMappings = new CopyOnWriteArrayList<>();
     private final Set<String> _roles = new CopyOnWriteArraySet<>();
     private final PathMappings<Map<String, RoleInfo>> _constraintRoles = new PathMappings<>();
+    private volatile PathMappings<MethodDecisions> _constraintDecisions;
     private boolean _denyUncoveredMethods = false;
 
     public static Constraint createConstraint()
@@ -390,6 +401,7 @@ public class ConstraintSecurityHandler extends SecurityHandler implements Constr
                         info.addRole(role);
                 }
             }
+            publishConstraintDecisions();
         }
     }
 
@@ -405,6 +417,8 @@ public class ConstraintSecurityHandler extends SecurityHandler implements Constr
             }
         }
 
+        _constraintDecisions = compileConstraintDecisions();
+
         //Servlet Spec 3.1 pg 147 sec 13.8.4.2 log paths for which there are uncovered http methods
         checkPathsWithUncoveredHttpMethods();
 
@@ -416,6 +430,7 @@ public class ConstraintSecurityHandler extends SecurityHandler implements Constr
     {
         super.doStop();
         _constraintRoles.reset();
+        _constraintDecisions = null;
     }
 
     /**
@@ -425,6 +440,12 @@ public class ConstraintSecurityHandler extends SecurityHandler implements Constr
      * @param mapping the constraint mapping
      */
     protected void processConstraintMapping(ConstraintMapping mapping)
+    {
+        combineConstraintMapping(mapping);
+        publishConstraintDecisions();
+    }
+
+    private void combineConstraintMapping(ConstraintMapping mapping)
     {
         Map<String, RoleInfo> mappings = _constraintRoles.get(PathMappings.asPathSpec(mapping.getPathSpec()));
         if (mappings == null)
@@ -571,15 +592,56 @@ public class ConstraintSecurityHandler extends SecurityHandler implements Constr
     @Override
     protected RoleInfo prepareConstraintInfo(String pathInContext, Request request)
     {
-        MappedResource<Map<String, RoleInfo>> resource = _constraintRoles.getMatch(pathInContext);
+        PathMappings<MethodDecisions> decisions = _constraintDecisions;
+        if (decisions == null)
+        {
+            // Not started, read the processed constraints directly.
+            MappedResource<Map<String, RoleInfo>> resource = _constraintRoles.getMatch(pathInContext);
+            if (resource == null)
+                return null;
+            return resolveConstraintInfo(resource.getResource(), request.getMethod());
+        }
+
+        MappedResource<MethodDecisions> resource = decisions.getMatch(pathInContext);
         if (resource == null)
             return null;
 
-        Map<String, RoleInfo> mappings = resource.getResource();
-        if (mappings == null)
-            return null;
+        return resource.getResource().getRoleInfo(request.getMethod());
+    }
+
+    /**
+     * <p>Replaces the decisions used by requests once the processed constraints have changed.</p>
+     * <p>The decisions are only published after the change, so that a concurrent request
+     * uses either the previous decisions or the new ones, never a partial update.</p>
+     */
+    private void publishConstraintDecisions()
+    {
+        if (isStarted())
+            _constraintDecisions = compileConstraintDecisions();
+    }
+
+    /**
+     * @return the decisions for the constraints processed so far, by path spec
+     */
+    private PathMappings<MethodDecisions> compileConstraintDecisions()
+    {
+        PathMappings<MethodDecisions> decisions = new PathMappings<>();
+        for (MappedResource<Map<String, RoleInfo>> resource : _constraintRoles)
+        {
+            decisions.put(resource.getPathSpec(), new MethodDecisions(resource.getResource()));
+        }
+        return decisions;
+    }
 
-        String httpMethod = request.getMethod();
+    /**
+     * Combine the constraints of a path that apply to the given method.
+     *
+     * @param mappings the processed constraints of the path, by method
+     * @param httpMethod the method of the request
+     * @return the constraints that apply to the method
+     */
+    private RoleInfo resolveConstraintInfo(Map<String, RoleInfo> mappings, String httpMethod)
+    {
         RoleInfo roleInfo = mappings.get(httpMethod);
         if (roleInfo == null)
         {
@@ -727,6 +789,7 @@ public class ConstraintSecurityHandler extends SecurityHandler implements Constr
     public void setDenyUncoveredHttpMethods(boolean deny)
     {
         _denyUncoveredMethods = deny;
+        publishConstraintDecisions();
     }
 
     @Override
@@ -850,4 +913,50 @@ public class ConstraintSecurityHandler extends SecurityHandler implements Constr
         }
         return methods;
     }
+
+    /**
+     * <p>The constraints of a path spec, with the {@link RoleInfo} resolved for each method.</p>
+     * <p>The methods named by the constraints and the known HTTP methods are resolved when compiled,
+     * other methods are resolved when first requested, and cached up to a limit.</p>
+     */
+    private class MethodDecisions
+    {
+        private final Map<String, RoleInfo> _mappings;
+        private final ConcurrentMap<String, RoleInfo> _roleInfos = new ConcurrentHashMap<>();
+
+        private MethodDecisions(Map<String, RoleInfo> mappings)
+        {
+            // Copied, as the processed constraints may change after publication.
+            _mappings = new HashMap<>(mappings);
+            for (String method : _mappings.keySet())
+            {
+                if (method != null)
+                    _roleInfos.put(method, resolveConstraintInfo(_mappings, method));
+            }
+            for (HttpMethod method : HttpMethod.values())
+            {
+                _roleInfos.computeIfAbsent(method.asString(), m -> resolveConstraintInfo(_mappings, m));
+            }
+        }
+
+        private RoleInfo getRoleInfo(String method)
+        {
+            if (method == null)
+                return resolveConstraintInfo(_mappings, null);
+            RoleInfo roleInfo = _roleInfos.get(method);
+            if (roleInfo == null)
+            {
+                roleInfo = resolveConstraintInfo(_mappings, method);
+                if (_roleInfos.size() < MAX_RESOLVED_METHODS)
+                    _roleInfos.putIfAbsent(method, roleInfo);
+            }
+            return roleInfo;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s@%x%s", getClass().getSimpleName(), hashCode(), _mappings);
+        }
+    }
 }
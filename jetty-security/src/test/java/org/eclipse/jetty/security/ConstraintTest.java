@@ -77,6 +77,8 @@ import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.in;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.Matchers.startsWith;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
@@ -388,6 +390,121 @@ public class ConstraintTest
         assertTrue(mappings.get(1).getConstraint().isForbidden());
     }
 
+    @Test
+    public void testConstraintDecisions() throws Exception
+    {
+        Constraint constraint = new Constraint();
+        constraint.setAuthenticate(true);
+        constraint.setName("omit GET");
+        constraint.setRoles(new String[]{"user"});
+        ConstraintMapping mapping = new ConstraintMapping();
+        mapping.setPathSpec("/omit/*");
+        mapping.setMethodOmissions(new String[]{"GET"});
+        mapping.setConstraint(constraint);
+
+        _security.setConstraintMappings(Collections.singletonList(mapping));
+        _security.setAuthenticator(new BasicAuthenticator());
+        _security.setDenyUncoveredHttpMethods(true);
+        _server.start();
+
+        Request request = newRequest("PATCH");
+        RoleInfo patch = _security.prepareConstraintInfo("/omit/info", request);
+        assertTrue(patch.isChecked());
+        assertTrue(patch.getRoles().contains("user"));
+        // The decision is resolved once per path spec and method.
+        assertThat(_security.prepareConstraintInfo("/omit/other", request), sameInstance(patch));
+        request = newRequest("XCUSTOM");
+        assertThat(_security.prepareConstraintInfo("/omit/info", request), sameInstance(_security.prepareConstraintInfo("/omit/info", request)));
+        assertTrue(_security.prepareConstraintInfo("/omit/info", request).isChecked());
+        assertThat(_security.prepareConstraintInfo("/public/info", request), nullValue());
+
+        // GET is omitted and not otherwise covered, so it is denied.
+        request = newRequest("GET");
+        assertTrue(_security.prepareConstraintInfo("/omit/info", request).isForbidden());
+
+        // Changing the constraints while started updates the decisions.
+        _security.setDenyUncoveredHttpMethods(false);
+        assertFalse(_security.prepareConstraintInfo("/omit/info", request).isForbidden());
+        assertFalse(_security.prepareConstraintInfo("/omit/info", request).isChecked());
+
+        Constraint getConstraint = new Constraint();
+        getConstraint.setAuthenticate(true);
+        getConstraint.setName("GET");
+        getConstraint.setRoles(new String[]{"administrator"});
+        ConstraintMapping getMapping = new ConstraintMapping();
+        getMapping.setPathSpec("/omit/*");
+        getMapping.setMethod("GET");
+        getMapping.setConstraint(getConstraint);
+        _security.addConstraintMapping(getMapping);
+        RoleInfo get = _security.prepareConstraintInfo("/omit/info", request);
+        assertTrue(get.isChecked());
+        assertTrue(get.getRoles().contains("administrator"));
+    }
+
+    @Test
+    public void testConstraintDecisionsPublishedAfterChange() throws Exception
+    {
+        List<RoleInfo> concurrent = new ArrayList<>();
+        ConstraintSecurityHandler security = new ConstraintSecurityHandler()
+        {
+            @Override
+            protected void configureRoleInfo(RoleInfo ri, ConstraintMapping mapping)
+            {
+                // A request arriving while the constraints are being changed.
+                if (isStarted())
+                    concurrent.add(prepareConstraintInfo("/omit/info", newRequest("PUT")));
+                super.configureRoleInfo(ri, mapping);
+            }
+        };
+        _server.getChildHandlerByClass(SessionHandler.class).setHandler(security);
+        security.setHandler(new RequestHandler());
+        security.setAuthenticator(new BasicAuthenticator());
+
+        Constraint userConstraint = new Constraint();
+        userConstraint.setAuthenticate(true);
+        userConstraint.setName("omit GET");
+        userConstraint.setRoles(new String[]{"user"});
+        ConstraintMapping userMapping = new ConstraintMapping();
+        userMapping.setPathSpec("/omit/*");
+        userMapping.setMethodOmissions(new String[]{"GET"});
+        userMapping.setConstraint(userConstraint);
+        security.setConstraintMappings(Collections.singletonList(userMapping), new HashSet<>(Arrays.asList("user", "administrator")));
+        _server.start();
+
+        RoleInfo put = security.prepareConstraintInfo("/omit/info", newRequest("PUT"));
+        assertTrue(put.getRoles().contains("user"));
+        assertFalse(put.getRoles().contains("administrator"));
+
+        Constraint adminConstraint = new Constraint();
+        adminConstraint.setAuthenticate(true);
+        adminConstraint.setName("omit POST");
+        adminConstraint.setRoles(new String[]{"administrator"});
+        ConstraintMapping adminMapping = new ConstraintMapping();
+        adminMapping.setPathSpec("/omit/*");
+        adminMapping.setMethodOmissions(new String[]{"POST"});
+        adminMapping.setConstraint(adminConstraint);
+        security.addConstraintMapping(adminMapping);
+
+        // The concurrent request used the previous decisions, which are not kept.
+        assertThat(concurrent.size(), is(1));
+        assertThat(concurrent.get(0), sameInstance(put));
+        put = security.prepareConstraintInfo("/omit/info", newRequest("PUT"));
+        assertTrue(put.getRoles().contains("user"));
+        assertTrue(put.getRoles().contains("administrator"));
+    }
+
+    private static Request newRequest(String method)
+    {
+        return new Request(null, null)
+        {
+            @Override
+            public String getMethod()
+            {
+                return method;
+            }
+        };
+    }
+
     @Test
     public void testUncoveredHttpMethodDetection() throws Exception
     {
@@ -21,6 +21,9 @@ etc/jetty-threadpool.xml
 ## Number of reserved threads (-1 for heuristic)
 # jetty.threadPool.reservedThreads=-1
 
+## Min number of reserved threads when sized on demand (-1 for a fixed number)
+# jetty.threadPool.minReservedThreads=-1
+
 ## Thread Idle Timeout (in milliseconds)
 #jetty.threadPool.idleTimeout=60000
 
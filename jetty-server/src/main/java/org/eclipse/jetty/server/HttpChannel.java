@@ -171,6 +171,17 @@ public class HttpChannel implements Runnable, HttpOutput.Interceptor
         return _written;
     }
 
+    /**
+     * <p>Accounts bytes that have been written directly to the EndPoint,
+     * bypassing {@link #write(ByteBuffer, boolean, Callback)}.</p>
+     *
+     * @param bytes the number of bytes written
+     */
+    void onBytesWritten(long bytes)
+    {
+        _written += bytes;
+    }
+
     /**
      * @return the number of requests handled by this connection
      */
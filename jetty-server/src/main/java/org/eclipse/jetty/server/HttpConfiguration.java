@@ -25,6 +25,7 @@ import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.jetty.http.CookieCompliance;
 import org.eclipse.jetty.http.HttpCompliance;
+import org.eclipse.jetty.http.HttpFieldCache;
 import org.eclipse.jetty.http.HttpMethod;
 import org.eclipse.jetty.http.HttpScheme;
 import org.eclipse.jetty.util.Jetty;
@@ -58,6 +59,7 @@ public class HttpConfiguration implements Dumpable
     private int _responseHeaderSize = 8 * 1024;
     private int _headerCacheSize = 1024;
     private boolean _headerCacheCaseSensitive = false;
+    private HttpFieldCache _sharedFieldCache;
     private int _securePort;
     private long _idleTimeout = -1;
     private String _secureScheme = HttpScheme.HTTPS.asString();
@@ -69,6 +71,7 @@ public class HttpConfiguration implements Dumpable
     private int _maxErrorDispatches = 10;
     private boolean _useInputDirectByteBuffers = true;
     private boolean _useOutputDirectByteBuffers = true;
+    private boolean _useSendFile;
     private long _minRequestDataRate;
     private long _minResponseDataRate;
     private HttpCompliance _httpCompliance = HttpCompliance.RFC7230;
@@ -126,6 +129,7 @@ public class HttpConfiguration implements Dumpable
         _responseHeaderSize = config._responseHeaderSize;
         _headerCacheSize = config._headerCacheSize;
         _headerCacheCaseSensitive = config._headerCacheCaseSensitive;
+        _sharedFieldCache = config._sharedFieldCache;
         _secureScheme = config._secureScheme;
         _securePort = config._securePort;
         _idleTimeout = config._idleTimeout;
@@ -137,6 +141,7 @@ public class HttpConfiguration implements Dumpable
         _maxErrorDispatches = config._maxErrorDispatches;
         _useInputDirectByteBuffers = config._useInputDirectByteBuffers;
         _useOutputDirectByteBuffers = config._useOutputDirectByteBuffers;
+        _useSendFile = config._useSendFile;
         _minRequestDataRate = config._minRequestDataRate;
         _minResponseDataRate = config._minResponseDataRate;
         _httpCompliance = config._httpCompliance;
@@ -209,6 +214,12 @@ public class HttpConfiguration implements Dumpable
         return _headerCacheCaseSensitive;
     }
 
+    @ManagedAttribute("The cache of header fields shared by the connections")
+    public HttpFieldCache getSharedFieldCache()
+    {
+        return _sharedFieldCache;
+    }
+
     @ManagedAttribute("The port to which Integral or Confidential security constraints are redirected")
     public int getSecurePort()
     {
@@ -356,6 +367,25 @@ public class HttpConfiguration implements Dumpable
         return _useOutputDirectByteBuffers;
     }
 
+    /**
+     * <p>Sets whether static file content may be written directly from the file
+     * to the network, without copying it to ByteBuffers.</p>
+     * <p>Only cleartext HTTP/1.x connections without output interceptors support
+     * this mode; other connections automatically fall back to ByteBuffer writes.</p>
+     *
+     * @param useSendFile whether to write file content directly to the network
+     */
+    public void setUseSendFile(boolean useSendFile)
+    {
+        _useSendFile = useSendFile;
+    }
+
+    @ManagedAttribute("Whether to write file content directly to the network")
+    public boolean isUseSendFile()
+    {
+        return _useSendFile;
+    }
+
     /**
      * <p>Sets the {@link Customizer}s that are invoked for every
      * request received.</p>
@@ -433,6 +463,17 @@ public class HttpConfiguration implements Dumpable
         this._headerCacheCaseSensitive = headerCacheCaseSensitive;
     }
 
+    /**
+     * <p>Sets a cache of the header fields received by all the connections using this configuration,
+     * so that also short-lived connections reuse the fields that are frequently received.</p>
+     *
+     * @param sharedFieldCache the cache of header fields shared by the connections, or null for no shared cache
+     */
+    public void setSharedFieldCache(HttpFieldCache sharedFieldCache)
+    {
+        _sharedFieldCache = sharedFieldCache;
+    }
+
     /**
      * <p>Sets the TCP/IP port used for CONFIDENTIAL and INTEGRAL redirections.</p>
      *
@@ -638,6 +679,7 @@ public class HttpConfiguration implements Dumpable
             "requestHeaderSize=" + _requestHeaderSize,
             "responseHeaderSize=" + _responseHeaderSize,
             "headerCacheSize=" + _headerCacheSize,
+            "sharedFieldCache=" + _sharedFieldCache,
             "secureScheme=" + _secureScheme,
             "securePort=" + _securePort,
             "idleTimeout=" + _idleTimeout,
@@ -137,6 +137,7 @@ public class HttpConnection extends AbstractConnection implements Runnable, Http
         HttpParser parser = new HttpParser(newRequestHandler(), getHttpConfiguration().getRequestHeaderSize(), compliance);
         parser.setHeaderCacheSize(getHttpConfiguration().getHeaderCacheSize());
         parser.setHeaderCacheCaseSensitive(getHttpConfiguration().isHeaderCacheCaseSensitive());
+        parser.setSharedFieldCache(getHttpConfiguration().getSharedFieldCache());
         return parser;
     }
 
@@ -26,6 +26,7 @@ import java.util.Deque;
 import java.util.Objects;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 
@@ -262,24 +263,7 @@ public class HttpInput extends ServletInputStream implements Runnable
         int l;
         synchronized (_inputQ)
         {
-            // Calculate minimum request rate for DOS protection
-            long minRequestDataRate = _channelState.getHttpChannel().getHttpConfiguration().getMinRequestDataRate();
-            if (minRequestDataRate > 0 && _firstByteTimeStamp != -1)
-            {
-                long period = System.nanoTime() - _firstByteTimeStamp;
-                if (period > 0)
-                {
-                    long minimumData = minRequestDataRate * TimeUnit.NANOSECONDS.toMillis(period) / TimeUnit.SECONDS.toMillis(1);
-                    if (_contentArrived < minimumData)
-                    {
-                        BadMessageException bad = new BadMessageException(HttpStatus.REQUEST_TIMEOUT_408,
-                            String.format("Request content data rate < %d B/s", minRequestDataRate));
-                        if (_channelState.isResponseCommitted())
-                            _channelState.getHttpChannel().abort(bad);
-                        throw bad;
-                    }
-                }
-            }
+            checkMinRequestDataRate();
 
             // Consume content looking for bytes to read
             while (true)
@@ -316,6 +300,79 @@ public class HttpInput extends ServletInputStream implements Runnable
         return l;
     }
 
+    /**
+     * <p>Reads the next chunk of content without copying it.</p>
+     * <p>The ByteBuffer passed to the consumer is only valid during the call and is
+     * considered entirely consumed when the call returns.
+     * As for {@link #read(byte[], int, int)}, this method blocks until some content is
+     * available, unless a {@link ReadListener} is set and {@link #isReady()} is false.</p>
+     *
+     * @param consumer the consumer of the content ByteBuffer
+     * @return the number of bytes consumed, 0 if no content is available in async mode, or -1 at EOF
+     * @throws IOException if the content cannot be read
+     */
+    public int read(Consumer<ByteBuffer> consumer) throws IOException
+    {
+        boolean wake = false;
+        int l;
+        synchronized (_inputQ)
+        {
+            checkMinRequestDataRate();
+
+            while (true)
+            {
+                Content item = nextContent();
+                if (item != null)
+                {
+                    l = item.remaining();
+                    consumer.accept(item.getByteBuffer().slice());
+                    if (LOG.isDebugEnabled())
+                        LOG.debug("{} read {} from {}", this, l, item);
+                    _contentConsumed += item.skip(l);
+
+                    // Consume any following poison pills
+                    if (item.isEmpty())
+                        nextInterceptedContent();
+                    break;
+                }
+
+                if (!_state.blockForContent(this))
+                {
+                    l = _state.noContent();
+                    if (l < 0)
+                        wake = _channelState.onReadEof();
+                    break;
+                }
+            }
+        }
+
+        if (wake)
+            wake();
+        return l;
+    }
+
+    private void checkMinRequestDataRate()
+    {
+        // Calculate minimum request rate for DOS protection
+        long minRequestDataRate = _channelState.getHttpChannel().getHttpConfiguration().getMinRequestDataRate();
+        if (minRequestDataRate > 0 && _firstByteTimeStamp != -1)
+        {
+            long period = System.nanoTime() - _firstByteTimeStamp;
+            if (period > 0)
+            {
+                long minimumData = minRequestDataRate * TimeUnit.NANOSECONDS.toMillis(period) / TimeUnit.SECONDS.toMillis(1);
+                if (_contentArrived < minimumData)
+                {
+                    BadMessageException bad = new BadMessageException(HttpStatus.REQUEST_TIMEOUT_408,
+                        String.format("Request content data rate < %d B/s", minRequestDataRate));
+                    if (_channelState.isResponseCommitted())
+                        _channelState.getHttpChannel().abort(bad);
+                    throw bad;
+                }
+            }
+        }
+    }
+
     /**
      * Called when derived implementations should attempt to produce more Content and add it via {@link #addContent(Content)}. For protocols that are constantly
      * producing (eg HTTP2) this can be left as a noop;
@@ -22,12 +22,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritePendingException;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CoderResult;
 import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
 import java.util.concurrent.TimeUnit;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletOutputStream;
@@ -36,13 +38,16 @@ import javax.servlet.ServletResponse;
 import javax.servlet.WriteListener;
 
 import org.eclipse.jetty.http.HttpContent;
+import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.EofException;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.IteratingCallback;
 import org.eclipse.jetty.util.SharedBlockingCallback;
 import org.eclipse.jetty.util.SharedBlockingCallback.Blocker;
+import org.eclipse.jetty.util.resource.Resource;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -1241,6 +1246,97 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * Blocking send of a region of HTTP content, written directly from the file to the network.
+     *
+     * @param content The HTTP content to send
+     * @param position The position of the first byte of the region
+     * @param length The length of the region
+     * @throws IOException if the send fails
+     * @see #isSendFileSupported(HttpContent, long)
+     */
+    public void sendContent(HttpContent content, long position, long length) throws IOException
+    {
+        try (Blocker blocker = _writeBlocker.acquire())
+        {
+            sendContent(content, position, length, blocker);
+            blocker.block();
+        }
+    }
+
+    /**
+     * Asynchronous send of a region of HTTP content, written directly from the file to the network.
+     *
+     * @param content The HTTP content to send
+     * @param position The position of the first byte of the region
+     * @param length The length of the region
+     * @param callback The callback to use to notify success or failure
+     * @see #isSendFileSupported(HttpContent, long)
+     */
+    public void sendContent(HttpContent content, long position, long length, Callback callback)
+    {
+        if (LOG.isDebugEnabled())
+            LOG.debug("sendContent(http={},{},{},{})", content, position, length, callback);
+
+        if (!isSendFileSupported(content, length))
+        {
+            callback.failed(new IOException("cannot sendContent(), send file not supported"));
+            return;
+        }
+
+        FileChannel file;
+        try
+        {
+            file = FileChannel.open(content.getResource().getFile().toPath(), StandardOpenOption.READ);
+        }
+        catch (Throwable x)
+        {
+            callback.failed(x);
+            return;
+        }
+
+        if (prepareSendContent(0, callback))
+            new SendFileCB(file, position, length, callback).iterate();
+        else
+            IO.close(file);
+    }
+
+    /**
+     * <p>Returns whether the given content can be written directly from its file to the network.</p>
+     * <p>This is only possible if {@link HttpConfiguration#isUseSendFile()} is enabled, the content
+     * is backed by a file, the connection is a cleartext HTTP/1.x connection to a socket, no
+     * {@link Interceptor} is installed, the response is not committed and its content length
+     * is the given length.</p>
+     *
+     * @param content the HTTP content to send
+     * @param length the number of bytes to send
+     * @return whether the content can be written directly from its file to the network
+     */
+    public boolean isSendFileSupported(HttpContent content, long length)
+    {
+        if (!_channel.getHttpConfiguration().isUseSendFile())
+            return false;
+        if (_interceptor != _channel || !(_channel.getHttpTransport() instanceof HttpConnection))
+            return false;
+        EndPoint endPoint = _channel.getEndPoint();
+        if (!(endPoint instanceof SocketChannelEndPoint) || !((SocketChannelEndPoint)endPoint).isTransferFromSupported())
+            return false;
+        if (_channel.isCommitted() || _channel.getRequest().isHead())
+            return false;
+        if (length <= 0 || _channel.getResponse().getLongContentLength() != length)
+            return false;
+        try
+        {
+            Resource resource = content.getResource();
+            return resource != null && resource.getFile() != null;
+        }
+        catch (IOException x)
+        {
+            LOG.trace("IGNORED", x);
+            return false;
+        }
+    }
+
     /**
      * Asynchronous send of HTTP content.
      *
@@ -1252,6 +1348,13 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         if (LOG.isDebugEnabled())
             LOG.debug("sendContent(http={},{})", httpContent, callback);
 
+        long length = httpContent.getContentLengthValue();
+        if (isSendFileSupported(httpContent, length))
+        {
+            sendContent(httpContent, 0, length, callback);
+            return;
+        }
+
         ByteBuffer buffer = _channel.isUseOutputDirectByteBuffers() ? httpContent.getDirectBuffer() : null;
         if (buffer == null)
             buffer = httpContent.getIndirectBuffer();
@@ -1806,6 +1909,85 @@ public class HttpOutput extends ServletOutputStream implements Runnable
         }
     }
 
+    /**
+     * An iterating callback that commits the response and then transfers a region of
+     * a file directly to the {@link SocketChannelEndPoint}, bypassing the {@link HttpChannel}.
+     * When the socket cannot accept more bytes, a single byte is written through
+     * {@link EndPoint#write(Callback, ByteBuffer...)} so that the transfer resumes
+     * once the EndPoint is writable again.
+     */
+    private class SendFileCB extends NestedChannelWriteCB
+    {
+        private final FileChannel _file;
+        private long _position;
+        private long _remaining;
+        private boolean _committed;
+        private boolean _completed;
+
+        SendFileCB(FileChannel file, long position, long length, Callback callback)
+        {
+            super(callback, true);
+            _file = file;
+            _position = position;
+            _remaining = length;
+        }
+
+        @Override
+        protected Action process() throws Exception
+        {
+            if (!_committed)
+            {
+                _committed = true;
+                channelWrite(BufferUtil.EMPTY_BUFFER, false, this);
+                return Action.SCHEDULED;
+            }
+
+            SocketChannelEndPoint endPoint = (SocketChannelEndPoint)_channel.getEndPoint();
+            while (_remaining > 0)
+            {
+                long transferred = endPoint.transferFrom(_file, _position, _remaining);
+                if (transferred > 0)
+                {
+                    advance(transferred);
+                    continue;
+                }
+
+                // Nothing is transferred past the end of the file.
+                if (_position >= _file.size())
+                    throw new EofException("Unexpected end of file");
+
+                // The socket is congested, wait for it to be writable.
+                endPoint.writeInterested(this);
+                return Action.SCHEDULED;
+            }
+
+            if (!_completed)
+            {
+                _completed = true;
+                IO.close(_file);
+                channelWrite(BufferUtil.EMPTY_BUFFER, true, this);
+                return Action.SCHEDULED;
+            }
+
+            return Action.SUCCEEDED;
+        }
+
+        private void advance(long bytes)
+        {
+            _position += bytes;
+            _remaining -= bytes;
+            _written += bytes;
+            _channel.onBytesWritten(bytes);
+        }
+
+        @Override
+        public void onCompleteFailure(Throwable x)
+        {
+            IO.close(_file);
+            super.onCompleteFailure(x);
+        }
+    }
+
     private static class WriteBlocker extends SharedBlockingCallback
     {
         private final HttpChannel _channel;
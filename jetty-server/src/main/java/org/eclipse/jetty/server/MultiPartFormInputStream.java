@@ -28,19 +28,25 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.servlet.MultipartConfigElement;
+import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
 import javax.servlet.http.Part;
 
 import org.eclipse.jetty.util.BufferUtil;
 import org.eclipse.jetty.util.ByteArrayOutputStream2;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.MultiException;
 import org.eclipse.jetty.util.MultiMap;
 import org.eclipse.jetty.util.QuotedStringTokenizer;
@@ -54,6 +60,11 @@ import org.slf4j.LoggerFactory;
  * Handle a MultiPart Mime input stream, breaking it up on the boundary into files and strings.
  * </p>
  * <p>
+ * The content is parsed either blocking, on the first call to {@link #getParts()}, or asynchronously
+ * with {@link #parseAsync(Callback)}. Parts larger than their file size threshold are spooled to disk
+ * with a {@link FileChannel}.
+ * </p>
+ * <p>
  * Deleting the parts can be done from a different thread if the parts are parsed asynchronously.
  * Because of this we use the state to fail the parsing and coordinate which thread will delete any remaining parts.
  * The deletion of parts is done by the cleanup thread in all cases except the transition from DELETING-&gt;DELETED which
@@ -100,6 +111,10 @@ public class MultiPartFormInputStream
     private volatile boolean _deleteOnExit;
     private volatile boolean _writeFilesWithFilenames;
     private volatile int _bufferSize = 16 * 1024;
+    private final Map<String, Long> _fileSizeThresholds = new ConcurrentHashMap<>();
+    private final ServletInputStream _servletIn;
+    private MultiPartParser _parser;
+    private long _total;
     private State state = State.UNPARSED;
 
     public class MultiPart implements Part
@@ -109,6 +124,7 @@ public class MultiPartFormInputStream
         protected File _file;
         protected OutputStream _out;
         protected ByteArrayOutputStream2 _bout;
+        protected FileChannel _channel;
         protected String _contentType;
         protected MultiMap<String> _headers;
         protected long _size = 0;
@@ -136,7 +152,7 @@ public class MultiPartFormInputStream
             // We will either be writing to a file, if it has a filename on the content-disposition
             // and otherwise a byte-array-input-stream, OR if we exceed the getFileSizeThreshold, we
             // will need to change to write to a file.
-            if (isWriteFilesWithFilenames() && _filename != null && !_filename.trim().isEmpty())
+            if ((isWriteFilesWithFilenames() && _filename != null && !_filename.trim().isEmpty()) || getFileSizeThreshold(_name) == 0)
             {
                 createFile();
             }
@@ -150,32 +166,51 @@ public class MultiPartFormInputStream
 
         protected void close() throws IOException
         {
-            _out.close();
+            if (_channel != null)
+                _channel.close();
+            else
+                _out.close();
         }
 
         protected void write(int b) throws IOException
         {
-            if (MultiPartFormInputStream.this._config.getMaxFileSize() > 0 && _size + 1 > MultiPartFormInputStream.this._config.getMaxFileSize())
-                throw new IllegalStateException("Multipart Mime part " + _name + " exceeds max filesize");
-
-            if (MultiPartFormInputStream.this._config.getFileSizeThreshold() > 0 &&
-                _size + 1 > MultiPartFormInputStream.this._config.getFileSizeThreshold() && _file == null)
-                createFile();
-
-            _out.write(b);
-            _size++;
+            write(new byte[]{(byte)b}, 0, 1);
         }
 
         protected void write(byte[] bytes, int offset, int length) throws IOException
         {
+            write(ByteBuffer.wrap(bytes, offset, length));
+        }
+
+        /**
+         * <p>Writes the remaining bytes of the given buffer, which may be direct.</p>
+         * <p>Once the part is spooled to a file, the buffer is written with
+         * {@link FileChannel#write(ByteBuffer)}, without any copy on the heap.</p>
+         *
+         * @param buffer the part content
+         * @throws IOException if the content cannot be written
+         */
+        protected void write(ByteBuffer buffer) throws IOException
+        {
+            int length = buffer.remaining();
             if (MultiPartFormInputStream.this._config.getMaxFileSize() > 0 && _size + length > MultiPartFormInputStream.this._config.getMaxFileSize())
                 throw new IllegalStateException("Multipart Mime part " + _name + " exceeds max filesize");
 
-            if (MultiPartFormInputStream.this._config.getFileSizeThreshold() > 0 &&
-                _size + length > MultiPartFormInputStream.this._config.getFileSizeThreshold() && _file == null)
+            long threshold = getFileSizeThreshold(_name);
+            if (threshold >= 0 && _size + length > threshold && _file == null)
                 createFile();
 
-            _out.write(bytes, offset, length);
+            if (_channel != null)
+            {
+                while (buffer.hasRemaining())
+                {
+                    _channel.write(buffer);
+                }
+            }
+            else
+            {
+                BufferUtil.writeTo(buffer, _out);
+            }
             _size += length;
         }
 
@@ -225,18 +260,21 @@ public class MultiPartFormInputStream
 
             if (_deleteOnExit)
                 _file.deleteOnExit();
-            FileOutputStream fos = new FileOutputStream(_file);
-            BufferedOutputStream bos = new BufferedOutputStream(fos);
+            FileChannel channel = FileChannel.open(_file.toPath(), StandardOpenOption.WRITE);
 
             if (_size > 0 && _out != null)
             {
                 // already written some bytes, so need to copy them into the file
-                _out.flush();
-                _bout.writeTo(bos);
+                ByteBuffer buffer = ByteBuffer.wrap(_bout.getBuf(), 0, _bout.size());
+                while (buffer.hasRemaining())
+                {
+                    channel.write(buffer);
+                }
                 _out.close();
             }
             _bout = null;
-            _out = bos;
+            _out = null;
+            _channel = channel;
         }
 
         protected void setHeaders(MultiMap<String> headers)
@@ -372,14 +410,19 @@ public class MultiPartFormInputStream
 
         if (in instanceof ServletInputStream)
         {
-            if (((ServletInputStream)in).isFinished())
+            _servletIn = (ServletInputStream)in;
+            if (_servletIn.isFinished())
             {
                 _in = null;
                 state = State.PARSED;
                 return;
             }
         }
-        
+        else
+        {
+            _servletIn = null;
+        }
+
         _in = new BufferedInputStream(in);
     }
 
@@ -509,6 +552,82 @@ public class MultiPartFormInputStream
      * Parse, if necessary, the multipart stream.
      */
     protected void parse()
+    {
+        if (!startParsing())
+            return;
+
+        try
+        {
+            _parser = newParser();
+            byte[] data = new byte[_bufferSize];
+            while (true)
+            {
+                if (!isParsing())
+                    return;
+
+                int len = _in.read(data);
+                if (len > 0)
+                {
+                    if (parse(ByteBuffer.wrap(data, 0, len)))
+                        break;
+                }
+                else if (len == -1)
+                {
+                    _parser.parse(BufferUtil.EMPTY_BUFFER, true);
+                    break;
+                }
+            }
+            checkComplete();
+        }
+        catch (Throwable e)
+        {
+            fail(e);
+        }
+        finally
+        {
+            parsed();
+        }
+    }
+
+    /**
+     * <p>Parses the multipart content asynchronously, without blocking while waiting for content.</p>
+     * <p>The content is read by a {@link ReadListener} set on the request input stream, so that no
+     * thread is held while the client is slow to send; the request must be in async mode.
+     * When the input stream is a {@link HttpInput}, the network buffers are passed to the parser
+     * without copying, and the content of parts spooled to disk is written directly from them.</p>
+     * <p>The callback is completed when the parsing is complete, after which {@link #getParts()}
+     * and {@link #getPart(String)} return immediately.</p>
+     *
+     * @param callback the callback to complete when the parsing is complete
+     */
+    public void parseAsync(Callback callback)
+    {
+        if (_servletIn == null)
+            throw new IllegalStateException("Not a ServletInputStream");
+
+        if (!startParsing())
+        {
+            if (_err == null)
+                callback.succeeded();
+            else
+                callback.failed(_err);
+            return;
+        }
+
+        try
+        {
+            _parser = newParser();
+            _servletIn.setReadListener(new AsyncReader(callback));
+        }
+        catch (Throwable x)
+        {
+            fail(x);
+            parsed();
+            callback.failed(_err);
+        }
+    }
+
+    private boolean startParsing()
     {
         synchronized (this)
         {
@@ -516,139 +635,231 @@ public class MultiPartFormInputStream
             {
                 case UNPARSED:
                     state = State.PARSING;
-                    break;
+                    return true;
 
                 case PARSED:
-                    return;
+                    return false;
 
                 default:
                     _err = new IOException(state.name());
-                    return;
+                    return false;
             }
         }
+    }
 
-        MultiPartParser parser = null;
-        try
+    private boolean isParsing()
+    {
+        synchronized (this)
+        {
+            if (state == State.PARSING)
+                return true;
+            _err = new IOException(state.name());
+            return false;
+        }
+    }
+
+    private MultiPartParser newParser()
+    {
+        // sort out the location to which to write the files
+        if (_config.getLocation() == null)
+            _tmpDir = _contextTmpDir;
+        else if ("".equals(_config.getLocation()))
+            _tmpDir = _contextTmpDir;
+        else
         {
-            // sort out the location to which to write the files
-            if (_config.getLocation() == null)
-                _tmpDir = _contextTmpDir;
-            else if ("".equals(_config.getLocation()))
-                _tmpDir = _contextTmpDir;
+            File f = new File(_config.getLocation());
+            if (f.isAbsolute())
+                _tmpDir = f;
             else
-            {
-                File f = new File(_config.getLocation());
-                if (f.isAbsolute())
-                    _tmpDir = f;
-                else
-                    _tmpDir = new File(_contextTmpDir, _config.getLocation());
-            }
+                _tmpDir = new File(_contextTmpDir, _config.getLocation());
+        }
+
+        if (!_tmpDir.exists())
+            _tmpDir.mkdirs();
+
+        String contentTypeBoundary = "";
+        int bstart = _contentType.indexOf("boundary=");
+        if (bstart >= 0)
+        {
+            int bend = _contentType.indexOf(";", bstart);
+            bend = (bend < 0 ? _contentType.length() : bend);
+            contentTypeBoundary = QuotedStringTokenizer.unquote(value(_contentType.substring(bstart, bend)).trim());
+        }
 
-            if (!_tmpDir.exists())
-                _tmpDir.mkdirs();
+        return new MultiPartParser(new Handler(), contentTypeBoundary);
+    }
 
-            String contentTypeBoundary = "";
-            int bstart = _contentType.indexOf("boundary=");
-            if (bstart >= 0)
+    /**
+     * @param buffer the next chunk of content
+     * @return true if the parsing is complete, either successfully or not
+     */
+    private boolean parse(ByteBuffer buffer)
+    {
+        // keep running total of size of bytes read from input and throw an exception if exceeds MultipartConfigElement._maxRequestSize
+        _total += buffer.remaining();
+        if (_config.getMaxRequestSize() > 0 && _total > _config.getMaxRequestSize())
+        {
+            _err = new IllegalStateException("Request exceeds maxRequestSize (" + _config.getMaxRequestSize() + ")");
+            return true;
+        }
+
+        if (_parser.parse(buffer, false))
+            return true;
+
+        if (buffer.hasRemaining())
+            throw new IllegalStateException("Buffer did not fully consume");
+        return false;
+    }
+
+    private void checkComplete()
+    {
+        // check for exceptions
+        if (_err != null)
+            return;
+
+        // check we read to the end of the message
+        if (_parser.getState() != MultiPartParser.State.END)
+        {
+            if (_parser.getState() == MultiPartParser.State.PREAMBLE)
+                _err = new IOException("Missing initial multi part boundary");
+            else
+                _err = new IOException("Incomplete Multipart");
+        }
+
+        if (LOG.isDebugEnabled())
+        {
+            LOG.debug("Parsing Complete {} err={}", _parser, _err);
+        }
+    }
+
+    private void fail(Throwable failure)
+    {
+        _err = failure;
+
+        // Notify parser if failure occurs
+        if (_parser != null)
+            _parser.parse(BufferUtil.EMPTY_BUFFER, true);
+    }
+
+    private void parsed()
+    {
+        boolean cleanup = false;
+        synchronized (this)
+        {
+            switch (state)
             {
-                int bend = _contentType.indexOf(";", bstart);
-                bend = (bend < 0 ? _contentType.length() : bend);
-                contentTypeBoundary = QuotedStringTokenizer.unquote(value(_contentType.substring(bstart, bend)).trim());
+                case PARSING:
+                    state = State.PARSED;
+                    break;
+
+                case DELETING:
+                    state = State.DELETED;
+                    cleanup = true;
+                    break;
+
+                default:
+                    _err = new IllegalStateException(state.name());
             }
+        }
 
-            parser = new MultiPartParser(new Handler(), contentTypeBoundary);
-            byte[] data = new byte[_bufferSize];
-            int len;
-            long total = 0;
+        if (cleanup)
+            delete();
+    }
 
-            while (true)
+    private class AsyncReader implements ReadListener
+    {
+        private final byte[] _data = _servletIn instanceof HttpInput ? null : new byte[_bufferSize];
+        private final Callback _callback;
+        private boolean _parsed;
+        private boolean _complete;
+
+        private AsyncReader(Callback callback)
+        {
+            _callback = callback;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException
+        {
+            try
             {
-                synchronized (this)
+                while (!_complete && _servletIn.isReady())
                 {
-                    if (state != State.PARSING)
+                    if (!isParsing())
                     {
-                        _err = new IOException(state.name());
+                        complete();
                         return;
                     }
-                }
 
-                len = _in.read(data);
-                if (len > 0)
-                {
-                    // keep running total of size of bytes read from input and throw an exception if exceeds MultipartConfigElement._maxRequestSize
-                    total += len;
-                    if (_config.getMaxRequestSize() > 0 && total > _config.getMaxRequestSize())
+                    int len;
+                    if (_data == null)
                     {
-                        _err = new IllegalStateException("Request exceeds maxRequestSize (" + _config.getMaxRequestSize() + ")");
-                        return;
+                        len = ((HttpInput)_servletIn).read(this::parseContent);
+                    }
+                    else
+                    {
+                        len = _servletIn.read(_data);
+                        if (len > 0)
+                            parseContent(ByteBuffer.wrap(_data, 0, len));
                     }
 
-                    ByteBuffer buffer = BufferUtil.toBuffer(data);
-                    buffer.limit(len);
-                    if (parser.parse(buffer, false))
+                    // Complete outside of the read, as the callback may write the response.
+                    if (_parsed)
+                        complete();
+                    if (len < 0)
                         break;
-
-                    if (buffer.hasRemaining())
-                        throw new IllegalStateException("Buffer did not fully consume");
-                }
-                else if (len == -1)
-                {
-                    parser.parse(BufferUtil.EMPTY_BUFFER, true);
-                    break;
                 }
             }
-
-            // check for exceptions
-            if (_err != null)
+            catch (Throwable x)
             {
-                return;
+                onError(x);
             }
+        }
 
-            // check we read to the end of the message
-            if (parser.getState() != MultiPartParser.State.END)
+        @Override
+        public void onAllDataRead()
+        {
+            if (_complete)
+                return;
+            try
             {
-                if (parser.getState() == MultiPartParser.State.PREAMBLE)
-                    _err = new IOException("Missing initial multi part boundary");
-                else
-                    _err = new IOException("Incomplete Multipart");
+                _parser.parse(BufferUtil.EMPTY_BUFFER, true);
+                complete();
             }
-
-            if (LOG.isDebugEnabled())
+            catch (Throwable x)
             {
-                LOG.debug("Parsing Complete {} err={}", parser, _err);
+                onError(x);
             }
         }
-        catch (Throwable e)
-        {
-            _err = e;
 
-            // Notify parser if failure occurs
-            if (parser != null)
-                parser.parse(BufferUtil.EMPTY_BUFFER, true);
-        }
-        finally
+        @Override
+        public void onError(Throwable failure)
         {
-            boolean cleanup = false;
-            synchronized (this)
-            {
-                switch (state)
-                {
-                    case PARSING:
-                        state = State.PARSED;
-                        break;
-
-                    case DELETING:
-                        state = State.DELETED;
-                        cleanup = true;
-                        break;
+            if (_complete)
+                return;
+            _complete = true;
+            fail(failure);
+            parsed();
+            _callback.failed(failure);
+        }
 
-                    default:
-                        _err = new IllegalStateException(state.name());
-                }
-            }
+        private void parseContent(ByteBuffer buffer)
+        {
+            if (parse(buffer))
+                _parsed = true;
+        }
 
-            if (cleanup)
-                delete();
+        private void complete()
+        {
+            if (_complete)
+                return;
+            _complete = true;
+            checkComplete();
+            parsed();
+            if (_err == null)
+                _callback.succeeded();
+            else
+                _callback.failed(_err);
         }
     }
 
@@ -759,7 +970,7 @@ public class MultiPartFormInputStream
             {
                 try
                 {
-                    _part.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                    _part.write(buffer);
                 }
                 catch (IOException e)
                 {
@@ -816,6 +1027,34 @@ public class MultiPartFormInputStream
         }
     }
 
+    /**
+     * <p>Sets the size threshold after which the content of the named part is spooled to disk,
+     * overriding {@link MultipartConfigElement#getFileSizeThreshold()} for that part.</p>
+     *
+     * @param name the part name
+     * @param threshold the size in bytes after which the part is written to a file,
+     * 0 to always write the part to a file, or -1 to keep the part in memory
+     */
+    public void setFileSizeThreshold(String name, long threshold)
+    {
+        _fileSizeThresholds.put(name, threshold);
+    }
+
+    /**
+     * @param name the part name
+     * @return the size in bytes after which the content of the named part is written to a file,
+     * or -1 if the part is kept in memory
+     * @see #setFileSizeThreshold(String, long)
+     */
+    public long getFileSizeThreshold(String name)
+    {
+        Long threshold = _fileSizeThresholds.get(name);
+        if (threshold != null)
+            return threshold;
+        int configured = _config.getFileSizeThreshold();
+        return configured > 0 ? configured : -1;
+    }
+
     public void setDeleteOnExit(boolean deleteOnExit)
     {
         _deleteOnExit = deleteOnExit;
@@ -260,7 +260,7 @@ public class MultiPartParser
 
         if (_partialBoundary > 0)
         {
-            int partial = _delimiterSearch.startsWith(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), _partialBoundary);
+            int partial = _delimiterSearch.startsWith(buffer, buffer.position(), buffer.remaining(), _partialBoundary);
             if (partial > 0)
             {
                 if (partial == _delimiterSearch.getLength())
@@ -279,15 +279,15 @@ public class MultiPartParser
             _partialBoundary = 0;
         }
 
-        int delimiter = _delimiterSearch.match(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        int delimiter = _delimiterSearch.match(buffer, buffer.position(), buffer.remaining());
         if (delimiter >= 0)
         {
-            buffer.position(delimiter - buffer.arrayOffset() + _delimiterSearch.getLength());
+            buffer.position(delimiter + _delimiterSearch.getLength());
             setState(State.DELIMITER);
             return;
         }
 
-        _partialBoundary = _delimiterSearch.endsWith(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        _partialBoundary = _delimiterSearch.endsWith(buffer, buffer.position(), buffer.remaining());
         BufferUtil.clear(buffer);
     }
 
@@ -568,7 +568,7 @@ public class MultiPartParser
         // Starts With
         if (_partialBoundary > 0)
         {
-            int partial = _delimiterSearch.startsWith(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(), _partialBoundary);
+            int partial = _delimiterSearch.startsWith(buffer, buffer.position(), buffer.remaining(), _partialBoundary);
             if (partial > 0)
             {
                 if (partial == _delimiterSearch.getLength())
@@ -608,13 +608,13 @@ public class MultiPartParser
         }
 
         // Contains
-        int delimiter = _delimiterSearch.match(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        int delimiter = _delimiterSearch.match(buffer, buffer.position(), buffer.remaining());
         if (delimiter >= 0)
         {
             ByteBuffer content = buffer.slice();
-            content.limit(delimiter - buffer.arrayOffset() - buffer.position());
+            content.limit(delimiter - buffer.position());
 
-            buffer.position(delimiter - buffer.arrayOffset() + _delimiterSearch.getLength());
+            buffer.position(delimiter + _delimiterSearch.getLength());
             setState(State.DELIMITER);
 
             if (LOG.isDebugEnabled())
@@ -624,7 +624,7 @@ public class MultiPartParser
         }
 
         // Ends With
-        _partialBoundary = _delimiterSearch.endsWith(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        _partialBoundary = _delimiterSearch.endsWith(buffer, buffer.position(), buffer.remaining());
         if (_partialBoundary > 0)
         {
             ByteBuffer content = buffer.slice();
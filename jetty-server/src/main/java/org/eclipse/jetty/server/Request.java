@@ -631,7 +631,22 @@ public class Request implements HttpServletRequest
             if (_input.isAsync())
                 throw new IllegalStateException("Cannot extract parameters with async IO");
 
-            UrlEncoded.decodeTo(in, params, getCharacterEncoding(), maxFormContentSize, maxFormKeys);
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding == null ? null : Charset.forName(encoding);
+            if (StandardCharsets.UTF_16.equals(charset))
+            {
+                UrlEncoded.decodeTo(in, params, charset, maxFormContentSize, maxFormKeys);
+                return;
+            }
+
+            // Decode the content buffers as they arrive, rather than byte by byte from the stream.
+            UrlEncoded.Decoder decoder = new UrlEncoded.Decoder(params, charset, maxFormContentSize, maxFormKeys);
+            while (true)
+            {
+                if (_input.read(decoder::decode) < 0)
+                    break;
+            }
+            decoder.complete();
         }
         catch (IOException e)
         {
@@ -753,7 +753,10 @@ public class ResourceService
                     response.addDateHeader(HttpHeader.DATE.asString(), System.currentTimeMillis());
                 response.setHeader(HttpHeader.CONTENT_RANGE.asString(),
                     singleSatisfiableRange.toHeaderRangeString(content_length));
-                writeContent(content, out, singleSatisfiableRange.getFirst(), singleLength);
+                if (!written && out instanceof HttpOutput && ((HttpOutput)out).isSendFileSupported(content, singleLength))
+                    ((HttpOutput)out).sendContent(content, singleSatisfiableRange.getFirst(), singleLength);
+                else
+                    writeContent(content, out, singleSatisfiableRange.getFirst(), singleLength);
                 return true;
             }
 
@@ -25,14 +25,18 @@ import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.net.SocketException;
+import java.net.StandardSocketOptions;
 import java.nio.channels.Channel;
 import java.nio.channels.SelectableChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.EventListener;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.io.ByteBufferPool;
 import org.eclipse.jetty.io.ChannelEndPoint;
@@ -41,6 +45,7 @@ import org.eclipse.jetty.io.EndPoint;
 import org.eclipse.jetty.io.ManagedSelector;
 import org.eclipse.jetty.io.SelectorManager;
 import org.eclipse.jetty.io.SocketChannelEndPoint;
+import org.eclipse.jetty.util.IO;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.Name;
@@ -72,6 +77,13 @@ import org.eclipse.jetty.util.thread.Scheduler;
  * which should allow optimal performance even if all the connections used are performing
  * significant non-blocking work in the callback tasks.
  * </p>
+ * <h2>Reuse Port</h2>
+ * <p>
+ * If {@link #setReusePort(boolean) reusePort} is enabled and {@code SO_REUSEPORT} is supported by the platform,
+ * the connector opens one listening channel per acceptor, or per selector if there are no acceptors,
+ * all bound to the same address, so that the kernel load-balances new connections among them.
+ * The number of connections accepted by each listening channel is reported by {@link #getAcceptCounts()}.
+ * </p>
  */
 @ManagedObject("HTTP connector using NIO ByteChannels and Selectors")
 public class ServerConnector extends AbstractNetworkConnector
@@ -79,10 +91,13 @@ public class ServerConnector extends AbstractNetworkConnector
     private final SelectorManager _manager;
     private final AtomicReference<Closeable> _acceptor = new AtomicReference<>();
     private volatile ServerSocketChannel _acceptChannel;
+    private volatile ServerSocketChannel[] _acceptChannels = new ServerSocketChannel[0];
+    private volatile LongAdder[] _acceptCounts = new LongAdder[0];
     private volatile boolean _inheritChannel = false;
     private volatile int _localPort = -1;
     private volatile int _acceptQueueSize = 0;
     private volatile boolean _reuseAddress = true;
+    private volatile boolean _reusePort = false;
 
     /**
      * <p>Construct a ServerConnector with a private instance of {@link HttpConnectionFactory} as the only factory.</p>
@@ -230,9 +245,26 @@ public class ServerConnector extends AbstractNetworkConnector
 
         if (getAcceptors() == 0)
         {
-            _acceptChannel.configureBlocking(false);
-            _acceptor.set(_manager.acceptor(_acceptChannel));
+            for (ServerSocketChannel channel : _acceptChannels)
+            {
+                channel.configureBlocking(false);
+            }
+            _acceptor.set(newAcceptor());
+        }
+    }
+
+    private Closeable newAcceptor()
+    {
+        ServerSocketChannel[] channels = _acceptChannels;
+        if (channels.length == 1)
+            return _manager.acceptor(channels[0]);
+        // Each channel is registered with a different selector.
+        List<Closeable> acceptors = new ArrayList<>();
+        for (ServerSocketChannel channel : channels)
+        {
+            acceptors.add(_manager.acceptor(channel));
         }
+        return () -> acceptors.forEach(IO::close);
     }
 
     @Override
@@ -292,6 +324,7 @@ public class ServerConnector extends AbstractNetworkConnector
             throw new IllegalStateException(getState());
         updateBean(_acceptChannel, acceptChannel);
         _acceptChannel = acceptChannel;
+        setAcceptChannels(acceptChannel);
         _localPort = _acceptChannel.socket().getLocalPort();
         if (_localPort <= 0)
             throw new IOException("Server channel not bound");
@@ -308,7 +341,48 @@ public class ServerConnector extends AbstractNetworkConnector
             if (_localPort <= 0)
                 throw new IOException("Server channel not bound");
             addBean(_acceptChannel);
+
+            List<ServerSocketChannel> channels = new ArrayList<>();
+            channels.add(_acceptChannel);
+            if (isReusePortEnabled(_acceptChannel))
+            {
+                int listeners = getAcceptors() > 0 ? getAcceptors() : _manager.getSelectorCount();
+                try
+                {
+                    for (int i = 1; i < listeners; ++i)
+                    {
+                        ServerSocketChannel channel = bindAcceptChannel(_localPort);
+                        channel.configureBlocking(true);
+                        channels.add(channel);
+                        addBean(channel);
+                    }
+                }
+                catch (IOException x)
+                {
+                    channels.forEach(IO::close);
+                    throw x;
+                }
+            }
+            setAcceptChannels(channels.toArray(new ServerSocketChannel[0]));
+        }
+    }
+
+    private void setAcceptChannels(ServerSocketChannel... channels)
+    {
+        LongAdder[] counts = new LongAdder[channels.length];
+        for (int i = 0; i < counts.length; ++i)
+        {
+            counts[i] = new LongAdder();
         }
+        _acceptCounts = counts;
+        _acceptChannels = channels;
+    }
+
+    private boolean isReusePortEnabled(ServerSocketChannel channel) throws IOException
+    {
+        return isReusePort() &&
+            channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT) &&
+            channel.getOption(StandardSocketOptions.SO_REUSEPORT);
     }
 
     /**
@@ -330,19 +404,32 @@ public class ServerConnector extends AbstractNetworkConnector
         }
 
         if (serverChannel == null)
-        {
-            serverChannel = ServerSocketChannel.open();
+            serverChannel = bindAcceptChannel(getPort());
 
-            InetSocketAddress bindAddress = getHost() == null ? new InetSocketAddress(getPort()) : new InetSocketAddress(getHost(), getPort());
-            serverChannel.socket().setReuseAddress(getReuseAddress());
-            try
-            {
-                serverChannel.socket().bind(bindAddress, getAcceptQueueSize());
-            }
-            catch (BindException e)
-            {
-                throw new IOException("Failed to bind to " + bindAddress, e);
-            }
+        return serverChannel;
+    }
+
+    private ServerSocketChannel bindAcceptChannel(int port) throws IOException
+    {
+        ServerSocketChannel serverChannel = ServerSocketChannel.open();
+
+        InetSocketAddress bindAddress = getHost() == null ? new InetSocketAddress(port) : new InetSocketAddress(getHost(), port);
+        serverChannel.socket().setReuseAddress(getReuseAddress());
+        if (isReusePort())
+        {
+            if (serverChannel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT))
+                serverChannel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            else
+                LOG.warn("SO_REUSEPORT not supported, using a single listening channel for {}", this);
+        }
+        try
+        {
+            serverChannel.socket().bind(bindAddress, getAcceptQueueSize());
+        }
+        catch (BindException e)
+        {
+            IO.close(serverChannel);
+            throw new IOException("Failed to bind to " + bindAddress, e);
         }
 
         return serverChannel;
@@ -353,9 +440,12 @@ public class ServerConnector extends AbstractNetworkConnector
     {
         super.close();
 
-        ServerSocketChannel serverChannel = _acceptChannel;
+        ServerSocketChannel[] serverChannels = _acceptChannels;
+        if (serverChannels.length == 0 && _acceptChannel != null)
+            serverChannels = new ServerSocketChannel[]{_acceptChannel};
         _acceptChannel = null;
-        if (serverChannel != null)
+        _acceptChannels = new ServerSocketChannel[0];
+        for (ServerSocketChannel serverChannel : serverChannels)
         {
             removeBean(serverChannel);
 
@@ -377,14 +467,34 @@ public class ServerConnector extends AbstractNetworkConnector
     @Override
     public void accept(int acceptorID) throws IOException
     {
-        ServerSocketChannel serverChannel = _acceptChannel;
-        if (serverChannel != null && serverChannel.isOpen())
+        ServerSocketChannel[] serverChannels = _acceptChannels;
+        if (serverChannels.length == 0)
+            return;
+        int index = acceptorID % serverChannels.length;
+        ServerSocketChannel serverChannel = serverChannels[index];
+        if (serverChannel.isOpen())
         {
             SocketChannel channel = serverChannel.accept();
+            _acceptCounts[index].increment();
             accepted(channel);
         }
     }
 
+    private void accepted(SelectableChannel server, SocketChannel channel) throws IOException
+    {
+        ServerSocketChannel[] serverChannels = _acceptChannels;
+        LongAdder[] counts = _acceptCounts;
+        for (int i = 0; i < serverChannels.length; ++i)
+        {
+            if (serverChannels[i] == server)
+            {
+                counts[i].increment();
+                break;
+            }
+        }
+        accepted(channel);
+    }
+
     private void accepted(SocketChannel channel) throws IOException
     {
         channel.configureBlocking(false);
@@ -411,6 +521,21 @@ public class ServerConnector extends AbstractNetworkConnector
         return _manager;
     }
 
+    /**
+     * @return the number of connections accepted by each listening channel
+     */
+    @ManagedAttribute("The number of connections accepted by each listening channel")
+    public long[] getAcceptCounts()
+    {
+        LongAdder[] counts = _acceptCounts;
+        long[] result = new long[counts.length];
+        for (int i = 0; i < counts.length; ++i)
+        {
+            result[i] = counts[i].sum();
+        }
+        return result;
+    }
+
     @Override
     public Object getTransport()
     {
@@ -466,6 +591,29 @@ public class ServerConnector extends AbstractNetworkConnector
         _reuseAddress = reuseAddress;
     }
 
+    /**
+     * @return whether the connector opens multiple listening channels bound with {@code SO_REUSEPORT}
+     */
+    @ManagedAttribute("Whether multiple listening channels are bound with SO_REUSEPORT")
+    public boolean isReusePort()
+    {
+        return _reusePort;
+    }
+
+    /**
+     * <p>Sets whether the connector opens one listening channel per acceptor, or per selector
+     * if there are no acceptors, all bound to the same address with {@code SO_REUSEPORT},
+     * so that the kernel load-balances new connections among them.</p>
+     * <p>If {@code SO_REUSEPORT} is not supported, or the channel is inherited or passed
+     * to {@link #open(ServerSocketChannel)}, a single listening channel is used.</p>
+     *
+     * @param reusePort whether to open multiple listening channels bound with {@code SO_REUSEPORT}
+     */
+    public void setReusePort(boolean reusePort)
+    {
+        _reusePort = reusePort;
+    }
+
     @Override
     public void setAccepting(boolean accepting)
     {
@@ -479,7 +627,7 @@ public class ServerConnector extends AbstractNetworkConnector
             {
                 if (_acceptor.get() == null)
                 {
-                    Closeable acceptor = _manager.acceptor(_acceptChannel);
+                    Closeable acceptor = newAcceptor();
                     if (!_acceptor.compareAndSet(null, acceptor))
                         acceptor.close();
                 }
@@ -510,6 +658,12 @@ public class ServerConnector extends AbstractNetworkConnector
             ServerConnector.this.accepted((SocketChannel)channel);
         }
 
+        @Override
+        protected void accepted(SelectableChannel server, SelectableChannel channel) throws IOException
+        {
+            ServerConnector.this.accepted(server, (SocketChannel)channel);
+        }
+
         @Override
         protected ChannelEndPoint newEndPoint(SelectableChannel channel, ManagedSelector selectSet, SelectionKey selectionKey) throws IOException
         {
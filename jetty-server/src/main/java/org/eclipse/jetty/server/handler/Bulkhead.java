@@ -0,0 +1,412 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
+import org.eclipse.jetty.util.thread.AutoLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A concurrency quota for the threads that handle the requests of a {@link ContextHandler}.</p>
+ * <p>All contexts of a {@link org.eclipse.jetty.server.Server} are handled by threads of the same
+ * thread pool, so a context that blocks, for example because of a slow backend, may use all the
+ * threads and starve the other contexts.
+ * A context configured with a Bulkhead (see {@link ContextHandler#setBulkhead(Bulkhead)}) is
+ * handled by at most {@link #getMaxThreads() maxThreads} threads at any time.</p>
+ * <p>Requests in excess of the limit do not hold a thread: they are asynchronously suspended
+ * in a FIFO queue of at most {@link #getMaxQueued() maxQueued} requests, and dispatched again
+ * when a thread leaves the context.
+ * A suspended request is resumed as the {@code REQUEST} or {@code ASYNC} dispatch it was suspended
+ * from, so that the protected targets of the context and the filters apply to it as if it had
+ * not been suspended.
+ * Requests that do not fit in the queue are rejected with a 503 status, as are the requests
+ * that wait in the queue for longer than {@link #getMaxQueueTime() maxQueueTime}, by default
+ * {@value #DEFAULT_MAX_QUEUE_TIME} ms.</p>
+ * <p>The quota applies to the {@code REQUEST} and {@code ASYNC} dispatches that enter the context,
+ * and the queueing and rejection statistics are available via JMX for each context.</p>
+ */
+@ManagedObject("Limits the threads handling the requests of a context")
+public class Bulkhead
+{
+    private static final Logger LOG = LoggerFactory.getLogger(Bulkhead.class);
+    private static final String PERMIT = Bulkhead.class.getName() + ".permit";
+    public static final long DEFAULT_MAX_QUEUE_TIME = 30000;
+
+    private final AutoLock _lock = new AutoLock();
+    private final Deque<Waiter> _queue = new ArrayDeque<>();
+    private final LongAdder _admitted = new LongAdder();
+    private final LongAdder _queued = new LongAdder();
+    private final LongAdder _rejected = new LongAdder();
+    private final LongAdder _expired = new LongAdder();
+    private final SampleStatistic _queueTime = new SampleStatistic();
+    private int _threads;
+    private volatile int _maxThreads;
+    private volatile int _maxQueued;
+    private volatile long _maxQueueTime = DEFAULT_MAX_QUEUE_TIME;
+
+    public Bulkhead()
+    {
+        this(10, -1);
+    }
+
+    /**
+     * @param maxThreads the max number of threads handling requests of the context
+     * @param maxQueued the max number of suspended requests, or -1 for no limit
+     */
+    public Bulkhead(int maxThreads, int maxQueued)
+    {
+        setMaxThreads(maxThreads);
+        setMaxQueued(maxQueued);
+    }
+
+    @ManagedAttribute("The max number of threads handling requests of the context")
+    public int getMaxThreads()
+    {
+        return _maxThreads;
+    }
+
+    public void setMaxThreads(int maxThreads)
+    {
+        if (maxThreads <= 0)
+            throw new IllegalArgumentException("Invalid max threads " + maxThreads);
+        _maxThreads = maxThreads;
+    }
+
+    @ManagedAttribute("The max number of suspended requests, or -1 for no limit")
+    public int getMaxQueued()
+    {
+        return _maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued)
+    {
+        _maxQueued = maxQueued;
+    }
+
+    @ManagedAttribute("The max time in ms a request waits for a thread, or 0 for no limit")
+    public long getMaxQueueTime()
+    {
+        return _maxQueueTime;
+    }
+
+    /**
+     * @param maxQueueTime the max time in ms a suspended request waits for a thread before being
+     * rejected, or 0 to wait until a thread is available however long it takes
+     */
+    public void setMaxQueueTime(long maxQueueTime)
+    {
+        _maxQueueTime = maxQueueTime;
+    }
+
+    @ManagedAttribute("The number of threads handling requests of the context")
+    public int getThreads()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _threads;
+        }
+    }
+
+    @ManagedAttribute("The number of suspended requests waiting for a thread")
+    public int getQueueSize()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _queue.size();
+        }
+    }
+
+    @ManagedAttribute("The number of requests admitted")
+    public long getAdmitted()
+    {
+        return _admitted.sum();
+    }
+
+    @ManagedAttribute("The number of requests suspended waiting for a thread")
+    public long getQueued()
+    {
+        return _queued.sum();
+    }
+
+    @ManagedAttribute("The number of requests rejected because the queue was full")
+    public long getRejected()
+    {
+        return _rejected.sum();
+    }
+
+    @ManagedAttribute("The number of requests rejected because they waited too long for a thread")
+    public long getExpired()
+    {
+        return _expired.sum();
+    }
+
+    @ManagedAttribute("The average time in ms a suspended request waited for a thread")
+    public long getAverageQueueTime()
+    {
+        return TimeUnit.NANOSECONDS.toMillis((long)_queueTime.getMean());
+    }
+
+    @ManagedAttribute("The max time in ms a suspended request waited for a thread")
+    public long getMaxQueueTimeObserved()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_queueTime.getMax());
+    }
+
+    @ManagedOperation(value = "Resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _admitted.reset();
+        _queued.reset();
+        _rejected.reset();
+        _expired.reset();
+        _queueTime.reset();
+    }
+
+    /**
+     * <p>Enters the bulkhead for a request dispatched to the context.</p>
+     * <p>If this method returns true, the calling thread holds a permit and must
+     * call {@link #exit()} once the request has been handled.
+     * Otherwise the request has either been suspended, and will be dispatched again
+     * when a permit is available, or it has been rejected; in both cases the request
+     * is marked as handled.</p>
+     *
+     * @param baseRequest the request entering the context
+     * @param response the response
+     * @return whether the request can be handled by the calling thread
+     * @throws IOException if the request cannot be rejected
+     */
+    public boolean enter(Request baseRequest, HttpServletResponse response) throws IOException
+    {
+        // Has a permit been granted to this request while suspended?
+        Object attribute = baseRequest.getAttribute(PERMIT);
+        if (attribute instanceof Waiter && ((Waiter)attribute).enter(this))
+        {
+            baseRequest.removeAttribute(PERMIT);
+            ((Waiter)attribute).resume();
+            return true;
+        }
+
+        boolean reject;
+        try (AutoLock l = _lock.lock())
+        {
+            if (_threads < _maxThreads)
+            {
+                _threads++;
+                _admitted.increment();
+                return true;
+            }
+            int maxQueued = _maxQueued;
+            reject = maxQueued >= 0 && _queue.size() >= maxQueued;
+        }
+
+        baseRequest.setHandled(true);
+        if (reject)
+        {
+            _rejected.increment();
+            if (LOG.isDebugEnabled())
+                LOG.debug("Rejected {} {}", baseRequest, this);
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return false;
+        }
+
+        DispatcherType dispatcherType = baseRequest.getDispatcherType();
+        AsyncContext async = baseRequest.startAsync();
+        async.setTimeout(_maxQueueTime);
+        Waiter waiter = new Waiter(baseRequest, async, dispatcherType);
+        async.addListener(waiter);
+        boolean granted = false;
+        try (AutoLock l = _lock.lock())
+        {
+            // A thread may have left while the request was suspended.
+            if (_threads < _maxThreads)
+            {
+                _threads++;
+                granted = true;
+            }
+            else
+            {
+                _queue.addLast(waiter);
+            }
+        }
+        _queued.increment();
+        if (LOG.isDebugEnabled())
+            LOG.debug("Suspended {} {}", baseRequest, this);
+        if (granted)
+            waiter.grant();
+        return false;
+    }
+
+    /**
+     * <p>Exits the bulkhead, releasing the permit of the calling thread,
+     * possibly to a suspended request.</p>
+     */
+    public void exit()
+    {
+        Waiter waiter;
+        try (AutoLock l = _lock.lock())
+        {
+            // The permit is transferred to the next suspended request, if any.
+            waiter = _queue.pollFirst();
+            if (waiter == null)
+                _threads--;
+        }
+        if (waiter != null)
+            waiter.grant();
+    }
+
+    private boolean cancel(Waiter waiter)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return _queue.remove(waiter);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            return String.format("%s@%x{threads=%d/%d,queue=%d/%d}",
+                getClass().getSimpleName(),
+                hashCode(),
+                _threads,
+                _maxThreads,
+                _queue.size(),
+                _maxQueued);
+        }
+    }
+
+    private class Waiter implements AsyncListener
+    {
+        private static final int QUEUED = 0;
+        private static final int GRANTED = 1;
+        private static final int ENTERED = 2;
+        private static final int CANCELLED = 3;
+
+        private final AtomicInteger _state = new AtomicInteger(QUEUED);
+        private final long _queuedNanos = System.nanoTime();
+        private final Request _baseRequest;
+        private final AsyncContext _async;
+        private final DispatcherType _dispatcherType;
+
+        private Waiter(Request baseRequest, AsyncContext async, DispatcherType dispatcherType)
+        {
+            _baseRequest = baseRequest;
+            _async = async;
+            _dispatcherType = dispatcherType;
+        }
+
+        private void grant()
+        {
+            if (!_state.compareAndSet(QUEUED, GRANTED))
+            {
+                // The request went away, pass the permit on.
+                exit();
+                return;
+            }
+            _queueTime.record(System.nanoTime() - _queuedNanos);
+            _admitted.increment();
+            _baseRequest.setAttribute(PERMIT, this);
+            _async.dispatch();
+        }
+
+        private boolean enter(Bulkhead bulkhead)
+        {
+            return bulkhead == Bulkhead.this && _state.compareAndSet(GRANTED, ENTERED);
+        }
+
+        /**
+         * <p>Restores the request as it was before it was suspended: the async dispatch is only
+         * the means to get a thread back, so the request keeps its original dispatcher type and
+         * a {@code REQUEST} dispatch must not skip the checks and the filters that apply to it.</p>
+         */
+        private void resume()
+        {
+            _baseRequest.setDispatcherType(_dispatcherType);
+            // The async attributes of an ASYNC dispatch are those of the application dispatch.
+            if (_dispatcherType == DispatcherType.REQUEST)
+            {
+                _baseRequest.removeAttribute(AsyncContext.ASYNC_REQUEST_URI);
+                _baseRequest.removeAttribute(AsyncContext.ASYNC_CONTEXT_PATH);
+                _baseRequest.removeAttribute(AsyncContext.ASYNC_SERVLET_PATH);
+                _baseRequest.removeAttribute(AsyncContext.ASYNC_PATH_INFO);
+                _baseRequest.removeAttribute(AsyncContext.ASYNC_QUERY_STRING);
+                _baseRequest.removeAttribute(AsyncContext.ASYNC_MAPPING);
+            }
+        }
+
+        private void abort()
+        {
+            // A granted permit that is not used must be released.
+            if (_state.compareAndSet(GRANTED, CANCELLED))
+                exit();
+            else if (_state.compareAndSet(QUEUED, CANCELLED))
+                cancel(this);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) throws IOException
+        {
+            if (_state.compareAndSet(QUEUED, CANCELLED) && cancel(this))
+            {
+                _expired.increment();
+                if (LOG.isDebugEnabled())
+                    LOG.debug("Expired {} {}", _baseRequest, Bulkhead.this);
+                HttpServletResponse response = (HttpServletResponse)event.getAsyncContext().getResponse();
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+                event.getAsyncContext().complete();
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event)
+        {
+            abort();
+        }
+
+        @Override
+        public void onError(AsyncEvent event)
+        {
+            abort();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event)
+        {
+        }
+    }
+}
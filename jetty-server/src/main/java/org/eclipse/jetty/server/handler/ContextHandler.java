@@ -192,6 +192,7 @@ public class ContextHandler extends ScopedHandler implements Attributes, Gracefu
     private Map<String, String> _localeEncodingMap;
     private String[] _welcomeFiles;
     private ErrorHandler _errorHandler;
+    private Bulkhead _bulkhead;
     private String[] _vhosts; // Host name portion, matching _vconnectors array
     private boolean[] _vhostswildcard;
     private String[] _vconnectors; // connector portion, matching _vhosts array
@@ -386,8 +387,11 @@ public class ContextHandler extends ScopedHandler implements Attributes, Gracefu
                     filteredHosts[i] = vhosts[connectorOnlyIndexes.get(i)];
                 }
                 setVirtualHosts(filteredHosts);
+                return;
             }
         }
+
+        remapContexts();
     }
 
     /**
@@ -1089,6 +1093,7 @@ public class ContextHandler extends ScopedHandler implements Attributes, Gracefu
         String oldPathInfo = null;
         ClassLoader oldClassloader = null;
         Thread currentThread = null;
+        Bulkhead bulkhead = null;
         String pathInfo = target;
 
         DispatcherType dispatch = baseRequest.getDispatcherType();
@@ -1106,6 +1111,16 @@ public class ContextHandler extends ScopedHandler implements Attributes, Gracefu
                 if (!checkContext(target, baseRequest, response))
                     return;
 
+                // Wait for a thread of the context quota.
+                if (_bulkhead != null)
+                {
+                    if (!_bulkhead.enter(baseRequest, response))
+                        return;
+                    bulkhead = _bulkhead;
+                    // A request resumed from the queue is dispatched again as a REQUEST.
+                    dispatch = baseRequest.getDispatcherType();
+                }
+
                 if (target.length() > _contextPath.length())
                 {
                     if (_contextPath.length() > 1)
@@ -1179,6 +1194,9 @@ public class ContextHandler extends ScopedHandler implements Attributes, Gracefu
                 baseRequest.setServletPath(oldServletPath);
                 baseRequest.setPathInfo(oldPathInfo);
             }
+
+            if (bulkhead != null)
+                bulkhead.exit();
         }
     }
 
@@ -1514,6 +1532,15 @@ public class ContextHandler extends ScopedHandler implements Attributes, Gracefu
         _contextPathEncoded = URIUtil.encodePath(contextPath);
         _contextPathDefault = false;
 
+        remapContexts();
+    }
+
+    /**
+     * Maps the contexts of the {@link ContextHandlerCollection}s of a running server again,
+     * after a change to the context path or to the virtual hosts of this context.
+     */
+    private void remapContexts()
+    {
         if (getServer() != null && (getServer().isStarting() || getServer().isStarted()))
         {
             Class<ContextHandlerCollection> handlerClass = ContextHandlerCollection.class;
@@ -1642,6 +1669,27 @@ public class ContextHandler extends ScopedHandler implements Attributes, Gracefu
         _errorHandler = errorHandler;
     }
 
+    /**
+     * @return the quota of threads handling requests of this context, or null if there is no quota
+     */
+    @ManagedAttribute("The quota of threads handling requests of the context")
+    public Bulkhead getBulkhead()
+    {
+        return _bulkhead;
+    }
+
+    /**
+     * <p>Limits the number of threads that concurrently handle requests of this context,
+     * so that a slow context cannot starve the other contexts of the server.</p>
+     *
+     * @param bulkhead the quota of threads handling requests of this context, or null for no quota
+     */
+    public void setBulkhead(Bulkhead bulkhead)
+    {
+        updateBean(_bulkhead, bulkhead);
+        _bulkhead = bulkhead;
+    }
+
     @ManagedAttribute("The maximum content size")
     public int getMaxFormContentSize()
     {
@@ -19,11 +19,15 @@
 package org.eclipse.jetty.server.handler;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -49,6 +53,11 @@ import org.slf4j.LoggerFactory;
  * The contexts do not need to be directly contained, only children of the contained handlers.
  * Multiple contexts may have the same context path and they are called in order until one
  * handles the request.
+ * <p>
+ * For each context path, the contexts are also indexed by their virtual hosts, so that a
+ * request is only passed to the contexts that may accept its host, found with at most two
+ * lookups whatever the number of contexts sharing the context path.
+ * The mapping is rebuilt and replaced atomically when handlers are set, deployed or undeployed.
  */
 @ManagedObject("Context Handler Collection")
 public class ContextHandlerCollection extends HandlerCollection
@@ -70,8 +79,8 @@ public class ContextHandlerCollection extends HandlerCollection
     /**
      * Remap the contexts.  Normally this is not required as context
      * mapping is maintained as a side effect of {@link #setHandlers(Handler[])}
-     * However, if configuration changes in the deep handler structure (eg contextpath is changed), then
-     * this call will trigger a remapping.
+     * However, if configuration changes in the deep handler structure (eg contextpath or virtual hosts
+     * are changed), then this call will trigger a remapping.
      * This method is mutually excluded from {@link #deployHandler(Handler, Callback)} and
      * {@link #undeployHandler(Handler, Callback)}
      */
@@ -138,7 +147,7 @@ public class ContextHandlerCollection extends HandlerCollection
             mapping = new Mapping(handlers, capacity);
             for (Map.Entry<String, Branch[]> entry : path2Branches.entrySet())
             {
-                if (!mapping._pathBranches.put(entry.getKey().substring(1), entry))
+                if (!mapping._pathBranches.put(entry.getKey().substring(1), new PathBranches(entry.getKey(), entry.getValue())))
                 {
                     capacity += 512;
                     continue loop;
@@ -151,7 +160,7 @@ public class ContextHandlerCollection extends HandlerCollection
         {
             for (String ctx : mapping._pathBranches.keySet())
             {
-                LOG.debug("{}->{}", ctx, Arrays.asList(mapping._pathBranches.get(ctx).getValue()));
+                LOG.debug("{}->{}", ctx, mapping._pathBranches.get(ctx));
             }
         }
 
@@ -196,24 +205,27 @@ public class ContextHandlerCollection extends HandlerCollection
 
         if (target.startsWith("/"))
         {
-            Trie<Map.Entry<String, Branch[]>> pathBranches = mapping._pathBranches;
+            Trie<PathBranches> pathBranches = mapping._pathBranches;
             if (pathBranches == null)
                 return;
 
+            String host = null;
             int limit = target.length() - 1;
 
             while (limit >= 0)
             {
                 // Get best match
-                Map.Entry<String, Branch[]> branches = pathBranches.getBest(target, 1, limit);
+                PathBranches branches = pathBranches.getBest(target, 1, limit);
 
                 if (branches == null)
                     break;
 
-                int l = branches.getKey().length();
+                int l = branches._contextPath.length();
                 if (l == 1 || target.length() == l || target.charAt(l) == '/')
                 {
-                    for (Branch branch : branches.getValue())
+                    if (host == null && branches.hasVirtualHosts())
+                        host = normalizeHost(baseRequest.getServerName());
+                    for (Branch branch : branches.getBranches(host))
                     {
                         branch.getHandler().handle(target, baseRequest, request, response);
                         if (baseRequest.isHandled())
@@ -237,6 +249,15 @@ public class ContextHandlerCollection extends HandlerCollection
         }
     }
 
+    private static String normalizeHost(String host)
+    {
+        if (host == null)
+            return "";
+        if (host.endsWith("."))
+            host = host.substring(0, host.length() - 1);
+        return host.toLowerCase(Locale.ENGLISH);
+    }
+
     /**
      * Thread safe deploy of a Handler.
      * <p>
@@ -337,6 +358,39 @@ public class ContextHandlerCollection extends HandlerCollection
             return set;
         }
 
+        /**
+         * @param hosts the normalized hosts accepted by the contexts of this branch
+         * @param domains the normalized domains, with their leading '.', accepted by the wildcard virtual hosts
+         * @return true if a context of this branch may accept any host
+         */
+        boolean getVirtualHosts(Set<String> hosts, Set<String> domains)
+        {
+            boolean anyHost = false;
+            for (ContextHandler context : _contexts)
+            {
+                String[] vhosts = context.getVirtualHosts();
+                if (vhosts == null || vhosts.length == 0)
+                {
+                    anyHost = true;
+                    continue;
+                }
+                for (String vhost : vhosts)
+                {
+                    // The connector part is checked by the context itself.
+                    int connector = vhost.indexOf('@');
+                    if (connector >= 0)
+                        vhost = vhost.substring(0, connector);
+                    if (vhost.isEmpty())
+                        anyHost = true;
+                    else if (vhost.startsWith("*."))
+                        domains.add(normalizeHost(vhost.substring(1)));
+                    else
+                        hosts.add(normalizeHost(vhost));
+                }
+            }
+            return anyHost;
+        }
+
         boolean hasVirtualHost()
         {
             for (ContextHandler context : _contexts)
@@ -364,10 +418,108 @@ public class ContextHandlerCollection extends HandlerCollection
         }
     }
 
+    /**
+     * The branches of a context path, indexed by the hosts that their contexts may accept.
+     * A branch is a candidate for a host if it has a context that accepts the host, that
+     * accepts the host's domain with a wildcard virtual host, or that may accept any host
+     * (no virtual hosts or a connector only virtual host). Candidates are kept in branch order.
+     */
+    private static final class PathBranches
+    {
+        private final String _contextPath;
+        private final Branch[] _branches;
+        private final Map<String, Branch[]> _hosts = new HashMap<>();
+        private final Map<String, Branch[]> _domains = new HashMap<>();
+        private final Branch[] _anyHost;
+
+        PathBranches(String contextPath, Branch[] branches)
+        {
+            _contextPath = contextPath;
+            _branches = branches;
+
+            // Index the branches by host and by wildcard domain.
+            List<Integer> anyHost = new ArrayList<>();
+            Map<String, List<Integer>> hosts = new HashMap<>();
+            Map<String, List<Integer>> domains = new HashMap<>();
+            for (int i = 0; i < branches.length; i++)
+            {
+                Set<String> branchHosts = new HashSet<>();
+                Set<String> branchDomains = new HashSet<>();
+                if (branches[i].getVirtualHosts(branchHosts, branchDomains))
+                    anyHost.add(i);
+                for (String host : branchHosts)
+                {
+                    hosts.computeIfAbsent(host, k -> new ArrayList<>()).add(i);
+                }
+                for (String domain : branchDomains)
+                {
+                    domains.computeIfAbsent(domain, k -> new ArrayList<>()).add(i);
+                }
+            }
+
+            _anyHost = candidates(anyHost);
+            for (Map.Entry<String, List<Integer>> entry : domains.entrySet())
+            {
+                _domains.put(entry.getKey(), candidates(entry.getValue(), anyHost));
+            }
+            for (Map.Entry<String, List<Integer>> entry : hosts.entrySet())
+            {
+                String host = entry.getKey();
+                int dot = host.indexOf('.');
+                List<Integer> domain = dot < 0 ? null : domains.get(host.substring(dot));
+                _hosts.put(host, candidates(entry.getValue(), anyHost, domain));
+            }
+        }
+
+        @SafeVarargs
+        private final Branch[] candidates(List<Integer>... indexes)
+        {
+            Set<Integer> candidates = new TreeSet<>();
+            for (List<Integer> list : indexes)
+            {
+                if (list != null)
+                    candidates.addAll(list);
+            }
+            return candidates.stream().map(i -> _branches[i]).toArray(Branch[]::new);
+        }
+
+        boolean hasVirtualHosts()
+        {
+            return !_hosts.isEmpty() || !_domains.isEmpty();
+        }
+
+        /**
+         * @param host the normalized host of the request, or null if no branch has virtual hosts
+         * @return the branches that may accept the host, in order
+         */
+        Branch[] getBranches(String host)
+        {
+            if (host == null)
+                return _branches;
+            Branch[] branches = _hosts.get(host);
+            if (branches != null)
+                return branches;
+            int dot = host.indexOf('.');
+            if (dot >= 0)
+            {
+                branches = _domains.get(host.substring(dot));
+                if (branches != null)
+                    return branches;
+            }
+            return _anyHost;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s%s", _contextPath, Arrays.asList(_branches));
+        }
+    }
+
     private static class Mapping extends Handlers
     {
         private final Map<ContextHandler, Handler> _contextBranches = new HashMap<>();
-        private final Trie<Map.Entry<String, Branch[]>> _pathBranches;
+        private final Trie<PathBranches> _pathBranches;
 
         private Mapping(Handler[] handlers, int capacity)
         {
@@ -20,12 +20,15 @@ package org.eclipse.jetty.server;
 
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Queue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeoutException;
 import javax.servlet.ReadListener;
 
 import org.eclipse.jetty.util.BufferUtil;
+import org.eclipse.jetty.util.MultiMap;
+import org.eclipse.jetty.util.UrlEncoded;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -215,6 +218,35 @@ public class HttpInputTest
         assertThat(_history.poll(), nullValue());
     }
 
+    @Test
+    public void testReadByteBuffers() throws Exception
+    {
+        _in.addContent(new TContent("a=1&b"));
+        _fillAndParseSimulate.offer("=2");
+        _fillAndParseSimulate.offer("_EOF_");
+
+        MultiMap<String> params = new MultiMap<>();
+        UrlEncoded.Decoder decoder = new UrlEncoded.Decoder(params, StandardCharsets.UTF_8, -1, -1);
+
+        assertThat(_in.read(decoder::decode), equalTo(5));
+        assertThat(_in.getContentConsumed(), equalTo(5L));
+        assertThat(_history.poll(), equalTo("Content succeeded a=1&b"));
+        assertThat(_history.poll(), nullValue());
+
+        assertThat(_in.read(decoder::decode), equalTo(2));
+        assertThat(_history.poll(), equalTo("produceContent 2"));
+        assertThat(_history.poll(), equalTo("Content succeeded =2"));
+        assertThat(_history.poll(), nullValue());
+
+        assertThat(_in.read(decoder::decode), equalTo(-1));
+        assertThat(_in.isFinished(), equalTo(true));
+        assertThat(_in.getContentConsumed(), equalTo(7L));
+
+        decoder.complete();
+        assertThat(params.getString("a"), equalTo("1"));
+        assertThat(params.getString("b"), equalTo("2"));
+    }
+
     @Test
     public void testBlockingRead() throws Exception
     {
@@ -30,13 +30,18 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.AsyncContext;
 import javax.servlet.MultipartConfigElement;
 import javax.servlet.ReadListener;
 import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.Part;
 
 import org.eclipse.jetty.server.MultiPartFormInputStream.MultiPart;
+import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jetty.util.Callback;
 import org.eclipse.jetty.util.IO;
 import org.junit.jupiter.api.Test;
 
@@ -809,6 +814,128 @@ public class MultiPartFormInputStreamTest
         assertThat(f, nullValue());
     }
 
+    @Test
+    public void testPerPartFileSizeThreshold() throws Exception
+    {
+        String s = "--AaB03x\r\n" +
+            "content-disposition: form-data; name=\"upload\"\r\n" +
+            "\r\n" +
+            "Joe Blow\r\n" +
+            "--AaB03x\r\n" +
+            "content-disposition: form-data; name=\"small\"\r\n" +
+            "\r\n" +
+            "0123456789\r\n" +
+            "--AaB03x\r\n" +
+            "content-disposition: form-data; name=\"large\"\r\n" +
+            "\r\n" +
+            "0123456789\r\n" +
+            "--AaB03x--\r\n";
+        MultipartConfigElement config = new MultipartConfigElement(_dirname, 1024, 3072, 5);
+        MultiPartFormInputStream mpis = new MultiPartFormInputStream(new ByteArrayInputStream(s.getBytes()),
+            _contentType,
+            config,
+            _tmpDir);
+        mpis.setDeleteOnExit(true);
+        mpis.setFileSizeThreshold("upload", 0);
+        mpis.setFileSizeThreshold("small", -1);
+        assertThat(mpis.getFileSizeThreshold("large"), is(5L));
+
+        assertThat(mpis.getParts().size(), is(3));
+        MultiPart upload = (MultiPart)mpis.getPart("upload");
+        assertThat(upload.getFile(), notNullValue());
+        assertThat(IO.toString(upload.getInputStream()), is("Joe Blow"));
+        assertThat(((MultiPart)mpis.getPart("small")).getFile(), nullValue());
+        MultiPart large = (MultiPart)mpis.getPart("large");
+        assertThat(large.getFile(), notNullValue());
+        assertThat(IO.toString(large.getInputStream()), is("0123456789"));
+        mpis.deleteParts();
+        assertFalse(upload.getFile().exists());
+    }
+
+    @Test
+    public void testParseAsync() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+        CountDownLatch dispatched = new CountDownLatch(1);
+        server.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response)
+            {
+                baseRequest.setHandled(true);
+                AsyncContext async = request.startAsync();
+                MultipartConfigElement config = new MultipartConfigElement(_dirname, 1024, 3072, 50);
+                try
+                {
+                    MultiPartFormInputStream mpis = new MultiPartFormInputStream(request.getInputStream(), request.getContentType(), config, _tmpDir);
+                    mpis.setDeleteOnExit(true);
+                    mpis.setFileSizeThreshold("stuff", 0);
+                    mpis.parseAsync(new Callback()
+                    {
+                        @Override
+                        public void succeeded()
+                        {
+                            try
+                            {
+                                MultiPart file = (MultiPart)mpis.getPart("stuff");
+                                response.getWriter().printf("parts=%d file=%b content=%s%n",
+                                    mpis.getParts().size(),
+                                    file.getFile() != null,
+                                    IO.toString(file.getInputStream()));
+                                mpis.deleteParts();
+                            }
+                            catch (IOException x)
+                            {
+                                response.setStatus(500);
+                            }
+                            async.complete();
+                        }
+
+                        @Override
+                        public void failed(Throwable x)
+                        {
+                            response.setStatus(500);
+                            async.complete();
+                        }
+                    });
+                }
+                catch (IOException x)
+                {
+                    response.setStatus(500);
+                    async.complete();
+                }
+                dispatched.countDown();
+            }
+        });
+        server.start();
+        try
+        {
+            String content = createMultipartRequestString("stuff.txt");
+            String headers = "POST / HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Content-Type: " + _contentType + "\r\n" +
+                "Content-Length: " + content.length() + "\r\n" +
+                "Connection: close\r\n" +
+                "\r\n";
+            int split = content.length() / 2;
+            LocalConnector.LocalEndPoint endPoint = connector.executeRequest(headers + content.substring(0, split));
+
+            // The dispatch returns while the parsing waits for the rest of the content.
+            assertTrue(dispatched.await(5, TimeUnit.SECONDS));
+            endPoint.addInput(content.substring(split));
+
+            String response = endPoint.getResponse();
+            assertThat(response, containsString(" 200 "));
+            assertThat(response, containsString("parts=2 file=true content=stuff.txt000"));
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
     private void testMulti(String filename) throws IOException
     {
         MultipartConfigElement config = new MultipartConfigElement(_dirname, 1024, 3072, 50);
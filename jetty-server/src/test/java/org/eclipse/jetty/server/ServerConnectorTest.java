@@ -27,11 +27,14 @@ import java.net.HttpURLConnection;
 import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.StandardSocketOptions;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -46,6 +49,8 @@ import org.eclipse.jetty.server.handler.HandlerList;
 import org.eclipse.jetty.util.IO;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.anyOf;
@@ -58,6 +63,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 public class ServerConnectorTest
 {
@@ -322,4 +328,98 @@ public class ServerConnectorTest
             assertThat(x.getMessage(), containsString("0.0.0.0:" + port));
         }
     }
+
+    private static boolean isReusePortSupported() throws IOException
+    {
+        try (ServerSocketChannel channel = ServerSocketChannel.open())
+        {
+            return channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    public void testReusePort(int acceptors) throws Exception
+    {
+        assumeTrue(isReusePortSupported());
+
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server, acceptors, 4);
+        connector.setPort(0);
+        connector.setReusePort(true);
+        server.addConnector(connector);
+        server.setHandler(new DefaultHandler());
+
+        try
+        {
+            server.start();
+
+            int listeners = acceptors > 0 ? acceptors : 4;
+            assertEquals(listeners, connector.getAcceptCounts().length);
+            assertEquals(listeners, connector.getBeans(ServerSocketChannel.class).size());
+
+            int connections = 32;
+            URI uri = toServerURI(connector);
+            for (int i = 0; i < connections; ++i)
+            {
+                HttpURLConnection http = (HttpURLConnection)uri.toURL().openConnection();
+                http.setRequestProperty("Connection", "close");
+                assertEquals(404, http.getResponseCode());
+                http.disconnect();
+            }
+
+            long[] counts = connector.getAcceptCounts();
+            assertEquals(connections, Arrays.stream(counts).sum(), Arrays.toString(counts));
+        }
+        finally
+        {
+            server.stop();
+        }
+        assertEquals(0, connector.getBeans(ServerSocketChannel.class).size());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 2})
+    public void testReusePortWithConnectionLimit(int acceptors) throws Exception
+    {
+        assumeTrue(isReusePortSupported());
+
+        Server server = new Server();
+        ServerConnector connector = new ServerConnector(server, acceptors, 4);
+        connector.setPort(0);
+        connector.setReusePort(true);
+        server.addConnector(connector);
+        server.addBean(new ConnectionLimit(2, server));
+        server.setHandler(new DefaultHandler());
+
+        try
+        {
+            server.start();
+
+            try (Socket client1 = new Socket("localhost", connector.getLocalPort());
+                 Socket client2 = new Socket("localhost", connector.getLocalPort()))
+            {
+                awaitAccepting(connector, false);
+            }
+            awaitAccepting(connector, true);
+
+            HttpURLConnection http = (HttpURLConnection)toServerURI(connector).toURL().openConnection();
+            assertEquals(404, http.getResponseCode());
+            assertEquals(3, Arrays.stream(connector.getAcceptCounts()).sum());
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    private void awaitAccepting(ServerConnector connector, boolean accepting) throws InterruptedException
+    {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (connector.isAccepting() != accepting && System.nanoTime() < end)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(accepting, connector.isAccepting());
+    }
 }
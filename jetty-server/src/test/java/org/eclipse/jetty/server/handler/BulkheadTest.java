@@ -0,0 +1,245 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.servlet.AsyncContext;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.eclipse.jetty.http.tools.HttpTester;
+import org.eclipse.jetty.server.LocalConnector;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BulkheadTest
+{
+    private Server _server;
+    private LocalConnector _local;
+    private ContextHandler _context;
+    private CountDownLatch _entered;
+    private CountDownLatch _release;
+    private final AtomicReference<AsyncContext> _async = new AtomicReference<>();
+
+    @BeforeEach
+    public void before() throws Exception
+    {
+        _server = new Server();
+        _local = new LocalConnector(_server);
+        _server.addConnector(_local);
+        _entered = new CountDownLatch(1);
+        _release = new CountDownLatch(1);
+        _context = new ContextHandler("/ctx");
+        _context.setHandler(new AbstractHandler()
+        {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException
+            {
+                baseRequest.setHandled(true);
+                if ("/async".equals(target) && request.getDispatcherType() == DispatcherType.REQUEST)
+                {
+                    // Suspend, the test dispatches later.
+                    AsyncContext async = request.startAsync();
+                    async.setTimeout(5000);
+                    _async.set(async);
+                    return;
+                }
+                if ("/block".equals(target))
+                {
+                    _entered.countDown();
+                    try
+                    {
+                        _release.await(10, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException x)
+                    {
+                        throw new IOException(x);
+                    }
+                }
+                response.setHeader("X-Dispatcher-Type", String.valueOf(request.getDispatcherType()));
+                response.setHeader("X-Async-Request-URI", String.valueOf(request.getAttribute(AsyncContext.ASYNC_REQUEST_URI)));
+                response.setStatus(200);
+            }
+        });
+        _server.setHandler(_context);
+    }
+
+    @AfterEach
+    public void after() throws Exception
+    {
+        _release.countDown();
+        _server.stop();
+    }
+
+    private static int status(LocalConnector.LocalEndPoint endPoint) throws Exception
+    {
+        String response = endPoint.getResponse(false, 5, TimeUnit.SECONDS);
+        return HttpTester.parseResponse(response).getStatus();
+    }
+
+    private void awaitQueueSize(Bulkhead bulkhead, int size) throws Exception
+    {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getQueueSize() != size)
+        {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testQueuedAndRejected() throws Exception
+    {
+        Bulkhead bulkhead = new Bulkhead(1, 1);
+        _context.setBulkhead(bulkhead);
+        _server.start();
+
+        LocalConnector.LocalEndPoint active = _local.executeRequest("GET /ctx/block HTTP/1.0\r\n\r\n");
+        assertTrue(_entered.await(5, TimeUnit.SECONDS));
+        assertThat(bulkhead.getThreads(), is(1));
+
+        LocalConnector.LocalEndPoint queued = _local.executeRequest("GET /ctx/fast HTTP/1.0\r\n\r\n");
+        awaitQueueSize(bulkhead, 1);
+
+        LocalConnector.LocalEndPoint rejected = _local.executeRequest("GET /ctx/fast HTTP/1.0\r\n\r\n");
+        assertThat(status(rejected), is(503));
+        assertThat(bulkhead.getRejected(), is(1L));
+
+        _release.countDown();
+        assertThat(status(active), is(200));
+        assertThat(status(queued), is(200));
+
+        assertThat(bulkhead.getAdmitted(), is(2L));
+        assertThat(bulkhead.getQueued(), is(1L));
+        assertThat(bulkhead.getQueueSize(), is(0));
+        assertThat(bulkhead.getThreads(), is(0));
+    }
+
+    @Test
+    public void testQueuedResumedAsRequest() throws Exception
+    {
+        Bulkhead bulkhead = new Bulkhead(1, -1);
+        _context.setBulkhead(bulkhead);
+        _context.setProtectedTargets(new String[]{"/WEB-INF", "/META-INF"});
+        _server.start();
+
+        LocalConnector.LocalEndPoint active = _local.executeRequest("GET /ctx/block HTTP/1.0\r\n\r\n");
+        assertTrue(_entered.await(5, TimeUnit.SECONDS));
+
+        LocalConnector.LocalEndPoint queued = _local.executeRequest("GET /ctx/fast HTTP/1.0\r\n\r\n");
+        awaitQueueSize(bulkhead, 1);
+        LocalConnector.LocalEndPoint protectedTarget = _local.executeRequest("GET /ctx/WEB-INF/web.xml HTTP/1.0\r\n\r\n");
+        awaitQueueSize(bulkhead, 2);
+
+        _release.countDown();
+        assertThat(status(active), is(200));
+        HttpTester.Response response = HttpTester.parseResponse(queued.getResponse(false, 5, TimeUnit.SECONDS));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("X-Dispatcher-Type"), is("REQUEST"));
+        assertThat(response.get("X-Async-Request-URI"), is("null"));
+        assertThat(status(protectedTarget), is(404));
+        assertThat(bulkhead.getThreads(), is(0));
+    }
+
+    @Test
+    public void testQueuedResumedAsAsync() throws Exception
+    {
+        Bulkhead bulkhead = new Bulkhead(1, -1);
+        _context.setBulkhead(bulkhead);
+        _server.start();
+
+        LocalConnector.LocalEndPoint async = _local.executeRequest("GET /ctx/async HTTP/1.0\r\n\r\n");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (_async.get() == null || bulkhead.getThreads() != 0)
+        {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+
+        LocalConnector.LocalEndPoint active = _local.executeRequest("GET /ctx/block HTTP/1.0\r\n\r\n");
+        assertTrue(_entered.await(5, TimeUnit.SECONDS));
+
+        // The application dispatch is queued.
+        _async.get().dispatch();
+        awaitQueueSize(bulkhead, 1);
+
+        _release.countDown();
+        assertThat(status(active), is(200));
+        HttpTester.Response response = HttpTester.parseResponse(async.getResponse(false, 5, TimeUnit.SECONDS));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.get("X-Dispatcher-Type"), is("ASYNC"));
+        assertThat(response.get("X-Async-Request-URI"), is("/ctx/async"));
+        assertThat(bulkhead.getThreads(), is(0));
+    }
+
+    @Test
+    public void testQueueTimeExpired() throws Exception
+    {
+        Bulkhead bulkhead = new Bulkhead(1, -1);
+        bulkhead.setMaxQueueTime(200);
+        _context.setBulkhead(bulkhead);
+        _server.start();
+
+        LocalConnector.LocalEndPoint active = _local.executeRequest("GET /ctx/block HTTP/1.0\r\n\r\n");
+        assertTrue(_entered.await(5, TimeUnit.SECONDS));
+
+        LocalConnector.LocalEndPoint expired = _local.executeRequest("GET /ctx/fast HTTP/1.0\r\n\r\n");
+        assertThat(status(expired), is(503));
+        assertThat(bulkhead.getExpired(), is(1L));
+        assertThat(bulkhead.getQueueSize(), is(0));
+
+        _release.countDown();
+        assertThat(status(active), is(200));
+        assertThat(bulkhead.getThreads(), is(0));
+
+        // The permit is available again.
+        assertThat(status(_local.executeRequest("GET /ctx/fast HTTP/1.0\r\n\r\n")), is(200));
+    }
+
+    @Test
+    public void testOtherContextNotLimited() throws Exception
+    {
+        Bulkhead bulkhead = new Bulkhead(1, 0);
+        _context.setBulkhead(bulkhead);
+        ContextHandler other = new ContextHandler("/other");
+        other.setHandler(new DefaultHandler());
+        _server.setHandler(new ContextHandlerCollection(_context, other));
+        _server.start();
+
+        LocalConnector.LocalEndPoint active = _local.executeRequest("GET /ctx/block HTTP/1.0\r\n\r\n");
+        assertTrue(_entered.await(5, TimeUnit.SECONDS));
+
+        assertThat(status(_local.executeRequest("GET /ctx/fast HTTP/1.0\r\n\r\n")), is(503));
+        assertThat(status(_local.executeRequest("GET /other/ HTTP/1.0\r\n\r\n")), is(404));
+
+        _release.countDown();
+        assertThat(status(active), is(200));
+    }
+}
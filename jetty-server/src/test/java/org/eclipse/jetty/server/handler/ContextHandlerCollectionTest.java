@@ -19,6 +19,9 @@
 package org.eclipse.jetty.server.handler;
 
 import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.servlet.AsyncContext;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -29,6 +32,7 @@ import org.eclipse.jetty.server.Handler;
 import org.eclipse.jetty.server.LocalConnector;
 import org.eclipse.jetty.server.Request;
 import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.util.Callback;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 
@@ -242,6 +246,122 @@ public class ContextHandlerCollectionTest
         }
     }
 
+    @Test
+    public void testManyVirtualHosts() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector0 = new LocalConnector(server);
+        LocalConnector connector1 = new LocalConnector(server);
+        connector1.setName("connector1");
+        server.setConnectors(new Connector[]{connector0, connector1});
+
+        AtomicInteger checks = new AtomicInteger();
+        ContextHandlerCollection c = new ContextHandlerCollection();
+        for (int i = 0; i < 100; i++)
+        {
+            c.addHandler(newContext(checks, "tenant" + i, "tenant" + i + ".example.com"));
+        }
+        c.addHandler(newContext(checks, "wild", "*.wild.com"));
+        c.addHandler(newContext(checks, "exact", "www.wild.com"));
+        c.addHandler(newContext(checks, "connector", "@connector1"));
+        c.addHandler(newContext(checks, "default"));
+        server.setHandler(c);
+
+        try
+        {
+            server.start();
+
+            Object[][] tests = new Object[][]{
+                {connector0, "tenant42.example.com", "tenant42", 1},
+                {connector0, "TENANT7.Example.COM.", "tenant7", 1},
+                {connector0, "www.wild.com", "wild", 1},
+                {connector0, "other.wild.com", "wild", 1},
+                {connector0, "wild.com", "default", 2},
+                {connector0, "unknown.example.com", "default", 2},
+                {connector1, "unknown.example.com", "connector", 1},
+                {connector1, "tenant3.example.com", "tenant3", 1},
+                };
+
+            for (Object[] test : tests)
+            {
+                LocalConnector connector = (LocalConnector)test[0];
+                String host = (String)test[1];
+                checks.set(0);
+                String response = connector.getResponse("GET /info HTTP/1.0\nHost: " + host + "\n\n");
+                assertThat(host, response, endsWith((String)test[2]));
+                // Only the contexts that may accept the host are checked.
+                assertThat(host, checks.get(), Matchers.is(test[3]));
+            }
+
+            ContextHandler context = newContext(checks, "deployed", "new.example.com");
+            CountDownLatch deployed = new CountDownLatch(1);
+            c.deployHandler(context, Callback.from(deployed::countDown));
+            assertTrue(deployed.await(5, TimeUnit.SECONDS));
+            context.start();
+            assertThat(connector0.getResponse("GET /info HTTP/1.0\nHost: new.example.com\n\n"), endsWith("deployed"));
+
+            CountDownLatch undeployed = new CountDownLatch(1);
+            c.undeployHandler(c.getHandlers()[42], Callback.from(undeployed::countDown));
+            assertTrue(undeployed.await(5, TimeUnit.SECONDS));
+            assertThat(connector0.getResponse("GET /info HTTP/1.0\nHost: tenant42.example.com\n\n"), endsWith("default"));
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void testVirtualHostsChangedAtRuntime() throws Exception
+    {
+        Server server = new Server();
+        LocalConnector connector = new LocalConnector(server);
+        server.addConnector(connector);
+
+        AtomicInteger checks = new AtomicInteger();
+        ContextHandler tenant = newContext(checks, "tenant", "tenant.example.com");
+        ContextHandlerCollection c = new ContextHandlerCollection(tenant, newContext(checks, "default"));
+        server.setHandler(c);
+
+        try
+        {
+            server.start();
+            assertThat(connector.getResponse("GET /info HTTP/1.0\nHost: tenant.example.com\n\n"), endsWith("tenant"));
+            assertThat(connector.getResponse("GET /info HTTP/1.0\nHost: other.example.com\n\n"), endsWith("default"));
+
+            tenant.addVirtualHosts(new String[]{"other.example.com"});
+            assertThat(connector.getResponse("GET /info HTTP/1.0\nHost: other.example.com\n\n"), endsWith("tenant"));
+
+            tenant.removeVirtualHosts(new String[]{"tenant.example.com"});
+            assertThat(connector.getResponse("GET /info HTTP/1.0\nHost: tenant.example.com\n\n"), endsWith("default"));
+            assertThat(connector.getResponse("GET /info HTTP/1.0\nHost: other.example.com\n\n"), endsWith("tenant"));
+
+            tenant.setVirtualHosts(new String[]{"*.wild.com"});
+            assertThat(connector.getResponse("GET /info HTTP/1.0\nHost: www.wild.com\n\n"), endsWith("tenant"));
+            assertThat(connector.getResponse("GET /info HTTP/1.0\nHost: other.example.com\n\n"), endsWith("default"));
+        }
+        finally
+        {
+            server.stop();
+        }
+    }
+
+    private static ContextHandler newContext(AtomicInteger checks, String name, String... virtualHosts)
+    {
+        ContextHandler context = new ContextHandler("/")
+        {
+            @Override
+            public boolean checkVirtualHost(Request baseRequest)
+            {
+                checks.incrementAndGet();
+                return super.checkVirtualHost(baseRequest);
+            }
+        };
+        context.setVirtualHosts(virtualHosts.length == 0 ? null : virtualHosts);
+        context.setHandler(new IsHandledHandler(name));
+        return context;
+    }
+
     @Test
     public void testFindContainer() throws Exception
     {
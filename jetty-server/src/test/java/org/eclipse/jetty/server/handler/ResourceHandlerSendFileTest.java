@@ -0,0 +1,210 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.server.handler;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.eclipse.jetty.http.tools.HttpTester;
+import org.eclipse.jetty.io.ChannelEndPoint;
+import org.eclipse.jetty.io.ManagedSelector;
+import org.eclipse.jetty.io.SocketChannelEndPoint;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.handler.gzip.GzipHandler;
+import org.eclipse.jetty.toolchain.test.FS;
+import org.eclipse.jetty.toolchain.test.MavenTestingUtils;
+import org.eclipse.jetty.util.resource.Resource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ResourceHandlerSendFileTest
+{
+    private final AtomicLong transferred = new AtomicLong();
+    private Server server;
+    private ServerConnector connector;
+    private byte[] data;
+
+    private void start(boolean gzip) throws Exception
+    {
+        File dir = MavenTestingUtils.getTargetTestingDir(ResourceHandlerSendFileTest.class.getSimpleName());
+        FS.ensureEmpty(dir);
+        data = new byte[2 * 1024 * 1024];
+        new Random().nextBytes(data);
+        Files.write(new File(dir, "data.bin").toPath(), data);
+
+        server = new Server();
+        HttpConfiguration httpConfig = new HttpConfiguration();
+        httpConfig.setUseSendFile(true);
+        connector = new ServerConnector(server, new HttpConnectionFactory(httpConfig))
+        {
+            @Override
+            protected ChannelEndPoint newEndPoint(SocketChannel channel, ManagedSelector selectSet, SelectionKey key)
+            {
+                SocketChannelEndPoint endPoint = new SocketChannelEndPoint(channel, selectSet, key, getScheduler())
+                {
+                    @Override
+                    public long transferFrom(FileChannel file, long position, long count) throws IOException
+                    {
+                        long result = super.transferFrom(file, position, count);
+                        transferred.addAndGet(result);
+                        return result;
+                    }
+                };
+                endPoint.setIdleTimeout(getIdleTimeout());
+                return endPoint;
+            }
+        };
+        server.addConnector(connector);
+
+        ContextHandler context = new ContextHandler("/");
+        context.setBaseResource(Resource.newResource(dir));
+        ResourceHandler resourceHandler = new ResourceHandler();
+        if (gzip)
+        {
+            GzipHandler gzipHandler = new GzipHandler();
+            gzipHandler.addIncludedMimeTypes("application/octet-stream");
+            gzipHandler.setHandler(resourceHandler);
+            context.setHandler(gzipHandler);
+        }
+        else
+        {
+            context.setHandler(resourceHandler);
+        }
+        server.setHandler(context);
+        server.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        server.stop();
+    }
+
+    @Test
+    public void testSendFileWithSlowClient() throws Exception
+    {
+        start(false);
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            OutputStream output = socket.getOutputStream();
+            DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            for (int i = 0; i < 2; ++i)
+            {
+                output.write(("GET /data.bin HTTP/1.1\r\n" +
+                    "Host: localhost\r\n" +
+                    "\r\n").getBytes(StandardCharsets.UTF_8));
+                output.flush();
+
+                // Let the server congest the socket.
+                Thread.sleep(500);
+
+                String headers = readHeaders(input);
+                assertThat(headers, startsWith("HTTP/1.1 200 "));
+                assertThat(headers, containsString("Content-Length: " + data.length));
+                byte[] content = new byte[data.length];
+                input.readFully(content);
+                assertArrayEquals(data, content);
+            }
+        }
+        assertThat(transferred.get(), greaterThan(data.length * 3L / 2));
+    }
+
+    private String readHeaders(InputStream input) throws IOException
+    {
+        StringBuilder builder = new StringBuilder();
+        while (!builder.toString().endsWith("\r\n\r\n"))
+        {
+            int b = input.read();
+            if (b < 0)
+                throw new EOFException();
+            builder.append((char)b);
+        }
+        return builder.toString();
+    }
+
+    @Test
+    public void testSendFileSingleRange() throws Exception
+    {
+        start(false);
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            OutputStream output = socket.getOutputStream();
+            output.write(("GET /data.bin HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Range: bytes=1000-200999\r\n" +
+                "\r\n").getBytes(StandardCharsets.UTF_8));
+            output.flush();
+
+            HttpTester.Response response = HttpTester.parseResponse(HttpTester.from(socket.getInputStream()));
+            assertEquals(HttpStatus.PARTIAL_CONTENT_206, response.getStatus());
+            assertArrayEquals(Arrays.copyOfRange(data, 1000, 201000), response.getContentBytes());
+        }
+        assertEquals(200000, transferred.get());
+    }
+
+    @Test
+    public void testInterceptorFallsBack() throws Exception
+    {
+        start(true);
+
+        try (Socket socket = new Socket("localhost", connector.getLocalPort()))
+        {
+            OutputStream output = socket.getOutputStream();
+            output.write(("GET /data.bin HTTP/1.1\r\n" +
+                "Host: localhost\r\n" +
+                "Accept-Encoding: gzip\r\n" +
+                "Connection: close\r\n" +
+                "\r\n").getBytes(StandardCharsets.UTF_8));
+            output.flush();
+
+            HttpTester.Response response = HttpTester.parseResponse(HttpTester.from(socket.getInputStream()));
+            assertEquals(HttpStatus.OK_200, response.getStatus());
+            assertEquals("gzip", response.get(HttpHeader.CONTENT_ENCODING));
+        }
+        assertEquals(0, transferred.get());
+    }
+}
@@ -0,0 +1,632 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.servlet;
+
+import java.util.AbstractMap;
+import java.util.AbstractQueue;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.servlet.FilterChain;
+
+import org.eclipse.jetty.util.thread.AutoLock;
+
+/**
+ * <p>A cache of {@link FilterChain}s by path or servlet name, for one dispatch type.</p>
+ * <p>If the cache is bounded, entries are evicted with a W-TinyLFU policy: new entries enter
+ * a small LRU window, and the entries leaving the window are only admitted to the main
+ * segmented LRU space if they have been requested more often than the entry they would evict,
+ * as estimated by a sketch of the recent request frequencies. Paths requested once, such as
+ * REST paths with path parameters, thus do not evict the chains of frequently requested paths.</p>
+ * <p>Lookups never block: the access of a cache hit is not recorded by the eviction policy
+ * if another thread is updating it.</p>
+ */
+class FilterChainCache
+{
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int REMOVED = 3;
+
+    private final ConcurrentMap<String, Node> _map = new ConcurrentHashMap<>();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final LongAdder _evictions = new LongAdder();
+    private final AutoLock _lock = new AutoLock();
+    private final int _maxSize;
+    private final int _windowMaxSize;
+    private final int _protectedMaxSize;
+    private final Segment[] _segments = {new Segment(WINDOW), new Segment(PROBATION), new Segment(PROTECTED)};
+    private final FrequencySketch _sketch;
+    private final ConcurrentMap<String, FilterChain> _mapView = new MapView();
+    private final KeyQueue _keyQueue = new KeyQueue();
+
+    /**
+     * @param maxSize the maximum number of entries, or zero or less for an unbounded cache
+     */
+    FilterChainCache(int maxSize)
+    {
+        _maxSize = Math.max(0, maxSize);
+        _windowMaxSize = Math.max(1, _maxSize / 100);
+        _protectedMaxSize = (_maxSize - _windowMaxSize) * 4 / 5;
+        _sketch = _maxSize > 0 ? new FrequencySketch(_maxSize) : null;
+    }
+
+    FilterChain get(String key)
+    {
+        Node node = _map.get(key);
+        if (node == null)
+        {
+            _misses.increment();
+            return null;
+        }
+        _hits.increment();
+        if (_sketch != null)
+        {
+            try (AutoLock l = _lock.tryLock())
+            {
+                if (l != null)
+                    onHit(node);
+            }
+        }
+        return node._chain;
+    }
+
+    void put(String key, FilterChain chain)
+    {
+        Node node = new Node(key, chain);
+        if (_sketch == null)
+        {
+            _map.put(key, node);
+            return;
+        }
+
+        try (AutoLock l = _lock.lock())
+        {
+            _sketch.increment(node._hash);
+            Node replaced = _map.put(key, node);
+            if (replaced != null)
+                unlink(replaced);
+            _segments[WINDOW].add(node);
+            evict();
+        }
+    }
+
+    FilterChain remove(String key)
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            Node node = _map.remove(key);
+            if (node == null)
+                return null;
+            unlink(node);
+            return node._chain;
+        }
+    }
+
+    void clear()
+    {
+        try (AutoLock l = _lock.lock())
+        {
+            _map.clear();
+            for (Segment segment : _segments)
+            {
+                segment.clear();
+            }
+            if (_sketch != null)
+                _sketch.clear();
+        }
+    }
+
+    int size()
+    {
+        return _map.size();
+    }
+
+    int getMaxSize()
+    {
+        return _maxSize;
+    }
+
+    long getHits()
+    {
+        return _hits.sum();
+    }
+
+    long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    long getEvictions()
+    {
+        return _evictions.sum();
+    }
+
+    /**
+     * @return a live map view of this cache, whose lookups are not counted as hits or misses
+     */
+    ConcurrentMap<String, FilterChain> asMap()
+    {
+        return _mapView;
+    }
+
+    /**
+     * @return a live queue view of the keys of this cache, in no particular order
+     */
+    Queue<String> keys()
+    {
+        return _keyQueue;
+    }
+
+    private static FilterChain chainOf(Node node)
+    {
+        return node == null ? null : node._chain;
+    }
+
+    private void onHit(Node node)
+    {
+        _sketch.increment(node._hash);
+        switch (node._segment)
+        {
+            case WINDOW:
+            case PROTECTED:
+                Segment segment = _segments[node._segment];
+                segment.remove(node);
+                segment.add(node);
+                break;
+
+            case PROBATION:
+                // Promote to the protected segment, demoting its least recently used entry if it is full.
+                _segments[PROBATION].remove(node);
+                _segments[PROTECTED].add(node);
+                if (_segments[PROTECTED]._size > _protectedMaxSize)
+                    _segments[PROBATION].add(_segments[PROTECTED].poll());
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private void evict()
+    {
+        int mainMaxSize = _maxSize - _windowMaxSize;
+        while (_segments[WINDOW]._size > _windowMaxSize)
+        {
+            Node candidate = _segments[WINDOW].poll();
+            if (_segments[PROBATION]._size + _segments[PROTECTED]._size < mainMaxSize)
+            {
+                _segments[PROBATION].add(candidate);
+                continue;
+            }
+
+            // The main space is full, so either the candidate or the main victim is evicted.
+            Node victim = _segments[PROBATION]._head != null ? _segments[PROBATION]._head : _segments[PROTECTED]._head;
+            if (victim != null && _sketch.frequency(candidate._hash) > _sketch.frequency(victim._hash))
+            {
+                unlink(victim);
+                _map.remove(victim._key, victim);
+                _segments[PROBATION].add(candidate);
+            }
+            else
+            {
+                candidate._segment = REMOVED;
+                _map.remove(candidate._key, candidate);
+            }
+            _evictions.increment();
+        }
+    }
+
+    private void unlink(Node node)
+    {
+        if (node._segment != REMOVED)
+            _segments[node._segment].remove(node);
+        node._segment = REMOVED;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{size=%d,max=%d,hits=%d,misses=%d,evictions=%d}",
+            getClass().getSimpleName(), hashCode(), size(), _maxSize, getHits(), getMisses(), getEvictions());
+    }
+
+    /**
+     * <p>A map view for the deprecated {@code ServletHandler._chainCache} field.</p>
+     * <p>Compound operations hold the lock, so they are atomic with respect to the
+     * other operations of this view and to the updates of a bounded cache.</p>
+     */
+    private class MapView extends AbstractMap<String, FilterChain> implements ConcurrentMap<String, FilterChain>
+    {
+        @Override
+        public FilterChain get(Object key)
+        {
+            return chainOf(_map.get(key));
+        }
+
+        @Override
+        public boolean containsKey(Object key)
+        {
+            return _map.containsKey(key);
+        }
+
+        @Override
+        public FilterChain put(String key, FilterChain chain)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                FilterChain old = get(key);
+                FilterChainCache.this.put(key, chain);
+                return old;
+            }
+        }
+
+        @Override
+        public FilterChain putIfAbsent(String key, FilterChain chain)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                FilterChain old = get(key);
+                if (old == null)
+                    FilterChainCache.this.put(key, chain);
+                return old;
+            }
+        }
+
+        @Override
+        public FilterChain remove(Object key)
+        {
+            return key instanceof String ? FilterChainCache.this.remove((String)key) : null;
+        }
+
+        @Override
+        public boolean remove(Object key, Object chain)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                if (chain == null || !chain.equals(get(key)))
+                    return false;
+                FilterChainCache.this.remove((String)key);
+                return true;
+            }
+        }
+
+        @Override
+        public boolean replace(String key, FilterChain oldChain, FilterChain newChain)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                if (!oldChain.equals(get(key)))
+                    return false;
+                FilterChainCache.this.put(key, newChain);
+                return true;
+            }
+        }
+
+        @Override
+        public FilterChain replace(String key, FilterChain chain)
+        {
+            try (AutoLock l = _lock.lock())
+            {
+                FilterChain old = get(key);
+                if (old != null)
+                    FilterChainCache.this.put(key, chain);
+                return old;
+            }
+        }
+
+        @Override
+        public void clear()
+        {
+            FilterChainCache.this.clear();
+        }
+
+        @Override
+        public int size()
+        {
+            return _map.size();
+        }
+
+        @Override
+        public Set<Entry<String, FilterChain>> entrySet()
+        {
+            return new AbstractSet<>()
+            {
+                @Override
+                public Iterator<Entry<String, FilterChain>> iterator()
+                {
+                    Iterator<Node> nodes = _map.values().iterator();
+                    return new Iterator<>()
+                    {
+                        private Node _last;
+
+                        @Override
+                        public boolean hasNext()
+                        {
+                            return nodes.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, FilterChain> next()
+                        {
+                            _last = nodes.next();
+                            return new SimpleImmutableEntry<>(_last._key, _last._chain);
+                        }
+
+                        @Override
+                        public void remove()
+                        {
+                            if (_last == null)
+                                throw new IllegalStateException();
+                            MapView.this.remove(_last._key, _last._chain);
+                            _last = null;
+                        }
+                    };
+                }
+
+                @Override
+                public int size()
+                {
+                    return _map.size();
+                }
+            };
+        }
+    }
+
+    /**
+     * <p>A queue view of the keys for the deprecated {@code ServletHandler._chainLRU} field.</p>
+     * <p>The eviction order is decided by the cache, so offered keys are ignored
+     * and polling removes an arbitrary entry from the cache.</p>
+     */
+    private class KeyQueue extends AbstractQueue<String>
+    {
+        @Override
+        public boolean offer(String key)
+        {
+            return true;
+        }
+
+        @Override
+        public String poll()
+        {
+            for (String key : _map.keySet())
+            {
+                if (FilterChainCache.this.remove(key) != null)
+                    return key;
+            }
+            return null;
+        }
+
+        @Override
+        public String peek()
+        {
+            Iterator<String> keys = _map.keySet().iterator();
+            return keys.hasNext() ? keys.next() : null;
+        }
+
+        @Override
+        public Iterator<String> iterator()
+        {
+            Iterator<String> keys = _map.keySet().iterator();
+            return new Iterator<>()
+            {
+                private String _last;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return keys.hasNext();
+                }
+
+                @Override
+                public String next()
+                {
+                    _last = keys.next();
+                    return _last;
+                }
+
+                @Override
+                public void remove()
+                {
+                    if (_last == null)
+                        throw new IllegalStateException();
+                    FilterChainCache.this.remove(_last);
+                    _last = null;
+                }
+            };
+        }
+
+        @Override
+        public int size()
+        {
+            return _map.size();
+        }
+
+        @Override
+        public void clear()
+        {
+            FilterChainCache.this.clear();
+        }
+    }
+
+    private static class Node
+    {
+        private final String _key;
+        private final int _hash;
+        private final FilterChain _chain;
+        private Node _prev;
+        private Node _next;
+        private int _segment = REMOVED;
+
+        private Node(String key, FilterChain chain)
+        {
+            _key = key;
+            _hash = FrequencySketch.spread(key.hashCode());
+            _chain = chain;
+        }
+    }
+
+    /**
+     * A doubly linked list of nodes from the least to the most recently used.
+     */
+    private static class Segment
+    {
+        private final int _index;
+        private Node _head;
+        private Node _tail;
+        private int _size;
+
+        private Segment(int index)
+        {
+            _index = index;
+        }
+
+        private void add(Node node)
+        {
+            node._segment = _index;
+            node._prev = _tail;
+            node._next = null;
+            if (_tail == null)
+                _head = node;
+            else
+                _tail._next = node;
+            _tail = node;
+            _size++;
+        }
+
+        private void remove(Node node)
+        {
+            if (node._prev == null)
+                _head = node._next;
+            else
+                node._prev._next = node._next;
+            if (node._next == null)
+                _tail = node._prev;
+            else
+                node._next._prev = node._prev;
+            node._prev = null;
+            node._next = null;
+            node._segment = REMOVED;
+            _size--;
+        }
+
+        private Node poll()
+        {
+            Node node = _head;
+            if (node != null)
+                remove(node);
+            return node;
+        }
+
+        private void clear()
+        {
+            _head = null;
+            _tail = null;
+            _size = 0;
+        }
+    }
+
+    /**
+     * <p>A count-min sketch of 4-bit counters estimating the recent frequency of keys.</p>
+     * <p>All the counters are halved once the number of increments reaches ten times
+     * the cache size, so that the frequencies of keys no longer requested decay.</p>
+     */
+    private static class FrequencySketch
+    {
+        private static final long[] SEEDS = {0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L, 0x9AE16A3B2F90404FL, 0xCBF29CE484222325L};
+
+        private final long[] _table;
+        private final int _sampleSize;
+        private int _increments;
+
+        private FrequencySketch(int maxSize)
+        {
+            int length = Integer.highestOneBit(Math.max(16, maxSize) - 1) << 1;
+            _table = new long[length];
+            _sampleSize = 10 * maxSize;
+        }
+
+        private static int spread(int hash)
+        {
+            hash *= 0x9E3779B9;
+            return hash ^ (hash >>> 16);
+        }
+
+        private int indexOf(int hash, int i)
+        {
+            long h = (hash + SEEDS[i]) * SEEDS[i];
+            h += h >>> 32;
+            return (int)h & (_table.length - 1);
+        }
+
+        private static int shiftOf(int hash, int i)
+        {
+            // One of the 16 counters of the long, different for each hash function.
+            return ((hash >>> (i << 3)) & 15) << 2;
+        }
+
+        private void increment(int hash)
+        {
+            boolean incremented = false;
+            for (int i = 0; i < SEEDS.length; i++)
+            {
+                int index = indexOf(hash, i);
+                int shift = shiftOf(hash, i);
+                if (((_table[index] >>> shift) & 15) < 15)
+                {
+                    _table[index] += 1L << shift;
+                    incremented = true;
+                }
+            }
+            if (incremented && ++_increments >= _sampleSize)
+                reset();
+        }
+
+        private int frequency(int hash)
+        {
+            int frequency = 15;
+            for (int i = 0; i < SEEDS.length; i++)
+            {
+                frequency = Math.min(frequency, (int)((_table[indexOf(hash, i)] >>> shiftOf(hash, i)) & 15));
+            }
+            return frequency;
+        }
+
+        private void reset()
+        {
+            for (int i = 0; i < _table.length; i++)
+            {
+                _table[i] = (_table[i] >>> 1) & 0x7777777777777777L;
+            }
+            _increments /= 2;
+        }
+
+        private void clear()
+        {
+            Arrays.fill(_table, 0);
+            _increments = 0;
+        }
+    }
+}
@@ -30,8 +30,6 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Stream;
 import javax.servlet.DispatcherType;
@@ -118,9 +116,21 @@ public class ServletHandler extends ScopedHandler
     private ListenerHolder[] _listeners = new ListenerHolder[0];
     private boolean _initialized = false;
 
+    private final FilterChainCache[] _chainCaches = new FilterChainCache[FilterMapping.ALL];
+
+    /**
+     * @deprecated the filter chains are cached by a private cache with its own eviction policy;
+     * the elements are live views of that cache, and this field will be removed.
+     */
+    @Deprecated
     @SuppressWarnings("unchecked")
     protected final ConcurrentMap<String, FilterChain>[] _chainCache = new ConcurrentMap[FilterMapping.ALL];
 
+    /**
+     * @deprecated the eviction order is decided by the private filter chain cache;
+     * the elements are live views of the cached keys, and this field will be removed.
+     */
+    @Deprecated
     @SuppressWarnings("unchecked")
     protected final Queue<String>[] _chainLRU = new Queue[FilterMapping.ALL];
 
@@ -171,17 +181,13 @@ public class ServletHandler extends ScopedHandler
 
         if (isFilterChainsCached())
         {
-            _chainCache[FilterMapping.REQUEST] = new ConcurrentHashMap<>();
-            _chainCache[FilterMapping.FORWARD] = new ConcurrentHashMap<>();
-            _chainCache[FilterMapping.INCLUDE] = new ConcurrentHashMap<>();
-            _chainCache[FilterMapping.ERROR] = new ConcurrentHashMap<>();
-            _chainCache[FilterMapping.ASYNC] = new ConcurrentHashMap<>();
-
-            _chainLRU[FilterMapping.REQUEST] = new ConcurrentLinkedQueue<>();
-            _chainLRU[FilterMapping.FORWARD] = new ConcurrentLinkedQueue<>();
-            _chainLRU[FilterMapping.INCLUDE] = new ConcurrentLinkedQueue<>();
-            _chainLRU[FilterMapping.ERROR] = new ConcurrentLinkedQueue<>();
-            _chainLRU[FilterMapping.ASYNC] = new ConcurrentLinkedQueue<>();
+            for (int dispatch : new int[]{FilterMapping.REQUEST, FilterMapping.FORWARD, FilterMapping.INCLUDE, FilterMapping.ERROR, FilterMapping.ASYNC})
+            {
+                FilterChainCache cache = new FilterChainCache(_maxFilterChainsCacheSize);
+                _chainCaches[dispatch] = cache;
+                _chainCache[dispatch] = cache.asMap();
+                _chainLRU[dispatch] = cache.keys();
+            }
         }
 
         if (_contextHandler == null)
@@ -573,9 +579,10 @@ public class ServletHandler extends ScopedHandler
         String key = pathInContext == null ? servletHolder.getName() : pathInContext;
         int dispatch = FilterMapping.dispatch(baseRequest.getDispatcherType());
 
-        if (_filterChainsCached && _chainCache != null)
+        FilterChainCache cache = _filterChainsCached ? _chainCaches[dispatch] : null;
+        if (cache != null)
         {
-            FilterChain chain = _chainCache[dispatch].get(key);
+            FilterChain chain = cache.get(key);
             if (chain != null)
                 return chain;
         }
@@ -617,34 +624,13 @@ public class ServletHandler extends ScopedHandler
         if (filters.isEmpty())
             return null;
 
-        FilterChain chain = null;
-        if (_filterChainsCached)
+        FilterChain chain;
+        if (cache != null)
         {
-            if (!filters.isEmpty())
-                chain = newCachedChain(filters, servletHolder);
-
-            final Map<String, FilterChain> cache = _chainCache[dispatch];
-            final Queue<String> lru = _chainLRU[dispatch];
-
-            // Do we have too many cached chains?
-            while (_maxFilterChainsCacheSize > 0 && cache.size() >= _maxFilterChainsCacheSize)
-            {
-                // The LRU list is not atomic with the cache map, so be prepared to invalidate if
-                // a key is not found to delete.
-                // Delete by LRU (where U==created)
-                String k = lru.poll();
-                if (k == null)
-                {
-                    cache.clear();
-                    break;
-                }
-                cache.remove(k);
-            }
-
+            chain = newCachedChain(filters, servletHolder);
             cache.put(key, chain);
-            lru.add(key);
         }
-        else if (!filters.isEmpty())
+        else
             chain = new Chain(baseRequest, filters, servletHolder);
 
         return chain;
@@ -652,20 +638,59 @@ public class ServletHandler extends ScopedHandler
 
     protected void invalidateChainsCache()
     {
-        if (_chainLRU[FilterMapping.REQUEST] != null)
+        for (FilterChainCache cache : _chainCaches)
+        {
+            if (cache != null)
+                cache.clear();
+        }
+    }
+
+    @ManagedAttribute(value = "number of filter chains cached", readonly = true)
+    public int getFilterChainsCacheSize()
+    {
+        int size = 0;
+        for (FilterChainCache cache : _chainCaches)
+        {
+            if (cache != null)
+                size += cache.size();
+        }
+        return size;
+    }
+
+    @ManagedAttribute(value = "number of requests that found their filter chain in the cache", readonly = true)
+    public long getFilterChainsCacheHits()
+    {
+        long hits = 0;
+        for (FilterChainCache cache : _chainCaches)
+        {
+            if (cache != null)
+                hits += cache.getHits();
+        }
+        return hits;
+    }
+
+    @ManagedAttribute(value = "number of requests that did not find their filter chain in the cache", readonly = true)
+    public long getFilterChainsCacheMisses()
+    {
+        long misses = 0;
+        for (FilterChainCache cache : _chainCaches)
         {
-            _chainLRU[FilterMapping.REQUEST].clear();
-            _chainLRU[FilterMapping.FORWARD].clear();
-            _chainLRU[FilterMapping.INCLUDE].clear();
-            _chainLRU[FilterMapping.ERROR].clear();
-            _chainLRU[FilterMapping.ASYNC].clear();
-
-            _chainCache[FilterMapping.REQUEST].clear();
-            _chainCache[FilterMapping.FORWARD].clear();
-            _chainCache[FilterMapping.INCLUDE].clear();
-            _chainCache[FilterMapping.ERROR].clear();
-            _chainCache[FilterMapping.ASYNC].clear();
+            if (cache != null)
+                misses += cache.getMisses();
         }
+        return misses;
+    }
+
+    @ManagedAttribute(value = "number of filter chains evicted from, or not admitted to, the cache", readonly = true)
+    public long getFilterChainsCacheEvictions()
+    {
+        long evictions = 0;
+        for (FilterChainCache cache : _chainCaches)
+        {
+            if (cache != null)
+                evictions += cache.getEvictions();
+        }
+        return evictions;
     }
 
     /**
@@ -1398,14 +1423,7 @@ public class ServletHandler extends ScopedHandler
         }
 
         // flush filter chain cache
-        if (_chainCache != null)
-        {
-            for (int i = _chainCache.length; i-- > 0; )
-            {
-                if (_chainCache[i] != null)
-                    _chainCache[i].clear();
-            }
-        }
+        invalidateChainsCache();
 
         if (LOG.isDebugEnabled())
         {
@@ -1690,7 +1708,9 @@ public class ServletHandler extends ScopedHandler
     /**
      * Set the maximum filter chain cache size.
      * Filter chains are cached if {@link #isFilterChainsCached()} is true. If the max cache size
-     * is greater than zero, then the cache is flushed whenever it grows to be this size.
+     * is greater than zero, then the filter chains of each dispatch type are evicted to keep each
+     * cache within this size, retaining the most frequently requested ones. The size applies
+     * when the handler is started.
      *
      * @param maxFilterChainsCacheSize the maximum number of entries in a filter chain cache.
      */
@@ -0,0 +1,140 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.servlet;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentMap;
+import javax.servlet.FilterChain;
+
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class FilterChainCacheTest
+{
+    private static final FilterChain CHAIN = (request, response) ->
+    {
+    };
+
+    private static FilterChain getOrPut(FilterChainCache cache, String key)
+    {
+        FilterChain chain = cache.get(key);
+        if (chain == null)
+            cache.put(key, chain = CHAIN);
+        return chain;
+    }
+
+    @Test
+    public void testUnbounded()
+    {
+        FilterChainCache cache = new FilterChainCache(0);
+        for (int i = 0; i < 1000; i++)
+        {
+            getOrPut(cache, "/path/" + i);
+        }
+        assertThat(cache.size(), is(1000));
+        assertThat(cache.get("/path/42"), sameInstance(CHAIN));
+        assertThat(cache.getHits(), is(1L));
+        assertThat(cache.getMisses(), is(1000L));
+        assertThat(cache.getEvictions(), is(0L));
+
+        cache.clear();
+        assertThat(cache.size(), is(0));
+        assertThat(cache.get("/path/42"), nullValue());
+    }
+
+    @Test
+    public void testBounded()
+    {
+        FilterChainCache cache = new FilterChainCache(100);
+        for (int i = 0; i < 1000; i++)
+        {
+            getOrPut(cache, "/path/" + i);
+            assertThat(cache.size(), lessThanOrEqualTo(100));
+        }
+        assertThat(cache.size(), is(100));
+        assertThat(cache.getMisses(), is(1000L));
+        assertThat(cache.getEvictions(), is(900L));
+    }
+
+    @Test
+    public void testFrequentKeysSurviveScan()
+    {
+        FilterChainCache cache = new FilterChainCache(100);
+
+        // Some paths are requested frequently.
+        for (int r = 0; r < 10; r++)
+        {
+            for (int i = 0; i < 50; i++)
+            {
+                getOrPut(cache, "/static/" + i);
+            }
+        }
+
+        // Many paths with path parameters are requested once, interleaved with the frequent paths.
+        for (int i = 0; i < 10000; i++)
+        {
+            getOrPut(cache, "/api/items/" + i);
+            getOrPut(cache, "/static/" + (i % 50));
+        }
+
+        long misses = cache.getMisses();
+        for (int i = 0; i < 50; i++)
+        {
+            assertThat(cache.get("/static/" + i), notNullValue());
+        }
+        assertThat(cache.getMisses(), is(misses));
+        assertThat(cache.getHits(), greaterThan(10000L));
+        assertThat(cache.size(), lessThanOrEqualTo(100));
+    }
+
+    @Test
+    public void testViews()
+    {
+        FilterChainCache cache = new FilterChainCache(100);
+        ConcurrentMap<String, FilterChain> map = cache.asMap();
+        Queue<String> keys = cache.keys();
+
+        assertThat(map.putIfAbsent("/a", CHAIN), nullValue());
+        map.put("/b", CHAIN);
+        assertThat(cache.size(), is(2));
+        assertThat(map.get("/a"), sameInstance(CHAIN));
+        assertThat(keys.size(), is(2));
+        assertThat(cache.getHits(), is(0L));
+        assertThat(cache.getMisses(), is(0L));
+
+        assertThat(map.remove("/a"), sameInstance(CHAIN));
+        assertThat(cache.get("/a"), nullValue());
+        assertThat(keys.poll(), is("/b"));
+        assertThat(map.isEmpty(), is(true));
+
+        getOrPut(cache, "/c");
+        keys.clear();
+        assertThat(cache.size(), is(0));
+        getOrPut(cache, "/d");
+        map.clear();
+        assertThat(cache.size(), is(0));
+    }
+}
@@ -27,6 +27,7 @@ import java.util.EventListener;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -62,6 +63,7 @@ import javax.servlet.http.HttpSessionIdListener;
 import javax.servlet.http.HttpSessionListener;
 
 import org.eclipse.jetty.http.pathmap.MappedResource;
+import org.eclipse.jetty.http.tools.HttpTester;
 import org.eclipse.jetty.logging.StacklessLogging;
 import org.eclipse.jetty.security.ConstraintSecurityHandler;
 import org.eclipse.jetty.security.RoleInfo;
@@ -73,6 +75,7 @@ import org.eclipse.jetty.server.Server;
 import org.eclipse.jetty.server.UserIdentity;
 import org.eclipse.jetty.server.handler.AbstractHandler;
 import org.eclipse.jetty.server.handler.AbstractHandlerContainer;
+import org.eclipse.jetty.server.handler.Bulkhead;
 import org.eclipse.jetty.server.handler.ContextHandler;
 import org.eclipse.jetty.server.handler.ContextHandlerCollection;
 import org.eclipse.jetty.server.handler.HandlerList;
@@ -987,6 +990,70 @@ public class ServletContextHandlerTest
         }
     }
 
+    @Test
+    public void testBulkheadQueuedRequestFiltered() throws Exception
+    {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Bulkhead bulkhead = new Bulkhead(1, -1);
+        ServletContextHandler context = new ServletContextHandler();
+        context.setContextPath("/ctx");
+        context.setBulkhead(bulkhead);
+        context.setProtectedTargets(new String[]{"/WEB-INF", "/META-INF"});
+        context.addFilter(new FilterHolder(new Filter()
+        {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain) throws IOException, ServletException
+            {
+                ((HttpServletResponse)response).setHeader("X-Filtered", request.getDispatcherType().toString());
+                chain.doFilter(request, response);
+            }
+        }), "/*", EnumSet.of(DispatcherType.REQUEST));
+        context.addServlet(new ServletHolder(new HttpServlet()
+        {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException
+            {
+                if ("/block".equals(req.getPathInfo()))
+                {
+                    entered.countDown();
+                    try
+                    {
+                        release.await(10, TimeUnit.SECONDS);
+                    }
+                    catch (InterruptedException x)
+                    {
+                        throw new IOException(x);
+                    }
+                }
+                resp.setStatus(200);
+            }
+        }), "/*");
+        _server.setHandler(context);
+        _server.start();
+
+        LocalConnector.LocalEndPoint active = _connector.executeRequest("GET /ctx/block HTTP/1.0\r\n\r\n");
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        LocalConnector.LocalEndPoint queued = _connector.executeRequest("GET /ctx/queued HTTP/1.0\r\n\r\n");
+        LocalConnector.LocalEndPoint protectedTarget = _connector.executeRequest("GET /ctx/WEB-INF/web.xml HTTP/1.0\r\n\r\n");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getQueueSize() != 2)
+        {
+            assertTrue(System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+
+        release.countDown();
+        HttpTester.Response response = HttpTester.parseResponse(active.getResponse(false, 5, TimeUnit.SECONDS));
+        assertEquals(200, response.getStatus());
+        assertEquals("REQUEST", response.get("X-Filtered"));
+        response = HttpTester.parseResponse(queued.getResponse(false, 5, TimeUnit.SECONDS));
+        assertEquals(200, response.getStatus());
+        assertEquals("REQUEST", response.get("X-Filtered"));
+        response = HttpTester.parseResponse(protectedTarget.getResponse(false, 5, TimeUnit.SECONDS));
+        assertEquals(404, response.getStatus());
+    }
+
     @Test
     public void testAddServletByClassFromFilter() throws Exception
     {
@@ -18,6 +18,7 @@
 
 package org.eclipse.jetty.util;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
@@ -164,6 +165,100 @@ public class SearchPattern
         return matched + matchedCount;
     }
 
+    /**
+     * Search for a complete match of the pattern within the buffer.
+     *
+     * @param data The buffer in which to search for, which may be direct.
+     * @param offset The absolute index within the buffer to start the search
+     * @param length The length of the data to search
+     * @return The absolute index within the buffer at which the first instance of the pattern or -1 if not found
+     * @see #match(byte[], int, int)
+     */
+    public int match(ByteBuffer data, int offset, int length)
+    {
+        if (data.hasArray())
+        {
+            int index = match(data.array(), data.arrayOffset() + offset, length);
+            return index < 0 ? index : index - data.arrayOffset();
+        }
+
+        validateArgs(data, offset, length);
+
+        int skip = offset;
+        while (skip <= offset + length - pattern.length)
+        {
+            for (int i = pattern.length - 1; data.get(skip + i) == pattern[i]; i--)
+            {
+                if (i == 0)
+                    return skip;
+            }
+
+            skip += table[0xff & data.get(skip + pattern.length - 1)];
+        }
+
+        return -1;
+    }
+
+    /**
+     * Search for a partial match of the pattern at the end of the buffer.
+     *
+     * @param data The buffer in which to search for, which may be direct.
+     * @param offset The absolute index within the buffer to start the search
+     * @param length The length of the data to search
+     * @return the length of the partial pattern matched and 0 for no match.
+     * @see #endsWith(byte[], int, int)
+     */
+    public int endsWith(ByteBuffer data, int offset, int length)
+    {
+        if (data.hasArray())
+            return endsWith(data.array(), data.arrayOffset() + offset, length);
+
+        validateArgs(data, offset, length);
+
+        int skip = (pattern.length <= length) ? (offset + length - pattern.length) : offset;
+        while (skip < offset + length)
+        {
+            for (int i = (offset + length - 1) - skip; data.get(skip + i) == pattern[i]; --i)
+            {
+                if (i == 0)
+                    return (offset + length - skip);
+            }
+
+            skip++;
+        }
+
+        return 0;
+    }
+
+    /**
+     * Search for a possibly partial match of the pattern at the start of the buffer.
+     *
+     * @param data The buffer in which to search for, which may be direct.
+     * @param offset The absolute index within the buffer to start the search
+     * @param length The length of the data to search
+     * @param matched The length of the partial pattern already matched
+     * @return the length of the partial pattern matched and 0 for no match.
+     * @see #startsWith(byte[], int, int, int)
+     */
+    public int startsWith(ByteBuffer data, int offset, int length, int matched)
+    {
+        if (data.hasArray())
+            return startsWith(data.array(), data.arrayOffset() + offset, length, matched);
+
+        validateArgs(data, offset, length);
+
+        int matchedCount = 0;
+        for (int i = 0; i < pattern.length - matched && i < length; i++)
+        {
+            if (data.get(offset + i) == pattern[i + matched])
+                matchedCount++;
+            else
+                return 0;
+        }
+
+        return matched + matchedCount;
+    }
+
     /**
      * Performs legality checks for standard arguments input into SearchPattern methods.
      *
@@ -182,6 +277,16 @@ public class SearchPattern
             throw new IllegalArgumentException("(offset+length) out of bounds of data[]");
     }
 
+    private void validateArgs(ByteBuffer data, int offset, int length)
+    {
+        if (offset < 0)
+            throw new IllegalArgumentException("offset was negative");
+        else if (length < 0)
+            throw new IllegalArgumentException("length was negative");
+        else if (offset + length > data.limit())
+            throw new IllegalArgumentException("(offset+length) out of bounds of data");
+    }
+
     /**
      * @return The length of the pattern in bytes.
      */
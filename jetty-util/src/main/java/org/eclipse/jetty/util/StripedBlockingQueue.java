@@ -0,0 +1,380 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * <p>An unbounded, lock-free {@link BlockingQueue} made of a number of stripes.</p>
+ * <p>Each stripe is a lock-free {@link ConcurrentLinkedQueue}; elements are offered
+ * to the stripe of the offering thread, and polled first from the stripe of the polling
+ * thread and then, if that stripe is empty, stolen from the other stripes.
+ * With a single stripe this class is a plain lock-free multi-producer multi-consumer queue.</p>
+ * <p>Threads that block in {@link #take()} or {@link #poll(long, TimeUnit)} are parked
+ * and woken up in LIFO order, so that the most recently active thread, whose cache is
+ * likely warm, is woken up first.</p>
+ * <p>Ordering is FIFO within each stripe, but not across stripes.
+ * This makes this queue suitable for the jobs of a thread pool, for example as the
+ * {@code queue} parameter of {@link org.eclipse.jetty.util.thread.QueuedThreadPool},
+ * where jobs are independent, but not where a strict global order is required.</p>
+ *
+ * @param <E> The element type
+ */
+public class StripedBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>
+{
+    private final ConcurrentLinkedDeque<Waiter> _waiters = new ConcurrentLinkedDeque<>();
+    private final Stripe<E>[] _stripes;
+
+    /**
+     * Creates a queue with one stripe per available processor.
+     */
+    public StripedBlockingQueue()
+    {
+        this(-1);
+    }
+
+    /**
+     * Creates a queue with the given number of stripes.
+     *
+     * @param stripes the number of stripes, or a negative value for one stripe per available processor
+     */
+    @SuppressWarnings("unchecked")
+    public StripedBlockingQueue(int stripes)
+    {
+        if (stripes == 0)
+            throw new IllegalArgumentException("stripes must be non-zero");
+        if (stripes < 0)
+            stripes = ProcessorUtils.availableProcessors();
+        _stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; ++i)
+        {
+            _stripes[i] = new Stripe<>();
+        }
+    }
+
+    /**
+     * @return the number of stripes of this queue
+     */
+    public int getStripes()
+    {
+        return _stripes.length;
+    }
+
+    private int stripeIndex()
+    {
+        if (_stripes.length == 1)
+            return 0;
+        return (int)(Thread.currentThread().getId() % _stripes.length);
+    }
+
+    @Override
+    public boolean offer(E e)
+    {
+        Objects.requireNonNull(e);
+        Stripe<E> stripe = _stripes[stripeIndex()];
+        stripe._queue.offer(e);
+        stripe._size.incrementAndGet();
+        // The element is published before checking for waiters, and waiters
+        // register themselves before checking for elements, so that a waiter
+        // either finds the element or is found by this method.
+        if (!_waiters.isEmpty())
+            signal();
+        return true;
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit)
+    {
+        return offer(e);
+    }
+
+    @Override
+    public void put(E e)
+    {
+        offer(e);
+    }
+
+    @Override
+    public E poll()
+    {
+        int index = stripeIndex();
+        for (int i = 0; i < _stripes.length; ++i)
+        {
+            Stripe<E> stripe = _stripes[(index + i) % _stripes.length];
+            E e = stripe._queue.poll();
+            if (e != null)
+            {
+                stripe._size.decrementAndGet();
+                return e;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public E take() throws InterruptedException
+    {
+        return await(-1);
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException
+    {
+        return await(Math.max(0, unit.toNanos(timeout)));
+    }
+
+    private E await(long nanos) throws InterruptedException
+    {
+        long deadline = nanos < 0 ? 0 : System.nanoTime() + nanos;
+        while (true)
+        {
+            E e = poll();
+            if (e != null)
+                return e;
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            long remaining = nanos < 0 ? Long.MAX_VALUE : deadline - System.nanoTime();
+            if (remaining <= 0)
+                return null;
+
+            Waiter waiter = new Waiter(Thread.currentThread());
+            _waiters.offerFirst(waiter);
+            e = poll();
+            if (e == null)
+            {
+                if (nanos < 0)
+                    LockSupport.park(this);
+                else
+                    LockSupport.parkNanos(this, remaining);
+                e = poll();
+            }
+
+            if (waiter.cancel())
+            {
+                // Not signalled: timeout, interrupt or spurious wakeup, which are
+                // rare, so the waiter is removed now; otherwise it is left in the
+                // deque and discarded by the next signal.
+                if (e == null)
+                    _waiters.removeFirstOccurrence(waiter);
+            }
+            else if (e != null)
+            {
+                // Signalled, but an element was polled anyway,
+                // so pass the signal to another waiter.
+                signal();
+            }
+
+            if (e != null)
+                return e;
+        }
+    }
+
+    private void signal()
+    {
+        while (true)
+        {
+            Waiter waiter = _waiters.pollFirst();
+            if (waiter == null)
+                return;
+            if (waiter.signal())
+            {
+                LockSupport.unpark(waiter._thread);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public E peek()
+    {
+        int index = stripeIndex();
+        for (int i = 0; i < _stripes.length; ++i)
+        {
+            E e = _stripes[(index + i) % _stripes.length]._queue.peek();
+            if (e != null)
+                return e;
+        }
+        return null;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        for (Stripe<E> stripe : _stripes)
+        {
+            if (!stripe._queue.isEmpty())
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int size()
+    {
+        long size = 0;
+        for (Stripe<E> stripe : _stripes)
+        {
+            size += stripe._size.get();
+        }
+        return (int)Math.max(0, Math.min(Integer.MAX_VALUE, size));
+    }
+
+    @Override
+    public int remainingCapacity()
+    {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public boolean remove(Object o)
+    {
+        if (o == null)
+            return false;
+        for (Stripe<E> stripe : _stripes)
+        {
+            if (stripe._queue.remove(o))
+            {
+                stripe._size.decrementAndGet();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c)
+    {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements)
+    {
+        Objects.requireNonNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        int drained = 0;
+        while (drained < maxElements)
+        {
+            E e = poll();
+            if (e == null)
+                break;
+            c.add(e);
+            ++drained;
+        }
+        return drained;
+    }
+
+    /**
+     * @return a weakly consistent iterator over the elements of all the stripes
+     */
+    @Override
+    public Iterator<E> iterator()
+    {
+        return new Iterator<E>()
+        {
+            private int _index;
+            private Iterator<E> _iterator = _stripes[0]._queue.iterator();
+            private Iterator<E> _last;
+            private int _lastIndex;
+
+            @Override
+            public boolean hasNext()
+            {
+                while (!_iterator.hasNext())
+                {
+                    if (++_index == _stripes.length)
+                        return false;
+                    _iterator = _stripes[_index]._queue.iterator();
+                }
+                return true;
+            }
+
+            @Override
+            public E next()
+            {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                _last = _iterator;
+                _lastIndex = _index;
+                return _iterator.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                if (_last == null)
+                    throw new IllegalStateException();
+                _last.remove();
+                _stripes[_lastIndex]._size.decrementAndGet();
+                _last = null;
+            }
+        };
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{stripes=%d,size=%d}", getClass().getSimpleName(), hashCode(), _stripes.length, size());
+    }
+
+    private static class Stripe<E>
+    {
+        private final Queue<E> _queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger _size = new AtomicInteger();
+    }
+
+    private static class Waiter
+    {
+        private static final AtomicIntegerFieldUpdater<Waiter> STATE = AtomicIntegerFieldUpdater.newUpdater(Waiter.class, "_state");
+        private static final int WAITING = 0;
+        private static final int SIGNALLED = 1;
+        private static final int CANCELLED = 2;
+
+        private final Thread _thread;
+        private volatile int _state;
+
+        private Waiter(Thread thread)
+        {
+            _thread = thread;
+        }
+
+        private boolean signal()
+        {
+            return STATE.compareAndSet(this, WAITING, SIGNALLED);
+        }
+
+        private boolean cancel()
+        {
+            return STATE.compareAndSet(this, WAITING, CANCELLED);
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.StringWriter;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
@@ -701,6 +702,162 @@ public class UrlEncoded extends MultiMap<String> implements Cloneable
         }
     }
 
+    /**
+     * <p>A push decoder of {@code x-www-form-urlencoded} content.</p>
+     * <p>The content is passed to {@link #decode(ByteBuffer)} as it arrives, possibly split
+     * in many buffers and from asynchronous reads, so that the whole form never needs to be
+     * aggregated: only the bytes of the key or value being decoded are retained.
+     * The last parameter is added by {@link #complete()}, at the end of the content.</p>
+     * <p>Only charsets that encode the {@code &=+%} delimiters as single bytes are supported,
+     * which excludes UTF-16.</p>
+     */
+    public static class Decoder
+    {
+        private final MultiMap<String> _map;
+        private final Charset _charset;
+        private final Utf8StringBuilder _utf8;
+        private final ByteArrayOutputStream2 _bytes;
+        private final int _maxLength;
+        private final int _maxKeys;
+        private String _key;
+        private int _length;
+        private int _escape;
+        private char _hi;
+
+        /**
+         * @param map the MultiMap to decode into
+         * @param charset the charset to use for decoding, or null for the default charset
+         * @param maxLength the maximum length of the form to decode or -1 for no limit
+         * @param maxKeys the maximum number of keys to decode or -1 for no limit
+         */
+        public Decoder(MultiMap<String> map, Charset charset, int maxLength, int maxKeys)
+        {
+            if (charset == null)
+                charset = ENCODING;
+            if (StandardCharsets.UTF_16.equals(charset))
+                throw new IllegalArgumentException("Unsupported charset " + charset);
+            _map = map;
+            _charset = charset;
+            boolean utf8 = StandardCharsets.UTF_8.equals(charset);
+            _utf8 = utf8 ? new Utf8StringBuilder() : null;
+            _bytes = utf8 ? null : new ByteArrayOutputStream2();
+            _maxLength = maxLength;
+            _maxKeys = maxKeys;
+        }
+
+        /**
+         * <p>Decodes all the remaining bytes of the given buffer.</p>
+         * <p>Escape and multi-byte sequences may be split across buffers.</p>
+         *
+         * @param buffer the buffer with the next chunk of content
+         * @throws IllegalStateException if the form exceeds the max length or the max keys
+         * @throws IllegalArgumentException if the content has an invalid escape sequence
+         */
+        public void decode(ByteBuffer buffer)
+        {
+            int position = buffer.position();
+            int limit = buffer.limit();
+            _length += limit - position;
+            checkMaxLength(_length, _maxLength);
+
+            for (int i = position; i < limit; ++i)
+            {
+                byte b = buffer.get(i);
+                if (_escape > 0)
+                {
+                    if (_escape == 1)
+                    {
+                        _hi = (char)(b & 0xFF);
+                        _escape = 2;
+                    }
+                    else
+                    {
+                        append(decodeHexByte(_hi, (char)(b & 0xFF)));
+                        _escape = 0;
+                    }
+                    continue;
+                }
+
+                switch (b)
+                {
+                    case '&':
+                        add(take());
+                        break;
+
+                    case '=':
+                        if (_key != null)
+                            append(b);
+                        else
+                            _key = take();
+                        break;
+
+                    case '+':
+                        append((byte)' ');
+                        break;
+
+                    case '%':
+                        _escape = 1;
+                        break;
+
+                    default:
+                        append(b);
+                        break;
+                }
+            }
+            buffer.position(limit);
+        }
+
+        /**
+         * <p>Adds the last parameter, at the end of the content.</p>
+         *
+         * @return the MultiMap decoded into
+         * @throws IllegalArgumentException if the content ends within an escape sequence
+         */
+        public MultiMap<String> complete()
+        {
+            if (_escape > 0)
+                throw new IllegalArgumentException("Not valid encoding '%" + (_escape == 2 ? String.valueOf(_hi) : "") + "'");
+            String value = take();
+            if (_key != null || !value.isEmpty())
+                add(value);
+            return _map;
+        }
+
+        private void add(String value)
+        {
+            if (_key != null)
+                _map.add(_key, value);
+            else if (!value.isEmpty())
+                _map.add(value, "");
+            _key = null;
+            checkMaxKeys(_map, _maxKeys);
+        }
+
+        private void append(byte b)
+        {
+            if (_utf8 != null)
+                _utf8.append(b);
+            else
+                _bytes.write(b);
+        }
+
+        private String take()
+        {
+            String result;
+            if (_utf8 != null)
+            {
+                result = _utf8.toReplacedString();
+                _utf8.reset();
+            }
+            else
+            {
+                result = _bytes.size() == 0 ? "" : _bytes.toString(_charset);
+                _bytes.setCount(0);
+            }
+            return result;
+        }
+    }
+
     private static void checkMaxKeys(MultiMap<String> map, int maxKeys)
     {
         int size = map.size();
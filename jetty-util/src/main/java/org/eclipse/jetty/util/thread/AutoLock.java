@@ -45,6 +45,23 @@ public class AutoLock implements AutoCloseable
         return this;
     }
 
+    /**
+     * <p>Acquires the lock only if it is not held by another thread.</p>
+     * <pre>
+     * try (AutoLock lock = this.lock.tryLock())
+     * {
+     *     if (lock != null)
+     *         // Something
+     * }
+     * </pre>
+     *
+     * @return this AutoLock for unlocking, or null if the lock is held by another thread
+     */
+    public AutoLock tryLock()
+    {
+        return _lock.tryLock() ? this : null;
+    }
+
     /**
      * @return a {@link Condition} associated with this lock
      */
@@ -73,6 +73,7 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
     private int _maxThreads;
     private int _minThreads;
     private int _reservedThreads = -1;
+    private int _minReservedThreads = -1;
     private TryExecutor _tryExecutor = TryExecutor.NO_TRY;
     private int _priority = Thread.NORM_PRIORITY;
     private boolean _daemon = false;
@@ -180,6 +181,8 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         {
             ReservedThreadExecutor reserved = new ReservedThreadExecutor(this, _reservedThreads);
             reserved.setIdleTimeout(_idleTimeout, TimeUnit.MILLISECONDS);
+            if (_minReservedThreads >= 0)
+                reserved.setMinCapacity(_minReservedThreads);
             _tryExecutor = reserved;
         }
         addBean(_tryExecutor);
@@ -369,6 +372,31 @@ public class QueuedThreadPool extends ContainerLifeCycle implements ThreadFactor
         _reservedThreads = reservedThreads;
     }
 
+    /**
+     * <p>Set the min number of reserved threads.</p>
+     * <p>If less than the number of reserved threads, the reserved threads are
+     * sized on demand between the min and the number of reserved threads.</p>
+     *
+     * @param minReservedThreads min number of reserved threads or -1 for a fixed number of reserved threads
+     * @see ReservedThreadExecutor#setMinCapacity(int)
+     */
+    public void setMinReservedThreads(int minReservedThreads)
+    {
+        if (isRunning())
+            throw new IllegalStateException(getState());
+        _minReservedThreads = minReservedThreads;
+    }
+
+    /**
+     * @return the min number of reserved threads or -1 for a fixed number of reserved threads
+     * @see #setMinReservedThreads(int)
+     */
+    @ManagedAttribute("the min number of reserved threads when sized on demand")
+    public int getMinReservedThreads()
+    {
+        return _minReservedThreads;
+    }
+
     /**
      * @param name Name of this thread pool to use when naming threads.
      */
@@ -18,17 +18,29 @@
 
 package org.eclipse.jetty.util.thread;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.eclipse.jetty.util.ProcessorUtils;
 import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.eclipse.jetty.util.component.DumpableCollection;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -41,11 +53,22 @@ import org.slf4j.LoggerFactory;
  * wrapped {@link Executor} when an execution fails.  If the {@link #setIdleTimeout(long, TimeUnit)}
  * is set to non zero (default 1 minute), then the reserved thread pool will shrink by 1 thread
  * whenever it has been idle for that period.
+ * <p>If the {@link #setMinCapacity(int) min capacity} is less than the capacity, then the
+ * number of threads that are reserved is sized on demand between these bounds:
+ * the hits and misses of {@link #tryExecute(Runnable)} and the time taken to reserve a
+ * new thread after a miss are sampled over windows of calls, and the target number of
+ * reserved threads grows when misses are frequent or slow to recover from, and shrinks
+ * when no miss happened for several windows. The last sizing decisions are reported
+ * by {@link #dump()}.
  */
 @ManagedObject("A pool for reserved threads")
-public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExecutor
+public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExecutor, Dumpable
 {
     private static final Logger LOG = LoggerFactory.getLogger(ReservedThreadExecutor.class);
+    private static final int SIZING_WINDOW = 128;
+    private static final int SIZING_GROW_MISS_PERCENT = 10;
+    private static final int SIZING_SHRINK_WINDOWS = 4;
+    private static final int SIZING_DECISIONS = 16;
     private static final Runnable STOP = new Runnable()
     {
         @Override
@@ -65,6 +88,19 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
     private final ConcurrentLinkedDeque<ReservedThread> _stack;
     private final AtomicInteger _size = new AtomicInteger();
     private final AtomicInteger _pending = new AtomicInteger();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+    private final SampleStatistic _reserveLatency = new SampleStatistic();
+    private final AtomicInteger _windowCalls = new AtomicInteger();
+    private final AtomicInteger _windowMisses = new AtomicInteger();
+    private final AtomicInteger _windowReserves = new AtomicInteger();
+    private final AtomicLong _windowReserveNanos = new AtomicLong();
+    private final AutoLock _sizingLock = new AutoLock();
+    private final Deque<SizingDecision> _decisions = new ArrayDeque<>();
+    private int _quietWindows;
+    private volatile int _minCapacity;
+    private volatile int _targetCapacity;
+    private volatile long _missLatencyThreshold = TimeUnit.MILLISECONDS.toNanos(1);
 
     private ThreadPoolBudget.Lease _lease;
     private long _idleTime = 1L;
@@ -80,6 +116,8 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
     {
         _executor = executor;
         _capacity = reservedThreads(executor, capacity);
+        _minCapacity = _capacity;
+        _targetCapacity = _capacity;
         _stack = new ConcurrentLinkedDeque<>();
         if (LOG.isDebugEnabled())
             LOG.debug("{}", this);
@@ -117,6 +155,87 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
         return _capacity;
     }
 
+    @ManagedAttribute("min number of reserved threads when sized on demand")
+    public int getMinCapacity()
+    {
+        return _minCapacity;
+    }
+
+    /**
+     * <p>Sets the min number of reserved threads.</p>
+     * <p>If less than the {@link #getCapacity() capacity}, the number of reserved threads
+     * is sized on demand between the min capacity and the capacity; otherwise the number
+     * of reserved threads is fixed to the capacity.</p>
+     *
+     * @param minCapacity the min number of reserved threads
+     */
+    public void setMinCapacity(int minCapacity)
+    {
+        int min = Math.max(0, Math.min(_capacity, minCapacity));
+        try (AutoLock l = _sizingLock.lock())
+        {
+            _minCapacity = min;
+            if (_targetCapacity < min)
+                _targetCapacity = min;
+            else if (!isSizing())
+                _targetCapacity = _capacity;
+        }
+    }
+
+    private boolean isSizing()
+    {
+        return _minCapacity < _capacity;
+    }
+
+    @ManagedAttribute(value = "target number of reserved threads", readonly = true)
+    public int getTargetCapacity()
+    {
+        return _targetCapacity;
+    }
+
+    @ManagedAttribute("the time in ns to reserve a thread after a miss, above which the reserve grows")
+    public long getMissLatencyThreshold()
+    {
+        return _missLatencyThreshold;
+    }
+
+    public void setMissLatencyThreshold(long missLatencyThreshold)
+    {
+        _missLatencyThreshold = missLatencyThreshold;
+    }
+
+    @ManagedAttribute(value = "number of tryExecute calls served by a reserved thread", readonly = true)
+    public long getHits()
+    {
+        return _hits.sum();
+    }
+
+    @ManagedAttribute(value = "number of tryExecute calls that found no reserved thread", readonly = true)
+    public long getMisses()
+    {
+        return _misses.sum();
+    }
+
+    @ManagedAttribute(value = "average time in ns to reserve a thread after a miss", readonly = true)
+    public long getAverageReserveLatency()
+    {
+        return (long)_reserveLatency.getMean();
+    }
+
+    @ManagedAttribute(value = "max time in ns to reserve a thread after a miss", readonly = true)
+    public long getMaxReserveLatency()
+    {
+        return _reserveLatency.getMax();
+    }
+
+    @ManagedOperation(value = "resets the statistics", impact = "ACTION")
+    public void resetStatistics()
+    {
+        _hits.reset();
+        _misses.reset();
+        _reserveLatency.reset();
+    }
+
     @ManagedAttribute(value = "available reserved threads", readonly = true)
     public int getAvailable()
     {
@@ -156,6 +275,12 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
     {
         _lease = ThreadPoolBudget.leaseFrom(getExecutor(), this, _capacity);
         _size.set(0);
+        try (AutoLock l = _sizingLock.lock())
+        {
+            _targetCapacity = _minCapacity < _capacity ? _minCapacity : _capacity;
+            _quietWindows = 0;
+            _decisions.clear();
+        }
         super.doStart();
     }
 
@@ -212,21 +337,110 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
         if (thread == null)
         {
             if (task != STOP)
-                startReservedThread();
+            {
+                sample(false);
+                startReservedThread(true);
+            }
             return false;
         }
 
         int size = _size.decrementAndGet();
         if (!thread.offer(task))
+        {
+            sample(false);
             return false;
+        }
 
-        if (size == 0 && task != STOP)
-            startReservedThread();
+        if (task != STOP)
+        {
+            sample(true);
+            if (size == 0)
+                startReservedThread(false);
+        }
 
         return true;
     }
 
-    private void startReservedThread()
+    private void sample(boolean hit)
+    {
+        if (hit)
+            _hits.increment();
+        else
+            _misses.increment();
+
+        if (!isSizing())
+            return;
+
+        if (!hit)
+            _windowMisses.incrementAndGet();
+        int calls = _windowCalls.incrementAndGet();
+        if (calls >= SIZING_WINDOW && _windowCalls.compareAndSet(calls, 0))
+            resize(calls);
+    }
+
+    private void resize(int calls)
+    {
+        int misses = _windowMisses.getAndSet(0);
+        int reserves = _windowReserves.getAndSet(0);
+        long reserveNanos = _windowReserveNanos.getAndSet(0);
+        long reserveLatency = reserves == 0 ? 0 : reserveNanos / reserves;
+        int missPercent = misses * 100 / calls;
+
+        try (AutoLock l = _sizingLock.lock())
+        {
+            int target = _targetCapacity;
+            int newTarget = target;
+            String reason = null;
+            if (missPercent >= SIZING_GROW_MISS_PERCENT || (misses > 0 && reserveLatency >= _missLatencyThreshold))
+            {
+                // Grow quickly, so that bursts find reserved threads.
+                _quietWindows = 0;
+                newTarget = Math.min(_capacity, target + Math.max(1, target / 2));
+                reason = missPercent >= SIZING_GROW_MISS_PERCENT ? "misses" : "latency";
+            }
+            else if (misses == 0)
+            {
+                // Shrink slowly, one thread every few quiet windows.
+                if (++_quietWindows >= SIZING_SHRINK_WINDOWS)
+                {
+                    _quietWindows = 0;
+                    newTarget = Math.max(_minCapacity, target - 1);
+                    reason = "quiet";
+                }
+            }
+            else
+            {
+                _quietWindows = 0;
+            }
+
+            if (newTarget != target)
+            {
+                _targetCapacity = newTarget;
+                SizingDecision decision = new SizingDecision(target, newTarget, reason, missPercent, reserveLatency);
+                if (LOG.isDebugEnabled())
+                    LOG.debug("{} {}", this, decision);
+                if (_decisions.size() == SIZING_DECISIONS)
+                    _decisions.pollFirst();
+                _decisions.offerLast(decision);
+            }
+        }
+    }
+
+    private void reserved(long startNanos)
+    {
+        long latency = System.nanoTime() - startNanos;
+        _reserveLatency.record(latency);
+        if (isSizing())
+        {
+            _windowReserves.incrementAndGet();
+            _windowReserveNanos.addAndGet(latency);
+        }
+    }
+
+    /**
+     * @param miss whether the thread is started because a tryExecute() found no reserved thread
+     */
+    private void startReservedThread(boolean miss)
     {
         try
         {
@@ -235,13 +449,13 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
                 // Not atomic, but there is a re-check in ReservedThread.run().
                 int pending = _pending.get();
                 int size = _size.get();
-                if (pending + size >= _capacity)
+                if (pending + size >= _targetCapacity)
                     return;
                 if (_pending.compareAndSet(pending, pending + 1))
                 {
                     if (LOG.isDebugEnabled())
                         LOG.debug("{} startReservedThread p={}", this, pending + 1);
-                    _executor.execute(new ReservedThread());
+                    _executor.execute(new ReservedThread(miss));
                     return;
                 }
             }
@@ -252,22 +466,79 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
         }
     }
 
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        if (!isSizing())
+        {
+            Dumpable.dumpObject(out, this);
+            return;
+        }
+        List<SizingDecision> decisions;
+        try (AutoLock l = _sizingLock.lock())
+        {
+            decisions = new ArrayList<>(_decisions);
+        }
+        Dumpable.dumpObjects(out, indent, this, new DumpableCollection("sizing", decisions));
+    }
+
     @Override
     public String toString()
     {
-        return String.format("%s@%x{s=%d/%d,p=%d}",
+        return String.format("%s@%x{s=%d/%d,p=%d,t=%d/%d}",
             getClass().getSimpleName(),
             hashCode(),
             _size.get(),
             _capacity,
-            _pending.get());
+            _pending.get(),
+            _targetCapacity,
+            _minCapacity);
+    }
+
+    private static class SizingDecision
+    {
+        private final Instant _time = Instant.now();
+        private final int _from;
+        private final int _to;
+        private final String _reason;
+        private final int _missPercent;
+        private final long _reserveLatency;
+
+        private SizingDecision(int from, int to, String reason, int missPercent, long reserveLatency)
+        {
+            _from = from;
+            _to = to;
+            _reason = reason;
+            _missPercent = missPercent;
+            _reserveLatency = reserveLatency;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s %s %d->%d (%s) misses=%d%% reserveLatency=%dus",
+                _time,
+                _to > _from ? "grow" : "shrink",
+                _from,
+                _to,
+                _reason,
+                _missPercent,
+                TimeUnit.NANOSECONDS.toMicros(_reserveLatency));
+        }
     }
 
     private class ReservedThread implements Runnable
     {
         private final SynchronousQueue<Runnable> _task = new SynchronousQueue<>();
+        private final long _created = System.nanoTime();
+        private final boolean _afterMiss;
         private boolean _starting = true;
 
+        private ReservedThread(boolean afterMiss)
+        {
+            _afterMiss = afterMiss;
+        }
+
         public boolean offer(Runnable task)
         {
             if (LOG.isDebugEnabled())
@@ -336,7 +607,7 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
                     return;
 
                 // Are we surplus to capacity?
-                if (size >= _capacity)
+                if (size >= _targetCapacity)
                 {
                     if (LOG.isDebugEnabled())
                         LOG.debug("{} size {} > capacity", this, size, _capacity);
@@ -355,6 +626,9 @@ public class ReservedThreadExecutor extends AbstractLifeCycle implements TryExec
                         LOG.debug("{} started", this);
                     _pending.decrementAndGet();
                     _starting = false;
+                    // Only a thread started by a miss measures how long the miss lasted.
+                    if (_afterMiss)
+                        reserved(_created);
                 }
 
                 // Insert ourselves in the stack. Size is already incremented, but
@@ -0,0 +1,450 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.jetty.util.StringUtil;
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.AbstractLifeCycle;
+import org.eclipse.jetty.util.component.Dumpable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Implementation of {@link Scheduler} based on a hierarchical timing wheel.</p>
+ * <p>Time is divided in ticks of a configurable duration, and tasks are stored in the
+ * slot of the wheel level that covers their deadline; every time a lower level wraps around,
+ * the tasks of the next slot of the upper level are cascaded down.
+ * Scheduling and cancelling a task are O(1) and do not contend on a lock: new and cancelled
+ * tasks are handed to the scheduler thread via concurrent queues, and only the scheduler
+ * thread modifies the wheel.</p>
+ * <p>Tasks are never run before their delay, but may run up to one tick later, so this
+ * scheduler is best suited to the many timeouts (e.g. idle timeouts) that are typically
+ * cancelled or rescheduled before they expire, rather than to precise timing.
+ * Like {@link ScheduledExecutorScheduler}, tasks are run by the scheduler thread and
+ * must not block.</p>
+ * <p>When no task is scheduled, the scheduler thread parks until a task is scheduled,
+ * so that an idle server does not wake up at every tick.</p>
+ * <p>It can be used wherever a {@link Scheduler} is configured, for example by
+ * adding it as a bean of the {@code Server} or passing it to {@code HttpClient.setScheduler(Scheduler)}.</p>
+ */
+@ManagedObject
+public class TimingWheelScheduler extends AbstractLifeCycle implements Scheduler, Dumpable
+{
+    private static final Logger LOG = LoggerFactory.getLogger(TimingWheelScheduler.class);
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long MAX_TICKS = 1L << (SLOT_BITS * LEVELS);
+
+    private final Queue<WheelTask> _pending = new ConcurrentLinkedQueue<>();
+    private final Queue<WheelTask> _cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean _idle = new AtomicBoolean();
+    private final LongAdder _scheduledCount = new LongAdder();
+    private final LongAdder _cancelledCount = new LongAdder();
+    private final LongAdder _expiredCount = new LongAdder();
+    private final String _name;
+    private final boolean _daemon;
+    private final ClassLoader _classLoader;
+    private final ThreadGroup _threadGroup;
+    private final long _tickNanos;
+    private volatile Thread _thread;
+    private volatile int _size;
+    private Slot[][] _wheel;
+    private long _startNanos;
+    private long _tick;
+
+    public TimingWheelScheduler()
+    {
+        this(null, false);
+    }
+
+    public TimingWheelScheduler(String name, boolean daemon)
+    {
+        this(name, daemon, -1);
+    }
+
+    public TimingWheelScheduler(@Name("name") String name, @Name("daemon") boolean daemon, @Name("tickMillis") long tickMillis)
+    {
+        this(name, daemon, null, null, tickMillis);
+    }
+
+    /**
+     * @param name The name of the scheduler thread or null for automatic name
+     * @param daemon True if the scheduler thread should be daemon
+     * @param classLoader The classloader to run the thread with or null to use the current thread context classloader
+     * @param threadGroup The threadgroup to use or null for no thread group
+     * @param tickMillis The duration of a tick in milliseconds, or -1 for 10 ms
+     */
+    public TimingWheelScheduler(@Name("name") String name, @Name("daemon") boolean daemon, @Name("classLoader") ClassLoader classLoader, @Name("threadGroup") ThreadGroup threadGroup, @Name("tickMillis") long tickMillis)
+    {
+        _name = StringUtil.isBlank(name) ? "Scheduler-" + hashCode() : name;
+        _daemon = daemon;
+        _classLoader = classLoader == null ? Thread.currentThread().getContextClassLoader() : classLoader;
+        _threadGroup = threadGroup;
+        _tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis > 0 ? tickMillis : 10);
+    }
+
+    @ManagedAttribute("The duration of a tick in milliseconds")
+    public long getTickMillis()
+    {
+        return TimeUnit.NANOSECONDS.toMillis(_tickNanos);
+    }
+
+    @ManagedAttribute("The number of tasks in the wheel")
+    public int getSize()
+    {
+        return _size;
+    }
+
+    @ManagedAttribute("The number of tasks scheduled")
+    public long getScheduledCount()
+    {
+        return _scheduledCount.sum();
+    }
+
+    @ManagedAttribute("The number of tasks cancelled before expiring")
+    public long getCancelledCount()
+    {
+        return _cancelledCount.sum();
+    }
+
+    @ManagedAttribute("The number of tasks expired")
+    public long getExpiredCount()
+    {
+        return _expiredCount.sum();
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        _wheel = new Slot[LEVELS][SLOTS];
+        for (Slot[] level : _wheel)
+        {
+            for (int i = 0; i < SLOTS; ++i)
+            {
+                level[i] = new Slot();
+            }
+        }
+        _startNanos = System.nanoTime();
+        _tick = 0;
+        _size = 0;
+        Thread thread = new Thread(_threadGroup, this::run, _name);
+        thread.setDaemon(_daemon);
+        thread.setContextClassLoader(_classLoader);
+        _thread = thread;
+        thread.start();
+        super.doStart();
+    }
+
+    @Override
+    protected void doStop() throws Exception
+    {
+        Thread thread = _thread;
+        _thread = null;
+        if (thread != null)
+        {
+            LockSupport.unpark(thread);
+            if (thread != Thread.currentThread())
+                thread.join();
+        }
+        super.doStop();
+    }
+
+    @Override
+    public Task schedule(Runnable task, long delay, TimeUnit unit)
+    {
+        Thread thread = _thread;
+        if (thread == null)
+            return () -> false;
+        WheelTask wheelTask = new WheelTask(task, System.nanoTime() + unit.toNanos(delay));
+        _scheduledCount.increment();
+        _pending.offer(wheelTask);
+        if (_idle.get() && _idle.compareAndSet(true, false))
+            LockSupport.unpark(thread);
+        return wheelTask;
+    }
+
+    private void run()
+    {
+        Thread thread = Thread.currentThread();
+        try
+        {
+            while (_thread == thread)
+            {
+                if (_size == 0 && _pending.isEmpty())
+                {
+                    // No task is in the wheel, so cancelled tasks have nothing to unlink.
+                    _cancelled.clear();
+                    _idle.set(true);
+                    if (_pending.isEmpty())
+                        LockSupport.park(this);
+                    _idle.set(false);
+                    // The wheel is empty, so it can be moved to the current time.
+                    _tick = Math.max(_tick, (System.nanoTime() - _startNanos) / _tickNanos);
+                    continue;
+                }
+
+                long tick = _tick + 1;
+                long wait = _startNanos + tick * _tickNanos - System.nanoTime();
+                if (wait > 0)
+                {
+                    LockSupport.parkNanos(this, wait);
+                    continue;
+                }
+
+                _tick = tick;
+                processTick(tick);
+            }
+        }
+        finally
+        {
+            clear();
+        }
+    }
+
+    private void processTick(long tick)
+    {
+        while (true)
+        {
+            WheelTask task = _pending.poll();
+            if (task == null)
+                break;
+            if (task.isWaiting())
+                insert(task, tick);
+        }
+
+        while (true)
+        {
+            WheelTask task = _cancelled.poll();
+            if (task == null)
+                break;
+            unlink(task);
+        }
+
+        // Cascade the upper levels when the lower levels wrap around.
+        for (int level = 1; level < LEVELS; ++level)
+        {
+            int shift = SLOT_BITS * level;
+            if ((tick & ((1L << shift) - 1)) != 0)
+                break;
+            Slot slot = _wheel[level][(int)((tick >>> shift) & SLOT_MASK)];
+            WheelTask task = slot.poll();
+            while (task != null)
+            {
+                --_size;
+                insert(task, tick);
+                task = slot.poll();
+            }
+        }
+
+        Slot slot = _wheel[0][(int)(tick & SLOT_MASK)];
+        WheelTask task = slot._next;
+        while (task != null)
+        {
+            WheelTask next = task._next;
+            if (task._deadline <= tick)
+            {
+                unlink(task);
+                task.expire();
+            }
+            task = next;
+        }
+    }
+
+    private void insert(WheelTask task, long tick)
+    {
+        long nanos = task._deadlineNanos - _startNanos;
+        long deadline = Math.max(tick, nanos <= 0 ? 0 : (nanos - 1) / _tickNanos + 1);
+        task._deadline = deadline;
+        long ticks = Math.min(deadline - tick, MAX_TICKS - 1);
+        int level = 0;
+        while (level < LEVELS - 1 && ticks >= 1L << (SLOT_BITS * (level + 1)))
+        {
+            ++level;
+        }
+        long position = tick + ticks;
+        _wheel[level][(int)((position >>> (SLOT_BITS * level)) & SLOT_MASK)].add(task);
+        ++_size;
+    }
+
+    private void unlink(WheelTask task)
+    {
+        if (task._slot != null)
+        {
+            task._slot.remove(task);
+            --_size;
+        }
+    }
+
+    private void clear()
+    {
+        _pending.clear();
+        _cancelled.clear();
+        for (Slot[] level : _wheel)
+        {
+            for (Slot slot : level)
+            {
+                while (slot.poll() != null)
+                {
+                    --_size;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String dump()
+    {
+        return Dumpable.dump(this);
+    }
+
+    @Override
+    public void dump(Appendable out, String indent) throws IOException
+    {
+        Thread thread = _thread;
+        if (thread == null)
+            Dumpable.dumpObject(out, this);
+        else
+            Dumpable.dumpObjects(out, indent, this, (Object[])thread.getStackTrace());
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,tick=%dms,size=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getState(),
+            getTickMillis(),
+            getSize());
+    }
+
+    private static class Slot
+    {
+        private WheelTask _next;
+
+        private void add(WheelTask task)
+        {
+            task._slot = this;
+            task._prev = null;
+            task._next = _next;
+            if (_next != null)
+                _next._prev = task;
+            _next = task;
+        }
+
+        private void remove(WheelTask task)
+        {
+            if (task._prev == null)
+                _next = task._next;
+            else
+                task._prev._next = task._next;
+            if (task._next != null)
+                task._next._prev = task._prev;
+            task._slot = null;
+            task._prev = null;
+            task._next = null;
+        }
+
+        private WheelTask poll()
+        {
+            WheelTask task = _next;
+            if (task != null)
+                remove(task);
+            return task;
+        }
+    }
+
+    private class WheelTask implements Task
+    {
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable _task;
+        private final long _deadlineNanos;
+        // Not private, so that STATE can update it.
+        volatile int _state;
+        // Fields below are only accessed by the scheduler thread.
+        private long _deadline;
+        private Slot _slot;
+        private WheelTask _prev;
+        private WheelTask _next;
+
+        private WheelTask(Runnable task, long deadlineNanos)
+        {
+            _task = task;
+            _deadlineNanos = deadlineNanos;
+        }
+
+        private boolean isWaiting()
+        {
+            return _state == WAITING;
+        }
+
+        @Override
+        public boolean cancel()
+        {
+            if (!STATE.compareAndSet(this, WAITING, CANCELLED))
+                return false;
+            _cancelledCount.increment();
+            _cancelled.offer(this);
+            return true;
+        }
+
+        private void expire()
+        {
+            if (!STATE.compareAndSet(this, WAITING, EXPIRED))
+                return;
+            _expiredCount.increment();
+            try
+            {
+                _task.run();
+            }
+            catch (Throwable x)
+            {
+                LOG.warn("Exception while executing task {}", _task, x);
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("%s.%s@%x{%s}",
+                TimingWheelScheduler.class.getSimpleName(),
+                WheelTask.class.getSimpleName(),
+                hashCode(),
+                _task);
+        }
+    }
+
+    private static final AtomicIntegerFieldUpdater<WheelTask> STATE = AtomicIntegerFieldUpdater.newUpdater(WheelTask.class, "_state");
+}
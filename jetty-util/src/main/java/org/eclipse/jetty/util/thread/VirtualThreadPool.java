@@ -0,0 +1,220 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.Name;
+import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>A {@link ThreadPool} that runs blocking application tasks on virtual threads,
+ * while the selector, acceptor and producer work runs on a pool of platform threads.</p>
+ * <p>{@link #execute(Runnable)} and {@link #tryExecute(Runnable)} are delegated to the platform
+ * thread pool, so that selectors and acceptors, the {@link ThreadPoolBudget} and the reserved threads
+ * of the platform thread pool are unchanged.
+ * Blocking tasks produced by an {@link ExecutionStrategy} such as
+ * {@link org.eclipse.jetty.util.thread.strategy.EatWhatYouKill} are instead run on virtual threads
+ * obtained via {@link #getVirtualThreadsExecutor()}, so the platform thread pool does not need to be
+ * sized for the peak blocking concurrency of the application.</p>
+ * <p>If virtual threads are not supported by the JDK, all tasks run on the platform thread pool.</p>
+ */
+@ManagedObject("A thread pool that runs blocking tasks on virtual threads")
+public class VirtualThreadPool extends ContainerLifeCycle implements ThreadPool.SizedThreadPool, TryExecutor, VirtualThreads.Provider
+{
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreadPool.class);
+
+    private final LongAdder _virtualTasks = new LongAdder();
+    private final AtomicInteger _activeVirtualTasks = new AtomicInteger();
+    private final SizedThreadPool _platformThreadPool;
+    private final Executor _virtualExecutor;
+    private final Executor _countingVirtualExecutor;
+
+    public VirtualThreadPool()
+    {
+        this(new QueuedThreadPool());
+    }
+
+    public VirtualThreadPool(@Name("platformThreadPool") SizedThreadPool platformThreadPool)
+    {
+        this(platformThreadPool, VirtualThreads.getDefaultVirtualThreadsExecutor());
+    }
+
+    /**
+     * @param platformThreadPool the thread pool of platform threads
+     * @param virtualExecutor the executor that runs tasks on virtual threads, or null to run all tasks on platform threads
+     */
+    public VirtualThreadPool(@Name("platformThreadPool") SizedThreadPool platformThreadPool, @Name("virtualExecutor") Executor virtualExecutor)
+    {
+        _platformThreadPool = platformThreadPool;
+        _virtualExecutor = virtualExecutor;
+        _countingVirtualExecutor = virtualExecutor == null ? null : this::executeVirtual;
+        addBean(platformThreadPool);
+    }
+
+    @Override
+    protected void doStart() throws Exception
+    {
+        if (_virtualExecutor == null)
+            LOG.warn("Virtual threads are not supported, running all tasks on platform threads in {}", _platformThreadPool);
+        super.doStart();
+    }
+
+    /**
+     * @return the thread pool of platform threads
+     */
+    @ManagedAttribute("The thread pool of platform threads")
+    public SizedThreadPool getPlatformThreadPool()
+    {
+        return _platformThreadPool;
+    }
+
+    @ManagedAttribute("Whether tasks are run on virtual threads")
+    public boolean isUseVirtualThreads()
+    {
+        return _virtualExecutor != null;
+    }
+
+    @ManagedAttribute("The number of tasks run on virtual threads")
+    public long getVirtualThreadTasks()
+    {
+        return _virtualTasks.sum();
+    }
+
+    @ManagedAttribute("The number of tasks running on virtual threads")
+    public int getActiveVirtualThreadTasks()
+    {
+        return _activeVirtualTasks.get();
+    }
+
+    @Override
+    public Executor getVirtualThreadsExecutor()
+    {
+        return _countingVirtualExecutor;
+    }
+
+    private void executeVirtual(Runnable task)
+    {
+        _virtualTasks.increment();
+        _activeVirtualTasks.incrementAndGet();
+        try
+        {
+            _virtualExecutor.execute(() ->
+            {
+                try
+                {
+                    task.run();
+                }
+                finally
+                {
+                    _activeVirtualTasks.decrementAndGet();
+                }
+            });
+        }
+        catch (Throwable x)
+        {
+            _activeVirtualTasks.decrementAndGet();
+            throw x;
+        }
+    }
+
+    @Override
+    public void execute(Runnable task)
+    {
+        _platformThreadPool.execute(task);
+    }
+
+    @Override
+    public boolean tryExecute(Runnable task)
+    {
+        return _platformThreadPool instanceof TryExecutor && ((TryExecutor)_platformThreadPool).tryExecute(task);
+    }
+
+    @Override
+    public void join() throws InterruptedException
+    {
+        _platformThreadPool.join();
+    }
+
+    @Override
+    public int getThreads()
+    {
+        return _platformThreadPool.getThreads();
+    }
+
+    @Override
+    public int getIdleThreads()
+    {
+        return _platformThreadPool.getIdleThreads();
+    }
+
+    @Override
+    public boolean isLowOnThreads()
+    {
+        return _platformThreadPool.isLowOnThreads();
+    }
+
+    @Override
+    public int getMinThreads()
+    {
+        return _platformThreadPool.getMinThreads();
+    }
+
+    @Override
+    public int getMaxThreads()
+    {
+        return _platformThreadPool.getMaxThreads();
+    }
+
+    @Override
+    public void setMinThreads(int threads)
+    {
+        _platformThreadPool.setMinThreads(threads);
+    }
+
+    @Override
+    public void setMaxThreads(int threads)
+    {
+        _platformThreadPool.setMaxThreads(threads);
+    }
+
+    @Override
+    public ThreadPoolBudget getThreadPoolBudget()
+    {
+        return _platformThreadPool.getThreadPoolBudget();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s@%x{%s,virtual=%b,tasks=%d,active=%d}",
+            getClass().getSimpleName(),
+            hashCode(),
+            getState(),
+            isUseVirtualThreads(),
+            getVirtualThreadTasks(),
+            getActiveVirtualThreadTasks());
+    }
+}
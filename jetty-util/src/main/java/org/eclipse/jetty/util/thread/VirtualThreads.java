@@ -0,0 +1,132 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Utility methods for virtual threads.</p>
+ * <p>Virtual threads are only available in recent JDKs, so they are looked up via reflection:
+ * on JDKs that do not support them, {@link #areSupported()} returns {@code false}
+ * and {@link #getDefaultVirtualThreadsExecutor()} returns {@code null}.</p>
+ */
+public class VirtualThreads
+{
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualThreads.class);
+    private static final Executor executor = probeVirtualThreadsExecutor();
+    private static final Method isVirtual = probeIsVirtual();
+
+    private static Executor probeVirtualThreadsExecutor()
+    {
+        try
+        {
+            return (Executor)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        }
+        catch (Throwable x)
+        {
+            if (LOG.isDebugEnabled())
+                LOG.debug("Virtual threads are not supported", x);
+            return null;
+        }
+    }
+
+    private static Method probeIsVirtual()
+    {
+        try
+        {
+            return Thread.class.getMethod("isVirtual");
+        }
+        catch (Throwable x)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return whether the JDK supports virtual threads
+     */
+    public static boolean areSupported()
+    {
+        return executor != null;
+    }
+
+    /**
+     * @return an {@link Executor} that runs each task in a new virtual thread,
+     * or {@code null} if virtual threads are not supported
+     */
+    public static Executor getDefaultVirtualThreadsExecutor()
+    {
+        return executor;
+    }
+
+    /**
+     * @return whether the current thread is a virtual thread
+     */
+    public static boolean isVirtualThread()
+    {
+        if (isVirtual == null)
+            return false;
+        try
+        {
+            return (Boolean)isVirtual.invoke(Thread.currentThread());
+        }
+        catch (Throwable x)
+        {
+            LOG.trace("IGNORED", x);
+            return false;
+        }
+    }
+
+    /**
+     * @param executor the executor to inspect
+     * @return the {@link Executor} to run blocking tasks on virtual threads provided by
+     * the given executor, or {@code null} if the given executor does not provide one
+     * @see Provider
+     */
+    public static Executor getVirtualThreadsExecutor(Executor executor)
+    {
+        if (executor instanceof Provider)
+            return ((Provider)executor).getVirtualThreadsExecutor();
+        return null;
+    }
+
+    private VirtualThreads()
+    {
+    }
+
+    /**
+     * <p>Implemented by {@link Executor}s that can run blocking tasks on virtual threads.</p>
+     * <p>{@link ExecutionStrategy} implementations use the virtual threads executor to run
+     * blocking tasks, while they keep using the {@link Executor} itself, and its
+     * {@link TryExecutor} reserved threads, for producing tasks.</p>
+     */
+    public interface Provider
+    {
+        /**
+         * @return the {@link Executor} to run blocking tasks on virtual threads,
+         * or {@code null} if virtual threads are not used
+         */
+        Executor getVirtualThreadsExecutor();
+    }
+}
@@ -0,0 +1,219 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread.strategy;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.eclipse.jetty.util.annotation.ManagedAttribute;
+import org.eclipse.jetty.util.annotation.ManagedObject;
+import org.eclipse.jetty.util.annotation.ManagedOperation;
+import org.eclipse.jetty.util.thread.Invocable;
+
+/**
+ * <p>An {@link EatWhatYouKill} strategy that also takes into account the observed
+ * task run times and executor queue delays when choosing a sub-strategy.</p>
+ * <p>{@link EatWhatYouKill} uses a reserved thread for EPC whenever one is available.
+ * This strategy keeps a moving average of the run time of tasks per invocation type
+ * and of the time tasks executed with PEC wait for a thread, and declines to use a
+ * reserved thread when it is not worth it:</p>
+ * <ul>
+ * <li>{@link Invocable.InvocationType#EITHER EITHER} tasks that run faster than
+ * {@link #getInvokeThreshold() the invoke threshold} are invoked directly with PIC,
+ * since handing production over to another thread costs more than running the task;</li>
+ * <li>{@link Invocable.InvocationType#BLOCKING BLOCKING} tasks that run slower than
+ * {@link #getExecuteThreshold() the execute threshold} are executed with PEC when the
+ * executor queue delay is below {@link #getQueueDelayThreshold() the queue delay threshold},
+ * since a long task does not benefit from running on the producing thread and the reserved
+ * thread is better kept for short tasks.</li>
+ * </ul>
+ * <p>Until enough samples have been observed, this strategy behaves like {@link EatWhatYouKill}.
+ * {@link #setTaskTimingEnabled(boolean) Task timing} is enabled by default for this strategy.</p>
+ */
+@ManagedObject("adaptive execution strategy")
+public class AdaptiveExecutionStrategy extends EatWhatYouKill
+{
+    private static final int MIN_SAMPLES = 16;
+
+    private final LongAdder _declinedReservedThreads = new LongAdder();
+    // The moving averages are updated without synchronization by the threads that
+    // run the tasks: lost updates only make the averages slightly less accurate.
+    private final Average _eitherRunTime = new Average();
+    private final Average _blockingRunTime = new Average();
+    private final Average _queueDelay = new Average();
+    private volatile long _invokeThreshold = TimeUnit.MICROSECONDS.toNanos(20);
+    private volatile long _executeThreshold = TimeUnit.MILLISECONDS.toNanos(1);
+    private volatile long _queueDelayThreshold = TimeUnit.MICROSECONDS.toNanos(100);
+
+    public AdaptiveExecutionStrategy(Producer producer, Executor executor)
+    {
+        super(producer, executor);
+        // The sub-strategy choice depends on the measured task run times.
+        setTaskTimingEnabled(true);
+    }
+
+    @Override
+    protected boolean useReservedThread(Invocable.InvocationType invocationType)
+    {
+        boolean decline;
+        switch (invocationType)
+        {
+            case EITHER:
+                decline = _eitherRunTime.isBelow(_invokeThreshold);
+                break;
+            case BLOCKING:
+                decline = _blockingRunTime.isAbove(_executeThreshold) && _queueDelay.isBelow(_queueDelayThreshold);
+                break;
+            default:
+                decline = false;
+                break;
+        }
+        if (decline)
+            _declinedReservedThreads.increment();
+        return !decline;
+    }
+
+    @Override
+    protected void onTaskCompleted(Mode mode, Invocable.InvocationType invocationType, long queueNanos, long runNanos)
+    {
+        switch (invocationType)
+        {
+            case EITHER:
+                _eitherRunTime.record(runNanos);
+                break;
+            case BLOCKING:
+                _blockingRunTime.record(runNanos);
+                break;
+            default:
+                break;
+        }
+        if (mode == Mode.PRODUCE_EXECUTE_CONSUME)
+            _queueDelay.record(queueNanos);
+    }
+
+    @ManagedAttribute("the run time in nanoseconds below which EITHER tasks are invoked rather than consumed by a reserved thread")
+    public long getInvokeThreshold()
+    {
+        return _invokeThreshold;
+    }
+
+    public void setInvokeThreshold(long invokeThreshold)
+    {
+        _invokeThreshold = invokeThreshold;
+    }
+
+    @ManagedAttribute("the run time in nanoseconds above which BLOCKING tasks are executed rather than consumed by a reserved thread")
+    public long getExecuteThreshold()
+    {
+        return _executeThreshold;
+    }
+
+    public void setExecuteThreshold(long executeThreshold)
+    {
+        _executeThreshold = executeThreshold;
+    }
+
+    @ManagedAttribute("the executor queue delay in nanoseconds above which BLOCKING tasks are not executed")
+    public long getQueueDelayThreshold()
+    {
+        return _queueDelayThreshold;
+    }
+
+    public void setQueueDelayThreshold(long queueDelayThreshold)
+    {
+        _queueDelayThreshold = queueDelayThreshold;
+    }
+
+    @ManagedAttribute(value = "moving average of the run time of EITHER tasks, in nanoseconds", readonly = true)
+    public long getEitherTaskRunTime()
+    {
+        return _eitherRunTime.get();
+    }
+
+    @ManagedAttribute(value = "moving average of the run time of BLOCKING tasks, in nanoseconds", readonly = true)
+    public long getBlockingTaskRunTime()
+    {
+        return _blockingRunTime.get();
+    }
+
+    @ManagedAttribute(value = "moving average of the executor queue delay of tasks executed with PEC, in nanoseconds", readonly = true)
+    public long getQueueDelay()
+    {
+        return _queueDelay.get();
+    }
+
+    @ManagedAttribute(value = "number of times a reserved thread was available but not used", readonly = true)
+    public long getDeclinedReservedThreads()
+    {
+        return _declinedReservedThreads.longValue();
+    }
+
+    @ManagedOperation(value = "resets the task counts and times", impact = "ACTION")
+    @Override
+    public void reset()
+    {
+        super.reset();
+        _declinedReservedThreads.reset();
+        _eitherRunTime.reset();
+        _blockingRunTime.reset();
+        _queueDelay.reset();
+    }
+
+    /**
+     * <p>An exponentially weighted moving average with a weight of 1/8 for new samples.</p>
+     */
+    private static class Average
+    {
+        private volatile long _average;
+        private volatile int _samples;
+
+        private void record(long sample)
+        {
+            int samples = _samples;
+            if (samples == 0)
+                _average = sample;
+            else
+                _average += (sample - _average) >> 3;
+            if (samples < MIN_SAMPLES)
+                _samples = samples + 1;
+        }
+
+        private boolean isBelow(long threshold)
+        {
+            return _samples >= MIN_SAMPLES && _average < threshold;
+        }
+
+        private boolean isAbove(long threshold)
+        {
+            return _samples >= MIN_SAMPLES && _average > threshold;
+        }
+
+        private long get()
+        {
+            return _average;
+        }
+
+        private void reset()
+        {
+            _samples = 0;
+            _average = 0;
+        }
+    }
+}
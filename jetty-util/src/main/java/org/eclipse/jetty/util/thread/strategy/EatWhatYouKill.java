@@ -19,6 +19,7 @@
 package org.eclipse.jetty.util.thread.strategy;
 
 import java.io.Closeable;
+import java.io.IOException;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.concurrent.Executor;
@@ -29,9 +30,11 @@ import org.eclipse.jetty.util.annotation.ManagedAttribute;
 import org.eclipse.jetty.util.annotation.ManagedObject;
 import org.eclipse.jetty.util.annotation.ManagedOperation;
 import org.eclipse.jetty.util.component.ContainerLifeCycle;
+import org.eclipse.jetty.util.statistic.SampleStatistic;
 import org.eclipse.jetty.util.thread.ExecutionStrategy;
 import org.eclipse.jetty.util.thread.Invocable;
 import org.eclipse.jetty.util.thread.TryExecutor;
+import org.eclipse.jetty.util.thread.VirtualThreads;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +55,14 @@ import org.slf4j.LoggerFactory;
  * indicated it is non-blocking, then this strategy will dispatch the execution of
  * the task and immediately continue production. When operating in this pattern, the
  * sub-strategy is called ProduceExecuteConsume (PEC).</p>
+ * <p>If the executor provides virtual threads (see {@link VirtualThreads.Provider}), then
+ * blocking tasks are always executed on a virtual thread with the PEC sub-strategy, so that
+ * the availability of virtual threads is not mistaken for reserved thread capacity,
+ * and the producing thread keeps producing.</p>
+ * <p>The number of tasks is recorded per sub-strategy.
+ * When {@link #setTaskTimingEnabled(boolean) task timing} is enabled, the time spent running
+ * the tasks is also recorded per sub-strategy, along with the queue delay of tasks executed
+ * with PEC and the number of times the sub-strategy changes from one task to the next.</p>
  */
 @ManagedObject("eat what you kill execution strategy")
 public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrategy, Runnable
@@ -63,8 +74,10 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         IDLE, PRODUCING, REPRODUCING
     }
 
-    /* The modes this strategy can work in */
-    private enum Mode
+    /**
+     * The modes this strategy can work in
+     */
+    protected enum Mode
     {
         PRODUCE_CONSUME,
         PRODUCE_INVOKE_CONSUME, // This is PRODUCE_CONSUME an EITHER task with NON_BLOCKING invocation
@@ -76,17 +89,28 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
     private final LongAdder _picMode = new LongAdder();
     private final LongAdder _pecMode = new LongAdder();
     private final LongAdder _epcMode = new LongAdder();
+    private final SampleStatistic[] _taskTimes = new SampleStatistic[Mode.values().length];
+    private final SampleStatistic _pecQueueDelay = new SampleStatistic();
+    private final LongAdder _modeSwitches = new LongAdder();
     private final Producer _producer;
     private final Executor _executor;
     private final TryExecutor _tryExecutor;
+    private final Executor _virtualExecutor;
     private State _state = State.IDLE;
     private boolean _pending;
+    private volatile boolean _taskTimingEnabled;
+    private volatile Mode _lastMode;
 
     public EatWhatYouKill(Producer producer, Executor executor)
     {
+        for (int i = 0; i < _taskTimes.length; ++i)
+        {
+            _taskTimes[i] = new SampleStatistic();
+        }
         _producer = producer;
         _executor = executor;
         _tryExecutor = TryExecutor.asTryExecutor(executor);
+        _virtualExecutor = VirtualThreads.getVirtualThreadsExecutor(executor);
         addBean(_producer);
         addBean(_tryExecutor);
         if (LOG.isDebugEnabled())
@@ -204,12 +228,13 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
             }
         }
 
+        Invocable.InvocationType taskType = Invocable.getInvocationType(task);
         Mode mode;
         if (nonBlocking)
         {
             // The calling thread cannot block, so we only have a choice between PC and PEC modes,
             // based on the invocation type of the task
-            switch (Invocable.getInvocationType(task))
+            switch (taskType)
             {
                 case NON_BLOCKING:
                     mode = Mode.PRODUCE_CONSUME;
@@ -228,7 +253,7 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         {
             // The calling thread can block, so we can choose between PC, PEC and EPC modes,
             // based on the invocation type of the task and if a reserved thread is available
-            switch (Invocable.getInvocationType(task))
+            switch (taskType)
             {
                 case NON_BLOCKING:
                     mode = Mode.PRODUCE_CONSUME;
@@ -237,6 +262,12 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                 case BLOCKING:
                     // The task is blocking, so PC is not an option. Thus we choose
                     // between EPC and PEC based on the availability of a reserved thread.
+                    // With virtual threads, PEC is always possible without consuming a reserved thread.
+                    if (_virtualExecutor != null)
+                    {
+                        mode = Mode.PRODUCE_EXECUTE_CONSUME;
+                        break;
+                    }
                     synchronized (this)
                     {
                         if (_pending)
@@ -244,7 +275,7 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                             _state = State.IDLE;
                             mode = Mode.EXECUTE_PRODUCE_CONSUME;
                         }
-                        else if (_tryExecutor.tryExecute(this))
+                        else if (useReservedThread(Invocable.InvocationType.BLOCKING) && _tryExecutor.tryExecute(this))
                         {
                             _pending = true;
                             _state = State.IDLE;
@@ -267,7 +298,7 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
                             _state = State.IDLE;
                             mode = Mode.EXECUTE_PRODUCE_CONSUME;
                         }
-                        else if (_tryExecutor.tryExecute(this))
+                        else if (useReservedThread(Invocable.InvocationType.EITHER) && _tryExecutor.tryExecute(this))
                         {
                             _pending = true;
                             _state = State.IDLE;
@@ -288,29 +319,50 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
 
         if (LOG.isDebugEnabled())
-            LOG.debug("{} m={} t={}/{}", this, mode, task, Invocable.getInvocationType(task));
+            LOG.debug("{} m={} t={}/{}", this, mode, task, taskType);
+
+        boolean timed = _taskTimingEnabled;
+        if (timed)
+        {
+            Mode lastMode = _lastMode;
+            if (lastMode != mode)
+            {
+                if (lastMode != null)
+                    _modeSwitches.increment();
+                _lastMode = mode;
+            }
+        }
 
         // Consume or execute task
         switch (mode)
         {
             case PRODUCE_CONSUME:
                 _pcMode.increment();
-                runTask(task);
+                if (timed)
+                    runTimedTask(mode, task, taskType);
+                else
+                    runTask(task);
                 return true;
 
             case PRODUCE_INVOKE_CONSUME:
                 _picMode.increment();
-                invokeTask(task);
+                if (timed)
+                    invokeTimedTask(task, taskType);
+                else
+                    invokeTask(task);
                 return true;
 
             case PRODUCE_EXECUTE_CONSUME:
                 _pecMode.increment();
-                execute(task);
+                execute(_virtualExecutor == null ? _executor : _virtualExecutor, timed ? new ExecutedTask(task, taskType) : task);
                 return true;
 
             case EXECUTE_PRODUCE_CONSUME:
                 _epcMode.increment();
-                runTask(task);
+                if (timed)
+                    runTimedTask(mode, task, taskType);
+                else
+                    runTask(task);
 
                 // Try to produce again?
                 synchronized (this)
@@ -341,6 +393,19 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
     }
 
+    private void runTimedTask(Mode mode, Runnable task, Invocable.InvocationType taskType)
+    {
+        long begin = System.nanoTime();
+        try
+        {
+            runTask(task);
+        }
+        finally
+        {
+            taskCompleted(mode, taskType, 0, System.nanoTime() - begin);
+        }
+    }
+
     private void invokeTask(Runnable task)
     {
         try
@@ -353,6 +418,54 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
     }
 
+    private void invokeTimedTask(Runnable task, Invocable.InvocationType taskType)
+    {
+        long begin = System.nanoTime();
+        try
+        {
+            invokeTask(task);
+        }
+        finally
+        {
+            taskCompleted(Mode.PRODUCE_INVOKE_CONSUME, taskType, 0, System.nanoTime() - begin);
+        }
+    }
+
+    private void taskCompleted(Mode mode, Invocable.InvocationType taskType, long queueNanos, long runNanos)
+    {
+        _taskTimes[mode.ordinal()].record(runNanos);
+        if (mode == Mode.PRODUCE_EXECUTE_CONSUME)
+            _pecQueueDelay.record(queueNanos);
+        onTaskCompleted(mode, taskType, queueNanos, runNanos);
+    }
+
+    /**
+     * <p>Returns whether a reserved thread should be used to consume a task with the
+     * EPC sub-strategy, when no pending producer is already available.</p>
+     * <p>When this method returns false, a {@link Invocable.InvocationType#BLOCKING BLOCKING}
+     * task is executed with PEC, and an {@link Invocable.InvocationType#EITHER EITHER}
+     * task is invoked with PIC.</p>
+     *
+     * @param invocationType the invocation type of the task, either BLOCKING or EITHER
+     * @return whether a reserved thread should be used, true by default
+     */
+    protected boolean useReservedThread(Invocable.InvocationType invocationType)
+    {
+        return true;
+    }
+
+    /**
+     * <p>Invoked after a task has been run, when {@link #isTaskTimingEnabled() task timing} is enabled.</p>
+     *
+     * @param mode the mode with which the task was run
+     * @param invocationType the invocation type of the task
+     * @param queueNanos the time the task waited in the executor, for the PEC mode, or 0
+     * @param runNanos the time spent running the task
+     */
+    protected void onTaskCompleted(Mode mode, Invocable.InvocationType invocationType, long queueNanos, long runNanos)
+    {
+    }
+
     private Runnable produceTask()
     {
         try
@@ -366,11 +479,11 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
     }
 
-    private void execute(Runnable task)
+    private void execute(Executor executor, Runnable task)
     {
         try
         {
-            _executor.execute(task);
+            executor.execute(task);
         }
         catch (RejectedExecutionException e)
         {
@@ -417,6 +530,88 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         return _epcMode.longValue();
     }
 
+    /**
+     * @return whether the time spent running tasks is measured
+     */
+    @ManagedAttribute("whether the time spent running tasks is measured")
+    public boolean isTaskTimingEnabled()
+    {
+        return _taskTimingEnabled;
+    }
+
+    /**
+     * <p>Sets whether the time spent running each task, the queue delay of the tasks
+     * executed with PEC and the mode switches are measured.</p>
+     * <p>Measuring requires reading the clock twice per task and wrapping the tasks
+     * executed with PEC, so it is disabled by default.</p>
+     *
+     * @param enabled whether the time spent running tasks is measured
+     */
+    public void setTaskTimingEnabled(boolean enabled)
+    {
+        _taskTimingEnabled = enabled;
+    }
+
+    @ManagedAttribute(value = "average time to run a task with PC mode, in nanoseconds", readonly = true)
+    public long getPCTaskAverageTime()
+    {
+        return (long)_taskTimes[Mode.PRODUCE_CONSUME.ordinal()].getMean();
+    }
+
+    @ManagedAttribute(value = "average time to run a task with PIC mode, in nanoseconds", readonly = true)
+    public long getPICTaskAverageTime()
+    {
+        return (long)_taskTimes[Mode.PRODUCE_INVOKE_CONSUME.ordinal()].getMean();
+    }
+
+    @ManagedAttribute(value = "average time to run a task with PEC mode, in nanoseconds", readonly = true)
+    public long getPECTaskAverageTime()
+    {
+        return (long)_taskTimes[Mode.PRODUCE_EXECUTE_CONSUME.ordinal()].getMean();
+    }
+
+    @ManagedAttribute(value = "average time to run a task with EPC mode, in nanoseconds", readonly = true)
+    public long getEPCTaskAverageTime()
+    {
+        return (long)_taskTimes[Mode.EXECUTE_PRODUCE_CONSUME.ordinal()].getMean();
+    }
+
+    @ManagedAttribute(value = "maximum time to run a task, in nanoseconds", readonly = true)
+    public long getTaskMaxTime()
+    {
+        long result = 0;
+        for (SampleStatistic taskTimes : _taskTimes)
+        {
+            result = Math.max(result, taskTimes.getMax());
+        }
+        return result;
+    }
+
+    @ManagedAttribute(value = "average time a task executed with PEC mode waits for a thread, in nanoseconds", readonly = true)
+    public long getPECQueueAverageDelay()
+    {
+        return (long)_pecQueueDelay.getMean();
+    }
+
+    @ManagedAttribute(value = "maximum time a task executed with PEC mode waits for a thread, in nanoseconds", readonly = true)
+    public long getPECQueueMaxDelay()
+    {
+        return _pecQueueDelay.getMax();
+    }
+
+    @ManagedAttribute(value = "number of times the mode changed from one task to the next", readonly = true)
+    public long getModeSwitches()
+    {
+        return _modeSwitches.longValue();
+    }
+
+    @ManagedAttribute(value = "the mode used for the last task", readonly = true)
+    public String getLastMode()
+    {
+        Mode mode = _lastMode;
+        return mode == null ? null : mode.name();
+    }
+
     @ManagedAttribute(value = "whether this execution strategy is idle", readonly = true)
     public boolean isIdle()
     {
@@ -426,13 +621,19 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         }
     }
 
-    @ManagedOperation(value = "resets the task counts", impact = "ACTION")
+    @ManagedOperation(value = "resets the task counts and times", impact = "ACTION")
     public void reset()
     {
         _pcMode.reset();
         _epcMode.reset();
         _pecMode.reset();
         _picMode.reset();
+        for (SampleStatistic taskTimes : _taskTimes)
+        {
+            taskTimes.reset();
+        }
+        _pecQueueDelay.reset();
+        _modeSwitches.reset();
     }
 
     @Override
@@ -477,8 +678,56 @@ public class EatWhatYouKill extends ContainerLifeCycle implements ExecutionStrat
         builder.append(getPECTasksExecuted());
         builder.append(",epc=");
         builder.append(getEPCTasksConsumed());
+        builder.append(",switches=");
+        builder.append(getModeSwitches());
         builder.append("]");
         builder.append("@");
         builder.append(DateTimeFormatter.ISO_OFFSET_DATE_TIME.format(ZonedDateTime.now()));
     }
+
+    private class ExecutedTask implements Runnable, Invocable, Closeable
+    {
+        private final long _executed = System.nanoTime();
+        private final Runnable _task;
+        private final InvocationType _taskType;
+
+        private ExecutedTask(Runnable task, InvocationType taskType)
+        {
+            _task = task;
+            _taskType = taskType;
+        }
+
+        @Override
+        public void run()
+        {
+            long begin = System.nanoTime();
+            try
+            {
+                _task.run();
+            }
+            finally
+            {
+                taskCompleted(Mode.PRODUCE_EXECUTE_CONSUME, _taskType, begin - _executed, System.nanoTime() - begin);
+            }
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return _taskType;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (_task instanceof Closeable)
+                ((Closeable)_task).close();
+        }
+
+        @Override
+        public String toString()
+        {
+            return _task.toString();
+        }
+    }
 }
@@ -234,4 +234,27 @@ public class SearchPatternTest
         int partialMatch = pattern.endsWith(data, 0, length);
         System.err.println("match1: " + partialMatch);
     }
+
+    @Test
+    public void testSearchInByteBuffers()
+    {
+        SearchPattern sp = SearchPattern.compile("violent");
+        byte[] d = "xxThese violent delights have violent ends.".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer direct = BufferUtil.allocateDirect(d.length);
+        BufferUtil.append(direct, ByteBuffer.wrap(d));
+        // A heap slice has a non zero array offset.
+        ByteBuffer heap = ByteBuffer.wrap(d, 1, d.length - 1).slice();
+
+        for (ByteBuffer data : new ByteBuffer[]{direct, heap})
+        {
+            int base = data.isDirect() ? 0 : -1;
+            assertEquals(base + 8, sp.match(data, data.position(), data.remaining()));
+            assertEquals(base + 30, sp.match(data, base + 9, d.length - 9));
+            assertEquals(-1, sp.match(data, base + 31, d.length - 31));
+            assertEquals(3, sp.endsWith(data, data.position(), base + 11));
+            assertEquals(0, sp.endsWith(data, data.position(), base + 8));
+            assertEquals(7, sp.startsWith(data, base + 11, 4, 3));
+            assertEquals(0, sp.startsWith(data, base + 2, 4, 3));
+        }
+    }
 }
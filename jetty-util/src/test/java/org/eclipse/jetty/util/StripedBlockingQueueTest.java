@@ -0,0 +1,239 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StripedBlockingQueueTest
+{
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4})
+    public void testOfferPoll(int stripes)
+    {
+        StripedBlockingQueue<String> queue = new StripedBlockingQueue<>(stripes);
+        assertEquals(stripes, queue.getStripes());
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        queue.offer("one");
+        queue.offer("two");
+        queue.offer("three");
+        assertEquals(3, queue.size());
+        assertFalse(queue.isEmpty());
+        assertEquals("one", queue.peek());
+
+        // FIFO within the stripe of the current thread.
+        assertEquals("one", queue.poll());
+        assertEquals("two", queue.poll());
+        assertEquals("three", queue.poll());
+        assertNull(queue.poll());
+        assertEquals(0, queue.size());
+        assertThrows(NullPointerException.class, () -> queue.offer(null));
+    }
+
+    @Test
+    public void testPollStealsFromOtherStripes() throws Exception
+    {
+        StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<>(4);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; ++i)
+        {
+            int value = i;
+            Thread thread = new Thread(() -> queue.offer(value));
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        assertEquals(8, queue.size());
+
+        Set<Integer> values = new HashSet<>();
+        Integer value;
+        while ((value = queue.poll()) != null)
+        {
+            values.add(value);
+        }
+        assertEquals(8, values.size());
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testPollTimeout() throws Exception
+    {
+        StripedBlockingQueue<String> queue = new StripedBlockingQueue<>(2);
+        long begin = System.nanoTime();
+        assertNull(queue.poll(100, TimeUnit.MILLISECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin) >= 100);
+        queue.offer("one");
+        assertEquals("one", queue.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testTakeIsWokenUpByOffer() throws Exception
+    {
+        StripedBlockingQueue<String> queue = new StripedBlockingQueue<>(2);
+        AtomicReference<String> result = new AtomicReference<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        Thread thread = new Thread(() ->
+        {
+            try
+            {
+                result.set(queue.take());
+                latch.countDown();
+            }
+            catch (Throwable x)
+            {
+                failure.set(x);
+            }
+        });
+        thread.start();
+
+        // Let the thread block in take().
+        Thread.sleep(100);
+        queue.offer("one");
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        thread.join(5000);
+        assertNull(failure.get());
+        assertEquals("one", result.get());
+    }
+
+    @Test
+    public void testTakeIsInterrupted() throws Exception
+    {
+        StripedBlockingQueue<String> queue = new StripedBlockingQueue<>(1);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(() ->
+        {
+            try
+            {
+                queue.take();
+            }
+            catch (Throwable x)
+            {
+                failure.set(x);
+            }
+        });
+        thread.start();
+        Thread.sleep(100);
+        thread.interrupt();
+        thread.join(5000);
+        assertFalse(thread.isAlive());
+        assertTrue(failure.get() instanceof InterruptedException);
+    }
+
+    @Test
+    public void testIteratorRemove()
+    {
+        StripedBlockingQueue<String> queue = new StripedBlockingQueue<>(3);
+        queue.offer("one");
+        queue.offer("two");
+        Iterator<String> iterator = queue.iterator();
+        assertEquals("one", iterator.next());
+        iterator.remove();
+        assertEquals(1, queue.size());
+        assertTrue(queue.remove("two"));
+        assertFalse(queue.remove("two"));
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void testConcurrentProducersConsumers() throws Exception
+    {
+        StripedBlockingQueue<Integer> queue = new StripedBlockingQueue<>(4);
+        int producers = 4;
+        int consumers = 4;
+        int iterations = 10000;
+        Set<Integer> consumed = ConcurrentHashMap.newKeySet();
+        CountDownLatch latch = new CountDownLatch(producers * iterations);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int c = 0; c < consumers; ++c)
+        {
+            Thread thread = new Thread(() ->
+            {
+                try
+                {
+                    while (true)
+                    {
+                        Integer value = queue.poll(1, TimeUnit.SECONDS);
+                        if (value == null)
+                            continue;
+                        if (value < 0)
+                            return;
+                        consumed.add(value);
+                        latch.countDown();
+                    }
+                }
+                catch (Throwable x)
+                {
+                    failure.compareAndSet(null, x);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (int p = 0; p < producers; ++p)
+        {
+            int base = p * iterations;
+            new Thread(() ->
+            {
+                for (int i = 0; i < iterations; ++i)
+                {
+                    queue.offer(base + i);
+                }
+            }).start();
+        }
+
+        assertTrue(latch.await(15, TimeUnit.SECONDS));
+        assertEquals(producers * iterations, consumed.size());
+
+        for (int c = 0; c < consumers; ++c)
+        {
+            queue.offer(-1);
+        }
+        for (Thread thread : threads)
+        {
+            thread.join(5000);
+            assertFalse(thread.isAlive());
+        }
+        assertNull(failure.get());
+    }
+}
@@ -19,6 +19,7 @@
 package org.eclipse.jetty.util;
 
 import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
@@ -33,6 +34,7 @@ import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.DynamicTest.dynamicTest;
 
@@ -255,4 +257,61 @@ public class URLEncodedTest
         String expected = "test\u00e4";
         assertThat(urlEncoded.getString("text"), is(expected));
     }
+
+    @Test
+    public void testDecoderSplitContent()
+    {
+        String form = "a=1&b=h%C3%A9llo+w%C3%B6rld&c&&d=x=y&e=&%E2%82%AC=euro";
+        byte[] bytes = form.getBytes(StandardCharsets.US_ASCII);
+        MultiMap<String> expected = new MultiMap<>();
+        UrlEncoded.decodeUtf8To(form, expected);
+
+        // Split the content in two at every position, also within escapes and UTF-8 sequences.
+        for (int split = 0; split <= bytes.length; ++split)
+        {
+            MultiMap<String> map = new MultiMap<>();
+            UrlEncoded.Decoder decoder = new UrlEncoded.Decoder(map, StandardCharsets.UTF_8, -1, -1);
+            decoder.decode(ByteBuffer.wrap(bytes, 0, split));
+            decoder.decode(ByteBuffer.wrap(bytes, split, bytes.length - split));
+            assertEquals(expected, decoder.complete(), "split=" + split);
+        }
+
+        // One byte at a time.
+        MultiMap<String> map = new MultiMap<>();
+        UrlEncoded.Decoder decoder = new UrlEncoded.Decoder(map, StandardCharsets.UTF_8, -1, -1);
+        for (byte b : bytes)
+        {
+            ByteBuffer buffer = ByteBuffer.wrap(new byte[]{b});
+            decoder.decode(buffer);
+            assertEquals(0, buffer.remaining());
+        }
+        assertEquals(expected, decoder.complete());
+        assertEquals("h\u00e9llo w\u00f6rld", map.getString("b"));
+        assertEquals("", map.getString("c"));
+        assertEquals("x=y", map.getString("d"));
+        assertEquals("euro", map.getString("\u20ac"));
+    }
+
+    @Test
+    public void testDecoderCharsetAndLimits()
+    {
+        MultiMap<String> map = new MultiMap<>();
+        UrlEncoded.Decoder decoder = new UrlEncoded.Decoder(map, StandardCharsets.ISO_8859_1, -1, -1);
+        decoder.decode(ByteBuffer.wrap("name=libell%E".getBytes(StandardCharsets.ISO_8859_1)));
+        decoder.decode(ByteBuffer.wrap("9".getBytes(StandardCharsets.ISO_8859_1)));
+        assertEquals("libell\u00E9", decoder.complete().getString("name"));
+
+        UrlEncoded.Decoder maxKeys = new UrlEncoded.Decoder(new MultiMap<>(), StandardCharsets.UTF_8, -1, 1);
+        assertThrows(IllegalStateException.class, () -> maxKeys.decode(ByteBuffer.wrap("a=1&b=2&".getBytes(StandardCharsets.UTF_8))));
+
+        UrlEncoded.Decoder maxLength = new UrlEncoded.Decoder(new MultiMap<>(), StandardCharsets.UTF_8, 4, -1);
+        maxLength.decode(ByteBuffer.wrap("a=1&".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalStateException.class, () -> maxLength.decode(ByteBuffer.wrap("b".getBytes(StandardCharsets.UTF_8))));
+
+        UrlEncoded.Decoder escape = new UrlEncoded.Decoder(new MultiMap<>(), StandardCharsets.UTF_8, -1, -1);
+        escape.decode(ByteBuffer.wrap("a=%4".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalArgumentException.class, escape::complete);
+
+        assertThrows(IllegalArgumentException.class, () -> new UrlEncoded.Decoder(new MultiMap<>(), StandardCharsets.UTF_16, -1, -1));
+    }
 }
@@ -20,10 +20,13 @@ package org.eclipse.jetty.util.thread;
 
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.jupiter.api.Test;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class AutoLockTest
@@ -69,6 +72,47 @@ public class AutoLockTest
         assertFalse(lock.isLocked());
     }
 
+    @Test
+    public void testTryLock() throws Exception
+    {
+        AutoLock lock = new AutoLock();
+
+        try (AutoLock l = lock.tryLock())
+        {
+            assertNotNull(l);
+            assertTrue(lock.isLocked());
+        }
+        assertFalse(lock.isLocked());
+
+        final CountDownLatch held = new CountDownLatch(1);
+        final CountDownLatch hold = new CountDownLatch(1);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread thread = new Thread(() ->
+        {
+            try (AutoLock l = lock.lock())
+            {
+                held.countDown();
+                hold.await();
+            }
+            catch (Throwable x)
+            {
+                failure.set(x);
+            }
+        });
+        thread.start();
+        held.await();
+
+        try (AutoLock l = lock.tryLock())
+        {
+            assertNull(l);
+        }
+
+        hold.countDown();
+        thread.join();
+        assertNull(failure.get());
+        assertFalse(lock.isLocked());
+    }
+
     @Test
     public void testContend() throws Exception
     {
@@ -24,6 +24,7 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.jetty.logging.StacklessLogging;
+import org.eclipse.jetty.util.StripedBlockingQueue;
 import org.eclipse.jetty.util.thread.ThreadPool.SizedThreadPool;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
@@ -506,6 +507,29 @@ public class QueuedThreadPoolTest extends AbstractThreadPoolTest
         tp.stop();
     }
 
+    @Test
+    public void testStripedQueue() throws Exception
+    {
+        QueuedThreadPool tp = new QueuedThreadPool(4, 2, new StripedBlockingQueue<>(2));
+        tp.setIdleTimeout(400);
+        tp.start();
+        waitForIdle(tp, 2);
+
+        int jobs = 1000;
+        CountDownLatch latch = new CountDownLatch(jobs);
+        for (int i = 0; i < jobs; i++)
+        {
+            tp.execute(latch::countDown);
+        }
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+        // Idle threads blocked on the striped queue time out and shrink the pool.
+        waitForThreads(tp, 2);
+        waitForIdle(tp, 2);
+        assertThat(tp.getQueueSize(), is(0));
+        tp.stop();
+    }
+
     @Test
     public void testSteadyShrink() throws Exception
     {
@@ -31,7 +31,11 @@ import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -205,6 +209,88 @@ public class ReservedThreadExecutorTest
         assertFalse(thread.isAlive());
     }
 
+    @Test
+    public void testReserveLatencyAfterMiss() throws Exception
+    {
+        // A thread started by a miss records how long the miss lasted.
+        assertThat(_reservedExecutor.tryExecute(NOOP), is(false));
+        Thread.sleep(50);
+        _executor.startThread();
+        waitForAvailable(1);
+        assertThat(_reservedExecutor.getMaxReserveLatency(), greaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50)));
+
+        // A thread started to replenish the reserve does not.
+        _reservedExecutor.resetStatistics();
+        Task task = new Task();
+        assertThat(_reservedExecutor.tryExecute(task), is(true));
+        assertThat(_executor._queue.size(), is(1));
+        Thread.sleep(50);
+        _executor.startThread();
+        waitForAvailable(1);
+        assertThat(_reservedExecutor.getMaxReserveLatency(), is(0L));
+
+        task._complete.countDown();
+        waitForAvailable(2);
+    }
+
+    @Test
+    public void testSizedOnDemand() throws Exception
+    {
+        ReservedThreadExecutor reserved = new ReservedThreadExecutor(task -> new Thread(task).start(), 8);
+        reserved.setMinCapacity(1);
+        reserved.start();
+        try
+        {
+            assertThat(reserved.getTargetCapacity(), is(1));
+
+            // A burst that misses grows the target.
+            for (int i = 0; i < 128; i++)
+            {
+                reserved.tryExecute(NOOP);
+            }
+            assertThat(reserved.getTargetCapacity(), greaterThan(1));
+            assertThat(reserved.getMisses(), greaterThan(0L));
+            String dump = reserved.dump();
+            assertThat(dump, containsString("sizing size=1"));
+            assertThat(dump, containsString("grow 1->"));
+
+            // Quiet windows, where every call hits, shrink the target.
+            int target = reserved.getTargetCapacity();
+            for (int i = 0; i < 4 * 128; i++)
+            {
+                long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (reserved.getAvailable() == 0)
+                {
+                    if (System.nanoTime() > end)
+                        fail("Took too long");
+                    Thread.yield();
+                }
+                reserved.tryExecute(NOOP);
+            }
+            assertThat(reserved.getTargetCapacity(), lessThan(target));
+            assertThat(reserved.dump(), containsString("shrink " + target + "->"));
+            assertThat(reserved.getHits(), greaterThan(0L));
+        }
+        finally
+        {
+            reserved.stop();
+        }
+    }
+
+    @Test
+    public void testFixedCapacity()
+    {
+        // By default the capacity is fixed, so tryExecute() is not sampled.
+        assertThat(_reservedExecutor.getMinCapacity(), is(SIZE));
+        for (int i = 0; i < 256; i++)
+        {
+            _reservedExecutor.tryExecute(NOOP);
+        }
+        assertThat(_reservedExecutor.getTargetCapacity(), is(SIZE));
+        assertThat(_reservedExecutor.getMisses(), is(256L));
+        assertFalse(_reservedExecutor.dump().contains("sizing"));
+    }
+
     protected void waitForAvailable(int size) throws InterruptedException
     {
         long started = System.nanoTime();
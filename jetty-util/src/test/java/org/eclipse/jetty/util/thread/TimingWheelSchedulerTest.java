@@ -0,0 +1,167 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelSchedulerTest
+{
+    private TimingWheelScheduler scheduler;
+
+    @BeforeEach
+    public void prepare() throws Exception
+    {
+        scheduler = new TimingWheelScheduler("wheel", true, 1);
+        scheduler.start();
+    }
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        scheduler.stop();
+    }
+
+    @Test
+    public void testTasksAcrossLevelsExpireInOrder() throws Exception
+    {
+        // With 1 ms ticks, the delays span the first two levels of the wheel.
+        long[] delays = {5, 63, 64, 65, 200, 1000, 4200};
+        List<Long> expired = new ArrayList<>();
+        CountDownLatch latch = new CountDownLatch(delays.length);
+        long start = System.nanoTime();
+        for (int i = delays.length - 1; i >= 0; --i)
+        {
+            long delay = delays[i];
+            scheduler.schedule(() ->
+            {
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                assertThat(elapsed, greaterThanOrEqualTo(delay));
+                synchronized (expired)
+                {
+                    expired.add(delay);
+                }
+                latch.countDown();
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        List<Long> expected = new ArrayList<>();
+        for (long delay : delays)
+        {
+            expected.add(delay);
+        }
+        assertEquals(expected, expired);
+        awaitSize(0);
+        assertEquals(delays.length, scheduler.getExpiredCount());
+    }
+
+    @Test
+    public void testCancelRemovesTaskFromWheel() throws Exception
+    {
+        AtomicInteger expired = new AtomicInteger();
+        List<Scheduler.Task> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i)
+        {
+            tasks.add(scheduler.schedule(expired::incrementAndGet, 10 + i, TimeUnit.SECONDS));
+        }
+        awaitSize(1000);
+
+        tasks.forEach(task -> assertTrue(task.cancel()));
+        tasks.forEach(task -> assertFalse(task.cancel()));
+
+        awaitSize(0);
+        assertEquals(1000, scheduler.getCancelledCount());
+        assertEquals(0, expired.get());
+    }
+
+    @Test
+    public void testScheduleFromTask() throws Exception
+    {
+        CountDownLatch latch = new CountDownLatch(3);
+        Runnable task = new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                latch.countDown();
+                if (latch.getCount() > 0)
+                    scheduler.schedule(this, 0, TimeUnit.MILLISECONDS);
+            }
+        };
+        scheduler.schedule(task, 10, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testScheduleAfterIdle() throws Exception
+    {
+        CountDownLatch latch1 = new CountDownLatch(1);
+        scheduler.schedule(latch1::countDown, 1, TimeUnit.MILLISECONDS);
+        assertTrue(latch1.await(5, TimeUnit.SECONDS));
+
+        // Let the scheduler thread park while the wheel is empty.
+        Thread.sleep(500);
+
+        CountDownLatch latch2 = new CountDownLatch(1);
+        long start = System.nanoTime();
+        scheduler.schedule(latch2::countDown, 100, TimeUnit.MILLISECONDS);
+        assertTrue(latch2.await(5, TimeUnit.SECONDS));
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), greaterThanOrEqualTo(100L));
+    }
+
+    @Test
+    public void testStopDiscardsTasks() throws Exception
+    {
+        AtomicInteger expired = new AtomicInteger();
+        scheduler.schedule(expired::incrementAndGet, 1, TimeUnit.HOURS);
+        scheduler.stop();
+        assertEquals(0, scheduler.getSize());
+        assertFalse(scheduler.schedule(expired::incrementAndGet, 1, TimeUnit.MILLISECONDS).cancel());
+
+        scheduler.start();
+        CountDownLatch latch = new CountDownLatch(1);
+        scheduler.schedule(latch::countDown, 1, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, expired.get());
+    }
+
+    private void awaitSize(int size) throws InterruptedException
+    {
+        long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (scheduler.getSize() != size && System.nanoTime() < end)
+        {
+            Thread.sleep(10);
+        }
+        assertEquals(size, scheduler.getSize());
+    }
+}
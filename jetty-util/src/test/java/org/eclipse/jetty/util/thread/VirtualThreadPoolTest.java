@@ -0,0 +1,182 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.thread.strategy.EatWhatYouKill;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VirtualThreadPoolTest
+{
+    private VirtualThreadPool threadPool;
+
+    @AfterEach
+    public void dispose() throws Exception
+    {
+        if (threadPool != null)
+            threadPool.stop();
+    }
+
+    private static Executor newFakeVirtualExecutor()
+    {
+        return task -> new Thread(task, "fake-virtual").start();
+    }
+
+    @Test
+    public void testDefaultVirtualThreads() throws Exception
+    {
+        threadPool = new VirtualThreadPool();
+        threadPool.start();
+        assertEquals(VirtualThreads.areSupported(), threadPool.isUseVirtualThreads());
+        if (VirtualThreads.areSupported())
+        {
+            CountDownLatch latch = new CountDownLatch(1);
+            threadPool.getVirtualThreadsExecutor().execute(() ->
+            {
+                if (VirtualThreads.isVirtualThread())
+                    latch.countDown();
+            });
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        }
+        else
+        {
+            assertNull(threadPool.getVirtualThreadsExecutor());
+        }
+    }
+
+    @Test
+    public void testExecuteAndBudgetUsePlatformThreadPool() throws Exception
+    {
+        QueuedThreadPool platform = new QueuedThreadPool(16, 4);
+        platform.setName("platform");
+        threadPool = new VirtualThreadPool(platform, newFakeVirtualExecutor());
+        threadPool.start();
+
+        assertEquals(16, threadPool.getMaxThreads());
+        assertEquals(4, threadPool.getMinThreads());
+        assertSame(platform.getThreadPoolBudget(), threadPool.getThreadPoolBudget());
+
+        CountDownLatch latch = new CountDownLatch(1);
+        threadPool.execute(() ->
+        {
+            if (Thread.currentThread().getName().startsWith("platform"))
+                latch.countDown();
+        });
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0, threadPool.getVirtualThreadTasks());
+    }
+
+    @Test
+    public void testEatWhatYouKillExecutesBlockingTasksOnVirtualThreads() throws Exception
+    {
+        threadPool = new VirtualThreadPool(new QueuedThreadPool(), newFakeVirtualExecutor());
+        threadPool.start();
+        // Prime the reserved threads, they must not be used for blocking tasks.
+        threadPool.tryExecute(() ->
+        {
+        });
+
+        int count = 8;
+        CountDownLatch latch = new CountDownLatch(count);
+        Queue<String> threads = new ConcurrentLinkedQueue<>();
+        Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        for (int i = 0; i < count; ++i)
+        {
+            tasks.offer(new Task(() ->
+            {
+                threads.offer(Thread.currentThread().getName());
+                latch.countDown();
+            }, Invocable.InvocationType.BLOCKING));
+        }
+        tasks.offer(new Task(latch::countDown, Invocable.InvocationType.NON_BLOCKING));
+        CountDownLatch nonBlocking = new CountDownLatch(1);
+        tasks.offer(new Task(nonBlocking::countDown, Invocable.InvocationType.NON_BLOCKING));
+
+        EatWhatYouKill ewyk = new EatWhatYouKill(tasks::poll, threadPool);
+        ewyk.start();
+        try
+        {
+            ewyk.produce();
+
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+            assertTrue(nonBlocking.await(5, TimeUnit.SECONDS));
+            assertThat(threads, everyItem(startsWith("fake-virtual")));
+            assertEquals(count, ewyk.getPECTasksExecuted());
+            assertEquals(0, ewyk.getEPCTasksConsumed());
+            assertEquals(2, ewyk.getPCTasksConsumed());
+            assertEquals(count, threadPool.getVirtualThreadTasks());
+        }
+        finally
+        {
+            ewyk.stop();
+        }
+    }
+
+    @Test
+    public void testReservedThreadExecutorSizedFromPlatformThreadPool() throws Exception
+    {
+        QueuedThreadPool platform = new QueuedThreadPool(32);
+        threadPool = new VirtualThreadPool(platform, newFakeVirtualExecutor());
+        ReservedThreadExecutor reserved = new ReservedThreadExecutor(threadPool, -1);
+        threadPool.addBean(reserved);
+        threadPool.start();
+
+        assertEquals(platform.getBean(ReservedThreadExecutor.class).getCapacity(), reserved.getCapacity());
+        assertNotNull(threadPool.getVirtualThreadsExecutor());
+    }
+
+    private static class Task implements Runnable, Invocable
+    {
+        private final Runnable task;
+        private final InvocationType invocationType;
+
+        private Task(Runnable task, InvocationType invocationType)
+        {
+            this.task = task;
+            this.invocationType = invocationType;
+        }
+
+        @Override
+        public void run()
+        {
+            task.run();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return invocationType;
+        }
+    }
+}
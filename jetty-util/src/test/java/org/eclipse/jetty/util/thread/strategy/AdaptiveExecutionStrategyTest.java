@@ -0,0 +1,185 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.thread.strategy;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.thread.Invocable;
+import org.eclipse.jetty.util.thread.TryExecutor;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveExecutionStrategyTest
+{
+    private static final Executor THREADS = task -> new Thread(task).start();
+
+    @Test
+    public void testFastEitherTasksAreInvoked()
+    {
+        AdaptiveExecutionStrategy strategy = new AdaptiveExecutionStrategy(() -> null, THREADS);
+
+        // Not enough samples, behave like EatWhatYouKill.
+        assertTrue(strategy.useReservedThread(Invocable.InvocationType.EITHER));
+
+        record(strategy, Invocable.InvocationType.EITHER, 0, TimeUnit.MICROSECONDS.toNanos(1));
+        assertFalse(strategy.useReservedThread(Invocable.InvocationType.EITHER));
+        assertEquals(1, strategy.getDeclinedReservedThreads());
+
+        record(strategy, Invocable.InvocationType.EITHER, 0, TimeUnit.MILLISECONDS.toNanos(1));
+        assertTrue(strategy.useReservedThread(Invocable.InvocationType.EITHER));
+    }
+
+    @Test
+    public void testLongBlockingTasksAreExecutedUnlessQueueing()
+    {
+        AdaptiveExecutionStrategy strategy = new AdaptiveExecutionStrategy(() -> null, THREADS);
+
+        record(strategy, Invocable.InvocationType.BLOCKING, TimeUnit.MICROSECONDS.toNanos(10), TimeUnit.MILLISECONDS.toNanos(5));
+        assertFalse(strategy.useReservedThread(Invocable.InvocationType.BLOCKING));
+
+        // The executor queue is now slow, use the reserved thread.
+        record(strategy, Invocable.InvocationType.BLOCKING, TimeUnit.MILLISECONDS.toNanos(1), TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(strategy.useReservedThread(Invocable.InvocationType.BLOCKING));
+
+        strategy.reset();
+        assertEquals(0, strategy.getQueueDelay());
+        assertTrue(strategy.useReservedThread(Invocable.InvocationType.BLOCKING));
+    }
+
+    @Test
+    public void testModeStatistics() throws Exception
+    {
+        Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        CountDownLatch latch = new CountDownLatch(4);
+        EatWhatYouKill strategy = new EatWhatYouKill(tasks::poll, new TryExecutor.NoTryExecutor(THREADS));
+        strategy.setTaskTimingEnabled(true);
+        strategy.start();
+        try
+        {
+            for (int i = 0; i < 2; ++i)
+            {
+                tasks.offer(new Task(latch::countDown, Invocable.InvocationType.NON_BLOCKING));
+            }
+            for (int i = 0; i < 2; ++i)
+            {
+                tasks.offer(new Task(latch::countDown, Invocable.InvocationType.BLOCKING));
+            }
+            strategy.produce();
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+            assertEquals(2, strategy.getPCTasksConsumed());
+            assertEquals(2, strategy.getPECTasksExecuted());
+            assertEquals(1, strategy.getModeSwitches());
+            assertEquals("PRODUCE_EXECUTE_CONSUME", strategy.getLastMode());
+            assertThat(strategy.getPCTaskAverageTime(), greaterThan(0L));
+            assertThat(strategy.toString(), containsString("switches=1"));
+
+            // The executed tasks record their statistics after running.
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (strategy.getPECQueueMaxDelay() == 0 && System.nanoTime() < end)
+            {
+                Thread.sleep(10);
+            }
+            assertThat(strategy.getPECQueueMaxDelay(), greaterThan(0L));
+
+            strategy.reset();
+            assertEquals(0, strategy.getModeSwitches());
+            assertEquals(0, strategy.getPECQueueMaxDelay());
+        }
+        finally
+        {
+            strategy.stop();
+        }
+    }
+
+    @Test
+    public void testTaskTimingDisabledByDefault() throws Exception
+    {
+        Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+        Queue<Runnable> executed = new ConcurrentLinkedQueue<>();
+        EatWhatYouKill strategy = new EatWhatYouKill(tasks::poll, new TryExecutor.NoTryExecutor(executed::offer));
+        assertFalse(strategy.isTaskTimingEnabled());
+        assertTrue(new AdaptiveExecutionStrategy(() -> null, THREADS).isTaskTimingEnabled());
+        strategy.start();
+        try
+        {
+            Task consumed = new Task(() -> {}, Invocable.InvocationType.NON_BLOCKING);
+            Task blocking = new Task(() -> {}, Invocable.InvocationType.BLOCKING);
+            tasks.offer(consumed);
+            tasks.offer(blocking);
+            strategy.produce();
+
+            assertEquals(1, strategy.getPCTasksConsumed());
+            assertEquals(1, strategy.getPECTasksExecuted());
+            // The executed task is not wrapped, and nothing is timed.
+            assertThat(executed.poll(), sameInstance(blocking));
+            assertEquals(0, strategy.getModeSwitches());
+            assertEquals(0, strategy.getTaskMaxTime());
+            assertThat(strategy.getLastMode(), nullValue());
+        }
+        finally
+        {
+            strategy.stop();
+        }
+    }
+
+    private static void record(AdaptiveExecutionStrategy strategy, Invocable.InvocationType type, long queueNanos, long runNanos)
+    {
+        for (int i = 0; i < 64; ++i)
+        {
+            strategy.onTaskCompleted(EatWhatYouKill.Mode.PRODUCE_EXECUTE_CONSUME, type, queueNanos, runNanos);
+        }
+    }
+
+    private static class Task implements Runnable, Invocable
+    {
+        private final Runnable _task;
+        private final InvocationType _invocationType;
+
+        private Task(Runnable task, InvocationType invocationType)
+        {
+            _task = task;
+            _invocationType = invocationType;
+        }
+
+        @Override
+        public void run()
+        {
+            _task.run();
+        }
+
+        @Override
+        public InvocationType getInvocationType()
+        {
+            return _invocationType;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.HttpURI;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class HttpURIBenchmark
+{
+    public enum Target
+    {
+        STATIC("/static/css/site.min.css"),
+        QUERY("/catalog/products/search?q=running+shoes&size=42&color=blue&page=2"),
+        PARAM("/app/cart;jsessionid=node01x5bxfq3wyl0k1m2m6u9mjd7w40.node0?item=42#summary"),
+        ENCODED("/docs/Annual%20Report%202020.pdf");
+
+        private final String _target;
+
+        Target(String target)
+        {
+            _target = target;
+        }
+    }
+
+    @Param({"STATIC", "QUERY", "PARAM", "ENCODED"})
+    Target target;
+
+    final HttpURI uri = new HttpURI();
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String testDecodedPath()
+    {
+        // What most requests need: only the decoded path for the context and servlet mapping.
+        uri.parseRequestTarget("GET", target._target);
+        return uri.getDecodedPath();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void testAllComponents(Blackhole blackhole)
+    {
+        uri.parseRequestTarget("GET", target._target);
+        blackhole.consume(uri.getPath());
+        blackhole.consume(uri.getDecodedPath());
+        blackhole.consume(uri.getParam());
+        blackhole.consume(uri.getQuery());
+        blackhole.consume(uri.getFragment());
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(HttpURIBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
@@ -0,0 +1,133 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.http.jmh;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.http.pathmap.MappedResource;
+import org.eclipse.jetty.http.pathmap.PathMappings;
+import org.eclipse.jetty.http.pathmap.RegexPathSpec;
+import org.eclipse.jetty.http.pathmap.ServletPathSpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class PathMappingsBenchmark
+{
+    public enum Target
+    {
+        EXACT, PREFIX, SUFFIX, REGEX, DEFAULT
+    }
+
+    @Param({"10", "100", "1000"})
+    int mappings;
+
+    @Param({"EXACT", "PREFIX", "SUFFIX", "REGEX", "DEFAULT"})
+    Target target;
+
+    PathMappings<String> pathMappings;
+    String[] paths;
+
+    @Setup
+    public void setUp()
+    {
+        // A mix of exact, prefix and suffix servlet specs with a few regex specs,
+        // as in a web application with many servlets and filters.
+        pathMappings = new PathMappings<>();
+        pathMappings.put(new ServletPathSpec("/"), "default");
+        for (int i = 0; pathMappings.size() < mappings; i++)
+        {
+            switch (i % 5)
+            {
+                case 0:
+                    pathMappings.put(new ServletPathSpec("/app" + i + "/page.html"), "exact" + i);
+                    break;
+                case 1:
+                case 2:
+                    pathMappings.put(new ServletPathSpec("/app" + i + "/api/*"), "prefix" + i);
+                    break;
+                case 3:
+                    pathMappings.put(new ServletPathSpec("*.ext" + i), "suffix" + i);
+                    break;
+                default:
+                    pathMappings.put(new RegexPathSpec("^/rest" + i + "/[0-9]+$"), "regex" + i);
+                    break;
+            }
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        paths = new String[64];
+        for (int p = 0; p < paths.length; p++)
+        {
+            int i = 5 * random.nextInt(Math.max(1, (mappings - 1) / 5));
+            switch (target)
+            {
+                case EXACT:
+                    paths[p] = "/app" + i + "/page.html";
+                    break;
+                case PREFIX:
+                    paths[p] = "/app" + (i + 1) + "/api/v1/items/" + p;
+                    break;
+                case SUFFIX:
+                    paths[p] = "/static/images/item" + p + ".ext" + (i + 3);
+                    break;
+                case REGEX:
+                    paths[p] = "/rest" + (i + 4) + "/" + p;
+                    break;
+                default:
+                    paths[p] = "/unmapped/resource/" + p;
+                    break;
+            }
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MappedResource<String> testGetMatch()
+    {
+        String path = paths[ThreadLocalRandom.current().nextInt(paths.length)];
+        return pathMappings.getMatch(path);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(PathMappingsBenchmark.class.getSimpleName())
+            .forks(1)
+            .build();
+
+        new Runner(opt).run();
+    }
+}
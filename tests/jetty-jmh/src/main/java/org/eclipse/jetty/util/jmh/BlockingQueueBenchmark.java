@@ -0,0 +1,119 @@
+//
+// ========================================================================
+// Copyright (c) 1995-2020 Mort Bay Consulting Pty Ltd and others.
+//
+// This program and the accompanying materials are made available under
+// the terms of the Eclipse Public License 2.0 which is available at
+// https://www.eclipse.org/legal/epl-2.0
+//
+// This Source Code may also be made available under the following
+// Secondary Licenses when the conditions for such availability set
+// forth in the Eclipse Public License, v. 2.0 are satisfied:
+// the Apache License v2.0 which is available at
+// https://www.apache.org/licenses/LICENSE-2.0
+//
+// SPDX-License-Identifier: EPL-2.0 OR Apache-2.0
+// ========================================================================
+//
+
+package org.eclipse.jetty.util.jmh;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.BlockingArrayQueue;
+import org.eclipse.jetty.util.StripedBlockingQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@State(Scope.Benchmark)
+@Warmup(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 5, time = 1000, timeUnit = TimeUnit.MILLISECONDS)
+public class BlockingQueueBenchmark
+{
+    private static final Runnable JOB = () ->
+    {
+    };
+
+    public enum Type
+    {
+        BAQ, STRIPED, STRIPED1
+    }
+
+    @Param({"BAQ", "STRIPED", "STRIPED1"})
+    Type type;
+
+    BlockingQueue<Runnable> queue;
+
+    @Setup
+    public void buildQueue()
+    {
+        switch (type)
+        {
+            case BAQ:
+                queue = new BlockingArrayQueue<>(8192, 8192);
+                break;
+            case STRIPED:
+                queue = new StripedBlockingQueue<>();
+                break;
+            case STRIPED1:
+                queue = new StripedBlockingQueue<>(1);
+                break;
+            default:
+                throw new IllegalStateException();
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(1)
+    public Runnable testFew()
+    {
+        return offerPoll();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(4)
+    public Runnable testSome()
+    {
+        return offerPoll();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @Threads(16)
+    public Runnable testMany()
+    {
+        return offerPoll();
+    }
+
+    private Runnable offerPoll()
+    {
+        queue.offer(JOB);
+        return queue.poll();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        Options opt = new OptionsBuilder()
+            .include(BlockingQueueBenchmark.class.getSimpleName())
+            .forks(1)
+            // .addProfiler(LinuxPerfAsmProfiler.class)
+            .build();
+
+        new Runner(opt).run();
+    }
+}